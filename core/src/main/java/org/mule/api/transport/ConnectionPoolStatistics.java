@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.api.transport;
+
+import java.util.Map;
+
+/**
+ * Utilization of the pool of outbound connections of a connector.
+ *
+ * @see ConnectionPoolStatisticsProvider
+ */
+public interface ConnectionPoolStatistics
+{
+    /**
+     * @return the number of connections currently in use
+     */
+    int getNumActive();
+
+    /**
+     * @return the number of open connections waiting to be used
+     */
+    int getNumIdle();
+
+    /**
+     * @return the maximum number of connections in use at the same time for a single endpoint
+     */
+    int getMaxActive();
+
+    int getMaxIdle();
+
+    int getMinIdle();
+
+    /**
+     * @return the number of connections opened since the connector was started
+     */
+    long getCreatedConnections();
+
+    /**
+     * @return the number of connections closed by the pool, -1 if the pool is not told when it closes one
+     */
+    long getDestroyedConnections();
+
+    /**
+     * @return the number of connection attempts that failed or were backed off
+     */
+    long getFailedConnections();
+
+    /**
+     * @return the number of idle connections found dead when they were checked, -1 if the pool does not check
+     *         them itself
+     */
+    long getInvalidConnections();
+
+    /**
+     * @return a description of the usage of each route (i.e. remote host) the pool connects to, empty if the
+     *         pool does not keep track of routes
+     */
+    Map<String, String> getRouteUsage();
+}
@@ -0,0 +1,16 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.api.transport;
+
+/**
+ * Implemented by connectors that pool their outbound connections, so the utilization of
+ * the pool can be monitored, e.g. over JMX.
+ */
+public interface ConnectionPoolStatisticsProvider
+{
+    ConnectionPoolStatistics getConnectionPoolStatistics();
+}
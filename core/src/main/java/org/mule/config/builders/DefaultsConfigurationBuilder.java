@@ -32,6 +32,7 @@ import org.mule.util.queue.DelegateQueueManager;
 import org.mule.util.queue.QueueManager;
 import org.mule.util.store.DefaultObjectStoreFactoryBean;
 import org.mule.util.store.MuleObjectStoreManager;
+import org.mule.util.timer.HashedTimingWheel;
 
 /**
  * Configures defaults required by Mule. This configuration builder is used to
@@ -67,6 +68,8 @@ public class DefaultsConfigurationBuilder extends AbstractConfigurationBuilder
 
         registry.registerObject(MuleProperties.OBJECT_SECURITY_MANAGER, new MuleSecurityManager());
 
+        registry.registerObject(MuleProperties.OBJECT_TIMING_WHEEL, new HashedTimingWheel());
+
         registry.registerObject(MuleProperties.OBJECT_STORE_DEFAULT_IN_MEMORY_NAME,
             DefaultObjectStoreFactoryBean.createDefaultInMemoryObjectStore());
 
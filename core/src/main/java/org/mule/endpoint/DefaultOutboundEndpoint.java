@@ -84,6 +84,30 @@ public class DefaultOutboundEndpoint extends AbstractEndpoint implements Outboun
         }
     }
 
+    /**
+     * Creates an endpoint with the configuration of another endpoint, for a different address. The
+     * connector, message processors and properties of the prototype are reused as they are, so the
+     * address must not change the connector or the transformers of the endpoint.
+     *
+     * @param prototype the endpoint to copy the configuration from
+     * @param endpointUri the address of the new endpoint
+     * @param name the name of the new endpoint
+     * @param properties the properties of the new endpoint
+     */
+    DefaultOutboundEndpoint(DefaultOutboundEndpoint prototype, EndpointURI endpointUri, String name, Map properties)
+    {
+        super(prototype.getConnector(), endpointUri, name, properties, prototype.getTransactionConfig(),
+                prototype.isDeleteUnacceptedMessages(), prototype.getExchangePattern(),
+                prototype.getResponseTimeout(), prototype.getInitialState(), prototype.getEncoding(), name,
+                prototype.getMuleContext(), prototype.getRetryPolicyTemplate(), null,
+                prototype.getMessageProcessorsFactory(), prototype.getMessageProcessors(),
+                prototype.getResponseMessageProcessors(), prototype.isDisableTransportTransformer(),
+                prototype.getMimeType());
+
+        responseProperties = new ArrayList<String>(prototype.responseProperties);
+        setAnnotations(prototype.getAnnotations());
+    }
+
     public List<String> getResponseProperties()
     {
         return responseProperties;
@@ -10,6 +10,8 @@ import org.mule.MessageExchangePattern;
 import org.mule.api.MuleContext;
 import org.mule.api.MuleEvent;
 import org.mule.api.MuleException;
+import org.mule.api.MuleRuntimeException;
+import org.mule.api.config.MuleProperties;
 import org.mule.api.endpoint.EndpointBuilder;
 import org.mule.api.endpoint.EndpointException;
 import org.mule.api.endpoint.EndpointMessageProcessorChainFactory;
@@ -25,16 +27,21 @@ import org.mule.api.transaction.TransactionConfig;
 import org.mule.api.transformer.Transformer;
 import org.mule.api.transport.Connector;
 import org.mule.api.transport.DispatchException;
+import org.mule.config.i18n.CoreMessages;
 import org.mule.processor.AbstractRedeliveryPolicy;
 import org.mule.transport.AbstractConnector;
 import org.mule.util.ObjectNameHelper;
 
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
-import org.apache.commons.collections.map.LRUMap;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -46,6 +53,13 @@ import org.apache.commons.logging.LogFactory;
  * config elements such as the transformers, filters, etc do not change. You
  * cannot change an endpoint scheme dynamically so you can't switch between
  * HTTP and JMS for example using the same dynamic endpoint.
+ * <p/>
+ * Static endpoints are cached by resolved URI. The size of the cache is set by the
+ * {@value #CACHE_SIZE_PROPERTY} system property and its usage can be monitored with
+ * {@link #getCacheHitCount()} and {@link #getCacheMissCount()}. When the resolved URI
+ * does not select a connector or transformers of its own, the static endpoint is
+ * created from the prototype endpoint, only swapping the address, instead of being
+ * built again from the endpoint builder.
  */
 public class DynamicOutboundEndpoint implements OutboundEndpoint
 {
@@ -54,12 +68,19 @@ public class DynamicOutboundEndpoint implements OutboundEndpoint
 
     private static final long serialVersionUID = 8861985949279708638L;
 
+    /**
+     * System property to set the maximum number of static endpoints cached by each dynamic endpoint
+     */
+    public static final String CACHE_SIZE_PROPERTY = MuleProperties.SYSTEM_PROPERTY_PREFIX + "dynamicEndpoint.cacheSize";
+
+    public static final int DEFAULT_CACHE_SIZE = 1000;
+
     private final EndpointBuilder endpointBuilder;
 
     private final OutboundEndpoint prototypeEndpoint;
 
     // Caches resolved static endpoints to improve performance
-    private final Map<String, OutboundEndpoint> staticEndpoints = Collections.synchronizedMap(new LRUMap(64));
+    private final Cache<String, OutboundEndpoint> staticEndpoints;
 
     private final DynamicURIBuilder dynamicURIBuilder;
     
@@ -69,6 +90,10 @@ public class DynamicOutboundEndpoint implements OutboundEndpoint
     {
         this.endpointBuilder = endpointBuilder;
         this.dynamicURIBuilder = dynamicURIBuilder;
+        this.staticEndpoints = CacheBuilder.newBuilder()
+            .maximumSize(getConfiguredCacheSize())
+            .recordStats()
+            .<String, OutboundEndpoint>build();
 
         try
         {
@@ -98,20 +123,78 @@ public class DynamicOutboundEndpoint implements OutboundEndpoint
         return properties;
     }
 
+    private static int getConfiguredCacheSize()
+    {
+        String size = System.getProperty(CACHE_SIZE_PROPERTY);
+        if (size == null)
+        {
+            return DEFAULT_CACHE_SIZE;
+        }
+        try
+        {
+            return Integer.parseInt(size);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new MuleRuntimeException(CoreMessages.propertyHasInvalidValue(CACHE_SIZE_PROPERTY, size), e);
+        }
+    }
+
     public OutboundEndpoint getStaticEndpoint(MuleEvent event)  throws MuleException
     {
         final String uri = resolveUri(event);
 
-        OutboundEndpoint outboundEndpoint = staticEndpoints.get(uri);
-
-        if (outboundEndpoint == null)
+        try
+        {
+            return staticEndpoints.get(uri, new Callable<OutboundEndpoint>()
+            {
+                @Override
+                public OutboundEndpoint call() throws Exception
+                {
+                    return createStaticEndpoint(createEndpointUri(uri));
+                }
+            });
+        }
+        catch (ExecutionException e)
         {
-            final EndpointURI endpointURIForMessage = createEndpointUri(uri);
-            outboundEndpoint = createStaticEndpoint(endpointURIForMessage);
-            staticEndpoints.put(endpointURIForMessage.getAddress(), outboundEndpoint);
+            if (e.getCause() instanceof MuleException)
+            {
+                throw (MuleException) e.getCause();
+            }
+            throw new DispatchException(event, this, e.getCause());
         }
+        catch (UncheckedExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return the number of messages sent through a cached static endpoint
+     */
+    public long getCacheHitCount()
+    {
+        return staticEndpoints.stats().hitCount();
+    }
 
-        return outboundEndpoint;
+    /**
+     * @return the number of messages for which a static endpoint had to be created
+     */
+    public long getCacheMissCount()
+    {
+        return staticEndpoints.stats().missCount();
+    }
+
+    /**
+     * @return the number of static endpoints currently cached
+     */
+    public long getCacheSize()
+    {
+        return staticEndpoints.size();
     }
 
     private EndpointURI createEndpointUri(String uri) throws EndpointException, InitialisationException
@@ -136,6 +219,16 @@ public class DynamicOutboundEndpoint implements OutboundEndpoint
 
     private OutboundEndpoint createStaticEndpoint(EndpointURI uri) throws EndpointException, InitialisationException
     {
+        if (canReusePrototype(uri))
+        {
+            Map<Object, Object> properties = new HashMap<Object, Object>(uri.getParams());
+            properties.putAll(prototypeEndpoint.getProperties());
+            OutboundEndpoint endpoint = new DefaultOutboundEndpoint((DefaultOutboundEndpoint) prototypeEndpoint, uri,
+                ObjectNameHelper.getEndpointNameFor(uri), properties);
+            endpoint.setMessagingExceptionHandler(exceptionHandler);
+            return endpoint;
+        }
+
         try
         {
             EndpointBuilder staticBuilder = (EndpointBuilder) endpointBuilder.clone();
@@ -153,6 +246,20 @@ public class DynamicOutboundEndpoint implements OutboundEndpoint
         }
     }
 
+    /**
+     * The prototype can only be reused when the address does not change how the endpoint is built,
+     * that is when it selects neither a connector nor transformers
+     */
+    private boolean canReusePrototype(EndpointURI uri)
+    {
+        return prototypeEndpoint.getClass() == DefaultOutboundEndpoint.class
+               && uri.getConnectorName() == null
+               && uri.getTransformers() == null
+               && uri.getResponseTransformers() == null
+               && prototypeEndpoint.getConnector() != null
+               && prototypeEndpoint.getConnector().supportsProtocol(uri.getFullScheme());
+    }
+
     @Override
     public boolean equals(Object o)
     {
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.execution;
+
+import org.mule.api.MuleException;
+
+/**
+ * Template methods for {@link MessageProcessTemplate} whose messages may be rejected when the
+ * flow that processes them is saturated.
+ *
+ * Only messages from templates implementing this interface are subject to the adaptive concurrency
+ * limit of {@link MuleMessageProcessingManager}.
+ */
+public interface ConcurrencyLimitPhaseTemplate extends MessageProcessTemplate
+{
+
+    /**
+     * Discards the message because the flow already processes as many messages as it can handle.
+     * The {@link org.mule.api.source.MessageSource} should tell the client to retry later in the way
+     * its transport allows it, i.e. HTTP status 503 with a Retry-After header.
+     *
+     * @param retryAfterMillis hint of how long the client should wait before trying again
+     * @throws MuleException
+     */
+    void discardMessageOnConcurrencyLimitExceeded(long retryAfterMillis) throws MuleException;
+
+}
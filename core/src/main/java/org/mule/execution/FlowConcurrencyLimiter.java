@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.execution;
+
+import org.mule.api.construct.FlowConstruct;
+import org.mule.management.stats.FlowConstructStatistics;
+import org.mule.util.concurrent.AimdConcurrencyLimiter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps one {@link AimdConcurrencyLimiter} per flow, so that a flow whose downstream is saturated
+ * stops accepting messages without affecting the other flows. The current limit and the number
+ * of rejected messages are reported in the {@link FlowConstructStatistics} of each flow.
+ */
+public class FlowConcurrencyLimiter
+{
+
+    private final ConcurrentMap<String, AimdConcurrencyLimiter> limiters = new ConcurrentHashMap<String, AimdConcurrencyLimiter>();
+    private final int initialLimit;
+    private final int maxLimit;
+
+    public FlowConcurrencyLimiter(int initialLimit, int maxLimit)
+    {
+        this.initialLimit = initialLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * @return <code>true</code> if the flow may process one more message, in which case
+     *         {@link #release(FlowConstruct, long)} must be called once it is processed
+     */
+    public boolean tryAcquire(FlowConstruct flowConstruct)
+    {
+        if (getLimiter(flowConstruct).tryAcquire())
+        {
+            return true;
+        }
+        FlowConstructStatistics statistics = flowConstruct.getStatistics();
+        if (statistics != null)
+        {
+            statistics.incThrottledEvents();
+        }
+        return false;
+    }
+
+    public void release(FlowConstruct flowConstruct, long latencyNanos)
+    {
+        AimdConcurrencyLimiter limiter = getLimiter(flowConstruct);
+        limiter.release(latencyNanos);
+        FlowConstructStatistics statistics = flowConstruct.getStatistics();
+        if (statistics != null)
+        {
+            statistics.setConcurrencyLimit(limiter.getLimit());
+        }
+    }
+
+    public long getRetryAfterMillis(FlowConstruct flowConstruct)
+    {
+        return getLimiter(flowConstruct).getRetryAfterMillis();
+    }
+
+    public AimdConcurrencyLimiter getLimiter(FlowConstruct flowConstruct)
+    {
+        AimdConcurrencyLimiter limiter = limiters.get(flowConstruct.getName());
+        if (limiter == null)
+        {
+            AimdConcurrencyLimiter newLimiter = new AimdConcurrencyLimiter(initialLimit, maxLimit);
+            limiter = limiters.putIfAbsent(flowConstruct.getName(), newLimiter);
+            if (limiter == null)
+            {
+                limiter = newLimiter;
+            }
+        }
+        return limiter;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.execution;
+
+import org.mule.api.MessagingException;
+import org.mule.api.MuleEvent;
+import org.mule.api.construct.FlowConstruct;
+import org.mule.api.construct.MessageProcessorPathResolver;
+import org.mule.api.processor.MessageProcessor;
+import org.mule.management.stats.FlowConstructStatistics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Intercepts MessageProcessor execution to record its latency in the statistics of the flow,
+ * under the path of the processor in the flow
+ */
+class MessageProcessorStatisticsExecutionInterceptor implements MessageProcessorExecutionInterceptor
+{
+
+    private MessageProcessorExecutionInterceptor next;
+
+    MessageProcessorStatisticsExecutionInterceptor(MessageProcessorExecutionInterceptor next)
+    {
+        this.next = next;
+    }
+
+    @Override
+    public MuleEvent execute(MessageProcessor messageProcessor, MuleEvent event) throws MessagingException
+    {
+        String processorPath = getProcessorPath(event.getFlowConstruct(), messageProcessor);
+        if (processorPath == null)
+        {
+            return next.execute(messageProcessor, event);
+        }
+
+        long startTime = System.nanoTime();
+        try
+        {
+            return next.execute(messageProcessor, event);
+        }
+        finally
+        {
+            event.getFlowConstruct().getStatistics().addProcessorExecutionTime(processorPath,
+                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime));
+        }
+    }
+
+    private String getProcessorPath(FlowConstruct flowConstruct, MessageProcessor processor)
+    {
+        if (!(flowConstruct instanceof MessageProcessorPathResolver))
+        {
+            return null;
+        }
+        FlowConstructStatistics statistics = flowConstruct.getStatistics();
+        if (statistics == null || !statistics.isEnabled())
+        {
+            return null;
+        }
+        return ((MessageProcessorPathResolver) flowConstruct).getProcessorPath(processor);
+    }
+}
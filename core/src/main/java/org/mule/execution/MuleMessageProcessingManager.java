@@ -7,9 +7,11 @@
 package org.mule.execution;
 
 import org.mule.api.MuleContext;
+import org.mule.api.config.MuleProperties;
 import org.mule.api.context.MuleContextAware;
 import org.mule.api.lifecycle.Initialisable;
 import org.mule.api.lifecycle.InitialisationException;
+import org.mule.config.i18n.CoreMessages;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -19,12 +21,25 @@ import java.util.List;
 
 /**
  * Default implementation for {@link MessageProcessingManager}.
+ * <p/>
+ * When adaptive concurrency is enabled, each flow only accepts as many messages from a
+ * {@link ConcurrencyLimitPhaseTemplate} at the same time as its observed latency allows, see
+ * {@link FlowConcurrencyLimiter}. It can be enabled with the system property
+ * {@value #ADAPTIVE_CONCURRENCY_PROPERTY}.
  */
 public class MuleMessageProcessingManager implements MessageProcessingManager, MuleContextAware, Initialisable
 {
+    public static final String ADAPTIVE_CONCURRENCY_PROPERTY = MuleProperties.SYSTEM_PROPERTY_PREFIX + "flow.adaptiveConcurrency";
+    public static final String INITIAL_CONCURRENCY_LIMIT_PROPERTY = ADAPTIVE_CONCURRENCY_PROPERTY + ".initialLimit";
+    public static final String MAX_CONCURRENCY_LIMIT_PROPERTY = ADAPTIVE_CONCURRENCY_PROPERTY + ".maxLimit";
+
     private final EndProcessPhase endProcessPhase = new EndProcessPhase();
     private MuleContext muleContext;
     private PhaseExecutionEngine phaseExecutionEngine;
+    private boolean adaptiveConcurrency = Boolean.getBoolean(ADAPTIVE_CONCURRENCY_PROPERTY);
+    private int initialConcurrencyLimit = Integer.getInteger(INITIAL_CONCURRENCY_LIMIT_PROPERTY, 20);
+    private int maxConcurrencyLimit = Integer.getInteger(MAX_CONCURRENCY_LIMIT_PROPERTY, 1000);
+    private FlowConcurrencyLimiter concurrencyLimiter;
 
     @Override
     public void processMessage(MessageProcessTemplate messageProcessTemplate, MessageProcessContext messageProcessContext)
@@ -66,6 +81,41 @@ public class MuleMessageProcessingManager implements MessageProcessingManager, M
                 return compareValue;
             }
         });
-        phaseExecutionEngine = new PhaseExecutionEngine(messageProcessPhaseList, muleContext.getExceptionListener(), endProcessPhase);
+        if (adaptiveConcurrency)
+        {
+            if (initialConcurrencyLimit < 1)
+            {
+                throw new InitialisationException(CoreMessages.propertyHasInvalidValue("initialConcurrencyLimit", initialConcurrencyLimit), this);
+            }
+            if (maxConcurrencyLimit < initialConcurrencyLimit)
+            {
+                throw new InitialisationException(CoreMessages.propertyHasInvalidValue("maxConcurrencyLimit", maxConcurrencyLimit), this);
+            }
+            concurrencyLimiter = new FlowConcurrencyLimiter(initialConcurrencyLimit, maxConcurrencyLimit);
+        }
+        phaseExecutionEngine = new PhaseExecutionEngine(messageProcessPhaseList, muleContext.getExceptionListener(), endProcessPhase, concurrencyLimiter);
+    }
+
+    /**
+     * @return the per flow concurrency limits, or null if adaptive concurrency is not enabled
+     */
+    public FlowConcurrencyLimiter getConcurrencyLimiter()
+    {
+        return concurrencyLimiter;
+    }
+
+    public void setAdaptiveConcurrency(boolean adaptiveConcurrency)
+    {
+        this.adaptiveConcurrency = adaptiveConcurrency;
+    }
+
+    public void setInitialConcurrencyLimit(int initialConcurrencyLimit)
+    {
+        this.initialConcurrencyLimit = initialConcurrencyLimit;
+    }
+
+    public void setMaxConcurrencyLimit(int maxConcurrencyLimit)
+    {
+        this.maxConcurrencyLimit = maxConcurrencyLimit;
     }
 }
@@ -6,6 +6,7 @@
  */
 package org.mule.execution;
 
+import org.mule.api.construct.FlowConstruct;
 import org.mule.api.exception.SystemExceptionHandler;
 
 import java.util.List;
@@ -20,6 +21,9 @@ import java.util.List;
  * {@link org.mule.execution.MessageProcessPhase} implementation must guarantee that upon phase completion the method {@link PhaseResultNotifier#phaseSuccessfully()}  is executed,
  * if there was a failure processing the message then the method {@link PhaseResultNotifier#phaseFailure(Exception)} must be executed and if the phase consumed the message the method
  * {@link org.mule.execution.PhaseResultNotifier#phaseConsumedMessage()} must be executed.
+ * 
+ * When a {@link FlowConcurrencyLimiter} is given, messages from a {@link ConcurrencyLimitPhaseTemplate} are only processed
+ * while their flow is below its concurrency limit and are otherwise discarded before the first phase.
  */
 public class PhaseExecutionEngine
 {
@@ -27,12 +31,19 @@ public class PhaseExecutionEngine
     private final List<MessageProcessPhase> phaseList;
     private final SystemExceptionHandler exceptionHandler;
     private final EndProcessPhase endProcessPhase;
+    private final FlowConcurrencyLimiter concurrencyLimiter;
 
     public PhaseExecutionEngine(List<MessageProcessPhase> messageProcessPhaseList, SystemExceptionHandler exceptionHandler, EndProcessPhase endProcessPhase)
+    {
+        this(messageProcessPhaseList, exceptionHandler, endProcessPhase, null);
+    }
+
+    public PhaseExecutionEngine(List<MessageProcessPhase> messageProcessPhaseList, SystemExceptionHandler exceptionHandler, EndProcessPhase endProcessPhase, FlowConcurrencyLimiter concurrencyLimiter)
     {
         this.phaseList = messageProcessPhaseList;
         this.exceptionHandler = exceptionHandler;
         this.endProcessPhase = endProcessPhase;
+        this.concurrencyLimiter = concurrencyLimiter;
     }
 
     public void process(MessageProcessTemplate messageProcessTemplate, MessageProcessContext messageProcessContext)
@@ -47,6 +58,8 @@ public class PhaseExecutionEngine
         private final MessageProcessContext messageProcessContext;
         private final MessageProcessTemplate messageProcessTemplate;
         private boolean endPhaseProcessed;
+        private boolean concurrencyPermitAcquired;
+        private long processingStartTime;
 
         public InternalPhaseExecutionEngine(MessageProcessTemplate messageProcessTemplate, MessageProcessContext messageProcessContext)
         {
@@ -93,6 +106,7 @@ public class PhaseExecutionEngine
             if (!endPhaseProcessed)
             {
                 endPhaseProcessed = true;
+                releaseConcurrencyPermit();
                 if (endProcessPhase.supportsTemplate(messageProcessTemplate))
                 {
                     endProcessPhase.runPhase((EndPhaseTemplate) messageProcessTemplate, messageProcessContext,this);
@@ -107,6 +121,10 @@ public class PhaseExecutionEngine
             {
                 originalClassLoader = Thread.currentThread().getContextClassLoader();
                 Thread.currentThread().setContextClassLoader(messageProcessContext.getExecutionClassLoader());
+                if (!acquireConcurrencyPermit())
+                {
+                    return;
+                }
                 for (MessageProcessPhase phase : phaseList)
                 {
                     if (phase.supportsTemplate(messageProcessTemplate))
@@ -116,6 +134,7 @@ public class PhaseExecutionEngine
                     }
                     currentPhase++;
                 }
+                releaseConcurrencyPermit();
             }
             finally
             {
@@ -123,5 +142,39 @@ public class PhaseExecutionEngine
             }
         }
 
+        private boolean acquireConcurrencyPermit()
+        {
+            if (concurrencyLimiter == null || !(messageProcessTemplate instanceof ConcurrencyLimitPhaseTemplate))
+            {
+                return true;
+            }
+            FlowConstruct flowConstruct = messageProcessContext.getFlowConstruct();
+            if (concurrencyLimiter.tryAcquire(flowConstruct))
+            {
+                concurrencyPermitAcquired = true;
+                processingStartTime = System.nanoTime();
+                return true;
+            }
+            try
+            {
+                ((ConcurrencyLimitPhaseTemplate) messageProcessTemplate).discardMessageOnConcurrencyLimitExceeded(concurrencyLimiter.getRetryAfterMillis(flowConstruct));
+            }
+            catch (Exception e)
+            {
+                exceptionHandler.handleException(e);
+            }
+            processEndPhase();
+            return false;
+        }
+
+        private void releaseConcurrencyPermit()
+        {
+            if (concurrencyPermitAcquired)
+            {
+                concurrencyPermitAcquired = false;
+                concurrencyLimiter.release(messageProcessContext.getFlowConstruct(), System.nanoTime() - processingStartTime);
+            }
+        }
+
     }
 }
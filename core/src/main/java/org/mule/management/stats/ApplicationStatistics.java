@@ -102,6 +102,20 @@ public class ApplicationStatistics extends FlowConstructStatistics
         return total;
     }
 
+    @Override
+    public LatencyHistogram.Snapshot getProcessingTimeSnapshot()
+    {
+        LatencyHistogram.Snapshot snapshot = super.getProcessingTimeSnapshot();
+        for (FlowConstructStatistics stats : parent.getServiceStatistics())
+        {
+            if (!(stats instanceof ApplicationStatistics))
+            {
+                snapshot = snapshot.add(stats.getProcessingTimeSnapshot());
+            }
+        }
+        return snapshot;
+    }
+
     @Override
     public long getExecutionErrors()
     {
@@ -11,6 +11,7 @@ import org.mule.management.stats.printers.SimplePrinter;
 import org.mule.util.StringUtils;
 
 import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -28,7 +29,8 @@ public class ComponentStatistics implements Statistics
      */
     private static final long serialVersionUID = -2086999226732861674L;
 
-    private long minExecutionTime = 0;
+    // updated without the lock by addCompleteExecutionTime
+    private final AtomicLong minExecutionTime = new AtomicLong(0);
     private long maxExecutionTime = 0;
     private long averageExecutionTime = 0;
     private long executedEvent = 0;
@@ -37,6 +39,7 @@ public class ComponentStatistics implements Statistics
     private long intervalTime = 0;
     private long currentIntervalStartTime = 0;
     private boolean statIntervalTimeEnabled = false;
+    private final LatencyHistogram executionTimeHistogram = new LatencyHistogram();
 
     /**
      * The constructor added to initialize the interval time in ms that stats   
@@ -72,11 +75,12 @@ public class ComponentStatistics implements Statistics
 
     public void clear()
     {
-        minExecutionTime = 0;
+        minExecutionTime.set(0);
         maxExecutionTime = 0;
         executedEvent = 0;
         totalExecTime = 0;
         averageExecutionTime = 0;
+        executionTimeHistogram.reset();
     }
 
     public boolean isEnabled()
@@ -106,7 +110,7 @@ public class ComponentStatistics implements Statistics
 
     public long getMinExecutionTime()
     {
-        return minExecutionTime;
+        return minExecutionTime.get();
     }
 
     public long getTotalExecutionTime()
@@ -160,14 +164,22 @@ public class ComponentStatistics implements Statistics
     }
 
     /**
-     * Add the complete execution time for a flow that also reports branhc execution times
+     * Add the complete execution time for a flow that also reports branhc execution times.
+     * Called once per event, so it does not take the lock of the branch times.
      */
-    public synchronized void addCompleteExecutionTime(long time)
+    public void addCompleteExecutionTime(long time)
     {
         long effectiveTime = ProcessingTime.getEffectiveTime(time);
-        if (minExecutionTime == 0 || effectiveTime < minExecutionTime)
+        executionTimeHistogram.record(effectiveTime);
+        updateMinExecutionTime(effectiveTime);
+    }
+
+    private void updateMinExecutionTime(long time)
+    {
+        long current = minExecutionTime.get();
+        while ((current == 0 || time < current) && !minExecutionTime.compareAndSet(current, time))
         {
-            minExecutionTime = effectiveTime;
+            current = minExecutionTime.get();
         }
     }
 
@@ -197,11 +209,9 @@ public class ComponentStatistics implements Statistics
 
         long effectiveTime = ProcessingTime.getEffectiveTime(time);
         totalExecTime += effectiveTime;
+        executionTimeHistogram.record(effectiveTime);
 
-        if (minExecutionTime == 0 || effectiveTime < minExecutionTime)
-        {
-            minExecutionTime = time;
-        }
+        updateMinExecutionTime(time);
         if (maxExecutionTime == 0 || effectiveTime > maxExecutionTime)
         {
             maxExecutionTime = time;
@@ -214,4 +224,22 @@ public class ComponentStatistics implements Statistics
         return averageExecutionTime;
     }
 
+    /**
+     * @param percentile a percentile between 0 and 100, i.e. 99.9
+     * @return the execution time below or at which the given percentage of the events were
+     *         executed
+     */
+    public long getExecutionTimePercentile(double percentile)
+    {
+        return executionTimeHistogram.getValueAtPercentile(percentile);
+    }
+
+    /**
+     * @return the histogram of the execution times, from which interval snapshots can be taken
+     */
+    public LatencyHistogram getExecutionTimeHistogram()
+    {
+        return executionTimeHistogram;
+    }
+
 }
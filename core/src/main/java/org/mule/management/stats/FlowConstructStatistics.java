@@ -8,7 +8,12 @@ package org.mule.management.stats;
 
 import org.mule.api.processor.ProcessingStrategy;
 import org.mule.processor.strategy.AsynchronousProcessingStrategy;
+import org.mule.util.concurrent.StripedCounter;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class FlowConstructStatistics extends AbstractFlowConstructStatistics implements QueueStatistics
@@ -16,15 +21,18 @@ public class FlowConstructStatistics extends AbstractFlowConstructStatistics imp
     private static final long serialVersionUID = 5337576392583767442L;
     private final AtomicLong executionError = new AtomicLong(0);
     private final AtomicLong fatalError = new AtomicLong(0);
+    private final AtomicLong throttledEvents = new AtomicLong(0);
+    private volatile int concurrencyLimit = 0;
     private int threadPoolSize = 0;
     protected final ComponentStatistics flowStatistics = new ComponentStatistics();
-    
-    // these can't sensibly converted to AtomicLong as they are processed together
-    // in incQueuedEvent
-    private long queuedEvent = 0;
-    private long maxQueuedEvent = 0;
-    private long averageQueueSize = 0;
-    private long totalQueuedEvent = 0;
+
+    // queue counters are updated for every event by many threads at once, the average is
+    // computed when it is read
+    private final StripedCounter queuedEvent = new StripedCounter();
+    private final StripedCounter totalQueuedEvent = new StripedCounter();
+
+    // execution times of the message processors, by their path in the flow
+    private final ConcurrentMap<String, LatencyHistogram> processorExecutionTimes = new ConcurrentHashMap<String, LatencyHistogram>();
 
 
     public FlowConstructStatistics(String flowConstructType, String name, ProcessingStrategy processingStrategy)
@@ -75,6 +83,16 @@ public class FlowConstructStatistics extends AbstractFlowConstructStatistics imp
         fatalError.addAndGet(1);
     }
 
+    public void incThrottledEvents()
+    {
+        throttledEvents.incrementAndGet();
+    }
+
+    public void setConcurrencyLimit(int concurrencyLimit)
+    {
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
     /**
      * Enable statistics logs (this is a dynamic parameter)
      */
@@ -89,11 +107,24 @@ public class FlowConstructStatistics extends AbstractFlowConstructStatistics imp
         super.clear();
 
         executionError.set(0);
-        fatalError.set(0);        
+        fatalError.set(0);
+        throttledEvents.set(0);
+        if (queuedEvent != null)
+        {
+            queuedEvent.reset();
+            totalQueuedEvent.reset();
+        }
         if (flowStatistics != null)
         {
             flowStatistics.clear();
         }
+        if (processorExecutionTimes != null)
+        {
+            for (LatencyHistogram histogram : processorExecutionTimes.values())
+            {
+                histogram.reset();
+            }
+        }
     }
 
     public void addCompleteFlowExecutionTime(long time)
@@ -131,6 +162,76 @@ public class FlowConstructStatistics extends AbstractFlowConstructStatistics imp
         return flowStatistics.getTotalExecutionTime();
     }
 
+    /**
+     * @param percentile a percentile between 0 and 100, i.e. 99.9
+     * @return the processing time below or at which the given percentage of the events were
+     *         processed
+     */
+    public long getProcessingTimePercentile(double percentile)
+    {
+        return getProcessingTimeSnapshot().getValueAtPercentile(percentile);
+    }
+
+    /**
+     * @return the processing times recorded since the statistics were last cleared
+     */
+    public LatencyHistogram.Snapshot getProcessingTimeSnapshot()
+    {
+        return flowStatistics.getExecutionTimeHistogram().getSnapshot();
+    }
+
+    /**
+     * @return the processing times recorded since the previous call to this method
+     */
+    public LatencyHistogram.Snapshot getProcessingTimeIntervalSnapshot()
+    {
+        return flowStatistics.getExecutionTimeHistogram().getIntervalSnapshot();
+    }
+
+    /**
+     * Records the time taken by one execution of a message processor of this flow construct
+     *
+     * @param processorPath the path of the processor in the flow construct
+     * @param time the execution time in microseconds
+     */
+    public void addProcessorExecutionTime(String processorPath, long time)
+    {
+        LatencyHistogram histogram = processorExecutionTimes.get(processorPath);
+        if (histogram == null)
+        {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = processorExecutionTimes.putIfAbsent(processorPath, created);
+            histogram = histogram == null ? created : histogram;
+        }
+        histogram.record(time);
+    }
+
+    /**
+     * @param processorPath the path of a message processor in the flow construct
+     * @param percentile a percentile between 0 and 100, i.e. 99.9
+     * @return the execution time in microseconds below or at which the given percentage of the
+     *         executions of the processor completed, 0 if it has not been executed
+     */
+    public long getProcessorExecutionTimePercentile(String processorPath, double percentile)
+    {
+        LatencyHistogram histogram = processorExecutionTimes.get(processorPath);
+        return histogram == null ? 0 : histogram.getValueAtPercentile(percentile);
+    }
+
+    /**
+     * @return the execution times in microseconds of the message processors recorded since the
+     *         statistics were last cleared, by processor path
+     */
+    public Map<String, LatencyHistogram.Snapshot> getProcessorExecutionTimeSnapshots()
+    {
+        Map<String, LatencyHistogram.Snapshot> snapshots = new HashMap<String, LatencyHistogram.Snapshot>();
+        for (Map.Entry<String, LatencyHistogram> entry : processorExecutionTimes.entrySet())
+        {
+            snapshots.put(entry.getKey(), entry.getValue().getSnapshot());
+        }
+        return snapshots;
+    }
+
     public long getExecutionErrors()
     {
         return executionError.get();
@@ -141,30 +242,42 @@ public class FlowConstructStatistics extends AbstractFlowConstructStatistics imp
         return fatalError.get();
     }
 
+    /**
+     * @return the number of messages rejected because the flow was at its concurrency limit
+     */
+    public long getThrottledEvents()
+    {
+        return throttledEvents.get();
+    }
+
+    /**
+     * @return the current adaptive concurrency limit of the flow, or 0 if it is not limited
+     */
+    public int getConcurrencyLimit()
+    {
+        return concurrencyLimit;
+    }
+
     public int getThreadPoolSize()
     {
         return threadPoolSize;
     }
 
-    public synchronized void incQueuedEvent()
+    public void incQueuedEvent()
     {
-        queuedEvent++;
-        totalQueuedEvent++;
-        if (queuedEvent > maxQueuedEvent)
-        {
-            maxQueuedEvent = queuedEvent;
-        }
-        averageQueueSize = receivedEventASync.get() / totalQueuedEvent;
+        queuedEvent.increment();
+        totalQueuedEvent.increment();
     }
 
-    public synchronized void decQueuedEvent()
+    public void decQueuedEvent()
     {
-        queuedEvent--;
+        queuedEvent.decrement();
     }
-    
-    public synchronized long getAverageQueueSize()
+
+    public long getAverageQueueSize()
     {
-        return averageQueueSize;
+        long total = totalQueuedEvent.sum();
+        return total == 0 ? 0 : receivedEventASync.get() / total;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.management.stats;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies, used to compute percentiles of processing times.
+ * <p/>
+ * Values are counted in log-linear buckets: values lower than {@value #SUB_BUCKET_COUNT} have a
+ * bucket of their own, and every power of two above is split into {@value #SUB_BUCKET_COUNT}
+ * buckets, so a percentile is reported with a relative error lower than 1/{@value #SUB_BUCKET_COUNT}
+ * whatever its magnitude. Recording a value only increments an atomic counter, without locking
+ * or allocating.
+ * <p/>
+ * Besides the values recorded since the histogram was created or reset, the histogram can return
+ * the values recorded since the previous interval snapshot, see {@link #getIntervalSnapshot()}.
+ */
+public class LatencyHistogram implements Serializable
+{
+    private static final long serialVersionUID = 4011473372802235712L;
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private long[] intervalStartCounts = new long[BUCKET_COUNT];
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     */
+    public void record(long value)
+    {
+        counts.incrementAndGet(bucketIndex(Math.max(0, value)));
+    }
+
+    /**
+     * @return the values recorded since this histogram was created or reset
+     */
+    public Snapshot getSnapshot()
+    {
+        return new Snapshot(currentCounts());
+    }
+
+    /**
+     * @return the values recorded since the previous call to this method, or since this histogram
+     *         was created or reset if this is the first call
+     */
+    public synchronized Snapshot getIntervalSnapshot()
+    {
+        long[] current = currentCounts();
+        long[] interval = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            interval[i] = Math.max(0, current[i] - intervalStartCounts[i]);
+        }
+        intervalStartCounts = current;
+        return new Snapshot(interval);
+    }
+
+    /**
+     * Shortcut for <code>getSnapshot().getValueAtPercentile(percentile)</code>
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        return getSnapshot().getValueAtPercentile(percentile);
+    }
+
+    /**
+     * Discards all the recorded values. Values recorded concurrently may or may not be kept.
+     */
+    public synchronized void reset()
+    {
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            counts.set(i, 0);
+        }
+        intervalStartCounts = new long[BUCKET_COUNT];
+    }
+
+    private long[] currentCounts()
+    {
+        long[] current = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            current[i] = counts.get(i);
+        }
+        return current;
+    }
+
+    static int bucketIndex(long value)
+    {
+        if (value < SUB_BUCKET_COUNT)
+        {
+            return (int) value;
+        }
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * @return the highest value that is counted in a bucket
+     */
+    static long highestValueInBucket(int index)
+    {
+        int bucket = index / SUB_BUCKET_COUNT;
+        int subBucket = index % SUB_BUCKET_COUNT;
+        if (bucket == 0)
+        {
+            return subBucket;
+        }
+        long lowest = (long) (SUB_BUCKET_COUNT + subBucket) << (bucket - 1);
+        return lowest + (1L << (bucket - 1)) - 1;
+    }
+
+    /**
+     * An immutable copy of the counts of a histogram
+     */
+    public static class Snapshot implements Serializable
+    {
+        private static final long serialVersionUID = -6519452722208958372L;
+
+        private final long[] counts;
+        private final long totalCount;
+
+        Snapshot(long[] counts)
+        {
+            this.counts = counts;
+            long total = 0;
+            for (long count : counts)
+            {
+                total += count;
+            }
+            this.totalCount = total;
+        }
+
+        public long getTotalCount()
+        {
+            return totalCount;
+        }
+
+        /**
+         * @return a snapshot with the values of both this snapshot and another one
+         */
+        public Snapshot add(Snapshot other)
+        {
+            long[] sum = new long[counts.length];
+            for (int i = 0; i < counts.length; i++)
+            {
+                sum[i] = counts[i] + other.counts[i];
+            }
+            return new Snapshot(sum);
+        }
+
+        /**
+         * @param percentile a percentile between 0 and 100, i.e. 99.9
+         * @return the value below or at which the given percentage of the values are, 0 if no
+         *         value was recorded
+         */
+        public long getValueAtPercentile(double percentile)
+        {
+            if (percentile < 0 || percentile > 100)
+            {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+            }
+            if (totalCount == 0)
+            {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++)
+            {
+                seen += counts[i];
+                if (seen >= target)
+                {
+                    return highestValueInBucket(i);
+                }
+            }
+            return getMaxValue();
+        }
+
+        /**
+         * @return the highest recorded value, within the precision of the histogram, 0 if no
+         *         value was recorded
+         */
+        public long getMaxValue()
+        {
+            for (int i = counts.length - 1; i >= 0; i--)
+            {
+                if (counts[i] > 0)
+                {
+                    return highestValueInBucket(i);
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -7,6 +7,7 @@
 package org.mule.management.stats;
 
 import org.mule.management.stats.printers.SimplePrinter;
+import org.mule.util.concurrent.StripedCounter;
 
 import java.io.PrintWriter;
 import java.util.concurrent.atomic.AtomicLong;
@@ -19,12 +20,10 @@ public class ServiceStatistics extends FlowConstructStatistics implements QueueS
     private final AtomicLong sentReplyToEvent = new AtomicLong(0);
     private final AtomicLong sentEventASync = new AtomicLong(0);
 
-    // these can't sensibly converted to AtomicLong as they are processed together
-    // in incQueuedEvent
-    private long queuedEvent = 0;
-    private long maxQueuedEvent = 0;
-    private long averageQueueSize = 0;
-    private long totalQueuedEvent = 0;
+    // the current size is needed to track the max size, so it is not striped
+    private final AtomicLong queuedEvent = new AtomicLong(0);
+    private final AtomicLong maxQueuedEvent = new AtomicLong(0);
+    private final StripedCounter totalQueuedEvent = new StripedCounter();
 
     private RouterStatistics inboundRouterStat = null;
     private ComponentStatistics componentStat = null;
@@ -78,20 +77,20 @@ public class ServiceStatistics extends FlowConstructStatistics implements QueueS
         sentReplyToEvent.addAndGet(1);
     }
 
-    public synchronized void incQueuedEvent()
+    public void incQueuedEvent()
     {
-        queuedEvent++;
-        totalQueuedEvent++;
-        if (queuedEvent > maxQueuedEvent)
+        long queued = queuedEvent.incrementAndGet();
+        totalQueuedEvent.increment();
+        long max = maxQueuedEvent.get();
+        while (queued > max && !maxQueuedEvent.compareAndSet(max, queued))
         {
-            maxQueuedEvent = queuedEvent;
+            max = maxQueuedEvent.get();
         }
-        averageQueueSize = receivedEventASync.get() / totalQueuedEvent;
     }
 
-    public synchronized void decQueuedEvent()
+    public void decQueuedEvent()
     {
-        queuedEvent--;
+        queuedEvent.decrementAndGet();
     }
 
     public long getAverageExecutionTime()
@@ -99,14 +98,15 @@ public class ServiceStatistics extends FlowConstructStatistics implements QueueS
         return componentStat.getAverageExecutionTime();
     }
 
-    public synchronized long getAverageQueueSize()
+    public long getAverageQueueSize()
     {
-        return averageQueueSize;
+        long total = totalQueuedEvent.sum();
+        return total == 0 ? 0 : receivedEventASync.get() / total;
     }
 
-    public synchronized long getMaxQueueSize()
+    public long getMaxQueueSize()
     {
-        return maxQueuedEvent;
+        return maxQueuedEvent.get();
     }
 
     /**
@@ -136,9 +136,9 @@ public class ServiceStatistics extends FlowConstructStatistics implements QueueS
         return componentStat.getTotalExecutionTime();
     }
 
-    public synchronized long getQueuedEvents()
+    public long getQueuedEvents()
     {
-        return queuedEvent;
+        return queuedEvent.get();
     }
 
     public long getReplyToEventsSent()
@@ -180,10 +180,9 @@ public class ServiceStatistics extends FlowConstructStatistics implements QueueS
     public synchronized void clear()
     {
         super.clear();
-        queuedEvent = 0;
-        maxQueuedEvent = 0;
-        totalQueuedEvent = 0;
-        averageQueueSize = 0;
+        queuedEvent.set(0);
+        maxQueuedEvent.set(0);
+        totalQueuedEvent.reset();
 
         sentEventSync.set(0);
         sentEventASync.set(0);
@@ -7,6 +7,7 @@
 package org.mule.management.stats.printers;
 
 import org.mule.management.stats.FlowConstructStatistics;
+import org.mule.management.stats.LatencyHistogram;
 import org.mule.management.stats.RouterStatistics;
 import org.mule.management.stats.SedaServiceStatistics;
 import org.mule.management.stats.ServiceStatistics;
@@ -38,7 +39,7 @@ public class AbstractTablePrinter extends PrintWriter
 
     public String[] getHeaders()
     {
-        String[] column = new String[41];
+        String[] column = new String[44];
         column[0] = "Name";
         column[1] = "Service Pool Max Size";
         column[2] = "Service Pool Size";
@@ -80,6 +81,9 @@ public class AbstractTablePrinter extends PrintWriter
         column[38] = "By Provider";
         column[39] = "";
         column[40] = "Sample Period";
+        column[41] = "Processing Time p50";
+        column[42] = "Processing Time p99";
+        column[43] = "Processing Time p99.9";
         return column;
     }
 
@@ -152,6 +156,18 @@ public class AbstractTablePrinter extends PrintWriter
         }
 
         col[40] = String.valueOf(stats.getSamplePeriod());
+
+        // the percentiles are the last columns of every printer
+        getLatencyInfo(stats, col, col.length - 3);
+    }
+
+    protected int getLatencyInfo(FlowConstructStatistics stats, String[] col, int index)
+    {
+        LatencyHistogram.Snapshot snapshot = stats.getProcessingTimeSnapshot();
+        col[index++] = String.valueOf(snapshot.getValueAtPercentile(50));
+        col[index++] = String.valueOf(snapshot.getValueAtPercentile(99));
+        col[index++] = String.valueOf(snapshot.getValueAtPercentile(99.9));
+        return index;
     }
 
     protected int getRouterInfo(RouterStatistics stats, String[] col, int index)
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.model.streaming;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * OutputStream which keeps the written bytes in memory until they exceed a threshold, and then
+ * moves them to a temporary file and keeps writing there. Once closed, the content can be read
+ * back with {@link #getInputStream()}, which deletes the temporary file when it is closed.
+ */
+public class SpillingOutputStream extends OutputStream
+{
+    private static final String TEMP_FILE_PREFIX = "mule-spill";
+
+    private final int threshold;
+    private final File directory;
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+    private OutputStream out = memory;
+    private File file;
+    private long size;
+    private boolean closed;
+
+    /**
+     * @param threshold the number of bytes kept in memory before spilling to disk
+     * @param directory where the temporary file is created, or null for the default temporary
+     *            directory
+     */
+    public SpillingOutputStream(int threshold, File directory)
+    {
+        if (threshold < 0)
+        {
+            throw new IllegalArgumentException("Threshold must not be negative: " + threshold);
+        }
+        this.threshold = threshold;
+        this.directory = directory;
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+        spillIfNeeded(1);
+        out.write(b);
+        size++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+        spillIfNeeded(len);
+        out.write(b, off, len);
+        size += len;
+    }
+
+    private void spillIfNeeded(int len) throws IOException
+    {
+        if (closed)
+        {
+            throw new IOException("Stream is closed");
+        }
+        if (file == null && size + len > threshold)
+        {
+            file = File.createTempFile(TEMP_FILE_PREFIX, null, directory);
+            out = new BufferedOutputStream(new FileOutputStream(file));
+            memory.writeTo(out);
+            memory = null;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (!closed)
+        {
+            closed = true;
+            out.close();
+        }
+    }
+
+    /**
+     * @return whether the content is still held in memory
+     */
+    public boolean isInMemory()
+    {
+        return file == null;
+    }
+
+    public long getSize()
+    {
+        return size;
+    }
+
+    /**
+     * @return the content written, only available while it is held in memory
+     */
+    public byte[] toByteArray()
+    {
+        if (memory == null)
+        {
+            throw new IllegalStateException("Content was spilled to " + file);
+        }
+        return memory.toByteArray();
+    }
+
+    /**
+     * @return a stream over the content written. The stream must be closed so that the temporary
+     *         file, if any, is deleted.
+     */
+    public InputStream getInputStream() throws IOException
+    {
+        close();
+        if (memory != null)
+        {
+            return new ByteArrayInputStream(memory.toByteArray());
+        }
+        return new DeleteOnCloseFileInputStream(file);
+    }
+
+    /**
+     * Deletes the temporary file, if any, when the content is not going to be read.
+     */
+    public void discard()
+    {
+        try
+        {
+            close();
+        }
+        catch (IOException e)
+        {
+            // the content is not needed anymore
+        }
+        if (file != null)
+        {
+            file.delete();
+        }
+        memory = null;
+    }
+}
@@ -15,25 +15,43 @@ import org.mule.VoidMuleEvent;
 import org.mule.api.MessagingException;
 import org.mule.api.MuleEvent;
 import org.mule.api.MuleMessage;
+import org.mule.api.config.MuleProperties;
 import org.mule.api.exception.MessagingExceptionHandler;
 import org.mule.api.exception.MessagingExceptionHandlerAware;
 import org.mule.api.lifecycle.Initialisable;
 import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.lifecycle.Startable;
 import org.mule.api.lifecycle.Stoppable;
+import org.mule.api.store.ListableObjectStore;
+import org.mule.api.store.ObjectDoesNotExistException;
 import org.mule.api.store.ObjectStoreException;
+import org.mule.api.store.ObjectStoreManager;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.config.i18n.MessageFactory;
 import org.mule.retry.RetryPolicyExhaustedException;
 import org.mule.util.concurrent.ThreadNameHelper;
 import org.mule.util.queue.objectstore.QueueKey;
 import org.mule.util.store.QueuePersistenceObjectStore;
+import org.mule.util.timer.HashedTimingWheel;
 
 import java.io.NotSerializableException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -48,6 +66,25 @@ import org.apache.commons.logging.LogFactory;
  * If route was not successfully executed after the configured retry count then the message
  * will be routed to the defined dead letter queue route or in case there is no dead letter
  * queue route then it will be handled by the flow exception strategy.
+ * <p/>
+ * When the Mule context has a {@link HashedTimingWheel}, the delays between retries are held by
+ * the timing wheel and the processing threads are only used while processing a message, instead
+ * of a scheduled pool whose threads are kept for the lifetime of the router.
+ * <p/>
+ * Messages that are due for processing wait in a queue ordered by due time, and at most
+ * {@link UntilSuccessfulConfiguration#getMaxConcurrentRetries()} of them are processed at the same
+ * time. Messages left in the object store by a previous run are read back in the background when
+ * the router starts and go through the same queue, so that a large backlog neither delays the
+ * start nor floods the route.
+ * <p/>
+ * The attempt count of a message is kept with its queue entry, so a failed attempt does not rewrite
+ * the message in the object store. When the object store is persistent, the attempt count and the
+ * time of the next attempt are also saved after each failed attempt in a small persistent side
+ * store, named after the flow and the router. Messages that never failed have no entry there. When
+ * the router starts, the saved states are read at once and the messages read back from the object
+ * store are queued in the order of their saved due times, resuming from their saved attempt count,
+ * so a restart neither grants extra retries nor retries all the messages at once. A non persistent
+ * object store does not survive a restart, so no state is saved for it.
  */
 public class AsynchronousUntilSuccessfulProcessingStrategy extends AbstractUntilSuccessfulProcessingStrategy implements Initialisable, Startable, Stoppable, MessagingExceptionHandlerAware
 {
@@ -55,6 +92,10 @@ public class AsynchronousUntilSuccessfulProcessingStrategy extends AbstractUntil
     protected transient Log logger = LogFactory.getLog(getClass());
     private MessagingExceptionHandler messagingExceptionHandler;
     private ScheduledExecutorService scheduledPool;
+    private HashedTimingWheel timingWheel;
+    private ExecutorService processingPool;
+    private volatile DueEvents dueEvents;
+    private ListableObjectStore<RetryState> retryStateStore;
 
     @Override
     public void initialise() throws InitialisationException
@@ -72,16 +113,71 @@ public class AsynchronousUntilSuccessfulProcessingStrategy extends AbstractUntil
     {
         final String threadPrefix = String.format("%s%s.%s", ThreadNameHelper.getPrefix(getUntilSuccessfulConfiguration().getMuleContext()),
                                                   getUntilSuccessfulConfiguration().getFlowConstruct().getName(), "until-successful");
-        scheduledPool = getUntilSuccessfulConfiguration().getThreadingProfile().createScheduledPool(threadPrefix);
-        scheduleAllPendingEventsForProcessing();
+        timingWheel = HashedTimingWheel.lookup(getUntilSuccessfulConfiguration().getMuleContext());
+        if (timingWheel != null)
+        {
+            processingPool = getUntilSuccessfulConfiguration().getThreadingProfile().createPool(threadPrefix);
+        }
+        else
+        {
+            scheduledPool = getUntilSuccessfulConfiguration().getThreadingProfile().createScheduledPool(threadPrefix);
+        }
+        retryStateStore = lookupRetryStateStore();
+        dueEvents = new DueEvents(resolveMaxConcurrentRetries());
+        execute(new Callable<Object>()
+        {
+            @Override
+            public Object call() throws Exception
+            {
+                scheduleAllPendingEventsForProcessing();
+                return null;
+            }
+        }, 0);
+    }
+
+    private ListableObjectStore<RetryState> lookupRetryStateStore()
+    {
+        if (!getUntilSuccessfulConfiguration().getObjectStore().isPersistent())
+        {
+            return null;
+        }
+        Object objectStoreManager = getUntilSuccessfulConfiguration().getMuleContext().getRegistry().get(
+                MuleProperties.OBJECT_STORE_MANAGER);
+        if (!(objectStoreManager instanceof ObjectStoreManager))
+        {
+            return null;
+        }
+        String storeName = String.format("%s.%s.attempts", getUntilSuccessfulConfiguration().getFlowConstruct().getName(),
+                                         UntilSuccessful.class.getName());
+        return ((ObjectStoreManager) objectStoreManager).getObjectStore(storeName, true);
+    }
+
+    private int resolveMaxConcurrentRetries()
+    {
+        int maxConcurrentRetries = getUntilSuccessfulConfiguration().getMaxConcurrentRetries();
+        if (maxConcurrentRetries <= 0)
+        {
+            maxConcurrentRetries = getUntilSuccessfulConfiguration().getThreadingProfile().getMaxThreadsActive();
+        }
+        return maxConcurrentRetries > 0 ? maxConcurrentRetries : Integer.MAX_VALUE;
     }
 
 
     @Override
     public void stop()
     {
-        scheduledPool.shutdown();
-        scheduledPool = null;
+        // messages still waiting stay in the store and are read back on the next start
+        dueEvents = null;
+        if (processingPool != null)
+        {
+            processingPool.shutdown();
+            processingPool = null;
+        }
+        if (scheduledPool != null)
+        {
+            scheduledPool.shutdown();
+            scheduledPool = null;
+        }
     }
 
     @Override
@@ -98,8 +194,10 @@ public class AsynchronousUntilSuccessfulProcessingStrategy extends AbstractUntil
         }
         try
         {
-            final Serializable eventStoreKey = storeEvent(event);
-            scheduleForProcessing(eventStoreKey, true);
+            final Integer deliveryAttemptCount = event.getMessage().getInvocationProperty(
+                    PROCESS_ATTEMPT_COUNT_PROPERTY_NAME, DEFAULT_PROCESS_ATTEMPT_COUNT_PROPERTY_VALUE);
+            final Serializable eventStoreKey = storeEvent(event, deliveryAttemptCount);
+            enqueueForProcessing(dueEvents, new PendingEvent(eventStoreKey, deliveryAttemptCount, System.currentTimeMillis()));
             if (getUntilSuccessfulConfiguration().getAckExpression() == null)
             {
                 return VoidMuleEvent.getInstance();
@@ -116,21 +214,39 @@ public class AsynchronousUntilSuccessfulProcessingStrategy extends AbstractUntil
 
     private void scheduleAllPendingEventsForProcessing()
     {
+        final DueEvents events = dueEvents;
         try
         {
+            final Map<Serializable, RetryState> retryStates = retrieveRetryStates();
+            final long now = System.currentTimeMillis();
+            final List<PendingEvent> pendingEvents = new ArrayList<PendingEvent>();
             for (final Serializable eventStoreKey : getUntilSuccessfulConfiguration().getObjectStore().allKeys())
             {
-                try
+                RetryState retryState = retryStates.remove(eventStoreKey);
+                if (retryState != null)
                 {
-                    scheduleForProcessing(eventStoreKey, true);
+                    PendingEvent pendingEvent = new PendingEvent(eventStoreKey, retryState.deliveryAttemptCount, retryState.dueTime);
+                    pendingEvent.retryStateStored = true;
+                    pendingEvents.add(pendingEvent);
                 }
-                catch (final Exception e)
+                else
                 {
-                    logger.error(
-                            MessageFactory.createStaticMessage("Failed to schedule for processing event stored with key: "
-                                                               + eventStoreKey), e);
+                    // the attempt count is read from the stored event when it is first processed
+                    pendingEvents.add(new PendingEvent(eventStoreKey, PendingEvent.UNKNOWN_ATTEMPT_COUNT, now));
                 }
             }
+            // the states left are those of events that were removed before their state was
+            removeRetryStates(retryStates.keySet());
+
+            Collections.sort(pendingEvents);
+            for (final PendingEvent pendingEvent : pendingEvents)
+            {
+                if (events != dueEvents)
+                {
+                    return;
+                }
+                enqueueForProcessing(events, pendingEvent);
+            }
         }
         catch (Exception e)
         {
@@ -142,62 +258,241 @@ public class AsynchronousUntilSuccessfulProcessingStrategy extends AbstractUntil
         }
     }
 
-    private void scheduleForProcessing(final Serializable eventStoreKey, boolean firstTime) throws Exception
+    private void enqueueForProcessing(final DueEvents events, final PendingEvent pendingEvent)
+    {
+        // an event stored while the previous ones are read back is only enqueued once
+        if (events != null && events.keys.add(pendingEvent.eventStoreKey))
+        {
+            final long delay = pendingEvent.dueTime - System.currentTimeMillis();
+            if (delay > 0)
+            {
+                enqueueWhenDue(events, pendingEvent, delay);
+            }
+            else
+            {
+                events.queue.add(pendingEvent);
+                processDueEvents(events);
+            }
+        }
+    }
+
+    /**
+     * Hands due events to the processing threads while there are processing permits left. It is
+     * called both after adding an event to the queue and after releasing a permit, so an event is
+     * never left waiting while a permit is free.
+     */
+    private void processDueEvents(final DueEvents events)
     {
-        this.scheduledPool.schedule(new Callable<Object>()
+        while (events == dueEvents && !events.queue.isEmpty() && events.permits.tryAcquire())
+        {
+            final PendingEvent pendingEvent = events.queue.poll();
+            if (pendingEvent == null)
+            {
+                events.permits.release();
+                continue;
+            }
+            try
+            {
+                execute(new Callable<Object>()
+                {
+                    @Override
+                    public Object call() throws Exception
+                    {
+                        try
+                        {
+                            processPendingEvent(events, pendingEvent);
+                        }
+                        finally
+                        {
+                            events.permits.release();
+                            processDueEvents(events);
+                        }
+                        return null;
+                    }
+                }, 0);
+            }
+            catch (RejectedExecutionException e)
+            {
+                events.permits.release();
+                // the event stays in the store and is scheduled again when the router is restarted
+                logger.warn("Could not schedule processing of event stored with key: " + pendingEvent.eventStoreKey, e);
+            }
+        }
+    }
+
+    private void scheduleRetry(final DueEvents events, final PendingEvent pendingEvent)
+    {
+        final long delay = getUntilSuccessfulConfiguration().getMillisBetweenRetries();
+        pendingEvent.dueTime = System.currentTimeMillis() + delay;
+        storeRetryState(pendingEvent);
+        enqueueWhenDue(events, pendingEvent, delay);
+    }
+
+    private void enqueueWhenDue(final DueEvents events, final PendingEvent pendingEvent, final long delay)
+    {
+        final Callable<Object> enqueueTask = new Callable<Object>()
         {
             @Override
             public Object call() throws Exception
             {
-                try
-                {
-                    retrieveAndProcessEvent(eventStoreKey);
-                }
-                catch (Exception e)
-                {
-                    incrementProcessAttemptCountAndRescheduleOrRemoveFromStore(eventStoreKey);
-                }
+                events.queue.add(pendingEvent);
+                processDueEvents(events);
                 return null;
             }
-        }, firstTime ? 0 : getUntilSuccessfulConfiguration().getMillisBetweenRetries(), TimeUnit.MILLISECONDS);
+        };
+
+        if (timingWheel == null)
+        {
+            execute(enqueueTask, delay);
+        }
+        else
+        {
+            timingWheel.schedule(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        enqueueTask.call();
+                    }
+                    catch (Exception e)
+                    {
+                        logger.warn("Could not schedule retry of event stored with key: " + pendingEvent.eventStoreKey, e);
+                    }
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
     }
 
-    private void incrementProcessAttemptCountAndRescheduleOrRemoveFromStore(final Serializable eventStoreKey) throws Exception
+    private void execute(final Callable<Object> task, long delay)
     {
+        if (timingWheel == null)
+        {
+            this.scheduledPool.schedule(task, delay, TimeUnit.MILLISECONDS);
+        }
+        else
+        {
+            this.processingPool.submit(task);
+        }
+    }
+
+    private void processPendingEvent(final DueEvents events, final PendingEvent pendingEvent)
+    {
+        final Serializable eventStoreKey = pendingEvent.eventStoreKey;
+        final MuleEvent persistedEvent;
         try
         {
-            final MuleEvent event = getUntilSuccessfulConfiguration().getObjectStore().remove(eventStoreKey);
-            final MuleEvent mutableEvent = threadSafeCopy(event);
+            persistedEvent = getUntilSuccessfulConfiguration().getObjectStore().retrieve(eventStoreKey);
+        }
+        catch (final ObjectStoreException ose)
+        {
+            events.keys.remove(eventStoreKey);
+            logger.error("Failed to retrieve event stored with key: " + eventStoreKey, ose);
+            return;
+        }
 
-            final MuleMessage message = mutableEvent.getMessage();
-            final Integer deliveryAttemptCount = message.getInvocationProperty(
+        final MuleEvent mutableEvent = threadSafeCopy(persistedEvent);
+        final MuleMessage message = mutableEvent.getMessage();
+        if (pendingEvent.deliveryAttemptCount == PendingEvent.UNKNOWN_ATTEMPT_COUNT)
+        {
+            pendingEvent.deliveryAttemptCount = message.getInvocationProperty(
                     PROCESS_ATTEMPT_COUNT_PROPERTY_NAME, DEFAULT_PROCESS_ATTEMPT_COUNT_PROPERTY_VALUE);
+        }
+        else
+        {
+            message.setInvocationProperty(PROCESS_ATTEMPT_COUNT_PROPERTY_NAME, pendingEvent.deliveryAttemptCount);
+        }
 
-            if (deliveryAttemptCount <= getUntilSuccessfulConfiguration().getMaxRetries())
+        try
+        {
+            processEvent(mutableEvent);
+        }
+        catch (Exception e)
+        {
+            if (pendingEvent.deliveryAttemptCount <= getUntilSuccessfulConfiguration().getMaxRetries())
             {
-                // we store the incremented version unless the max attempt count has
-                // been reached
-                message.setInvocationProperty(PROCESS_ATTEMPT_COUNT_PROPERTY_NAME, deliveryAttemptCount + 1);
-                getUntilSuccessfulConfiguration().getObjectStore().store(eventStoreKey, mutableEvent);
-                this.scheduleForProcessing(eventStoreKey, false);
+                pendingEvent.deliveryAttemptCount++;
+                scheduleRetry(events, pendingEvent);
             }
             else
             {
-                abandonRetries(event, mutableEvent);
+                removeFromStore(events, pendingEvent);
+                abandonRetries(persistedEvent, mutableEvent);
             }
+            return;
         }
-        catch (final ObjectStoreException ose)
+        removeFromStore(events, pendingEvent);
+    }
+
+    private Map<Serializable, RetryState> retrieveRetryStates()
+    {
+        final Map<Serializable, RetryState> retryStates = new HashMap<Serializable, RetryState>();
+        if (retryStateStore == null)
+        {
+            return retryStates;
+        }
+        try
+        {
+            for (final Serializable eventStoreKey : retryStateStore.allKeys())
+            {
+                retryStates.put(eventStoreKey, retryStateStore.retrieve(eventStoreKey));
+            }
+        }
+        catch (ObjectStoreException e)
         {
-            logger.error("Failed to increment failure count for event stored with key: " + eventStoreKey, ose);
+            // the events without a state start counting from the attempt count they were stored with
+            logger.warn("Failed to retrieve the attempt counts of the stored events", e);
         }
+        return retryStates;
     }
 
-    private Serializable storeEvent(final MuleEvent event) throws ObjectStoreException
+    private void removeRetryStates(final Collection<Serializable> eventStoreKeys)
     {
-        final MuleMessage message = event.getMessage();
-        final Integer deliveryAttemptCount = message.getInvocationProperty(
-                PROCESS_ATTEMPT_COUNT_PROPERTY_NAME, DEFAULT_PROCESS_ATTEMPT_COUNT_PROPERTY_VALUE);
-        return storeEvent(event, deliveryAttemptCount);
+        for (final Serializable eventStoreKey : eventStoreKeys)
+        {
+            removeRetryState(eventStoreKey);
+        }
+    }
+
+    private void removeRetryState(final Serializable eventStoreKey)
+    {
+        try
+        {
+            retryStateStore.remove(eventStoreKey);
+        }
+        catch (ObjectDoesNotExistException e)
+        {
+            // already removed
+        }
+        catch (ObjectStoreException e)
+        {
+            logger.warn("Failed to remove the attempt count of event stored with key: " + eventStoreKey, e);
+        }
+    }
+
+    private void storeRetryState(final PendingEvent pendingEvent)
+    {
+        if (retryStateStore == null)
+        {
+            return;
+        }
+        final Serializable eventStoreKey = pendingEvent.eventStoreKey;
+        try
+        {
+            // object stores cannot replace an entry, only the events that failed before have one
+            if (pendingEvent.retryStateStored)
+            {
+                removeRetryState(eventStoreKey);
+            }
+            retryStateStore.store(eventStoreKey, new RetryState(pendingEvent.deliveryAttemptCount, pendingEvent.dueTime));
+            pendingEvent.retryStateStored = true;
+        }
+        catch (ObjectStoreException e)
+        {
+            // counting resumes from the last saved count after a restart
+            logger.warn("Failed to save the attempt count of event stored with key: " + eventStoreKey, e);
+        }
     }
 
     private Serializable storeEvent(final MuleEvent event, final int deliveryAttemptCount)
@@ -246,11 +541,17 @@ public class AsynchronousUntilSuccessfulProcessingStrategy extends AbstractUntil
         }
     }
 
-    private void removeFromStore(final Serializable eventStoreKey)
+    private void removeFromStore(final DueEvents events, final PendingEvent pendingEvent)
     {
+        final Serializable eventStoreKey = pendingEvent.eventStoreKey;
         try
         {
             getUntilSuccessfulConfiguration().getObjectStore().remove(eventStoreKey);
+            events.keys.remove(eventStoreKey);
+            if (pendingEvent.retryStateStored)
+            {
+                removeRetryState(eventStoreKey);
+            }
         }
         catch (final ObjectStoreException ose)
         {
@@ -258,14 +559,6 @@ public class AsynchronousUntilSuccessfulProcessingStrategy extends AbstractUntil
         }
     }
 
-    private void retrieveAndProcessEvent(final Serializable eventStoreKey) throws ObjectStoreException
-    {
-        final MuleEvent persistedEvent = getUntilSuccessfulConfiguration().getObjectStore().retrieve(eventStoreKey);
-        final MuleEvent mutableEvent = threadSafeCopy(persistedEvent);
-        processEvent(mutableEvent);
-        removeFromStore(eventStoreKey);
-    }
-
     protected MuleEvent threadSafeCopy(final MuleEvent event)
     {
         final DefaultMuleMessage message = new DefaultMuleMessage(event.getMessage().getPayload(),
@@ -303,4 +596,70 @@ public class AsynchronousUntilSuccessfulProcessingStrategy extends AbstractUntil
         this.messagingExceptionHandler = messagingExceptionHandler;
     }
 
+    /**
+     * The events of one run of the router waiting to be processed, and the permits that bound how
+     * many of them are processed at the same time. A new instance is created on each start, so that
+     * tasks left over from a previous run find out they are stale.
+     */
+    private static class DueEvents
+    {
+        final PriorityBlockingQueue<PendingEvent> queue = new PriorityBlockingQueue<PendingEvent>();
+        final Set<Serializable> keys = Collections.newSetFromMap(new ConcurrentHashMap<Serializable, Boolean>());
+        final Semaphore permits;
+
+        DueEvents(int maxConcurrentRetries)
+        {
+            this.permits = new Semaphore(maxConcurrentRetries);
+        }
+    }
+
+    /**
+     * The attempt count of an event and the time of its next attempt, as saved in the side store.
+     */
+    static class RetryState implements Serializable
+    {
+        private static final long serialVersionUID = 6160377862431875402L;
+
+        final int deliveryAttemptCount;
+        final long dueTime;
+
+        RetryState(int deliveryAttemptCount, long dueTime)
+        {
+            this.deliveryAttemptCount = deliveryAttemptCount;
+            this.dueTime = dueTime;
+        }
+    }
+
+    /**
+     * An event waiting in the object store, ordered by the time it is due for processing.
+     */
+    private static class PendingEvent implements Comparable<PendingEvent>
+    {
+        static final int UNKNOWN_ATTEMPT_COUNT = -1;
+        private static final AtomicLong SEQUENCE = new AtomicLong();
+
+        final Serializable eventStoreKey;
+        final long sequence = SEQUENCE.getAndIncrement();
+        volatile int deliveryAttemptCount;
+        volatile long dueTime;
+        volatile boolean retryStateStored;
+
+        PendingEvent(Serializable eventStoreKey, int deliveryAttemptCount, long dueTime)
+        {
+            this.eventStoreKey = eventStoreKey;
+            this.deliveryAttemptCount = deliveryAttemptCount;
+            this.dueTime = dueTime;
+        }
+
+        @Override
+        public int compareTo(PendingEvent other)
+        {
+            if (dueTime != other.dueTime)
+            {
+                return dueTime < other.dueTime ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+
 }
@@ -17,6 +17,7 @@ import org.mule.api.MuleMessageCollection;
 import org.mule.api.MuleSession;
 import org.mule.api.config.MuleProperties;
 import org.mule.api.store.ListableObjectStore;
+import org.mule.api.store.ObjectStore;
 import org.mule.api.store.ObjectStoreException;
 import org.mule.api.store.ObjectStoreManager;
 import org.mule.session.DefaultMuleSession;
@@ -30,12 +31,25 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
 
 import org.apache.commons.collections.IteratorUtils;
 
 /**
  * <code>EventGroup</code> is a holder over events grouped by a common group Id. This
  * can be used by components such as routers to managed related events.
+ * <p/>
+ * The events of all the groups that share a store prefix (i.e. the groups of one aggregator)
+ * are kept in a single object store, keyed by group and event. Each group tracks the keys of
+ * its own events in arrival order, so its size is known without listing the store and all its
+ * events can be removed at once when the group completes.
+ * <p/>
+ * A group kept in a persistent store is deserialized into a new copy every time it is
+ * retrieved, so the keys of its events are also kept in the <code>&lt;prefix&gt;.eventGroupIndex</code>
+ * store: one entry per event, keyed by its arrival order, and one entry with the counters of the
+ * group. Adding an event stores its own entry and replaces the counters only, copies pick up the
+ * entries added by other copies from the counters and load the keys of all the events only when
+ * they are read. Copies of a group change it holding a lock on the group id.
  */
 // @ThreadSafe
 public class EventGroup implements Comparable<EventGroup>, Serializable, DeserializationPostInitialisable
@@ -49,10 +63,17 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
 
     public static final String MULE_ARRIVAL_ORDER_PROPERTY = MuleProperties.PROPERTY_PREFIX + "ARRIVAL_ORDER";
 
+    private static final String EVENTS_STORE_SUFFIX = ".eventGroupEvents";
+    private static final String INDEX_STORE_SUFFIX = ".eventGroupIndex";
+    private static final String LEGACY_STORE_SUFFIX = ".eventGroup.";
+
     transient private ObjectStoreManager objectStoreManager = null;
 
     private final Object groupId;
     transient ListableObjectStore<MuleEvent> events;
+    transient List<Serializable> eventKeys;
+    transient private ObjectStore<Serializable> index;
+    transient private boolean keysLoaded;
     private final long created;
     private final int expectedSize;
     transient private MuleContext muleContext;
@@ -60,7 +81,10 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
     private String commonRootId = null;
     private static boolean hasNoCommonRootId = false;
     private int arrivalOrderCounter = 0;
+    private int removedCounter = 0;
     private Serializable lastStoredEventKey;
+    // groups serialized before the index existed read this as false until they are migrated
+    private boolean indexed;
 
     public static final String DEFAULT_STORE_PREFIX = "DEFAULT_STORE";
 
@@ -80,8 +104,14 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
         this.muleContext = muleContext;
         this.storePrefix = storePrefix;
 
-        String storeKey = storePrefix + ".eventGroup." + groupId;
-        this.events = getObjectStoreManager().getObjectStore(storeKey, storeIsPersistent);
+        this.events = getObjectStoreManager().getObjectStore(storePrefix + EVENTS_STORE_SUFFIX, storeIsPersistent);
+        this.eventKeys = new ArrayList<Serializable>();
+        this.keysLoaded = true;
+        this.indexed = storeIsPersistent;
+        if (indexed)
+        {
+            this.index = getObjectStoreManager().getObjectStore(storePrefix + INDEX_STORE_SUFFIX, true);
+        }
 
         this.expectedSize = expectedSize;
         this.groupId = groupId;
@@ -193,9 +223,9 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
     @SuppressWarnings("unchecked")
     public Iterator<MuleEvent> iterator(boolean sortByArrival) throws ObjectStoreException
     {
-        synchronized (events)
+        synchronized (eventKeys)
         {
-            if (events.allKeys().isEmpty())
+            if (keys().isEmpty())
             {
                 return IteratorUtils.emptyIterator();
             }
@@ -226,17 +256,16 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
      */
     public MuleEvent[] toArray(boolean sortByArrival) throws ObjectStoreException
     {
-        synchronized (events)
+        synchronized (eventKeys)
         {
-            if (events.allKeys().isEmpty())
+            if (keys().isEmpty())
             {
                 return EMPTY_EVENTS_ARRAY;
             }
-            List<Serializable> keys = events.allKeys();
-            MuleEvent[] eventArray = new MuleEvent[keys.size()];
-            for (int i = 0; i < keys.size(); i++)
+            MuleEvent[] eventArray = new MuleEvent[eventKeys.size()];
+            for (int i = 0; i < eventKeys.size(); i++)
             {
-                eventArray[i] = events.retrieve(keys.get(i));
+                eventArray[i] = events.retrieve(eventKeys.get(i));
             }
             if (sortByArrival)
             {
@@ -254,14 +283,27 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
      */
     public void addEvent(MuleEvent event) throws ObjectStoreException
     {
-        synchronized (events)
+        Lock lock = lockGroup();
+        try
         {
-            //Using both event ID and CorrelationSequence since in certain instances
-            //when an event is split up, the same event IDs are used.
-            Serializable key=event.getId()+event.getMessage().getCorrelationSequence();
-            event.getMessage().setInvocationProperty(MULE_ARRIVAL_ORDER_PROPERTY, ++arrivalOrderCounter);
-            lastStoredEventKey = key;
-            events.store(key, event);
+            synchronized (eventKeys)
+            {
+                syncGroupIndex();
+                Serializable key = getEventKey(event);
+                int arrivalOrder = ++arrivalOrderCounter;
+                event.getMessage().setInvocationProperty(MULE_ARRIVAL_ORDER_PROPERTY, arrivalOrder);
+                lastStoredEventKey = key;
+                events.store(key, event);
+                if (keysLoaded)
+                {
+                    eventKeys.add(key);
+                }
+                if (index != null)
+                {
+                    index.store(getKeyPrefix() + arrivalOrder, key);
+                    storeGroupIndex();
+                }
+            }
 
             if (!hasNoCommonRootId)
             {
@@ -277,6 +319,10 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
                 }
             }
         }
+        finally
+        {
+            unlockGroup(lock);
+        }
     }
 
 
@@ -288,9 +334,28 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
      */
     public void removeEvent(MuleEvent event) throws ObjectStoreException
     {
-        synchronized (events)
+        Lock lock = lockGroup();
+        try
+        {
+            synchronized (eventKeys)
+            {
+                syncGroupIndex();
+                Serializable key = getEventKey(event);
+                if (keys().remove(key))
+                {
+                    events.remove(key);
+                    if (index != null)
+                    {
+                        removeIndexEntry(key, event.getMessage().getInvocationProperty(MULE_ARRIVAL_ORDER_PROPERTY, -1));
+                        removedCounter++;
+                        storeGroupIndex();
+                    }
+                }
+            }
+        }
+        finally
         {
-            events.remove(event.getId());
+            unlockGroup(lock);
         }
     }
 
@@ -311,17 +376,9 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
      */
     public int size()
     {
-        synchronized (events)
+        synchronized (eventKeys)
         {
-            try
-            {
-                return events.allKeys().size();
-            }
-            catch (ObjectStoreException e)
-            {
-                // TODO Check if this is ok.
-                return -1;
-            }
+            return keysLoaded ? eventKeys.size() : arrivalOrderCounter - removedCounter;
         }
     }
 
@@ -343,7 +400,42 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
      */
     public void clear() throws ObjectStoreException
     {
-        getObjectStoreManager().disposeStore(events);
+        Lock lock = lockGroup();
+        try
+        {
+            synchronized (eventKeys)
+            {
+                syncGroupIndex();
+                for (Serializable key : keys())
+                {
+                    if (events.contains(key))
+                    {
+                        events.remove(key);
+                    }
+                }
+                eventKeys.clear();
+                removedCounter = arrivalOrderCounter;
+                if (index != null)
+                {
+                    String prefix = getKeyPrefix();
+                    for (int i = 1; i <= arrivalOrderCounter; i++)
+                    {
+                        if (index.contains(prefix + i))
+                        {
+                            index.remove(prefix + i);
+                        }
+                    }
+                    if (index.contains(prefix))
+                    {
+                        index.remove(prefix);
+                    }
+                }
+            }
+        }
+        finally
+        {
+            unlockGroup(lock);
+        }
     }
 
     @Override
@@ -357,18 +449,16 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
 
         try
         {
-            synchronized (events)
+            synchronized (eventKeys)
             {
-                int currentSize;
-
-                currentSize = events.allKeys().size();
+                int currentSize = keys().size();
 
                 buf.append(", current events=").append(currentSize);
 
                 if (currentSize > 0)
                 {
                     buf.append(" [");
-                    Iterator<Serializable> i = events.allKeys().iterator();
+                    Iterator<Serializable> i = eventKeys.iterator();
                     while (i.hasNext())
                     {
                         Serializable id = i.next();
@@ -402,9 +492,9 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
         DefaultMessageCollection col = new DefaultMessageCollection(muleContext);
         List<MuleMessage> messages = new ArrayList<MuleMessage>();
 
-        synchronized (events)
+        synchronized (eventKeys)
         {
-            for (Serializable id : events.allKeys())
+            for (Serializable id : keys())
             {
                 MuleMessage message = events.retrieve(id).getMessage();
                 messages.add(message);
@@ -462,12 +552,15 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
         MuleEvent lastStoredEvent = retrieveLastStoredEvent();
         MuleSession session = new DefaultMuleSession(
                 lastStoredEvent.getSession());
-        for (Serializable key : events.allKeys())
+        synchronized (eventKeys)
         {
-            if (!key.equals(lastStoredEventKey))
+            for (Serializable key : keys())
             {
-                MuleEvent event = events.retrieve(key);
-                addAndOverrideSessionProperties(session, event);
+                if (!key.equals(lastStoredEventKey))
+                {
+                    MuleEvent event = events.retrieve(key);
+                    addAndOverrideSessionProperties(session, event);
+                }
             }
         }
         addAndOverrideSessionProperties(session, lastStoredEvent);
@@ -482,6 +575,24 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
         }
     }
 
+    /**
+     * Builds the key of an event in the store shared by all the groups. The key is prefixed with
+     * the group id, which in turn is prefixed with its length so that the prefix of one group can
+     * not be the start of the prefix of another.
+     */
+    private Serializable getEventKey(MuleEvent event)
+    {
+        //Using both event ID and CorrelationSequence since in certain instances
+        //when an event is split up, the same event IDs are used.
+        return getKeyPrefix() + event.getId() + event.getMessage().getCorrelationSequence();
+    }
+
+    private String getKeyPrefix()
+    {
+        String id = String.valueOf(groupId);
+        return id.length() + ":" + id + ":";
+    }
+
     private ObjectStoreManager getObjectStoreManager()
     {
         if (objectStoreManager == null)
@@ -495,9 +606,196 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
     public void initAfterDeserialisation(MuleContext context) throws MuleException
     {
         this.muleContext = context;
+        this.events = getObjectStoreManager().getObjectStore(storePrefix + EVENTS_STORE_SUFFIX, true);
+        this.index = getObjectStoreManager().getObjectStore(storePrefix + INDEX_STORE_SUFFIX, true);
+        this.eventKeys = new ArrayList<Serializable>();
 
-        String storeKey = storePrefix + ".eventGroup." + groupId;
-        this.events = getObjectStoreManager().getObjectStore(storeKey, true);
+        Lock lock = lockGroup();
+        try
+        {
+            synchronized (eventKeys)
+            {
+                if (indexed)
+                {
+                    // the keys are loaded from the index when the events are read
+                    keysLoaded = false;
+                    syncGroupIndex();
+                }
+                else
+                {
+                    migrateLegacyStore();
+                }
+            }
+        }
+        finally
+        {
+            unlockGroup(lock);
+        }
+    }
+
+    /**
+     * Groups serialized by older versions kept their events in a store of their own, named after
+     * the group. Moves those events to the shared store, indexes them and disposes the old store.
+     */
+    private void migrateLegacyStore() throws ObjectStoreException
+    {
+        indexed = true;
+        if (index.contains(getKeyPrefix()))
+        {
+            // already migrated through another copy of this group
+            keysLoaded = false;
+            syncGroupIndex();
+            return;
+        }
+
+        ListableObjectStore<MuleEvent> legacy = getObjectStoreManager().getObjectStore(
+            storePrefix + LEGACY_STORE_SUFFIX + groupId, true);
+        String prefix = getKeyPrefix();
+        int entries = 0;
+        for (Serializable legacyKey : legacy.allKeys())
+        {
+            Serializable key = prefix + legacyKey;
+            if (!events.contains(key))
+            {
+                events.store(key, legacy.retrieve(legacyKey));
+            }
+            eventKeys.add(key);
+            index.store(prefix + (++entries), key);
+        }
+        keysLoaded = true;
+        // the entries are numbered from one, their arrival order is kept in the events
+        arrivalOrderCounter = Math.max(arrivalOrderCounter, entries);
+        removedCounter = arrivalOrderCounter - entries;
+        if (lastStoredEventKey != null)
+        {
+            lastStoredEventKey = prefix + lastStoredEventKey;
+        }
+        if (entries > 0)
+        {
+            storeGroupIndex();
+        }
+        getObjectStoreManager().disposeStore(legacy);
+    }
+
+    /**
+     * Only persistent groups are deserialized into separate copies, so the others do not need to
+     * lock their id and rely on the monitor of their own keys.
+     *
+     * @return the lock of this group, already held, or <code>null</code> if the group is not indexed
+     */
+    private Lock lockGroup()
+    {
+        if (index == null)
+        {
+            return null;
+        }
+        Lock lock = muleContext.getLockFactory().createLock(storePrefix + INDEX_STORE_SUFFIX + ":" + getKeyPrefix());
+        lock.lock();
+        return lock;
+    }
+
+    private void unlockGroup(Lock lock)
+    {
+        if (lock != null)
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the keys of the events of this group, loaded from the index the first time they are
+     *         needed by a copy. Must be called holding the monitor of {@link #eventKeys}.
+     */
+    private List<Serializable> keys() throws ObjectStoreException
+    {
+        if (!keysLoaded)
+        {
+            eventKeys.clear();
+            loadIndexEntries(1, arrivalOrderCounter);
+            keysLoaded = true;
+        }
+        return eventKeys;
+    }
+
+    private void loadIndexEntries(int from, int to) throws ObjectStoreException
+    {
+        String prefix = getKeyPrefix();
+        for (int i = from; i <= to; i++)
+        {
+            if (index.contains(prefix + i))
+            {
+                eventKeys.add(index.retrieve(prefix + i));
+            }
+        }
+    }
+
+    /**
+     * Catches up with the changes other copies of this group stored: the keys they added are
+     * appended, while a removal makes the keys be loaded again when they are next read. Must be
+     * called holding the lock of the group and the monitor of {@link #eventKeys}.
+     */
+    private void syncGroupIndex() throws ObjectStoreException
+    {
+        if (index == null)
+        {
+            return;
+        }
+        String groupIndexKey = getKeyPrefix();
+        if (!index.contains(groupIndexKey))
+        {
+            // no event was added yet, or another copy cleared the group
+            eventKeys.clear();
+            keysLoaded = true;
+            removedCounter = arrivalOrderCounter;
+            return;
+        }
+        GroupIndex stored = (GroupIndex) index.retrieve(groupIndexKey);
+        if (stored.removedCounter != removedCounter)
+        {
+            keysLoaded = false;
+        }
+        else if (keysLoaded && stored.arrivalOrderCounter > arrivalOrderCounter)
+        {
+            loadIndexEntries(arrivalOrderCounter + 1, stored.arrivalOrderCounter);
+        }
+        arrivalOrderCounter = stored.arrivalOrderCounter;
+        removedCounter = stored.removedCounter;
+        lastStoredEventKey = stored.lastStoredEventKey;
+    }
+
+    /**
+     * Must be called holding the lock of the group.
+     */
+    private void storeGroupIndex() throws ObjectStoreException
+    {
+        String groupIndexKey = getKeyPrefix();
+        if (index.contains(groupIndexKey))
+        {
+            index.remove(groupIndexKey);
+        }
+        index.store(groupIndexKey, new GroupIndex(arrivalOrderCounter, removedCounter, lastStoredEventKey));
+    }
+
+    /**
+     * Removes the index entry of an event, found from its arrival order or, for the events of a
+     * migrated group, by looking for its key.
+     */
+    private void removeIndexEntry(Serializable key, int arrivalOrder) throws ObjectStoreException
+    {
+        String prefix = getKeyPrefix();
+        if (arrivalOrder > 0 && index.contains(prefix + arrivalOrder) && key.equals(index.retrieve(prefix + arrivalOrder)))
+        {
+            index.remove(prefix + arrivalOrder);
+            return;
+        }
+        for (int i = 1; i <= arrivalOrderCounter; i++)
+        {
+            if (index.contains(prefix + i) && key.equals(index.retrieve(prefix + i)))
+            {
+                index.remove(prefix + i);
+                return;
+            }
+        }
     }
 
     public boolean isInitialised()
@@ -505,6 +803,25 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
         return muleContext != null;
     }
 
+    /**
+     * The counters of one group, as kept in the index store next to the entries of its events.
+     */
+    private static class GroupIndex implements Serializable
+    {
+        private static final long serialVersionUID = 5406412392474727466L;
+
+        private final int arrivalOrderCounter;
+        private final int removedCounter;
+        private final Serializable lastStoredEventKey;
+
+        GroupIndex(int arrivalOrderCounter, int removedCounter, Serializable lastStoredEventKey)
+        {
+            this.arrivalOrderCounter = arrivalOrderCounter;
+            this.removedCounter = removedCounter;
+            this.lastStoredEventKey = lastStoredEventKey;
+        }
+    }
+
     public final class ArrivalOrderMessageComparator implements Comparator<MuleMessage>
     {
         @Override
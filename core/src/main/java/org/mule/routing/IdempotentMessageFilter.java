@@ -15,14 +15,22 @@ import org.mule.api.construct.FlowConstructAware;
 import org.mule.api.expression.ExpressionManager;
 import org.mule.api.lifecycle.Initialisable;
 import org.mule.api.lifecycle.InitialisationException;
+import org.mule.api.lifecycle.Startable;
 import org.mule.api.routing.RoutingException;
 import org.mule.api.store.*;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.processor.AbstractFilteringMessageProcessor;
+import org.mule.util.concurrent.ShardedBloomFilter;
 import org.mule.util.concurrent.ThreadNameHelper;
 import org.mule.util.store.InMemoryObjectStore;
 
+import java.io.Serializable;
 import java.text.MessageFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.resource.spi.work.Work;
+import javax.resource.spi.work.WorkException;
 
 /**
  * <code>IdempotentMessageFilter</code> ensures that only unique messages are passed
@@ -30,16 +38,30 @@ import java.text.MessageFormat;
  * underlying endpoint must support unique message IDs for this to work, otherwise a
  * <code>UniqueIdNotSupportedException</code> is thrown.<br>
  * <p>
+ * When <code>bloomFilterExpectedEntries</code> is set, the IDs seen so far are also kept in an
+ * in-memory Bloom filter, rebuilt from the store when the filter is started, and the store is
+ * only looked up for the IDs the Bloom filter might have seen. When more IDs than expected have
+ * been seen, a larger Bloom filter is rebuilt in the background, on the work manager of the
+ * context that the flows share, while messages keep being checked against the current one. IDs are always added with
+ * {@link ObjectStore#store(Serializable, Serializable)}, which rejects duplicates, so an ID stored
+ * by another instance sharing the store is still filtered out. The store must be a
+ * {@link ListableObjectStore} for the Bloom filter to be used.
+ * <p>
  * <b>EIP Reference:</b> <a
  * href="http://www.eaipatterns.com/IdempotentReceiver.html">
  * http://www.eaipatterns.com/IdempotentReceiver.html</a>
  */
-public class IdempotentMessageFilter extends AbstractFilteringMessageProcessor implements FlowConstructAware, Initialisable
+public class IdempotentMessageFilter extends AbstractFilteringMessageProcessor implements FlowConstructAware, Initialisable, Startable
 {
     protected volatile ObjectStore<String> store;
     protected FlowConstruct flowConstruct;
     protected String storePrefix;
 
+    protected int bloomFilterExpectedEntries = 0;
+    protected double bloomFilterFalsePositiveRate = 0.01;
+    protected volatile ShardedBloomFilter seenIds;
+    private final AtomicBoolean rebuildingSeenIds = new AtomicBoolean();
+
     protected String idExpression = MessageFormat.format("{0}message:id{1}",
         ExpressionManager.DEFAULT_EXPRESSION_PREFIX, ExpressionManager.DEFAULT_EXPRESSION_POSTFIX);
 
@@ -65,6 +87,109 @@ public class IdempotentMessageFilter extends AbstractFilteringMessageProcessor i
         }
     }
 
+    @Override
+    public void start() throws MuleException
+    {
+        if (store == null)
+        {
+            synchronized (this)
+            {
+                initialise();
+            }
+        }
+        rebuildSeenIds();
+    }
+
+    /**
+     * Fills a new Bloom filter with the IDs in the store, sized for at least twice the number of IDs
+     * found so that it does not saturate right away.
+     */
+    protected void rebuildSeenIds() throws ObjectStoreException
+    {
+        if (bloomFilterExpectedEntries <= 0)
+        {
+            return;
+        }
+        if (!(store instanceof ListableObjectStore))
+        {
+            logger.warn("The store of " + storePrefix + " cannot list its keys, the Bloom filter is not used");
+            return;
+        }
+        List<Serializable> ids = ((ListableObjectStore<String>) store).allKeys();
+        int expectedEntries = bloomFilterExpectedEntries;
+        while (expectedEntries < 2 * ids.size() && expectedEntries < Integer.MAX_VALUE / 2)
+        {
+            expectedEntries *= 2;
+        }
+        ShardedBloomFilter filter = new ShardedBloomFilter(expectedEntries, bloomFilterFalsePositiveRate);
+        for (Serializable id : ids)
+        {
+            filter.put(id.toString());
+        }
+        seenIds = filter;
+        if (logger.isDebugEnabled())
+        {
+            logger.debug(String.format("Rebuilt Bloom filter of %s with %d ids, sized for %d", storePrefix,
+                ids.size(), expectedEntries));
+        }
+    }
+
+    private void idSeen(String id)
+    {
+        ShardedBloomFilter filter = seenIds;
+        if (filter == null)
+        {
+            return;
+        }
+        filter.put(id);
+        if (filter.isSaturated() && rebuildingSeenIds.compareAndSet(false, true))
+        {
+            scheduleRebuildSeenIds();
+        }
+    }
+
+    /**
+     * Rebuilds the Bloom filter out of the message thread. IDs stored while the keys are listed may
+     * be missing from the new filter, which is safe since storing an ID twice is rejected by the store.
+     */
+    private void scheduleRebuildSeenIds()
+    {
+        Work rebuild = new Work()
+        {
+            public void run()
+            {
+                try
+                {
+                    rebuildSeenIds();
+                }
+                catch (ObjectStoreException e)
+                {
+                    logger.warn("Could not rebuild the Bloom filter of " + storePrefix + ": " + e.getMessage());
+                }
+                finally
+                {
+                    rebuildingSeenIds.set(false);
+                }
+            }
+
+            public void release()
+            {
+                // no op
+            }
+        };
+
+        try
+        {
+            muleContext.getWorkManager().scheduleWork(rebuild);
+        }
+        catch (WorkException e)
+        {
+            // the context is being disposed, the saturated filter is still correct
+            rebuildingSeenIds.set(false);
+            logger.warn("Could not schedule the rebuild of the Bloom filter of " + storePrefix + ": " + e.getMessage());
+        }
+    }
+
     protected ObjectStore<String> createMessageIdStore() throws InitialisationException
     {
         ObjectStoreManager objectStoreManager = (ObjectStoreManager) muleContext.getRegistry().get(
@@ -111,40 +236,54 @@ public class IdempotentMessageFilter extends AbstractFilteringMessageProcessor i
     @Override
     protected boolean accept(MuleEvent event)
     {
-        if(event != null && acceptMessageForFlowConstruct(event) && isNewMessage(event))
+        if (event == null || !acceptMessageForFlowConstruct(event))
+        {
+            return false;
+        }
+
+        String id;
+        try
+        {
+            id = getIdForEvent(event);
+        }
+        catch (MessagingException e)
+        {
+            logger.warn("Could not retrieve Id or Value for event: " + e.getMessage());
+            return false;
+        }
+        if (!isNewMessage(event, id))
         {
+            return false;
+        }
+
+        try
+        {
+            String value = getValueForEvent(event);
             try
             {
-                String id = getIdForEvent(event);
-                String value = getValueForEvent(event);
-                try
-                {
-                    store.store(id, value);
-                    return true;
-                }
-                catch (ObjectAlreadyExistsException ex)
-                {
-                    return false;
-                }
-                catch (ObjectStoreNotAvaliableException e)
-                {
-                    logger.error("ObjectStore not available: " + e.getMessage());
-                    return false;
-                }
-                catch (ObjectStoreException e)
-                {
-                    logger.warn("ObjectStore exception: " + e.getMessage());
-                    return false;
-                }
+                store.store(id, value);
+                idSeen(id);
+                return true;
+            }
+            catch (ObjectAlreadyExistsException ex)
+            {
+                idSeen(id);
+                return false;
+            }
+            catch (ObjectStoreNotAvaliableException e)
+            {
+                logger.error("ObjectStore not available: " + e.getMessage());
+                return false;
             }
-            catch (MessagingException e)
+            catch (ObjectStoreException e)
             {
-                logger.warn("Could not retrieve Id or Value for event: " + e.getMessage());
+                logger.warn("ObjectStore exception: " + e.getMessage());
                 return false;
             }
         }
-        else
+        catch (MessagingException e)
         {
+            logger.warn("Could not retrieve Id or Value for event: " + e.getMessage());
             return false;
         }
     }
@@ -169,7 +308,25 @@ public class IdempotentMessageFilter extends AbstractFilteringMessageProcessor i
     {
         try
         {
-            String id = this.getIdForEvent(event);
+            return isNewMessage(event, this.getIdForEvent(event));
+        }
+        catch (MuleException e)
+        {
+            logger.error("Exception attempting to determine idempotency of incoming message for "
+                         + event.getFlowConstruct().getName() + " from the endpoint "
+                         + event.getMessageSourceURI(), e);
+            return false;
+        }
+    }
+
+    /**
+     * @param id the ID of the event, as returned by {@link #getIdForEvent(MuleEvent)}
+     * @return <code>false</code> if the ID is already in the store
+     */
+    protected boolean isNewMessage(MuleEvent event, String id)
+    {
+        try
+        {
             if (store == null)
             {
                 synchronized (this)
@@ -177,6 +334,11 @@ public class IdempotentMessageFilter extends AbstractFilteringMessageProcessor i
                     initialise();
                 }
             }
+            ShardedBloomFilter filter = seenIds;
+            if (filter != null && !filter.mightContain(id))
+            {
+                return true;
+            }
             return !store.contains(id);
         }
         catch (MuleException e)
@@ -208,4 +370,32 @@ public class IdempotentMessageFilter extends AbstractFilteringMessageProcessor i
     {
         this.storePrefix = storePrefix;
     }
+
+    public int getBloomFilterExpectedEntries()
+    {
+        return bloomFilterExpectedEntries;
+    }
+
+    /**
+     * @param bloomFilterExpectedEntries the number of IDs the Bloom filter is initially sized for,
+     *            0 (the default) not to use a Bloom filter
+     */
+    public void setBloomFilterExpectedEntries(int bloomFilterExpectedEntries)
+    {
+        this.bloomFilterExpectedEntries = bloomFilterExpectedEntries;
+    }
+
+    public double getBloomFilterFalsePositiveRate()
+    {
+        return bloomFilterFalsePositiveRate;
+    }
+
+    /**
+     * @param bloomFilterFalsePositiveRate the rate of new IDs for which the store is still looked up,
+     *            0.01 by default
+     */
+    public void setBloomFilterFalsePositiveRate(double bloomFilterFalsePositiveRate)
+    {
+        this.bloomFilterFalsePositiveRate = bloomFilterFalsePositiveRate;
+    }
 }
@@ -57,6 +57,7 @@ public class UntilSuccessful extends AbstractOutboundRouter implements UntilSucc
 
     private ListableObjectStore<MuleEvent> objectStore;
     private int maxRetries = 5;
+    private int maxConcurrentRetries = 0;
     private Long millisBetweenRetries = null;
     private Long secondsBetweenRetries = null;
     private String failureExpression;
@@ -233,6 +234,17 @@ public class UntilSuccessful extends AbstractOutboundRouter implements UntilSucc
         this.maxRetries = maxRetries;
     }
 
+    @Override
+    public int getMaxConcurrentRetries()
+    {
+        return maxConcurrentRetries;
+    }
+
+    public void setMaxConcurrentRetries(int maxConcurrentRetries)
+    {
+        this.maxConcurrentRetries = maxConcurrentRetries;
+    }
+
     /**
      * @deprecated use {@link #setMillisBetweenRetries(long)} instead
      * @param secondsBetweenRetries the number of seconds to wait between retries
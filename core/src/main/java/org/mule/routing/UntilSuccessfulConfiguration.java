@@ -65,6 +65,12 @@ public interface UntilSuccessfulConfiguration
      */
     int getMaxRetries();
 
+    /**
+     * @return the maximum number of messages processed at the same time when processing asynchronously.
+     * Zero or less means the limit is given by the threading profile.
+     */
+    int getMaxConcurrentRetries();
+
     /**
      * @return the route to which the message must be sent if the processing fails.
      */
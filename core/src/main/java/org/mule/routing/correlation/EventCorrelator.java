@@ -12,7 +12,9 @@ import org.mule.api.MuleEvent;
 import org.mule.api.MuleException;
 import org.mule.api.MuleMessageCollection;
 import org.mule.api.config.MuleProperties;
+import org.mule.api.config.ThreadingProfile;
 import org.mule.api.construct.FlowConstruct;
+import org.mule.api.context.WorkManager;
 import org.mule.api.execution.ExecutionCallback;
 import org.mule.api.execution.ExecutionTemplate;
 import org.mule.api.lifecycle.Disposable;
@@ -28,6 +30,7 @@ import org.mule.api.store.ObjectDoesNotExistException;
 import org.mule.api.store.ObjectStore;
 import org.mule.api.store.ObjectStoreException;
 import org.mule.api.store.ObjectStoreManager;
+import org.mule.config.ChainedThreadingProfile;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.context.notification.RoutingNotification;
 import org.mule.execution.ErrorHandlingExecutionTemplate;
@@ -38,12 +41,17 @@ import org.mule.util.concurrent.ThreadNameHelper;
 import org.mule.util.monitor.Expirable;
 import org.mule.util.monitor.ExpiryMonitor;
 import org.mule.util.store.DeserializationPostInitialisable;
+import org.mule.util.timer.HashedTimingWheel;
 
 import java.io.Serializable;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.resource.spi.work.Work;
+import javax.resource.spi.work.WorkException;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -94,6 +102,7 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
     private ListableObjectStore<Long> expiredAndDispatchedGroups = null;
 
     private EventCorrelator.ExpiringGroupMonitoringThread expiringGroupMonitoringThread;
+    private EventCorrelator.ExpiringGroupMonitor expiringGroupMonitor;
     private final String name;
 
     private final boolean persistentStores;
@@ -468,8 +477,17 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
         logger.info("Starting event correlator: " + name);
         if (timeout != 0)
         {
-            expiringGroupMonitoringThread = new ExpiringGroupMonitoringThread();
-            expiringGroupMonitoringThread.start();
+            HashedTimingWheel timingWheel = HashedTimingWheel.lookup(muleContext);
+            if (timingWheel != null)
+            {
+                disposeIfDisposable(expiringGroupMonitor);
+                expiringGroupMonitor = new ExpiringGroupMonitor(timingWheel);
+            }
+            else
+            {
+                expiringGroupMonitoringThread = new ExpiringGroupMonitoringThread();
+                expiringGroupMonitoringThread.start();
+            }
         }
     }
 
@@ -481,105 +499,206 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
         {
             expiringGroupMonitoringThread.stopProcessing();
         }
+        if (expiringGroupMonitor != null)
+        {
+            expiringGroupMonitor.stop();
+        }
     }
 
-    private final class ExpiringGroupMonitoringThread extends EventProcessingThread implements Expirable, Disposable
+    /**
+     * Removes the elements in expiredAndDispatchedGroups when groupLife is
+     * reached
+     */
+    protected void discardExpiredAndDispatchedGroups()
     {
+        try
+        {
+            for (Serializable o : expiredAndDispatchedGroups.allKeys())
+            {
+                Long time = expiredAndDispatchedGroups.retrieve(o);
+                if (time + groupTimeToLive < System.currentTimeMillis())
+                {
+                    expiredAndDispatchedGroups.remove(o);
+                    logger.warn(MessageFormat.format("Discarding group {0}", o));
+                }
+            }
+        }
+        catch (ObjectStoreException e)
+        {
+            logger.warn("Expiration of objects failed due to ObjectStoreException " + e + ".");
+        }
+    }
 
-        private ExpiryMonitor expiryMonitor;
-        public static final long DELAY_TIME = 10;
-
-        public ExpiringGroupMonitoringThread()
+    /**
+     * Handles the expiry of the groups that have been waiting for longer than the timeout
+     */
+    protected void expireGroups()
+    {
+        ////TODO(pablo.kraan): is not good to have threads doing nothing in all the nodes but the primary. Need to
+        ////start the thread on the primary node only, and then use a notification schema to start a new thread
+        ////in a different node when the primary goes down.
+        if (!muleContext.isPrimaryPollingInstance())
         {
-            super(name, DELAY_TIME);
-            this.expiryMonitor = new ExpiryMonitor(name, 1000 * 60, muleContext, true);
-            // clean up every 30 minutes
-            this.expiryMonitor.addExpirable(1000 * 60 * 30, TimeUnit.MILLISECONDS, this);
+            return;
         }
 
-        /**
-         * Removes the elements in expiredAndDispatchedGroups when groupLife is
-         * reached
-         *
-         * @throws ObjectStoreException
-         */
-        @Override
-        public void expired()
+        List<EventGroup> expired = new ArrayList<EventGroup>(1);
+        try
         {
-            try
+            for (Serializable o : eventGroups.allKeys())
             {
-                for (Serializable o : expiredAndDispatchedGroups.allKeys())
+                EventGroup group = getEventGroup(o);
+                if (group.getCreated() + getTimeout() < System.currentTimeMillis())
                 {
-                    Long time = expiredAndDispatchedGroups.retrieve(o);
-                    if (time + groupTimeToLive < System.currentTimeMillis())
-                    {
-                        expiredAndDispatchedGroups.remove(o);
-                        logger.warn(MessageFormat.format("Discarding group {0}", o));
-                    }
+                    expired.add(group);
                 }
             }
-            catch (ObjectStoreException e)
+        }
+        catch (ObjectStoreException e)
+        {
+            logger.warn("expiry failed dues to ObjectStoreException " + e);
+        }
+        if (expired.size() > 0)
+        {
+            for (Object anExpired : expired)
             {
-                logger.warn("Expiration of objects failed due to ObjectStoreException " + e + ".");
+                final EventGroup group = (EventGroup) anExpired;
+                ExecutionTemplate<MuleEvent> executionTemplate = ErrorHandlingExecutionTemplate.createErrorHandlingExecutionTemplate(muleContext, flowConstruct.getExceptionListener());
+                try
+                {
+                    executionTemplate.execute(new ExecutionCallback<MuleEvent>()
+                    {
+                        @Override
+                        public MuleEvent process() throws Exception
+                        {
+                            handleGroupExpiry(group);
+                            return null;
+                        }
+                    });
+                }
+                catch (MessagingException e)
+                {
+                    //Already handled by TransactionTemplate
+                }
+                catch (Exception e)
+                {
+                    muleContext.getExceptionListener().handleException(e);
+                }
             }
         }
+    }
 
-        @Override
-        public void doRun()
+    /**
+     * Ticks on the {@link HashedTimingWheel} of the context, so that aggregators do not need a
+     * thread each. The tick only hands the group expiry to the work manager of the correlator, as
+     * the expiry runs flows and must not hold the threads shared by all the timers of the context.
+     */
+    private final class ExpiringGroupMonitor implements Runnable, Expirable, Disposable
+    {
+        private final ExpiryMonitor expiryMonitor;
+        private final WorkManager workManager;
+        private final HashedTimingWheel.Timeout timeout;
+        private final AtomicBoolean expiryPending = new AtomicBoolean(false);
+
+        public ExpiringGroupMonitor(HashedTimingWheel timingWheel) throws MuleException
         {
+            ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+            this.expiryMonitor = new ExpiryMonitor(name, 1000 * 60, contextClassLoader, muleContext, true);
+            // clean up every 30 minutes
+            this.expiryMonitor.addExpirable(1000 * 60 * 30, TimeUnit.MILLISECONDS, this);
+            ThreadingProfile threadingProfile = new ChainedThreadingProfile(muleContext.getDefaultThreadingProfile());
+            threadingProfile.setMaxThreadsActive(1);
+            threadingProfile.setMaxThreadsIdle(1);
+            this.workManager = threadingProfile.createWorkManager(name + ".expiry",
+                muleContext.getConfiguration().getShutdownTimeout());
+            this.workManager.start();
+            this.timeout = timingWheel.scheduleWithFixedDelay(this, ExpiringGroupMonitoringThread.DELAY_TIME,
+                ExpiringGroupMonitoringThread.DELAY_TIME, TimeUnit.MILLISECONDS, contextClassLoader);
+        }
 
-            ////TODO(pablo.kraan): is not good to have threads doing nothing in all the nodes but the primary. Need to
-            ////start the thread on the primary node only, and then use a notification schema to start a new thread
-            ////in a different node when the primary goes down.
-            if (!muleContext.isPrimaryPollingInstance())
+        @Override
+        public void run()
+        {
+            // a tick that finds the previous expiry still running has nothing to add to it
+            if (!expiryPending.compareAndSet(false, true))
             {
                 return;
             }
-
-            List<EventGroup> expired = new ArrayList<EventGroup>(1);
             try
             {
-                for (Serializable o : eventGroups.allKeys())
-                {
-                    EventGroup group = getEventGroup(o);
-                    if (group.getCreated() + getTimeout() < System.currentTimeMillis())
-                    {
-                        expired.add(group);
-                    }
-                }
-            }
-            catch (ObjectStoreException e)
-            {
-                logger.warn("expiry failed dues to ObjectStoreException " + e);
-            }
-            if (expired.size() > 0)
-            {
-                for (Object anExpired : expired)
+                workManager.scheduleWork(new Work()
                 {
-                    final EventGroup group = (EventGroup) anExpired;
-                    ExecutionTemplate<MuleEvent> executionTemplate = ErrorHandlingExecutionTemplate.createErrorHandlingExecutionTemplate(muleContext, flowConstruct.getExceptionListener());
-                    try
+                    @Override
+                    public void run()
                     {
-                        executionTemplate.execute(new ExecutionCallback<MuleEvent>()
+                        try
                         {
-                            @Override
-                            public MuleEvent process() throws Exception
-                            {
-                                handleGroupExpiry(group);
-                                return null;
-                            }
-                        });
-                    }
-                    catch (MessagingException e)
-                    {
-                        //Already handled by TransactionTemplate
+                            expireGroups();
+                        }
+                        finally
+                        {
+                            expiryPending.set(false);
+                        }
                     }
-                    catch (Exception e)
+
+                    @Override
+                    public void release()
                     {
-                        muleContext.getExceptionListener().handleException(e);
+                        // nothing to release
                     }
-                }
+                });
             }
+            catch (WorkException e)
+            {
+                expiryPending.set(false);
+                logger.warn("Could not schedule the group expiry of " + name + ": " + e);
+            }
+        }
+
+        @Override
+        public void expired()
+        {
+            discardExpiredAndDispatchedGroups();
+        }
+
+        public void stop()
+        {
+            timeout.cancel();
+        }
+
+        @Override
+        public void dispose()
+        {
+            stop();
+            expiryMonitor.dispose();
+            workManager.dispose();
+        }
+    }
+
+    private final class ExpiringGroupMonitoringThread extends EventProcessingThread implements Expirable, Disposable
+    {
+
+        private ExpiryMonitor expiryMonitor;
+        public static final long DELAY_TIME = 10;
+
+        public ExpiringGroupMonitoringThread()
+        {
+            super(name, DELAY_TIME);
+            this.expiryMonitor = new ExpiryMonitor(name, 1000 * 60, muleContext, true);
+            // clean up every 30 minutes
+            this.expiryMonitor.addExpirable(1000 * 60 * 30, TimeUnit.MILLISECONDS, this);
+        }
+
+        @Override
+        public void expired()
+        {
+            discardExpiredAndDispatchedGroups();
+        }
+
+        @Override
+        public void doRun()
+        {
+            expireGroups();
         }
 
         @Override
@@ -598,6 +717,7 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
         disposeIfDisposable(processedGroups);
         disposeIfDisposable(eventGroups);
         disposeIfDisposable(expiringGroupMonitoringThread);
+        disposeIfDisposable(expiringGroupMonitor);
     }
 
     private void disposeIfDisposable(Object o)
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.concurrent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of concurrent executions to a value that adapts to the observed latency, using
+ * additive increase and multiplicative decrease.
+ * <p/>
+ * The limiter compares a moving average of the latency with a baseline, the latency of an idle
+ * system. The baseline is a moving average of the lowest latency seen in each window of a few
+ * hundred executions, so it follows permanent changes of the downstream without jumping on a
+ * single fast execution. While the average stays within <code>tolerance</code> times the baseline
+ * and the limit is actually being used, the limit grows by about one for every <code>limit</code>
+ * executions. When the average goes above it, the downstream is assumed to be saturated and the
+ * limit is multiplied by the backoff ratio, at most once for every <code>limit</code> executions:
+ * the executions that were already in flight when the downstream saturated complete slowly too and
+ * must not shrink the limit again.
+ */
+public class AimdConcurrencyLimiter
+{
+    public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+    public static final double DEFAULT_TOLERANCE = 2.0;
+
+    private static final int MIN_LATENCY_WINDOW = 500;
+    private static final long MIN_RETRY_AFTER_MILLIS = 1000;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double tolerance;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile int limit;
+
+    // guarded by this
+    private double preciseLimit;
+    private long baselineLatency;
+    private long windowMinLatency = Long.MAX_VALUE;
+    private int windowSamples;
+    private long smoothedLatency;
+    private int samplesSinceBackoff;
+
+    public AimdConcurrencyLimiter(int initialLimit, int maxLimit)
+    {
+        this(initialLimit, 1, maxLimit, DEFAULT_BACKOFF_RATIO, DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * @param initialLimit the limit before any execution completed
+     * @param minLimit the limit never goes below this value
+     * @param maxLimit the limit never goes above this value
+     * @param backoffRatio the ratio the limit is multiplied by when latency grows, between 0 and 1
+     * @param tolerance how many times the idle latency the average execution may take before the
+     *            downstream is considered saturated
+     */
+    public AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio, double tolerance)
+    {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit)
+        {
+            throw new IllegalArgumentException(String.format("Invalid limits: initial %d, min %d, max %d",
+                                                             initialLimit, minLimit, maxLimit));
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1)
+        {
+            throw new IllegalArgumentException("Backoff ratio must be between 0 and 1: " + backoffRatio);
+        }
+        if (tolerance < 1)
+        {
+            throw new IllegalArgumentException("Tolerance must not be less than 1: " + tolerance);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.tolerance = tolerance;
+        this.limit = initialLimit;
+        this.preciseLimit = initialLimit;
+    }
+
+    /**
+     * @return <code>true</code> if an execution may start, in which case {@link #release(long)} must
+     *         be called once it completes, <code>false</code> if the limit is reached
+     */
+    public boolean tryAcquire()
+    {
+        while (true)
+        {
+            int current = inFlight.get();
+            if (current >= limit)
+            {
+                rejected.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1))
+            {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Records the completion of an execution started after {@link #tryAcquire()} returned
+     * <code>true</code>.
+     *
+     * @param latencyNanos how long the execution took
+     */
+    public void release(long latencyNanos)
+    {
+        int current = inFlight.getAndDecrement();
+        synchronized (this)
+        {
+            smoothedLatency = smoothedLatency == 0 ? latencyNanos : (smoothedLatency * 7 + latencyNanos) / 8;
+            windowMinLatency = Math.min(windowMinLatency, latencyNanos);
+            if (++windowSamples >= MIN_LATENCY_WINDOW)
+            {
+                baselineLatency = baselineLatency == 0 || windowMinLatency < baselineLatency
+                                  ? windowMinLatency : (baselineLatency * 7 + windowMinLatency) / 8;
+                windowMinLatency = Long.MAX_VALUE;
+                windowSamples = 0;
+            }
+            long baseline = baselineLatency == 0 ? windowMinLatency : Math.min(baselineLatency, windowMinLatency);
+            samplesSinceBackoff++;
+
+            if (smoothedLatency > baseline * tolerance)
+            {
+                if (samplesSinceBackoff >= limit)
+                {
+                    preciseLimit = Math.max(minLimit, preciseLimit * backoffRatio);
+                    samplesSinceBackoff = 0;
+                }
+            }
+            else if (current * 2 >= limit)
+            {
+                // only grow while the current limit is being used, otherwise it grows without bound
+                // while the load is low
+                preciseLimit = Math.min(maxLimit, preciseLimit + 1 / preciseLimit);
+            }
+            limit = (int) preciseLimit;
+        }
+    }
+
+    public int getLimit()
+    {
+        return limit;
+    }
+
+    public int getInFlight()
+    {
+        return inFlight.get();
+    }
+
+    /**
+     * @return how many times {@link #tryAcquire()} returned <code>false</code>
+     */
+    public long getRejected()
+    {
+        return rejected.get();
+    }
+
+    /**
+     * @return a hint of how long a rejected caller should wait before trying again, based on the
+     *         recent latency of the executions and never less than a second
+     */
+    public synchronized long getRetryAfterMillis()
+    {
+        return Math.max(MIN_RETRY_AFTER_MILLIS, TimeUnit.NANOSECONDS.toMillis(smoothedLatency));
+    }
+}
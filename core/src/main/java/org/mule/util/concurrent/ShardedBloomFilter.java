@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.concurrent;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import com.google.common.hash.Funnels;
+
+/**
+ * A thread safe Bloom filter of strings: {@link #mightContain(String)} never returns <code>false</code>
+ * for a string that was added, and returns <code>true</code> for a string that was not added with
+ * about the configured false positive probability, as long as no more strings than the expected
+ * number are added.
+ * <p/>
+ * The filter is split into shards selected by the hash of the string, each guarded by its own
+ * lock and counting its own insertions, so that threads working on different strings rarely
+ * contend.
+ */
+public class ShardedBloomFilter
+{
+    private static final Funnel<CharSequence> FUNNEL = Funnels.stringFunnel(Charset.forName("UTF-8"));
+
+    /**
+     * Number of longs between the insertion counts of two shards, so that each count uses its own
+     * cache line
+     */
+    private static final int PADDING = 8;
+
+    private final BloomFilter<CharSequence>[] shards;
+    private final int mask;
+    private final int expectedInsertions;
+    private final int shardExpectedInsertions;
+    private final AtomicLongArray insertions;
+    private volatile boolean saturated;
+
+    /**
+     * Creates a filter with one shard per available processor, rounded up to a power of two
+     */
+    public ShardedBloomFilter(int expectedInsertions, double falsePositiveProbability)
+    {
+        this(expectedInsertions, falsePositiveProbability, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param expectedInsertions the number of strings the filter is sized for
+     * @param falsePositiveProbability the probability of false positives when the filter holds the
+     *            expected number of strings, between 0 and 1 exclusive
+     * @param shards the minimum number of shards, rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public ShardedBloomFilter(int expectedInsertions, double falsePositiveProbability, int shards)
+    {
+        if (expectedInsertions <= 0)
+        {
+            throw new IllegalArgumentException("Expected insertions must be positive: " + expectedInsertions);
+        }
+        if (shards < 1)
+        {
+            throw new IllegalArgumentException("Number of shards must be positive: " + shards);
+        }
+        int size = Integer.highestOneBit(shards);
+        if (size < shards)
+        {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.expectedInsertions = expectedInsertions;
+        this.shards = new BloomFilter[size];
+        this.shardExpectedInsertions = (expectedInsertions + size - 1) / size;
+        this.insertions = new AtomicLongArray(size * PADDING);
+        for (int i = 0; i < size; i++)
+        {
+            this.shards[i] = BloomFilter.create(FUNNEL, shardExpectedInsertions, falsePositiveProbability);
+        }
+    }
+
+    /**
+     * @return <code>false</code> if the string was definitely not added, <code>true</code> if it
+     *         might have been
+     */
+    public boolean mightContain(String value)
+    {
+        BloomFilter<CharSequence> shard = shards[shardIndex(value)];
+        synchronized (shard)
+        {
+            return shard.mightContain(value);
+        }
+    }
+
+    public void put(String value)
+    {
+        int index = shardIndex(value);
+        BloomFilter<CharSequence> shard = shards[index];
+        boolean changed;
+        synchronized (shard)
+        {
+            changed = shard.put(value);
+        }
+        if (changed)
+        {
+            long shardInsertions = insertions.incrementAndGet(index * PADDING);
+            // the filter holds about as many strings as expected once a shard is over its
+            // share, so the other shards are only read from then on
+            if (shardInsertions > shardExpectedInsertions && !saturated && getInsertions() > expectedInsertions)
+            {
+                saturated = true;
+            }
+        }
+    }
+
+    /**
+     * @return the number of strings added, not counting those the filter reported it might
+     *         already contain
+     */
+    public long getInsertions()
+    {
+        long sum = 0;
+        for (int i = 0; i < insertions.length(); i += PADDING)
+        {
+            sum += insertions.get(i);
+        }
+        return sum;
+    }
+
+    public int getExpectedInsertions()
+    {
+        return expectedInsertions;
+    }
+
+    /**
+     * @return whether more strings than expected were added, in which case the false positive
+     *         probability is higher than configured
+     */
+    public boolean isSaturated()
+    {
+        return saturated;
+    }
+
+    private int shardIndex(String value)
+    {
+        int hash = value.hashCode();
+        // spread the high bits, as String hash codes differing only there are common
+        hash ^= (hash >>> 16);
+        return hash & mask;
+    }
+}
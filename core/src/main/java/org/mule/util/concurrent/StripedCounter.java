@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.concurrent;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter for values that are updated much more often than they are read.
+ * <p/>
+ * Updates are spread over several cells, selected by the id of the updating thread, so that
+ * threads updating the counter at the same time rarely contend on the same cell. Cells are
+ * padded to live in different cache lines. Reading the counter sums all the cells, so a read
+ * that is concurrent with updates is not an atomic snapshot.
+ * <p/>
+ * Subclasses can keep other kinds of values in the cells, see {@link #getCells()} and
+ * {@link #cellIndex()}. A cell holding zero bits must stand for a value of zero.
+ */
+public class StripedCounter implements Serializable
+{
+    private static final long serialVersionUID = -1504371880218339214L;
+
+    /**
+     * Number of longs between two cells, so that each cell uses its own cache line
+     */
+    protected static final int PADDING = 8;
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    /**
+     * Creates a counter with one stripe per available processor, rounded up to a power of two
+     */
+    public StripedCounter()
+    {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param stripes the minimum number of cells to spread updates over, rounded up to a power of two
+     */
+    public StripedCounter(int stripes)
+    {
+        if (stripes < 1)
+        {
+            throw new IllegalArgumentException("Number of stripes must be positive: " + stripes);
+        }
+        int size = Integer.highestOneBit(stripes);
+        if (size < stripes)
+        {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.cells = new AtomicLongArray(size * PADDING);
+    }
+
+    public void add(long delta)
+    {
+        cells.addAndGet(cellIndex(), delta);
+    }
+
+    public void increment()
+    {
+        add(1);
+    }
+
+    public void decrement()
+    {
+        add(-1);
+    }
+
+    /**
+     * @return the sum of all the updates since the counter was created or last reset
+     */
+    public long sum()
+    {
+        long sum = 0;
+        for (int i = 0; i < cells.length(); i += PADDING)
+        {
+            sum += cells.get(i);
+        }
+        return sum;
+    }
+
+    /**
+     * Sets the counter back to zero. Updates concurrent with the reset may or may not be kept.
+     */
+    public void reset()
+    {
+        for (int i = 0; i < cells.length(); i += PADDING)
+        {
+            cells.set(i, 0);
+        }
+    }
+
+    /**
+     * @return the cells of the counter, one every {@link #PADDING} elements starting at 0
+     */
+    protected final AtomicLongArray getCells()
+    {
+        return cells;
+    }
+
+    /**
+     * @return the index of the cell updated by the current thread
+     */
+    protected final int cellIndex()
+    {
+        return ((int) Thread.currentThread().getId() & mask) * PADDING;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.valueOf(sum());
+    }
+}
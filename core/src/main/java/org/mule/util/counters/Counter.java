@@ -19,6 +19,11 @@ import org.mule.api.NamedObject;
  * are computed using one or more associated counters. Such counters represent
  * operations computed on associated counters. Usually, these counters will never be
  * used directly, but will only used to retrieve the computed values.
+ * <h3>Concurrent updates</h3>
+ * Counters are updated without locking and an update does not read the value of the counter:
+ * {@link #increment()}, {@link #incrementBy(double)} and {@link #decrement()} return
+ * {@link Double#NaN}, use {@link #nextValue()} to read the counter. Computed counters sample the
+ * counters they are computed from when they are read, not when those are updated.
  */
 public interface Counter extends NamedObject
 {
@@ -33,7 +38,7 @@ public interface Counter extends NamedObject
     /**
      * Increment the counter's value by 1.0.
      * 
-     * @return the new value of the counter
+     * @return {@link Double#NaN}, see <i>Concurrent updates</i> above
      */
     double increment();
 
@@ -41,14 +46,14 @@ public interface Counter extends NamedObject
      * Increment the counter's value by the specified amount.
      * 
      * @param value the amount to increment the counter by
-     * @return the new value of the counter
+     * @return {@link Double#NaN}, see <i>Concurrent updates</i> above
      */
     double incrementBy(double value);
 
     /**
      * Decrement the counter's value by 1.0.
      * 
-     * @return the new value of the counter
+     * @return {@link Double#NaN}, see <i>Concurrent updates</i> above
      */
     double decrement();
 
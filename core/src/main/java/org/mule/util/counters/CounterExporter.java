@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.counters;
+
+/**
+ * Receives the values of the public counters, i.e. to publish them to a monitoring system.
+ * 
+ * @see CounterFactory#exportCounters(CounterExporter)
+ */
+public interface CounterExporter
+{
+
+    /**
+     * Called once for each public counter.
+     * 
+     * @param counter the exported counter
+     * @param value the value of the counter when it was exported
+     */
+    void export(Counter counter, double value);
+
+}
@@ -187,4 +187,15 @@ public final class CounterFactory
         return CounterFactoryImpl.getCounters();
     }
 
+    /**
+     * Pass the current value of every public defined counter to an exporter. Reading the
+     * counters does not block the threads updating them.
+     * 
+     * @param exporter the exporter to pass the counters to
+     */
+    public static void exportCounters(CounterExporter exporter)
+    {
+        CounterFactoryImpl.exportCounters(exporter);
+    }
+
 }
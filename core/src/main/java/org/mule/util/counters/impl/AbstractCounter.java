@@ -1,30 +1,24 @@
 /*
  * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
- * The software in this package is published under the terms of the CPAL v1.0
- * license, a copy of which has been included with this distribution in the
- * LICENSE.txt file.
- */
-package org.mule.util.counters.impl;
+ * The software in this package org.mule.util.counters.impl;
 
 import org.mule.util.counters.Counter;
 import org.mule.util.counters.CounterFactory.Type;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
+/**
+ * Base class of all counters. Updates do not notify the aggregate counters computed from a
+ * counter: aggregates sample their base when they are read, see {@link AggregateCounter}.
+ */
 public abstract class AbstractCounter implements Counter
 {
     private final Type type;
     private final String name;
-    private final List<AggregateCounter> aggregates;
 
     public AbstractCounter(String name, Type type)
     {
         super();
         this.name = name;
         this.type = type;
-        this.aggregates = Collections.synchronizedList(new ArrayList<AggregateCounter>());
     }
 
     @Override
@@ -54,16 +48,9 @@ public abstract class AbstractCounter implements Counter
     @Override
     public abstract double nextValue();
 
-    protected void addAggregate(AggregateCounter counter)
-    {
-        this.aggregates.add(counter);
-    }
-
-    protected void propagate()
-    {
-        for (AggregateCounter counter : this.aggregates)
-        {
-            counter.compute();
-        }
-    }
+    /**
+     * @return a number that changes each time the value of this counter may have changed, used by
+     *         the aggregates of this counter to know whether to take a new sample
+     */
+    protected abstract long getUpdates();
 }
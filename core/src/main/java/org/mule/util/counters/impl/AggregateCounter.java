@@ -1,23 +1,29 @@
 /*
  * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
- * The software in this package is published under the terms of the CPAL v1.0
- * license, a copy of which has been included with this distribution in the
- * LICENSE.txt file.
- */
-package org.mule.util.counters.impl;
+ * The software in this package org.mule.util.counters.impl;
 
 import org.mule.util.counters.Counter;
 import org.mule.util.counters.CounterFactory.Type;
 
+/**
+ * A counter computed from another counter. The base counter is sampled when this counter is
+ * read, and only if the base was updated since the previous sample, so updating the base never
+ * computes its aggregates. {@link #doCompute()} is called once per sample and
+ * {@link #computeValue()} on each read, both while holding the lock of this counter.
+ * <p/>
+ * Updates made to the base between two reads count as a single sample: for instance, the
+ * {@link Type#MAX} of a counter is the greatest of the values it had when the maximum was read.
+ */
 public abstract class AggregateCounter extends AbstractCounter
 {
-    private final Counter base;
+    private final AbstractCounter base;
+    private long sampledUpdates;
+    private long samples;
 
     public AggregateCounter(String name, Type type, AbstractCounter base)
     {
         super(name, type);
         this.base = base;
-        base.addAggregate(this);
     }
 
     @Override
@@ -44,10 +50,29 @@ public abstract class AggregateCounter extends AbstractCounter
         throw new UnsupportedOperationException();
     }
 
-    public final synchronized void compute()
+    @Override
+    public final synchronized double nextValue()
     {
-        this.doCompute();
-        this.propagate();
+        sample();
+        return computeValue();
+    }
+
+    @Override
+    protected synchronized long getUpdates()
+    {
+        sample();
+        return samples;
+    }
+
+    private void sample()
+    {
+        long updates = base.getUpdates();
+        if (updates != sampledUpdates)
+        {
+            sampledUpdates = updates;
+            doCompute();
+            samples++;
+        }
     }
 
     public Counter getBase()
@@ -55,8 +80,13 @@ public abstract class AggregateCounter extends AbstractCounter
         return this.base;
     }
 
-    @Override
-    public abstract double nextValue();
+    /**
+     * @return the value of this counter computed from the samples taken so far
+     */
+    protected abstract double computeValue();
 
+    /**
+     * Takes a sample of the value of the base counter.
+     */
     public abstract void doCompute();
 }
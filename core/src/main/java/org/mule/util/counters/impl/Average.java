@@ -19,7 +19,7 @@ public class Average extends AggregateCounter
     }
 
     @Override
-    public double nextValue()
+    protected double computeValue()
     {
         return (times > 0) ? sum / times : 0;
     }
@@ -7,18 +7,20 @@
 package org.mule.util.counters.impl;
 
 import org.mule.util.counters.Counter;
+import org.mule.util.counters.CounterExporter;
 import org.mule.util.counters.CounterFactory.Type;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public final class CounterFactoryImpl
 {
-    private static Map<String, AbstractCounter> counters = new HashMap<String, AbstractCounter>();
-    private static List<AbstractCounter> publicCounters = new ArrayList<AbstractCounter>();
+    private static final ConcurrentMap<String, AbstractCounter> counters = new ConcurrentHashMap<String, AbstractCounter>();
+    private static final List<AbstractCounter> publicCounters = new CopyOnWriteArrayList<AbstractCounter>();
+    private static final Object creationLock = new Object();
 
     /** Do not instanciate. */
     private CounterFactoryImpl ()
@@ -33,16 +35,21 @@ public final class CounterFactoryImpl
 
     public static Counter createCounter(String name, String first, String second, Type type, boolean visible)
     {
-        Counter counter = getCounter(name);
-        if (counter != null)
+        // creations are serialized so that a counter that loses a race on its name is never
+        // made public
+        synchronized (creationLock)
         {
-            throw new IllegalStateException();
-        }
-        else
-        {
-            counter = internalCreateCounter(name, first, second, type, visible);
+            Counter counter = getCounter(name);
+            if (counter != null)
+            {
+                throw new IllegalStateException();
+            }
+            else
+            {
+                counter = internalCreateCounter(name, first, second, type, visible);
+            }
+            return counter;
         }
-        return counter;
     }
 
     public static Iterator<AbstractCounter> getCounters()
@@ -50,6 +57,14 @@ public final class CounterFactoryImpl
         return publicCounters.iterator();
     }
 
+    public static void exportCounters(CounterExporter exporter)
+    {
+        for (AbstractCounter counter : publicCounters)
+        {
+            exporter.export(counter, counter.nextValue());
+        }
+    }
+
     protected static AbstractCounter internalCreateCounter(String name,
                                                            String first,
                                                            String second,
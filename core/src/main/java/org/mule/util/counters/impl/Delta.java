@@ -19,7 +19,7 @@ public class Delta extends AggregateCounter
     }
 
     @Override
-    public double nextValue()
+    protected double computeValue()
     {
         if (Double.isNaN(first) || Double.isNaN(second))
         {
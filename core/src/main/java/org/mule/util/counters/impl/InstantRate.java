@@ -20,7 +20,7 @@ public class InstantRate extends AggregateCounter
     }
 
     @Override
-    public double nextValue()
+    protected double computeValue()
     {
         if (firstTime == 0 || firstTime == lastTime)
         {
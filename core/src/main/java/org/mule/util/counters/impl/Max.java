@@ -18,7 +18,7 @@ public class Max extends AggregateCounter
     }
 
     @Override
-    public double nextValue()
+    protected double computeValue()
     {
         return max;
     }
@@ -18,7 +18,7 @@ public class Min extends AggregateCounter
     }
 
     @Override
-    public double nextValue()
+    protected double computeValue()
     {
         return min;
     }
@@ -6,11 +6,17 @@
  */
 package org.mule.util.counters.impl;
 
+import org.mule.util.concurrent.StripedCounter;
 import org.mule.util.counters.CounterFactory.Type;
 
+/**
+ * A counter holding a value. Updates only add to striped cells, they neither read the value nor
+ * compute the aggregates of the counter, so they return {@link Double#NaN}.
+ */
 public class Number extends AbstractCounter
 {
-    private double value = 0.0;
+    private final StripedDouble value = new StripedDouble();
+    private final StripedCounter updates = new StripedCounter();
 
     public Number(String name)
     {
@@ -18,39 +24,41 @@ public class Number extends AbstractCounter
     }
 
     @Override
-    public synchronized double increment()
+    public double increment()
+    {
+        return incrementBy(1.0);
+    }
+
+    @Override
+    public double incrementBy(double value)
     {
-        this.value++;
-        propagate();
-        return this.value;
+        this.value.add(value);
+        this.updates.increment();
+        return Double.NaN;
     }
 
     @Override
-    public synchronized double incrementBy(double value)
+    public double decrement()
     {
-        this.value += value;
-        propagate();
-        return this.value;
+        return incrementBy(-1.0);
     }
 
     @Override
-    public synchronized double decrement()
+    public void setRawValue(double value)
     {
-        this.value--;
-        propagate();
-        return this.value;
+        this.value.set(value);
+        this.updates.increment();
     }
 
     @Override
-    public synchronized void setRawValue(double value)
+    public double nextValue()
     {
-        this.value = value;
-        propagate();
+        return this.value.doubleSum();
     }
 
     @Override
-    public synchronized double nextValue()
+    protected long getUpdates()
     {
-        return this.value;
+        return this.updates.sum();
     }
 }
@@ -6,26 +6,36 @@
  */
 package org.mule.util.counters.impl;
 
-import org.mule.util.counters.Counter;
 import org.mule.util.counters.CounterFactory.Type;
 
+/**
+ * Combines the values of two counters. The value is computed when it is read, from the current
+ * values of both base counters.
+ */
 public class Operator extends AggregateCounter
 {
-    private final Counter base2;
-    private double val1;
-    private double val2;
+    private final AbstractCounter base1;
+    private final AbstractCounter base2;
 
     public Operator(String name, AbstractCounter base, AbstractCounter base2, Type type)
     {
         super(name, type, base);
+        this.base1 = base;
         this.base2 = base2;
-        base2.addAggregate(this);
     }
 
     @Override
-    public double nextValue()
+    protected long getUpdates()
+    {
+        return base1.getUpdates() + base2.getUpdates();
+    }
+
+    @Override
+    protected double computeValue()
     {
         Type type = this.getType();
+        double val1 = base1.nextValue();
+        double val2 = base2.nextValue();
 
         if (type == Type.PLUS)
         {
@@ -54,7 +64,6 @@ public class Operator extends AggregateCounter
     @Override
     public void doCompute()
     {
-        this.val1 = this.getBase().nextValue();
-        this.val2 = base2.nextValue();
+        // computed when read
     }
 }
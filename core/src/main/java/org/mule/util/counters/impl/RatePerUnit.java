@@ -93,7 +93,7 @@ public class RatePerUnit extends AggregateCounter
     }
 
     @Override
-    public double nextValue()
+    protected double computeValue()
     {
         if (samples.isEmpty())
         {
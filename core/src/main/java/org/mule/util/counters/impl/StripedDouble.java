@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.counters.impl;
+
+import org.mule.util.concurrent.StripedCounter;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A double value that is updated without locking. The cells of the {@link StripedCounter} hold
+ * the bits of doubles, whose sum is the value.
+ */
+final class StripedDouble extends StripedCounter
+{
+    private static final long serialVersionUID = 4000419264584016426L;
+
+    void add(double delta)
+    {
+        AtomicLongArray cells = getCells();
+        int index = cellIndex();
+        long current;
+        do
+        {
+            current = cells.get(index);
+        }
+        while (!cells.compareAndSet(index, current,
+            Double.doubleToRawLongBits(Double.longBitsToDouble(current) + delta)));
+    }
+
+    @Override
+    public void add(long delta)
+    {
+        add((double) delta);
+    }
+
+    double doubleSum()
+    {
+        AtomicLongArray cells = getCells();
+        double sum = 0.0;
+        for (int i = 0; i < cells.length(); i += PADDING)
+        {
+            sum += Double.longBitsToDouble(cells.get(i));
+        }
+        return sum;
+    }
+
+    @Override
+    public long sum()
+    {
+        return (long) doubleSum();
+    }
+
+    /**
+     * Sets the value. Additions concurrent with this call may or may not be kept.
+     */
+    void set(double value)
+    {
+        // zero bits are 0.0
+        reset();
+        getCells().set(0, Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.valueOf(doubleSum());
+    }
+}
@@ -18,7 +18,7 @@ public class Sum extends AggregateCounter
     }
 
     @Override
-    public double nextValue()
+    protected double computeValue()
     {
         return this.value;
     }
@@ -21,7 +21,7 @@ public class TimeAverage extends AggregateCounter
     }
 
     @Override
-    public double nextValue()
+    protected double computeValue()
     {
         long current = System.currentTimeMillis();
         return (sum + lastValue * (current - this.lastTime)) / (current - firstTime);
@@ -10,6 +10,7 @@ import org.mule.api.MuleContext;
 import org.mule.api.lifecycle.Disposable;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.util.concurrent.DaemonThreadFactory;
+import org.mule.util.timer.HashedTimingWheel;
 
 import java.util.Iterator;
 import java.util.Map;
@@ -24,6 +25,9 @@ import org.apache.commons.logging.LogFactory;
  * <code>ExpiryMonitor</code> can monitor objects beased on an expiry time and can
  * invoke a callback method once the object time has expired. If the object does
  * expire it is removed from this monitor.
+ * <p/>
+ * Unless a scheduler is given, the monitor runs on the {@link HashedTimingWheel} of the Mule context
+ * when there is one, instead of starting a thread of its own.
  */
 public class ExpiryMonitor implements Runnable, Disposable
 {
@@ -34,6 +38,8 @@ public class ExpiryMonitor implements Runnable, Disposable
 
     protected ScheduledThreadPoolExecutor scheduler;
 
+    private HashedTimingWheel.Timeout timeout;
+
     private Map monitors;
 
     private int monitorFrequency;
@@ -93,6 +99,13 @@ public class ExpiryMonitor implements Runnable, Disposable
         monitors = new ConcurrentHashMap();
         if (scheduler == null)
         {
+            HashedTimingWheel timingWheel = HashedTimingWheel.lookup(muleContext);
+            if (timingWheel != null)
+            {
+                timeout = timingWheel.scheduleWithFixedDelay(this, 0, monitorFrequency, TimeUnit.MILLISECONDS,
+                                                             contextClassLoader);
+                return;
+            }
             this.scheduler = new ScheduledThreadPoolExecutor(1);
             scheduler.setThreadFactory(new DaemonThreadFactory(name + ".expiry.monitor", contextClassLoader));
             scheduler.scheduleWithFixedDelay(this, 0, monitorFrequency,
@@ -175,7 +188,14 @@ public class ExpiryMonitor implements Runnable, Disposable
     public void dispose()
     {
         logger.info("disposing monitor");
-        scheduler.shutdown();
+        if (timeout != null)
+        {
+            timeout.cancel();
+        }
+        else
+        {
+            scheduler.shutdown();
+        }
         ExpirableHolder holder;
         for (Iterator iterator = monitors.values().iterator(); iterator.hasNext();)
         {
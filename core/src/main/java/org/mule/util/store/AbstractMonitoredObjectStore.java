@@ -15,6 +15,7 @@ import org.mule.api.store.ObjectStore;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.util.UUID;
 import org.mule.util.concurrent.DaemonThreadFactory;
+import org.mule.util.timer.HashedTimingWheel;
 
 import java.io.Serializable;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
@@ -33,6 +34,7 @@ public abstract class AbstractMonitoredObjectStore<T extends Serializable>
 
     protected MuleContext context;
     protected ScheduledThreadPoolExecutor scheduler;
+    protected HashedTimingWheel.Timeout expiryTimeout;
 
     /**
      * the maximum number of entries that this store keeps around. Specify <em>-1</em> if the store 
@@ -72,7 +74,13 @@ public abstract class AbstractMonitoredObjectStore<T extends Serializable>
                     new Integer(expirationInterval)).toString());
         }
 
-        if (scheduler == null)
+        HashedTimingWheel timingWheel = HashedTimingWheel.lookup(context);
+        if (scheduler == null && timingWheel != null)
+        {
+            expiryTimeout = timingWheel.scheduleWithFixedDelay(this, 0, expirationInterval, TimeUnit.MILLISECONDS,
+                this.getClass().getClassLoader());
+        }
+        else if (scheduler == null)
         {
             this.scheduler = new ScheduledThreadPoolExecutor(1);
             scheduler.setThreadFactory(new DaemonThreadFactory(name + "-Monitor", this.getClass().getClassLoader()));
@@ -90,6 +98,10 @@ public abstract class AbstractMonitoredObjectStore<T extends Serializable>
 
     public void dispose()
     {
+        if (expiryTimeout != null)
+        {
+            expiryTimeout.cancel();
+        }
         if (scheduler != null)
         {
             scheduler.shutdown();
@@ -151,10 +163,26 @@ public abstract class AbstractMonitoredObjectStore<T extends Serializable>
         return name;
     }
 
+    /**
+     * @return the scheduler expiring the entries of this store, <code>null</code> when expiry runs
+     *         on the shared {@link HashedTimingWheel} instead
+     * @deprecated expiry runs on the shared {@link HashedTimingWheel} when the context has one,
+     *             use {@link #isExpiryScheduled()} to check that entries are expired
+     */
+    @Deprecated
     public ScheduledThreadPoolExecutor getScheduler()
     {
         return scheduler;
     }
 
+    /**
+     * @return whether expiry is running, either on the scheduler of this store or on the shared
+     *         {@link HashedTimingWheel}
+     */
+    public boolean isExpiryScheduled()
+    {
+        return scheduler != null || (expiryTimeout != null && !expiryTimeout.isCancelled());
+    }
+
     protected abstract void expire();
 }
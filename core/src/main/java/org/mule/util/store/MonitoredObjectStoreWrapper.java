@@ -21,6 +21,7 @@ import org.mule.api.store.ObjectStoreException;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.util.UUID;
 import org.mule.util.concurrent.DaemonThreadFactory;
+import org.mule.util.timer.HashedTimingWheel;
 
 import java.io.Serializable;
 import java.util.Comparator;
@@ -43,6 +44,7 @@ public class MonitoredObjectStoreWrapper<T extends Serializable>
 
     protected MuleContext context;
     protected ScheduledThreadPoolExecutor scheduler;
+    protected HashedTimingWheel.Timeout expiryTimeout;
     ListableObjectStore<StoredObject<T>> baseStore;
 
     /**
@@ -236,6 +238,10 @@ public class MonitoredObjectStoreWrapper<T extends Serializable>
     @Override
     public void dispose()
     {
+        if (expiryTimeout != null)
+        {
+            expiryTimeout.cancel();
+        }
         if (scheduler != null)
         {
             scheduler.shutdown();
@@ -256,7 +262,13 @@ public class MonitoredObjectStoreWrapper<T extends Serializable>
                 new Integer(expirationInterval)).toString());
         }
 
-        if (scheduler == null)
+        HashedTimingWheel timingWheel = HashedTimingWheel.lookup(context);
+        if (scheduler == null && timingWheel != null)
+        {
+            expiryTimeout = timingWheel.scheduleWithFixedDelay(this, 0, expirationInterval, TimeUnit.MILLISECONDS,
+                context.getExecutionClassLoader());
+        }
+        else if (scheduler == null)
         {
             this.scheduler = new ScheduledThreadPoolExecutor(1);
             scheduler.setThreadFactory(new DaemonThreadFactory(name + "-Monitor", context.getExecutionClassLoader()));
@@ -0,0 +1,590 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.timer;
+
+import org.mule.api.MuleContext;
+import org.mule.api.config.MuleProperties;
+import org.mule.api.context.MuleContextAware;
+import org.mule.api.lifecycle.Disposable;
+import org.mule.util.concurrent.DaemonThreadFactory;
+import org.mule.util.concurrent.ThreadNameHelper;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A timer shared by all the components of an application that need to run a task after a delay,
+ * such as expiry monitors and retry policies, so that each of them does not have to keep a
+ * scheduler thread of its own.
+ * <p/>
+ * Tasks are kept in a wheel of buckets, each bucket holding the tasks that are due in a tick of
+ * the wheel. A single daemon thread, started when the first task is scheduled, advances the wheel
+ * one bucket per tick and hands the tasks that are due to an executor, so a slow task never delays
+ * the others. Scheduling and cancelling a task take constant time whatever the number of scheduled
+ * tasks; the price is that tasks are run with a precision of one tick.
+ * <p/>
+ * The executor has a fixed number of threads and a bounded queue. When it is full, the tasks that
+ * are due are put back on the wheel and handed again on the next tick, so a burst of expiring tasks
+ * slows them down instead of creating threads or dropping them.
+ * <p/>
+ * The defaults of the registered instance can be changed with the
+ * <code>mule.timingWheel.tickMillis</code> and <code>mule.timingWheel.workerThreads</code>
+ * system properties.
+ * <p/>
+ * An instance is registered in the registry as {@link MuleProperties#OBJECT_TIMING_WHEEL},
+ * see {@link #lookup(MuleContext)}.
+ */
+public class HashedTimingWheel implements MuleContextAware, Disposable
+{
+    public static final long DEFAULT_TICK_MILLIS = 100;
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+    public static final int DEFAULT_WORKER_THREADS = 4;
+    public static final int DEFAULT_WORKER_QUEUE_SIZE = 1024;
+
+    public static final String TICK_MILLIS_PROPERTY = MuleProperties.SYSTEM_PROPERTY_PREFIX + "timingWheel.tickMillis";
+    public static final String WORKER_THREADS_PROPERTY = MuleProperties.SYSTEM_PROPERTY_PREFIX + "timingWheel.workerThreads";
+
+    /**
+     * Time the threads running the expired tasks are kept when idle
+     */
+    private static final long WORKER_KEEP_ALIVE_MILLIS = 60000;
+
+    private static final int WORKER_NOT_STARTED = 0;
+    private static final int WORKER_STARTED = 1;
+    private static final int WORKER_STOPPED = 2;
+
+    protected final Log logger = LogFactory.getLog(getClass());
+
+    private final long tickNanos;
+    private final int workerThreads;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<Timeout>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<Timeout>();
+    private final AtomicInteger workerState = new AtomicInteger(WORKER_NOT_STARTED);
+
+    private String name = "timing.wheel";
+    private volatile long startTime;
+    private Thread workerThread;
+    private ThreadPoolExecutor taskExecutor;
+
+    public HashedTimingWheel()
+    {
+        this(Long.getLong(TICK_MILLIS_PROPERTY, DEFAULT_TICK_MILLIS), TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE,
+            Integer.getInteger(WORKER_THREADS_PROPERTY, DEFAULT_WORKER_THREADS));
+    }
+
+    /**
+     * @param tickDuration the duration of a tick, which is the precision of the timer
+     * @param unit the unit of <code>tickDuration</code>
+     * @param wheelSize the minimum number of buckets, rounded up to a power of two
+     */
+    public HashedTimingWheel(long tickDuration, TimeUnit unit, int wheelSize)
+    {
+        this(tickDuration, unit, wheelSize, DEFAULT_WORKER_THREADS);
+    }
+
+    /**
+     * @param tickDuration the duration of a tick, which is the precision of the timer
+     * @param unit the unit of <code>tickDuration</code>
+     * @param wheelSize the minimum number of buckets, rounded up to a power of two
+     * @param workerThreads the maximum number of tasks run at the same time
+     */
+    public HashedTimingWheel(long tickDuration, TimeUnit unit, int wheelSize, int workerThreads)
+    {
+        if (tickDuration <= 0)
+        {
+            throw new IllegalArgumentException("Tick duration must be positive: " + tickDuration);
+        }
+        if (workerThreads <= 0)
+        {
+            throw new IllegalArgumentException("Number of worker threads must be positive: " + workerThreads);
+        }
+        if (wheelSize <= 0 || wheelSize > 1 << 30)
+        {
+            throw new IllegalArgumentException("Wheel size must be between 1 and 2^30: " + wheelSize);
+        }
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize)
+        {
+            size <<= 1;
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.workerThreads = workerThreads;
+        this.mask = size - 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++)
+        {
+            wheel[i] = new Bucket();
+        }
+    }
+
+    /**
+     * @return the timing wheel registered in the registry of a context, or <code>null</code> if there
+     *         is none, in which case callers fall back to a scheduler of their own
+     */
+    public static HashedTimingWheel lookup(MuleContext muleContext)
+    {
+        if (muleContext == null || muleContext.getRegistry() == null)
+        {
+            return null;
+        }
+        Object wheel = muleContext.getRegistry().get(MuleProperties.OBJECT_TIMING_WHEEL);
+        return wheel instanceof HashedTimingWheel ? (HashedTimingWheel) wheel : null;
+    }
+
+    public void setMuleContext(MuleContext context)
+    {
+        this.name = ThreadNameHelper.getPrefix(context) + "timing.wheel";
+    }
+
+    /**
+     * Runs a task once after a delay
+     *
+     * @return a handle to cancel the task
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit)
+    {
+        return schedule(task, delay, 0, unit, null);
+    }
+
+    /**
+     * Runs a task repeatedly, waiting <code>delay</code> between the end of a run and the beginning
+     * of the next one, until the returned handle is cancelled or this timer is disposed
+     *
+     * @return a handle to cancel the task
+     */
+    public Timeout scheduleWithFixedDelay(Runnable task, long initialDelay, long delay, TimeUnit unit)
+    {
+        return scheduleWithFixedDelay(task, initialDelay, delay, unit, null);
+    }
+
+    /**
+     * Same as {@link #scheduleWithFixedDelay(Runnable, long, long, TimeUnit)}, running the task with
+     * the given context class loader, as a dedicated thread would have had
+     *
+     * @param contextClassLoader the context class loader of the task, <code>null</code> to keep the
+     *            one of the timer threads
+     */
+    public Timeout scheduleWithFixedDelay(Runnable task, long initialDelay, long delay, TimeUnit unit,
+                                          ClassLoader contextClassLoader)
+    {
+        if (delay <= 0)
+        {
+            throw new IllegalArgumentException("Delay must be positive: " + delay);
+        }
+        return schedule(task, initialDelay, unit.toNanos(delay), unit, contextClassLoader);
+    }
+
+    private Timeout schedule(Runnable task, long delay, long periodNanos, TimeUnit unit, ClassLoader contextClassLoader)
+    {
+        if (task == null)
+        {
+            throw new NullPointerException("task");
+        }
+        start();
+        Timeout timeout = new Timeout(task, periodNanos, contextClassLoader);
+        enqueue(timeout, System.nanoTime() + unit.toNanos(Math.max(0, delay)));
+        return timeout;
+    }
+
+    private void enqueue(Timeout timeout, long deadlineNanos)
+    {
+        timeout.deadline = deadlineNanos - startTime;
+        pendingTimeouts.add(timeout);
+    }
+
+    private void start()
+    {
+        switch (workerState.get())
+        {
+            case WORKER_STARTED:
+                return;
+            case WORKER_STOPPED:
+                throw new RejectedExecutionException("Timing wheel " + name + " has been disposed");
+            default:
+                synchronized (this)
+                {
+                    if (workerState.get() == WORKER_NOT_STARTED)
+                    {
+                        startTime = System.nanoTime();
+                        taskExecutor = new ThreadPoolExecutor(workerThreads, workerThreads, WORKER_KEEP_ALIVE_MILLIS,
+                            TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(DEFAULT_WORKER_QUEUE_SIZE),
+                            new DaemonThreadFactory(name + ".task"), new ThreadPoolExecutor.AbortPolicy());
+                        taskExecutor.allowCoreThreadTimeOut(true);
+                        workerThread = new DaemonThreadFactory(name).newThread(new Worker());
+                        workerState.set(WORKER_STARTED);
+                        workerThread.start();
+                    }
+                }
+                if (workerState.get() == WORKER_STOPPED)
+                {
+                    throw new RejectedExecutionException("Timing wheel " + name + " has been disposed");
+                }
+        }
+    }
+
+    /**
+     * Stops the timer. Tasks that are not due yet are discarded, tasks already running are let finish.
+     */
+    public void dispose()
+    {
+        synchronized (this)
+        {
+            if (workerState.getAndSet(WORKER_STOPPED) != WORKER_STARTED)
+            {
+                return;
+            }
+        }
+        workerThread.interrupt();
+        try
+        {
+            workerThread.join(tickNanos / 1000000 * 10 + 100);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        taskExecutor.shutdown();
+    }
+
+    /**
+     * @return the number of tasks that are scheduled and not cancelled
+     */
+    public int getPendingTasks()
+    {
+        int count = 0;
+        for (Timeout timeout : pendingTimeouts)
+        {
+            if (!timeout.isCancelled())
+            {
+                count++;
+            }
+        }
+        synchronized (wheel)
+        {
+            for (Bucket bucket : wheel)
+            {
+                for (Timeout timeout = bucket.head; timeout != null; timeout = timeout.next)
+                {
+                    if (!timeout.isCancelled())
+                    {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private void runTask(final Timeout timeout)
+    {
+        try
+        {
+            taskExecutor.execute(new Runnable()
+            {
+                public void run()
+                {
+                    Thread currentThread = Thread.currentThread();
+                    ClassLoader originalClassLoader = currentThread.getContextClassLoader();
+                    if (timeout.contextClassLoader != null)
+                    {
+                        currentThread.setContextClassLoader(timeout.contextClassLoader);
+                    }
+                    try
+                    {
+                        timeout.task.run();
+                    }
+                    catch (Throwable t)
+                    {
+                        logger.warn("Task scheduled on timing wheel " + name + " failed", t);
+                    }
+                    finally
+                    {
+                        currentThread.setContextClassLoader(originalClassLoader);
+                        if (timeout.isPeriodic() && !timeout.isCancelled() && workerState.get() == WORKER_STARTED)
+                        {
+                            enqueue(timeout, System.nanoTime() + timeout.periodNanos);
+                        }
+                    }
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            // the executor is saturated, try again on the next tick
+            if (workerState.get() == WORKER_STARTED && timeout.reschedule())
+            {
+                if (logger.isDebugEnabled())
+                {
+                    logger.debug("Executor of timing wheel " + name + " is full, task postponed to the next tick");
+                }
+                enqueue(timeout, System.nanoTime() + tickNanos);
+            }
+        }
+    }
+
+    private class Worker implements Runnable
+    {
+        private long tick;
+
+        public void run()
+        {
+            while (workerState.get() == WORKER_STARTED)
+            {
+                long deadline = waitForNextTick();
+                if (deadline < 0)
+                {
+                    break;
+                }
+                synchronized (wheel)
+                {
+                    removeCancelledTimeouts();
+                    transferPendingTimeouts();
+                    wheel[(int) (tick & mask)].expireTimeouts(deadline);
+                }
+                tick++;
+            }
+        }
+
+        /**
+         * @return the time of the current tick relative to the start time, or -1 if interrupted
+         */
+        private long waitForNextTick()
+        {
+            long deadline = tickNanos * (tick + 1);
+            while (true)
+            {
+                long sleepNanos = deadline - (System.nanoTime() - startTime);
+                if (sleepNanos <= 0)
+                {
+                    return deadline;
+                }
+                try
+                {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                }
+                catch (InterruptedException e)
+                {
+                    if (workerState.get() != WORKER_STARTED)
+                    {
+                        return -1;
+                    }
+                }
+            }
+        }
+
+        private void transferPendingTimeouts()
+        {
+            Timeout timeout;
+            while ((timeout = pendingTimeouts.poll()) != null)
+            {
+                if (timeout.isCancelled())
+                {
+                    continue;
+                }
+                long ticks = timeout.deadline / tickNanos;
+                // a timeout whose deadline is already past is run in the current tick
+                long targetTick = Math.max(ticks, tick);
+                timeout.remainingRounds = (targetTick - tick) / wheel.length;
+                wheel[(int) (targetTick & mask)].add(timeout);
+            }
+        }
+
+        private void removeCancelledTimeouts()
+        {
+            Timeout timeout;
+            while ((timeout = cancelledTimeouts.poll()) != null)
+            {
+                if (timeout.bucket != null)
+                {
+                    timeout.bucket.remove(timeout);
+                }
+            }
+        }
+    }
+
+    /**
+     * A doubly linked list of timeouts, only accessed by the worker thread or while holding the
+     * lock on the wheel
+     */
+    private final class Bucket
+    {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout)
+        {
+            timeout.bucket = this;
+            if (head == null)
+            {
+                head = tail = timeout;
+            }
+            else
+            {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expireTimeouts(long deadline)
+        {
+            Timeout timeout = head;
+            while (timeout != null)
+            {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline)
+                {
+                    remove(timeout);
+                    if (timeout.expire())
+                    {
+                        runTask(timeout);
+                    }
+                }
+                else if (timeout.isCancelled())
+                {
+                    remove(timeout);
+                }
+                else
+                {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout)
+        {
+            if (timeout.bucket != this)
+            {
+                return;
+            }
+            if (timeout.prev != null)
+            {
+                timeout.prev.next = timeout.next;
+            }
+            else
+            {
+                head = timeout.next;
+            }
+            if (timeout.next != null)
+            {
+                timeout.next.prev = timeout.prev;
+            }
+            else
+            {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+
+    /**
+     * A handle on a task scheduled on a {@link HashedTimingWheel}
+     */
+    public final class Timeout
+    {
+        private static final int STATE_SCHEDULED = 0;
+        private static final int STATE_CANCELLED = 1;
+        private static final int STATE_EXPIRED = 2;
+
+        private final Runnable task;
+        private final long periodNanos;
+        private final ClassLoader contextClassLoader;
+        private final AtomicInteger state = new AtomicInteger(STATE_SCHEDULED);
+
+        // only accessed by the worker thread or while holding the lock on the wheel
+        private volatile long deadline;
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        Timeout(Runnable task, long periodNanos, ClassLoader contextClassLoader)
+        {
+            this.task = task;
+            this.periodNanos = periodNanos;
+            this.contextClassLoader = contextClassLoader;
+        }
+
+        /**
+         * Cancels the task. A run already started is not interrupted, but a periodic task is not
+         * run again.
+         *
+         * @return <code>false</code> if the task was already cancelled or, for a one-shot task,
+         *         if it has already run
+         */
+        public boolean cancel()
+        {
+            while (true)
+            {
+                int current = state.get();
+                if (current == STATE_CANCELLED || (current == STATE_EXPIRED && !isPeriodic()))
+                {
+                    return false;
+                }
+                if (state.compareAndSet(current, STATE_CANCELLED))
+                {
+                    cancelledTimeouts.add(this);
+                    return true;
+                }
+            }
+        }
+
+        public boolean isCancelled()
+        {
+            return state.get() == STATE_CANCELLED;
+        }
+
+        /**
+         * @return <code>true</code> if a one-shot task has been handed to be run
+         */
+        public boolean isExpired()
+        {
+            return !isPeriodic() && state.get() == STATE_EXPIRED;
+        }
+
+        boolean isPeriodic()
+        {
+            return periodNanos > 0;
+        }
+
+        /**
+         * Makes an expired one-shot task due again, for when it could not be run
+         *
+         * @return <code>false</code> if the task has been cancelled meanwhile
+         */
+        boolean reschedule()
+        {
+            if (isPeriodic())
+            {
+                return !isCancelled();
+            }
+            return state.compareAndSet(STATE_EXPIRED, STATE_SCHEDULED);
+        }
+
+        boolean expire()
+        {
+            if (isPeriodic())
+            {
+                return !isCancelled();
+            }
+            return state.compareAndSet(STATE_SCHEDULED, STATE_EXPIRED);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.work;
+
+import org.mule.api.context.WorkManager;
+
+import java.util.Collections;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.resource.spi.work.Work;
+import javax.resource.spi.work.WorkException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Processes items, i.e. files found by a polling receiver, with a bounded number of concurrent
+ * workers. Each worker acquires a resource, such as a connection, when it starts and uses it for
+ * every item it takes from the queue, so a batch of small items does not pay for a connection per
+ * item.
+ * <p/>
+ * An item is identified by a key and stays in flight from the moment it is submitted until it is
+ * processed, so an item found again by a later poll is not submitted twice.
+ * <p/>
+ * Once no item is in flight anymore, {@link #drained()} tells the owner of the queue that every
+ * item submitted since the previous call was processed, so it can look for more right away.
+ *
+ * @param <T> the type of the items
+ * @param <R> the type of the resource held by a worker
+ */
+public abstract class PipelinedWorkQueue<T, R>
+{
+    protected transient Log logger = LogFactory.getLog(getClass());
+
+    private final WorkManager workManager;
+    private final int maxWorkers;
+    private final Queue<Task<T>> pending = new ConcurrentLinkedQueue<Task<T>>();
+    private final Set<String> inFlight = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final AtomicInteger workers = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicBoolean failed = new AtomicBoolean();
+
+    /**
+     * @param workManager schedules the workers
+     * @param maxWorkers the maximum number of items processed at the same time
+     */
+    public PipelinedWorkQueue(WorkManager workManager, int maxWorkers)
+    {
+        if (maxWorkers < 1)
+        {
+            throw new IllegalArgumentException("The number of workers must be positive: " + maxWorkers);
+        }
+        this.workManager = workManager;
+        this.maxWorkers = maxWorkers;
+    }
+
+    /**
+     * Queues an item unless an item with the same key is still in flight. Call {@link #dispatch()}
+     * once the items found are submitted.
+     *
+     * @return <code>false</code> if the item was already in flight
+     */
+    public boolean submit(String key, T item)
+    {
+        if (!inFlight.add(key))
+        {
+            return false;
+        }
+        pending.offer(new Task<T>(key, item));
+        return true;
+    }
+
+    /**
+     * Starts as many workers as needed for the queued items, within the maximum.
+     */
+    public void dispatch() throws WorkException
+    {
+        int needed = pending.size();
+        while (needed-- > 0 && reserveWorker())
+        {
+            try
+            {
+                workManager.scheduleWork(new PipelineWork());
+            }
+            catch (WorkException e)
+            {
+                workers.decrementAndGet();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Drops the items that were not taken by a worker yet. Workers stop once they finish the item
+     * they are processing.
+     */
+    public void clear()
+    {
+        Task<T> task;
+        while ((task = pending.poll()) != null)
+        {
+            inFlight.remove(task.key);
+        }
+    }
+
+    public boolean isInFlight(String key)
+    {
+        return inFlight.contains(key);
+    }
+
+    public int getInFlightCount()
+    {
+        return inFlight.size();
+    }
+
+    public int getActiveWorkers()
+    {
+        return workers.get();
+    }
+
+    /**
+     * @return the resource used by a worker for all the items it processes
+     */
+    protected R acquire() throws Exception
+    {
+        return null;
+    }
+
+    /**
+     * Releases a resource returned by {@link #acquire()}. Called when the worker runs out of items
+     * and after an item failed, as the resource may be left in an unusable state.
+     */
+    protected void release(R resource)
+    {
+        // template method
+    }
+
+    /**
+     * @return <code>false</code> if the item was skipped, i.e. it is not ready yet or another
+     *         node is processing it
+     */
+    protected abstract boolean process(R resource, T item) throws Exception;
+
+    /**
+     * Called when an item could not be processed.
+     */
+    protected abstract void handleException(T item, Exception e);
+
+    /**
+     * Called by a worker when the last item in flight is done, provided at least one item was
+     * processed and none failed since the previous call. Items that were skipped or failed are
+     * left for the next poll, so that they are not retried in a loop.
+     */
+    protected void drained()
+    {
+        // template method
+    }
+
+    private boolean reserveWorker()
+    {
+        while (true)
+        {
+            int current = workers.get();
+            if (current >= maxWorkers)
+            {
+                return false;
+            }
+            if (workers.compareAndSet(current, current + 1))
+            {
+                return true;
+            }
+        }
+    }
+
+    private void itemDone()
+    {
+        if (!inFlight.isEmpty())
+        {
+            return;
+        }
+        boolean failures = failed.getAndSet(false);
+        if (completed.getAndSet(0) > 0 && !failures)
+        {
+            drained();
+        }
+    }
+
+    private Task<T> nextTask()
+    {
+        while (true)
+        {
+            Task<T> task = pending.poll();
+            if (task != null)
+            {
+                return task;
+            }
+            workers.decrementAndGet();
+            // an item may have been submitted after the queue was found empty but before this
+            // worker stopped counting, in which case nobody else may pick it up
+            if (pending.isEmpty() || !reserveWorker())
+            {
+                return null;
+            }
+        }
+    }
+
+    private static final class Task<T>
+    {
+        private final String key;
+        private final T item;
+
+        private Task(String key, T item)
+        {
+            this.key = key;
+            this.item = item;
+        }
+    }
+
+    private class PipelineWork implements Work
+    {
+
+        public void run()
+        {
+            R resource = null;
+            // the worker gives its slot back when it finds the queue empty, but not if an
+            // Error stops it before
+            boolean active = true;
+            try
+            {
+                Task<T> task;
+                while ((task = nextTask()) != null)
+                {
+                    try
+                    {
+                        if (resource == null)
+                        {
+                            resource = acquire();
+                        }
+                        if (process(resource, task.item))
+                        {
+                            completed.incrementAndGet();
+                        }
+                        if (logger.isDebugEnabled())
+                        {
+                            logger.debug("Processed " + task.key + ", " + pending.size() + " item(s) pending");
+                        }
+                    }
+                    catch (Exception e)
+                    {
+                        failed.set(true);
+                        if (resource != null)
+                        {
+                            PipelinedWorkQueue.this.release(resource);
+                            resource = null;
+                        }
+                        handleException(task.item, e);
+                    }
+                    finally
+                    {
+                        inFlight.remove(task.key);
+                    }
+                    itemDone();
+                }
+                active = false;
+            }
+            finally
+            {
+                if (active)
+                {
+                    failed.set(true);
+                    workers.decrementAndGet();
+                }
+                if (resource != null)
+                {
+                    PipelinedWorkQueue.this.release(resource);
+                }
+            }
+        }
+
+        public void release()
+        {
+            // no op
+        }
+    }
+}
@@ -265,6 +265,23 @@ public class DynamicOutboundEndpointTestCase extends AbstractMessageProcessorTes
         verify(endpointBuilder, times(1)).buildOutboundEndpoint();
     }
 
+    @Test
+    public void reusesPrototypeForResolvedAddress() throws Exception
+    {
+        DynamicOutboundEndpoint endpoint = (DynamicOutboundEndpoint) createOutboundEndpoint(null, null, null, null, MessageExchangePattern.REQUEST_RESPONSE, null);
+        testOutboundEvent = createTestOutboundEvent();
+
+        OutboundEndpoint staticEndpoint = endpoint.getStaticEndpoint(testOutboundEvent);
+        assertSame(staticEndpoint, endpoint.getStaticEndpoint(testOutboundEvent));
+
+        assertEquals("test://localhost:12345", staticEndpoint.getAddress());
+        assertEquals(endpoint.getMessageProcessors(), staticEndpoint.getMessageProcessors());
+        assertEquals(endpoint.getExchangePattern(), staticEndpoint.getExchangePattern());
+        assertEquals(1, endpoint.getCacheMissCount());
+        assertEquals(1, endpoint.getCacheHitCount());
+        assertEquals(1, endpoint.getCacheSize());
+    }
+
     protected void assertMessageSentEqual(MuleEvent event) throws MuleException
     {
         assertEquals(TEST_MESSAGE, event.getMessageAsString());
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.execution;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import org.mule.api.MessagingException;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
+import org.mule.api.construct.Pipeline;
+import org.mule.api.processor.MessageProcessor;
+import org.mule.management.stats.FlowConstructStatistics;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@SmallTest
+@RunWith(MockitoJUnitRunner.class)
+public class MessageProcessorStatisticsExecutionInterceptorTestCase extends AbstractMuleTestCase
+{
+    @Mock
+    private MessageProcessorExecutionInterceptor mockNextInterceptor;
+    @Mock
+    private MessageProcessor mockMessageProcessor;
+    @Mock
+    private Pipeline mockPipeline;
+    @Mock
+    private MuleEvent mockMuleEvent;
+    @Mock
+    private MuleEvent mockResultMuleEvent;
+    @Mock
+    private MessagingException mockMessagingException;
+    private FlowConstructStatistics statistics;
+    private MessageProcessorStatisticsExecutionInterceptor interceptor;
+
+    @Before
+    public void setUpTest()
+    {
+        statistics = new FlowConstructStatistics("Flow", "test");
+        statistics.setEnabled(true);
+        Mockito.when(mockMuleEvent.getFlowConstruct()).thenReturn(mockPipeline);
+        Mockito.when(mockPipeline.getStatistics()).thenReturn(statistics);
+        Mockito.when(mockPipeline.getProcessorPath(mockMessageProcessor)).thenReturn("/test/processors/0");
+        interceptor = new MessageProcessorStatisticsExecutionInterceptor(mockNextInterceptor);
+    }
+
+    @Test
+    public void recordsExecutionTimeOfProcessor() throws MuleException
+    {
+        Mockito.when(mockNextInterceptor.execute(mockMessageProcessor, mockMuleEvent)).thenReturn(mockResultMuleEvent);
+
+        assertThat(interceptor.execute(mockMessageProcessor, mockMuleEvent), is(mockResultMuleEvent));
+        assertThat(interceptor.execute(mockMessageProcessor, mockMuleEvent), is(mockResultMuleEvent));
+
+        assertThat(statistics.getProcessorExecutionTimeSnapshots().get("/test/processors/0").getTotalCount(), is(2L));
+    }
+
+    @Test
+    public void recordsExecutionTimeOfFailedProcessor() throws MuleException
+    {
+        Mockito.when(mockNextInterceptor.execute(mockMessageProcessor, mockMuleEvent)).thenThrow(mockMessagingException);
+
+        try
+        {
+            interceptor.execute(mockMessageProcessor, mockMuleEvent);
+            fail("Exception was expected");
+        }
+        catch (MessagingException e)
+        {
+            assertThat(e, is(mockMessagingException));
+        }
+        assertThat(statistics.getProcessorExecutionTimeSnapshots().get("/test/processors/0").getTotalCount(), is(1L));
+    }
+
+    @Test
+    public void doesNotRecordWhenStatisticsAreDisabled() throws MuleException
+    {
+        statistics.setEnabled(false);
+        Mockito.when(mockNextInterceptor.execute(mockMessageProcessor, mockMuleEvent)).thenReturn(mockResultMuleEvent);
+
+        interceptor.execute(mockMessageProcessor, mockMuleEvent);
+
+        assertThat(statistics.getProcessorExecutionTimeSnapshots().isEmpty(), is(true));
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.management.stats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import org.junit.Test;
+
+@SmallTest
+public class LatencyHistogramTestCase extends AbstractMuleTestCase
+{
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Test
+    public void emptyHistogram()
+    {
+        assertEquals(0, histogram.getSnapshot().getTotalCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getSnapshot().getMaxValue());
+    }
+
+    @Test
+    public void smallValuesAreExact()
+    {
+        for (int i = 1; i <= 10; i++)
+        {
+            histogram.record(i);
+        }
+        assertEquals(5, histogram.getValueAtPercentile(50));
+        assertEquals(9, histogram.getValueAtPercentile(90));
+        assertEquals(10, histogram.getValueAtPercentile(100));
+        assertEquals(1, histogram.getValueAtPercentile(0));
+    }
+
+    @Test
+    public void tailIsNotHiddenByAverage()
+    {
+        for (int i = 0; i < 990; i++)
+        {
+            histogram.record(2);
+        }
+        for (int i = 0; i < 10; i++)
+        {
+            histogram.record(5000);
+        }
+        assertEquals(2, histogram.getValueAtPercentile(50));
+        assertEquals(2, histogram.getValueAtPercentile(99));
+        assertWithinPrecision(5000, histogram.getValueAtPercentile(99.9));
+        assertWithinPrecision(5000, histogram.getSnapshot().getMaxValue());
+    }
+
+    @Test
+    public void largeValuesAreWithinPrecision()
+    {
+        long[] values = {33, 1000, 123456, 987654321L, Long.MAX_VALUE};
+        for (long value : values)
+        {
+            LatencyHistogram h = new LatencyHistogram();
+            h.record(value);
+            assertWithinPrecision(value, h.getValueAtPercentile(50));
+        }
+    }
+
+    @Test
+    public void bucketsAreContiguous()
+    {
+        for (long value = 0; value < 100000; value++)
+        {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(value <= LatencyHistogram.highestValueInBucket(index));
+            if (index > 0)
+            {
+                assertTrue(value > LatencyHistogram.highestValueInBucket(index - 1));
+            }
+        }
+    }
+
+    @Test
+    public void intervalSnapshots()
+    {
+        histogram.record(1);
+        histogram.record(2);
+        assertEquals(2, histogram.getIntervalSnapshot().getTotalCount());
+
+        histogram.record(30);
+        LatencyHistogram.Snapshot interval = histogram.getIntervalSnapshot();
+        assertEquals(1, interval.getTotalCount());
+        assertEquals(30, interval.getValueAtPercentile(50));
+
+        assertEquals(0, histogram.getIntervalSnapshot().getTotalCount());
+        assertEquals(3, histogram.getSnapshot().getTotalCount());
+    }
+
+    @Test
+    public void reset()
+    {
+        histogram.record(10);
+        histogram.reset();
+        assertEquals(0, histogram.getSnapshot().getTotalCount());
+        assertEquals(0, histogram.getIntervalSnapshot().getTotalCount());
+    }
+
+    @Test
+    public void addSnapshots()
+    {
+        LatencyHistogram other = new LatencyHistogram();
+        histogram.record(1);
+        other.record(3);
+        other.record(3);
+        LatencyHistogram.Snapshot sum = histogram.getSnapshot().add(other.getSnapshot());
+        assertEquals(3, sum.getTotalCount());
+        assertEquals(3, sum.getValueAtPercentile(50));
+    }
+
+    private void assertWithinPrecision(long expected, long actual)
+    {
+        assertTrue(actual >= expected);
+        assertTrue("Expected about " + expected + " but was " + actual, (actual - expected) <= expected / 32);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.model.streaming;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.util.IOUtils;
+
+import java.io.File;
+import java.io.InputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SpillingOutputStreamTestCase extends AbstractMuleTestCase
+{
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void keepsSmallContentInMemory() throws Exception
+    {
+        SpillingOutputStream out = new SpillingOutputStream(10, temporaryFolder.getRoot());
+        out.write("small".getBytes());
+        out.close();
+
+        assertTrue(out.isInMemory());
+        assertArrayEquals("small".getBytes(), out.toByteArray());
+        assertEquals(0, temporaryFolder.getRoot().list().length);
+    }
+
+    @Test
+    public void spillsLargeContentAndDeletesFileOnClose() throws Exception
+    {
+        byte[] content = new byte[100];
+        for (int i = 0; i < content.length; i++)
+        {
+            content[i] = (byte) i;
+        }
+        SpillingOutputStream out = new SpillingOutputStream(10, temporaryFolder.getRoot());
+        out.write(content, 0, 5);
+        out.write(content, 5, 95);
+
+        assertFalse(out.isInMemory());
+        assertEquals(100, out.getSize());
+        InputStream in = out.getInputStream();
+        File[] files = temporaryFolder.getRoot().listFiles();
+        assertEquals(1, files.length);
+        assertArrayEquals(content, IOUtils.toByteArray(in));
+        in.close();
+        assertFalse(files[0].exists());
+    }
+
+    @Test
+    public void discardDeletesSpilledFile() throws Exception
+    {
+        SpillingOutputStream out = new SpillingOutputStream(0, temporaryFolder.getRoot());
+        out.write(1);
+        out.discard();
+        assertEquals(0, temporaryFolder.getRoot().list().length);
+    }
+}
@@ -7,12 +7,17 @@
 package org.mule.routing;
 
 import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -21,18 +26,24 @@ import static org.mule.routing.UntilSuccessful.PROCESS_ATTEMPT_COUNT_PROPERTY_NA
 import org.mule.api.MuleEvent;
 import org.mule.api.MuleException;
 import org.mule.api.MuleMessage;
+import org.mule.api.config.MuleProperties;
 import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.processor.MessageProcessor;
+import org.mule.api.store.ObjectStoreManager;
 import org.mule.routing.filters.ExpressionFilter;
 import org.mule.tck.junit4.AbstractMuleTestCase;
 import org.mule.tck.size.SmallTest;
 import org.mule.util.concurrent.Latch;
 import org.mule.util.store.SimpleMemoryObjectStore;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -128,6 +139,136 @@ public class AsynchronousUntilSuccessfulProcessingStrategyTestCase extends Abstr
         verify(mockEvent.getMessage(), times(1)).setPayload(expressionEvalutaionResult);
     }
 
+    @Test
+    public void replaysPendingEventsWithBoundedConcurrency() throws Exception
+    {
+        final int pendingEvents = 10;
+        for (int i = 0; i < pendingEvents; i++)
+        {
+            MuleEvent pendingEvent = mock(MuleEvent.class, Answers.RETURNS_DEEP_STUBS.get());
+            when(pendingEvent.getMessage().getInvocationProperty(PROCESS_ATTEMPT_COUNT_PROPERTY_NAME, DEFAULT_PROCESS_ATTEMPT_COUNT_PROPERTY_VALUE)).thenReturn(1);
+            objectStore.store("pending-" + i, pendingEvent);
+        }
+        when(mockUntilSuccessfulConfiguration.getMaxConcurrentRetries()).thenReturn(2);
+        routeCountDownLatch = new CountDownLatch(pendingEvents);
+        final AtomicInteger concurrentExecutions = new AtomicInteger();
+        final AtomicInteger maxConcurrentExecutions = new AtomicInteger();
+        when(mockRoute.process(any(MuleEvent.class))).thenAnswer(new Answer<Object>()
+        {
+            @Override
+            public Object answer(InvocationOnMock invocationOnMock) throws Throwable
+            {
+                int executions = concurrentExecutions.incrementAndGet();
+                synchronized (maxConcurrentExecutions)
+                {
+                    maxConcurrentExecutions.set(Math.max(executions, maxConcurrentExecutions.get()));
+                }
+                Thread.sleep(20);
+                concurrentExecutions.decrementAndGet();
+                routeCountDownLatch.countDown();
+                return invocationOnMock.getArguments()[0];
+            }
+        });
+
+        createProcessingStrategy();
+        waitUntilRouteIsExecuted();
+        assertTrue(maxConcurrentExecutions.get() <= 2);
+    }
+
+    @Test
+    public void resumesSavedAttemptCountOfPendingEvents() throws Exception
+    {
+        usePersistentObjectStore();
+        SimpleMemoryObjectStore<AsynchronousUntilSuccessfulProcessingStrategy.RetryState> retryStates = new SimpleMemoryObjectStore<AsynchronousUntilSuccessfulProcessingStrategy.RetryState>();
+        ObjectStoreManager objectStoreManager = mockObjectStoreManager(retryStates);
+        when(mockUntilSuccessfulConfiguration.getFlowConstruct().getName()).thenReturn("flow");
+        when(mockUntilSuccessfulConfiguration.getDlqMP()).thenReturn(null);
+
+        // the stored event still has its first attempt count, the saved one has no retry left
+        MuleEvent pendingEvent = mock(MuleEvent.class, Answers.RETURNS_DEEP_STUBS.get());
+        when(pendingEvent.getMessage().getInvocationProperty(PROCESS_ATTEMPT_COUNT_PROPERTY_NAME, DEFAULT_PROCESS_ATTEMPT_COUNT_PROPERTY_VALUE)).thenReturn(1);
+        objectStore.store("pending", pendingEvent);
+        retryStates.store("pending", new AsynchronousUntilSuccessfulProcessingStrategy.RetryState(DEFAULT_TRIES, System.currentTimeMillis()));
+
+        failRoute = true;
+        routeCountDownLatch = new CountDownLatch(1);
+        createProcessingStrategy();
+        waitUntilRouteIsExecuted();
+        waitUntilExceptionStrategyIsExecuted();
+        verify(mockRoute, times(1)).process(any(MuleEvent.class));
+        assertFalse(retryStates.contains("pending"));
+        verify(objectStoreManager).getObjectStore("flow." + UntilSuccessful.class.getName() + ".attempts", true);
+    }
+
+    @Test
+    public void replaysPendingEventsInOrderOfSavedDueTimes() throws Exception
+    {
+        usePersistentObjectStore();
+        SimpleMemoryObjectStore<AsynchronousUntilSuccessfulProcessingStrategy.RetryState> retryStates = new SimpleMemoryObjectStore<AsynchronousUntilSuccessfulProcessingStrategy.RetryState>();
+        mockObjectStoreManager(retryStates);
+        when(mockUntilSuccessfulConfiguration.getMaxConcurrentRetries()).thenReturn(1);
+
+        final long now = System.currentTimeMillis();
+        final List<MuleEvent> dueFirst = new ArrayList<MuleEvent>();
+        for (int i = 0; i < 5; i++)
+        {
+            MuleEvent pendingEvent = mock(MuleEvent.class, Answers.RETURNS_DEEP_STUBS.get());
+            objectStore.store("pending-" + i, pendingEvent);
+            // the last stored events are the first due
+            retryStates.store("pending-" + i, new AsynchronousUntilSuccessfulProcessingStrategy.RetryState(2, now - 1000 * i));
+            dueFirst.add(0, pendingEvent);
+        }
+        routeCountDownLatch = new CountDownLatch(dueFirst.size());
+        final List<MuleEvent> processed = new CopyOnWriteArrayList<MuleEvent>();
+        when(mockRoute.process(any(MuleEvent.class))).thenAnswer(new Answer<Object>()
+        {
+            @Override
+            public Object answer(InvocationOnMock invocationOnMock) throws Throwable
+            {
+                processed.add((MuleEvent) invocationOnMock.getArguments()[0]);
+                routeCountDownLatch.countDown();
+                return invocationOnMock.getArguments()[0];
+            }
+        });
+
+        createProcessingStrategy();
+        waitUntilRouteIsExecuted();
+        assertThat(processed, is(dueFirst));
+        assertTrue(retryStates.allKeys().isEmpty());
+    }
+
+    @Test
+    public void doesNotSaveAttemptCountsForNonPersistentObjectStore() throws Exception
+    {
+        ObjectStoreManager objectStoreManager = mockObjectStoreManager(
+            new SimpleMemoryObjectStore<AsynchronousUntilSuccessfulProcessingStrategy.RetryState>());
+
+        executeUntilSuccessfulFailingRoute();
+        waitUntilRouteIsExecuted();
+        verify(objectStoreManager, never()).getObjectStore(anyString(), anyBoolean());
+    }
+
+    private void usePersistentObjectStore()
+    {
+        objectStore = new SimpleMemoryObjectStore<MuleEvent>()
+        {
+            @Override
+            public boolean isPersistent()
+            {
+                return true;
+            }
+        };
+        when(mockUntilSuccessfulConfiguration.getObjectStore()).thenReturn(objectStore);
+    }
+
+    private ObjectStoreManager mockObjectStoreManager(SimpleMemoryObjectStore<AsynchronousUntilSuccessfulProcessingStrategy.RetryState> retryStates)
+    {
+        ObjectStoreManager objectStoreManager = mock(ObjectStoreManager.class);
+        doReturn(retryStates).when(objectStoreManager).getObjectStore(anyString(), anyBoolean());
+        when(mockUntilSuccessfulConfiguration.getMuleContext().getRegistry().get(MuleProperties.OBJECT_STORE_MANAGER)).thenReturn(objectStoreManager);
+        return objectStoreManager;
+    }
+
     private void executeUntilSuccessfulFailingRoute() throws Exception
     {
         failRoute = true;
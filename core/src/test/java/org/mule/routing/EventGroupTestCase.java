@@ -9,15 +9,20 @@ package org.mule.routing;
 import org.mule.DefaultMuleEvent;
 import org.mule.DefaultMuleMessage;
 import org.mule.api.MuleEvent;
+import org.mule.api.config.MuleProperties;
+import org.mule.api.store.ListableObjectStore;
+import org.mule.api.store.ObjectStoreManager;
 import org.mule.tck.junit4.AbstractMuleContextTestCase;
 import org.mule.util.UUID;
 
+import java.io.Serializable;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
 
 import org.apache.commons.collections.IteratorUtils;
+import org.apache.commons.lang.SerializationUtils;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -215,6 +220,132 @@ public class EventGroupTestCase extends AbstractMuleContextTestCase
         assertEquals("value3", result.getSession().getProperty("key3"));
         assertEquals("value4", result.getSession().getProperty("key4"));
     }
+    @Test
+    public void groupsOfOneStorePrefixKeepTheirOwnEvents() throws Exception
+    {
+        EventGroup g1 = new EventGroup("1", muleContext, 2, false, "EventGroupTestCase");
+        // a group id that starts like the first one must not see its events
+        EventGroup g2 = new EventGroup("1:1", muleContext, 2, false, "EventGroupTestCase");
+        assertTrue(g1.events == g2.events);
+
+        g1.addEvent(getTestEvent("foo1"));
+        g1.addEvent(getTestEvent("foo2"));
+        g2.addEvent(getTestEvent("foo3"));
+        assertEquals(2, g1.size());
+        assertEquals(1, g2.size());
+        assertEquals(3, g1.events.allKeys().size());
+
+        g1.clear();
+        assertEquals(0, g1.size());
+        assertFalse(g1.iterator().hasNext());
+        assertEquals(1, g2.size());
+        assertEquals("foo3", g2.toArray()[0].getMessage().getPayload());
+        assertEquals(1, g2.events.allKeys().size());
+    }
+
+    @Test
+    public void removeEvent() throws Exception
+    {
+        EventGroup eg = new EventGroup(UUID.getUUID(), muleContext);
+        MuleEvent event1 = getTestEvent("foo1");
+        MuleEvent event2 = getTestEvent("foo2");
+        eg.addEvent(event1);
+        eg.addEvent(event2);
+
+        eg.removeEvent(event1);
+        assertEquals(1, eg.size());
+        assertEquals(event2.getId(), eg.toArray()[0].getId());
+    }
+
+    @Test
+    public void persistentCopiesShareTheirEvents() throws Exception
+    {
+        EventGroup eg = new EventGroup(UUID.getUUID(), muleContext, -1, true, "EventGroupTestCase");
+        eg.addEvent(getTestEvent("foo1"));
+
+        // each retrieve from a persistent store gives a copy of its own
+        EventGroup copy1 = copyOf(eg);
+        EventGroup copy2 = copyOf(eg);
+        copy1.addEvent(getTestEvent("foo2"));
+        copy2.addEvent(getTestEvent("foo3"));
+        assertEquals(3, copy2.size());
+
+        EventGroup copy3 = copyOf(eg);
+        assertEquals(3, copy3.size());
+        assertEquals("foo3", copy3.toArray()[2].getMessage().getPayload());
+
+        copy3.clear();
+        assertEquals(0, copyOf(eg).size());
+    }
+
+    @Test
+    public void migratesEventsOfLegacyGroupStore() throws Exception
+    {
+        String groupId = UUID.getUUID();
+        ObjectStoreManager manager = muleContext.getRegistry().get(MuleProperties.OBJECT_STORE_MANAGER);
+        ListableObjectStore<MuleEvent> legacy = manager.getObjectStore(
+            "EventGroupTestCase.eventGroup." + groupId, true);
+        MuleEvent event = getTestEvent("foo1");
+        legacy.store(event.getId() + event.getMessage().getCorrelationSequence(), event);
+
+        // a group serialized by an older version is not indexed
+        EventGroup eg = new EventGroup(groupId, muleContext, -1, false, "EventGroupTestCase");
+        eg.initAfterDeserialisation(muleContext);
+        assertEquals(1, eg.size());
+        assertEquals("foo1", eg.toArray()[0].getMessage().getPayload());
+
+        ListableObjectStore<MuleEvent> reopened = manager.getObjectStore(
+            "EventGroupTestCase.eventGroup." + groupId, true);
+        assertTrue(reopened.allKeys().isEmpty());
+
+        // the migrated group is indexed, so clearing it removes its index entries
+        assertEquals(2, indexEntriesOf(groupId).size());
+        eg.clear();
+        assertTrue(indexEntriesOf(groupId).isEmpty());
+    }
+
+    @Test
+    public void storesOneIndexEntryPerEvent() throws Exception
+    {
+        String groupId = UUID.getUUID();
+        EventGroup eg = new EventGroup(groupId, muleContext, -1, true, "EventGroupTestCase");
+        MuleEvent first = getTestEvent("foo1");
+        eg.addEvent(first);
+        eg.addEvent(getTestEvent("foo2"));
+        eg.addEvent(getTestEvent("foo3"));
+        // an entry per event and one with the counters of the group
+        assertEquals(4, indexEntriesOf(groupId).size());
+
+        EventGroup copy = copyOf(eg);
+        copy.removeEvent(first);
+        assertEquals(3, indexEntriesOf(groupId).size());
+        assertEquals(2, copyOf(eg).size());
+        assertEquals("foo2", copyOf(eg).toArray()[0].getMessage().getPayload());
+    }
+
+    private Set<Serializable> indexEntriesOf(String groupId) throws Exception
+    {
+        ObjectStoreManager manager = muleContext.getRegistry().get(MuleProperties.OBJECT_STORE_MANAGER);
+        ListableObjectStore<Serializable> index = manager.getObjectStore("EventGroupTestCase.eventGroupIndex", true);
+        String prefix = groupId.length() + ":" + groupId + ":";
+        Set<Serializable> entries = new HashSet<Serializable>();
+        for (Serializable key : index.allKeys())
+        {
+            if (key.toString().startsWith(prefix))
+            {
+                entries.add(key);
+            }
+        }
+        return entries;
+    }
+
+    private EventGroup copyOf(EventGroup group) throws Exception
+    {
+        EventGroup copy = (EventGroup) SerializationUtils.deserialize(SerializationUtils.serialize(group));
+        copy.initAfterDeserialisation(muleContext);
+        return copy;
+    }
+
     private static class MyEventGroup extends EventGroup
     {
         private static final long serialVersionUID = 1L;
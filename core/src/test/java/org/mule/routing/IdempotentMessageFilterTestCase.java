@@ -7,8 +7,12 @@
 package org.mule.routing;
 
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.mule.DefaultMuleEvent;
@@ -19,7 +23,11 @@ import org.mule.api.MuleSession;
 import org.mule.api.endpoint.InboundEndpoint;
 import org.mule.api.service.Service;
 import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.tck.probe.JUnitProbe;
+import org.mule.tck.probe.PollingProber;
+import org.mule.util.concurrent.ShardedBloomFilter;
 import org.mule.util.store.InMemoryObjectStore;
+import org.mule.util.store.SimpleMemoryObjectStore;
 
 import org.junit.Test;
 
@@ -57,4 +65,92 @@ public class IdempotentMessageFilterTestCase extends AbstractMuleContextTestCase
         event = ir.process(event);
         assertNull(event);
     }
+
+    @Test
+    public void bloomFilterSkipsStoreLookupForNewIds() throws Exception
+    {
+        Service service = getTestService();
+
+        MuleSession session = mock(MuleSession.class);
+        when(session.getFlowConstruct()).thenReturn(service);
+
+        InboundEndpoint endpoint1 = getTestInboundEndpoint("Test1Provider", "test://Test1Provider?exchangePattern=one-way");
+
+        SimpleMemoryObjectStore<String> store = spy(new SimpleMemoryObjectStore<String>());
+        store.store("1", "1");
+
+        IdempotentMessageFilter ir = new IdempotentMessageFilter();
+        ir.setIdExpression("#[header:id]");
+        ir.setFlowConstruct(service);
+        ir.setThrowOnUnaccepted(false);
+        ir.setStorePrefix("foo");
+        ir.setStore(store);
+        ir.setBloomFilterExpectedEntries(100);
+        ir.start();
+
+        // The ID is in the store when the filter starts, so it is a duplicate
+        MuleMessage message = new DefaultMuleMessage("OK", muleContext);
+        message.setOutboundProperty("id", "1");
+        assertNull(ir.process(new DefaultMuleEvent(message, endpoint1, service, session)));
+
+        // A new ID is accepted without looking up the store
+        message = new DefaultMuleMessage("OK", muleContext);
+        message.setOutboundProperty("id", "2");
+        assertNotNull(ir.process(new DefaultMuleEvent(message, endpoint1, service, session)));
+        verify(store, never()).contains("2");
+
+        message = new DefaultMuleMessage("OK", muleContext);
+        message.setOutboundProperty("id", "2");
+        assertNull(ir.process(new DefaultMuleEvent(message, endpoint1, service, session)));
+    }
+
+    @Test
+    public void bloomFilterIsRebuiltOutOfTheMessageThread() throws Exception
+    {
+        Service service = getTestService();
+
+        MuleSession session = mock(MuleSession.class);
+        when(session.getFlowConstruct()).thenReturn(service);
+
+        InboundEndpoint endpoint1 = getTestInboundEndpoint("Test1Provider", "test://Test1Provider?exchangePattern=one-way");
+
+        final IdempotentMessageFilter ir = new IdempotentMessageFilter();
+        ir.setIdExpression("#[header:id]");
+        ir.setFlowConstruct(service);
+        ir.setThrowOnUnaccepted(false);
+        ir.setStorePrefix("bar");
+        ir.setStore(new SimpleMemoryObjectStore<String>());
+        ir.setMuleContext(muleContext);
+        ir.setBloomFilterExpectedEntries(2);
+        ir.start();
+        final ShardedBloomFilter initial = ir.seenIds;
+
+        // more IDs than expected saturate the Bloom filter
+        for (int i = 0; i < 5; i++)
+        {
+            MuleMessage message = new DefaultMuleMessage("OK", muleContext);
+            message.setOutboundProperty("id", String.valueOf(i));
+            assertNotNull(ir.process(new DefaultMuleEvent(message, endpoint1, service, session)));
+        }
+
+        new PollingProber(5000, 50).check(new JUnitProbe()
+        {
+            @Override
+            protected boolean test() throws Exception
+            {
+                assertNotSame(initial, ir.seenIds);
+                return true;
+            }
+
+            @Override
+            public String describeFailure()
+            {
+                return "The Bloom filter was not rebuilt";
+            }
+        });
+
+        MuleMessage message = new DefaultMuleMessage("OK", muleContext);
+        message.setOutboundProperty("id", "3");
+        assertNull(ir.process(new DefaultMuleEvent(message, endpoint1, service, session)));
+    }
 }
@@ -6,7 +6,10 @@
  */
 package org.mule.routing.correlation;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.isA;
@@ -26,6 +29,7 @@ import org.mule.api.routing.MessageInfoMapping;
 import org.mule.api.store.ListableObjectStore;
 import org.mule.api.store.ObjectStoreException;
 import org.mule.api.store.ObjectStoreManager;
+import org.mule.config.ChainedThreadingProfile;
 import org.mule.routing.EventGroup;
 import org.mule.tck.junit4.AbstractMuleTestCase;
 import org.mule.tck.probe.PollingProber;
@@ -33,13 +37,20 @@ import org.mule.tck.probe.Probe;
 import org.mule.tck.probe.Prober;
 import org.mule.tck.size.SmallTest;
 import org.mule.util.store.SimpleMemoryObjectStore;
+import org.mule.util.timer.HashedTimingWheel;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Answers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -192,6 +203,39 @@ public class EventCorrelatorTestCase extends AbstractMuleTestCase
         Mockito.verify(mockEventGroup, Mockito.times(1)).getMessageCollectionEvent();
     }
 
+    @Test
+    public void expiresGroupsOnItsOwnWorkManagerWhenContextHasTimingWheel() throws Exception
+    {
+        HashedTimingWheel timingWheel = new HashedTimingWheel(10, TimeUnit.MILLISECONDS, 64, 1);
+        when(mockMuleContext.getRegistry().get(MuleProperties.OBJECT_TIMING_WHEEL)).thenReturn(timingWheel);
+        when(mockMuleContext.getDefaultThreadingProfile()).thenReturn(new ChainedThreadingProfile());
+        final List<String> expiryThreads = new CopyOnWriteArrayList<String>();
+        doAnswer(new Answer<MuleEvent>()
+        {
+            @Override
+            public MuleEvent answer(InvocationOnMock invocation) throws Throwable
+            {
+                expiryThreads.add(Thread.currentThread().getName());
+                return mockMuleEvent;
+            }
+        }).when(mockEventGroup).getMessageCollectionEvent();
+
+        try
+        {
+            doExpiredGroupMonitoringTest(true);
+        }
+        finally
+        {
+            timingWheel.dispose();
+        }
+
+        assertFalse(expiryThreads.isEmpty());
+        for (String expiryThread : expiryThreads)
+        {
+            assertTrue(expiryThread, expiryThread.contains("flowName.event.correlator.expiry"));
+        }
+    }
+
     private EventCorrelator createEventCorrelator() throws Exception
     {
         when(mockMuleContext.getRegistry().get(MuleProperties.OBJECT_STORE_MANAGER)).thenReturn(mockObjectStoreManager);
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class AimdConcurrencyLimiterTestCase extends AbstractMuleTestCase
+{
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    public void rejectsOverLimit()
+    {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(2, 10);
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1, limiter.getRejected());
+
+        limiter.release(FAST);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    public void growsWhileLatencyIsStableAndLimitIsUsed()
+    {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(4, 10);
+        for (int i = 0; i < 100; i++)
+        {
+            fill(limiter);
+            limiter.release(FAST);
+            releaseAll(limiter);
+        }
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    public void doesNotGrowWhenLimitIsNotUsed()
+    {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(4, 10);
+        for (int i = 0; i < 100; i++)
+        {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(FAST);
+        }
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    public void backsOffOncePerWindowWhenLatencyGrows()
+    {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(10, 10);
+        execute(limiter, FAST, 1);
+        execute(limiter, SLOW, 8);
+        assertEquals(10, limiter.getLimit());
+        execute(limiter, SLOW, 1);
+        assertEquals(9, limiter.getLimit());
+        execute(limiter, SLOW, 8);
+        assertEquals(9, limiter.getLimit());
+        execute(limiter, SLOW, 1);
+        assertEquals(8, limiter.getLimit());
+        assertEquals(1000, limiter.getRetryAfterMillis());
+    }
+
+    @Test
+    public void ignoresASingleSlowExecution()
+    {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(10, 10);
+        execute(limiter, FAST, 20);
+        execute(limiter, 3 * FAST, 1);
+        execute(limiter, FAST, 20);
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    public void neverGoesBelowMinimum()
+    {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(2, 2, 10, 0.5, 2);
+        limiter.tryAcquire();
+        limiter.release(FAST);
+        for (int i = 0; i < 10; i++)
+        {
+            limiter.tryAcquire();
+            limiter.release(SLOW);
+        }
+        assertEquals(2, limiter.getLimit());
+    }
+
+    private void execute(AimdConcurrencyLimiter limiter, long latency, int times)
+    {
+        for (int i = 0; i < times; i++)
+        {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(latency);
+        }
+    }
+
+    private void fill(AimdConcurrencyLimiter limiter)
+    {
+        while (limiter.tryAcquire())
+        {
+        }
+    }
+
+    private void releaseAll(AimdConcurrencyLimiter limiter)
+    {
+        while (limiter.getInFlight() > 0)
+        {
+            limiter.release(FAST);
+        }
+    }
+}
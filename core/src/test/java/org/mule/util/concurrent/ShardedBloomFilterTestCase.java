@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ShardedBloomFilterTestCase extends AbstractMuleTestCase
+{
+
+    @Test
+    public void containsAddedValuesFromManyThreads() throws Exception
+    {
+        final ShardedBloomFilter filter = new ShardedBloomFilter(10000, 0.01, 4);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++)
+        {
+            final int thread = i;
+            threads.add(new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    for (int j = 0; j < 1000; j++)
+                    {
+                        filter.put(thread + "-" + j);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads)
+        {
+            thread.start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        for (int i = 0; i < 4; i++)
+        {
+            for (int j = 0; j < 1000; j++)
+            {
+                assertTrue(filter.mightContain(i + "-" + j));
+            }
+        }
+        assertFalse(filter.isSaturated());
+    }
+
+    @Test
+    public void keepsFalsePositiveRateLow()
+    {
+        ShardedBloomFilter filter = new ShardedBloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++)
+        {
+            filter.put("added-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++)
+        {
+            if (filter.mightContain("other-" + i))
+            {
+                falsePositives++;
+            }
+        }
+        assertTrue("Too many false positives: " + falsePositives, falsePositives < 300);
+    }
+
+    @Test
+    public void saturatesAfterExpectedInsertions()
+    {
+        ShardedBloomFilter filter = new ShardedBloomFilter(1000, 0.001, 2);
+        for (int i = 0; i < 1000; i++)
+        {
+            filter.put("value-" + i);
+        }
+        assertFalse(filter.isSaturated());
+
+        for (int i = 1000; i < 1100; i++)
+        {
+            filter.put("value-" + i);
+        }
+        assertTrue(filter.isSaturated());
+    }
+
+    @Test
+    public void countsInsertionsOfAllShards()
+    {
+        ShardedBloomFilter filter = new ShardedBloomFilter(1000, 0.001, 4);
+        for (int i = 0; i < 100; i++)
+        {
+            filter.put("value-" + i);
+        }
+        assertEquals(100, filter.getInsertions());
+        assertFalse(filter.isSaturated());
+    }
+
+    @Test
+    public void doesNotCountValuesAddedTwice()
+    {
+        ShardedBloomFilter filter = new ShardedBloomFilter(1000, 0.001);
+        filter.put("value");
+        filter.put("value");
+        assertEquals(1, filter.getInsertions());
+    }
+}
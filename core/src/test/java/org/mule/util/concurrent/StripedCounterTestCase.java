@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.concurrent;
+
+import static org.junit.Assert.assertEquals;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class StripedCounterTestCase extends AbstractMuleTestCase
+{
+
+    @Test
+    public void countsUpdatesFromManyThreads() throws Exception
+    {
+        final StripedCounter counter = new StripedCounter(4);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 8; i++)
+        {
+            Thread thread = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    for (int j = 0; j < 10000; j++)
+                    {
+                        counter.increment();
+                    }
+                    counter.add(-5000);
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        assertEquals(8 * 5000, counter.sum());
+    }
+
+    @Test
+    public void reset()
+    {
+        StripedCounter counter = new StripedCounter();
+        counter.increment();
+        counter.increment();
+        counter.decrement();
+        assertEquals(1, counter.sum());
+        counter.reset();
+        assertEquals(0, counter.sum());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidStripes()
+    {
+        new StripedCounter(0);
+    }
+}
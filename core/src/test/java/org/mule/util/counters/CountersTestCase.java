@@ -9,7 +9,11 @@ package org.mule.util.counters;
 import org.mule.tck.junit4.AbstractMuleTestCase;
 import org.mule.util.counters.CounterFactory.Type;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.Test;
 
@@ -70,6 +74,18 @@ public class CountersTestCase extends AbstractMuleTestCase
         assertEquals("decrement", 12.0, ct.nextValue(), delta);
     }
 
+    @Test
+    public void testUpdatesDoNotReadValue()
+    {
+        Counter ct = CounterFactory.createCounter("testUpdatesDoNotReadValue", Type.NUMBER);
+
+        ct.setRawValue(10.0);
+        assertTrue("increment", Double.isNaN(ct.increment()));
+        assertTrue("incrementBy", Double.isNaN(ct.incrementBy(2.5)));
+        assertTrue("decrement", Double.isNaN(ct.decrement()));
+        assertEquals("Value", 12.5, ct.nextValue(), delta);
+    }
+
     @Test
     public void testMinMax()
     {
@@ -79,14 +95,34 @@ public class CountersTestCase extends AbstractMuleTestCase
 
         assertEquals("Min default value", Double.MAX_VALUE, min.nextValue(), delta);
         assertEquals("Max default value", Double.MIN_VALUE, max.nextValue(), delta);
-        ct.setRawValue(10.0);
-        ct.setRawValue(12.0);
-        ct.setRawValue(18.0);
-        ct.setRawValue(16.0);
+        for (double value : new double[] {10.0, 12.0, 18.0, 16.0})
+        {
+            ct.setRawValue(value);
+            min.nextValue();
+            max.nextValue();
+        }
         assertEquals("Min", 10.0, min.nextValue(), delta);
         assertEquals("Max", 18.0, max.nextValue(), delta);
     }
 
+    @Test
+    public void testAggregatesSampleBaseWhenRead()
+    {
+        Counter ct = CounterFactory.createCounter("testSample", Type.NUMBER);
+        Counter avg = CounterFactory.createCounter("testSample.avg", "testSample", Type.AVERAGE);
+        Counter max = CounterFactory.createCounter("testSample.max", "testSample", Type.MAX);
+
+        ct.setRawValue(10.0);
+        ct.setRawValue(30.0);
+        ct.setRawValue(20.0);
+        assertEquals("Average of one sample", 20.0, avg.nextValue(), delta);
+        assertEquals("Max of one sample", 20.0, max.nextValue(), delta);
+        assertEquals("Not updated since last read", 20.0, avg.nextValue(), delta);
+        ct.setRawValue(40.0);
+        assertEquals("Average of two samples", 30.0, avg.nextValue(), delta);
+        assertEquals("Max of two samples", 40.0, max.nextValue(), delta);
+    }
+
     @Test
     public void testDelta()
     {
@@ -138,6 +174,80 @@ public class CountersTestCase extends AbstractMuleTestCase
         assertEquals("Average", 14.0, avg.nextValue(), delta);
     }
 
+    @Test
+    public void testOperator()
+    {
+        Counter first = CounterFactory.createCounter("testOperator.first", Type.NUMBER);
+        Counter second = CounterFactory.createCounter("testOperator.second", Type.NUMBER);
+        Counter plus = CounterFactory.createCounter("testOperator.plus", "testOperator.first",
+            "testOperator.second", Type.PLUS);
+        Counter max = CounterFactory.createCounter("testOperator.plus.max", "testOperator.plus", Type.MAX);
+
+        first.setRawValue(3.0);
+        second.setRawValue(4.0);
+        assertEquals("Plus", 7.0, plus.nextValue(), delta);
+        assertEquals("Max of plus", 7.0, max.nextValue(), delta);
+        second.setRawValue(1.0);
+        assertEquals("Plus", 4.0, plus.nextValue(), delta);
+        assertEquals("Max of plus", 7.0, max.nextValue(), delta);
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws InterruptedException
+    {
+        final Counter ct = CounterFactory.createCounter("testConcurrentUpdates", Type.NUMBER);
+        Counter sum = CounterFactory.createCounter("testConcurrentUpdates.sum", "testConcurrentUpdates",
+            Type.SUM);
+        Counter max = CounterFactory.createCounter("testConcurrentUpdates.max", "testConcurrentUpdates",
+            Type.MAX);
+
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++)
+        {
+            Thread thread = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    for (int j = 0; j < 1000; j++)
+                    {
+                        ct.increment();
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertEquals("Number", 4000.0, ct.nextValue(), delta);
+        assertEquals("Max", 4000.0, max.nextValue(), delta);
+        assertTrue("Sum", sum.nextValue() > 0.0);
+    }
+
+    @Test
+    public void testExport()
+    {
+        CounterFactory.createCounter("testExport", Type.NUMBER).setRawValue(5.0);
+        CounterFactory.createCounter("testExport.hidden", Type.NUMBER, false);
+
+        final Map<String, Double> exported = new HashMap<String, Double>();
+        CounterFactory.exportCounters(new CounterExporter()
+        {
+            @Override
+            public void export(Counter counter, double value)
+            {
+                exported.put(counter.getName(), value);
+            }
+        });
+
+        assertEquals(5.0, exported.get("testExport"), delta);
+        assertTrue(!exported.containsKey("testExport.hidden"));
+    }
+
     /**
      * Serious non-portable timing issues :(
      * 
@@ -182,6 +292,8 @@ public class CountersTestCase extends AbstractMuleTestCase
         for (int i = 0; i < 5; i++)
         {
             ct.setRawValue(10);
+            rsec.nextValue();
+            rmin.nextValue();
             Thread.sleep(1000);
         }
 
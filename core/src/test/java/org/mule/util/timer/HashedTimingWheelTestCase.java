@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class HashedTimingWheelTestCase extends AbstractMuleTestCase
+{
+
+    private HashedTimingWheel timingWheel = new HashedTimingWheel(5, TimeUnit.MILLISECONDS, 8);
+
+    @After
+    public void disposeTimingWheel()
+    {
+        timingWheel.dispose();
+    }
+
+    @Test
+    public void runsTaskAfterDelay() throws Exception
+    {
+        final CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+        HashedTimingWheel.Timeout timeout = timingWheel.schedule(new CountDown(latch), 50, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+    }
+
+    @Test
+    public void runsTaskDueAfterSeveralRounds() throws Exception
+    {
+        // 8 buckets of 5 ms make a round of 40 ms
+        final CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+        timingWheel.schedule(new CountDown(latch), 130, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 130);
+    }
+
+    @Test
+    public void doesNotRunCancelledTask() throws Exception
+    {
+        final CountDownLatch latch = new CountDownLatch(1);
+        HashedTimingWheel.Timeout timeout = timingWheel.schedule(new CountDown(latch), 50, TimeUnit.MILLISECONDS);
+
+        assertTrue(timeout.cancel());
+        assertTrue(timeout.isCancelled());
+        assertFalse(latch.await(200, TimeUnit.MILLISECONDS));
+        assertEquals(0, timingWheel.getPendingTasks());
+    }
+
+    @Test
+    public void runsTaskWithFixedDelayUntilCancelled() throws Exception
+    {
+        final AtomicInteger runs = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(3);
+        HashedTimingWheel.Timeout timeout = timingWheel.scheduleWithFixedDelay(new Runnable()
+        {
+            public void run()
+            {
+                runs.incrementAndGet();
+                latch.countDown();
+            }
+        }, 0, 10, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(timeout.cancel());
+        Thread.sleep(50);
+        int runsAfterCancel = runs.get();
+        Thread.sleep(100);
+        assertEquals(runsAfterCancel, runs.get());
+    }
+
+    @Test
+    public void runsTaskWithContextClassLoader() throws Exception
+    {
+        final ClassLoader classLoader = new ClassLoader(getClass().getClassLoader())
+        {
+        };
+        final ClassLoader[] seen = new ClassLoader[1];
+        final CountDownLatch latch = new CountDownLatch(1);
+        HashedTimingWheel.Timeout timeout = timingWheel.scheduleWithFixedDelay(new Runnable()
+        {
+            public void run()
+            {
+                seen[0] = Thread.currentThread().getContextClassLoader();
+                latch.countDown();
+            }
+        }, 0, 1000, TimeUnit.MILLISECONDS, classLoader);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        timeout.cancel();
+        assertEquals(classLoader, seen[0]);
+    }
+
+    @Test
+    public void slowTaskDoesNotDelayOthers() throws Exception
+    {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(1);
+        timingWheel.schedule(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, 0, TimeUnit.MILLISECONDS);
+        timingWheel.schedule(new CountDown(latch), 20, TimeUnit.MILLISECONDS);
+
+        try
+        {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void tasksWaitForABusyWorker() throws Exception
+    {
+        HashedTimingWheel singleWorker = new HashedTimingWheel(5, TimeUnit.MILLISECONDS, 8, 1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(2);
+        try
+        {
+            singleWorker.schedule(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        release.await();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }, 0, TimeUnit.MILLISECONDS);
+            singleWorker.schedule(new CountDown(latch), 10, TimeUnit.MILLISECONDS);
+            singleWorker.schedule(new CountDown(latch), 20, TimeUnit.MILLISECONDS);
+
+            assertFalse(latch.await(100, TimeUnit.MILLISECONDS));
+            release.countDown();
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            release.countDown();
+            singleWorker.dispose();
+        }
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void rejectsTasksOnceDisposed()
+    {
+        timingWheel.schedule(new CountDown(new CountDownLatch(1)), 10, TimeUnit.MILLISECONDS);
+        timingWheel.dispose();
+        timingWheel.schedule(new CountDown(new CountDownLatch(1)), 10, TimeUnit.MILLISECONDS);
+    }
+
+    private static class CountDown implements Runnable
+    {
+        private final CountDownLatch latch;
+
+        public CountDown(CountDownLatch latch)
+        {
+            this.latch = latch;
+        }
+
+        public void run()
+        {
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.work;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import org.mule.api.context.WorkManager;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.resource.spi.work.Work;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+@SmallTest
+public class PipelinedWorkQueueTestCase extends AbstractMuleTestCase
+{
+
+    private final List<Work> scheduled = new ArrayList<Work>();
+    private WorkManager workManager;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        workManager = mock(WorkManager.class);
+        doAnswer(new Answer<Void>()
+        {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable
+            {
+                scheduled.add((Work) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(workManager).scheduleWork(any(Work.class));
+    }
+
+    @Test
+    public void doesNotSubmitItemsInFlightTwice() throws Exception
+    {
+        TestQueue queue = new TestQueue(2);
+        assertTrue(queue.submit("a", "a"));
+        assertFalse(queue.submit("a", "a"));
+        assertTrue(queue.isInFlight("a"));
+
+        queue.dispatch();
+        runScheduled();
+
+        assertFalse(queue.isInFlight("a"));
+        assertTrue(queue.submit("a", "a"));
+    }
+
+    @Test
+    public void boundsWorkersAndReusesResource() throws Exception
+    {
+        TestQueue queue = new TestQueue(2);
+        for (int i = 0; i < 5; i++)
+        {
+            queue.submit("item" + i, "item" + i);
+        }
+        queue.dispatch();
+        assertEquals(2, scheduled.size());
+        assertEquals(2, queue.getActiveWorkers());
+
+        runScheduled();
+
+        assertEquals(5, queue.processed.size());
+        assertEquals(1, queue.acquired);
+        assertEquals(1, queue.released);
+        assertEquals(0, queue.getActiveWorkers());
+        assertEquals(0, queue.getInFlightCount());
+    }
+
+    @Test
+    public void replacesResourceAfterFailure() throws Exception
+    {
+        TestQueue queue = new TestQueue(1);
+        queue.submit("fail", "fail");
+        queue.submit("ok", "ok");
+        queue.dispatch();
+        runScheduled();
+
+        assertEquals(1, queue.failed.size());
+        assertEquals(1, queue.processed.size());
+        assertEquals(2, queue.acquired);
+        assertEquals(2, queue.released);
+    }
+
+    @Test
+    public void clearDropsPendingItems() throws Exception
+    {
+        TestQueue queue = new TestQueue(1);
+        queue.submit("a", "a");
+        queue.submit("b", "b");
+        queue.clear();
+
+        assertEquals(0, queue.getInFlightCount());
+        queue.dispatch();
+        assertTrue(scheduled.isEmpty());
+    }
+
+    @Test
+    public void releasesWorkerWhenProcessingThrowsError() throws Exception
+    {
+        TestQueue queue = new TestQueue(1);
+        queue.submit("error", "error");
+        queue.dispatch();
+        try
+        {
+            runScheduled();
+            fail("Error was expected to propagate");
+        }
+        catch (TestError e)
+        {
+            // expected
+        }
+
+        assertEquals(0, queue.getActiveWorkers());
+        assertEquals(0, queue.getInFlightCount());
+        assertEquals(0, queue.drained);
+
+        scheduled.clear();
+        queue.submit("ok", "ok");
+        queue.dispatch();
+        assertEquals(1, scheduled.size());
+    }
+
+    @Test
+    public void notifiesWhenAllItemsAreProcessed() throws Exception
+    {
+        TestQueue queue = new TestQueue(2);
+        queue.submit("a", "a");
+        queue.submit("b", "b");
+        queue.dispatch();
+        runScheduled();
+        assertEquals(1, queue.drained);
+
+        scheduled.clear();
+        queue.submit("skip", "skip");
+        queue.dispatch();
+        runScheduled();
+        assertEquals(1, queue.drained);
+
+        scheduled.clear();
+        queue.submit("fail", "fail");
+        queue.submit("c", "c");
+        queue.dispatch();
+        runScheduled();
+        assertEquals(1, queue.drained);
+    }
+
+    private void runScheduled()
+    {
+        for (Work work : new ArrayList<Work>(scheduled))
+        {
+            work.run();
+        }
+    }
+
+    private class TestQueue extends PipelinedWorkQueue<String, Object>
+    {
+
+        private final List<String> processed = new ArrayList<String>();
+        private final List<String> failed = new ArrayList<String>();
+        private int acquired;
+        private int released;
+        private int drained;
+
+        TestQueue(int maxWorkers)
+        {
+            super(workManager, maxWorkers);
+        }
+
+        @Override
+        protected Object acquire() throws Exception
+        {
+            acquired++;
+            return new Object();
+        }
+
+        @Override
+        protected void release(Object resource)
+        {
+            released++;
+        }
+
+        @Override
+        protected boolean process(Object resource, String item) throws Exception
+        {
+            if ("fail".equals(item))
+            {
+                throw new Exception("Expected");
+            }
+            if ("error".equals(item))
+            {
+                throw new TestError();
+            }
+            if ("skip".equals(item))
+            {
+                return false;
+            }
+            processed.add(item);
+            return true;
+        }
+
+        @Override
+        protected void handleException(String item, Exception e)
+        {
+            failed.add(item);
+        }
+
+        @Override
+        protected void drained()
+        {
+            drained++;
+        }
+    }
+
+    private static class TestError extends Error
+    {
+    }
+}
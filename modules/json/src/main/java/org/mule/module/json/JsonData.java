@@ -152,6 +152,11 @@ public class JsonData implements Serializable
     }
 
     protected List<String> parseTokens(String expresion)
+    {
+        return tokenize(expresion);
+    }
+
+    static List<String> tokenize(String expresion)
     {
         List<String> tokens = new ArrayList<String>();
         while (expresion.length() > 0)
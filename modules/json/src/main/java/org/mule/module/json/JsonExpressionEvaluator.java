@@ -12,6 +12,7 @@ import org.mule.api.expression.ExpressionEvaluator;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.util.NumberUtils;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -19,6 +20,8 @@ import java.util.List;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.node.ArrayNode;
 import org.codehaus.jackson.node.ObjectNode;
 import org.codehaus.jackson.node.ValueNode;
@@ -56,6 +59,10 @@ import org.codehaus.jackson.node.ValueNode;
  * <code>
  * #[json:person/favouriteColour != brown]
  * </code>
+ * <p/>
+ * The payload is evaluated with {@link StreamingJsonPath}, so parsing stops as soon as the selected value has
+ * been read and only that value is materialized as a tree. For the same reason, a field that appears more than
+ * once in an object selects its first value.
  *
  * @see org.mule.module.json.JsonData
  */
@@ -66,6 +73,11 @@ public class JsonExpressionEvaluator implements ExpressionEvaluator
      */
     protected transient final Log logger = LogFactory.getLog(JsonExpressionEvaluator.class);
 
+    /**
+     * Only used to build the selected nodes, the payload is parsed incrementally up to the selected value
+     */
+    private final ObjectMapper mapper = new ObjectMapper();
+
     @Override
     public Object evaluate(String expression, MuleMessage message)
     {
@@ -91,11 +103,9 @@ public class JsonExpressionEvaluator implements ExpressionEvaluator
         
         try
         {
-            String json = message.getPayloadAsString();
-            JsonData data = new JsonData(json);
             try
             {
-                JsonNode resultNode = data.get(expression);
+                JsonNode resultNode = StreamingJsonPath.evaluate(mapper, createParser(message), expression);
                 if (compareTo != null)
                 {
                     Object resultValue = resultNode.isValueNode() ? resultNode.asText() : resultNode;
@@ -143,6 +153,33 @@ public class JsonExpressionEvaluator implements ExpressionEvaluator
         }
     }
 
+    /**
+     * Parses String and byte array payloads in place. A streamed payload is read as bytes, which keeps it
+     * readable afterwards. Jackson detects a Unicode encoding from the bytes rather than decoding them into a
+     * String first, bytes in any other encoding are decoded with the encoding of the message.
+     */
+    protected JsonParser createParser(MuleMessage message) throws Exception
+    {
+        Object payload = message.getPayload();
+        if (payload instanceof String)
+        {
+            return mapper.getJsonFactory().createJsonParser((String) payload);
+        }
+        else if (payload instanceof byte[])
+        {
+            return StreamingJsonPath.createParser(mapper.getJsonFactory(), (byte[]) payload, message.getEncoding());
+        }
+        else if (payload instanceof InputStream)
+        {
+            return StreamingJsonPath.createParser(mapper.getJsonFactory(), message.getPayloadAsBytes(), message.getEncoding());
+        }
+        else
+        {
+            // other payloads, i.e. JsonData or beans, only have a JSON representation as text
+            return mapper.getJsonFactory().createJsonParser(message.getPayloadAsString());
+        }
+    }
+
     protected Object extractResultFromNode(JsonNode result)
     {
         if (result instanceof ValueNode)
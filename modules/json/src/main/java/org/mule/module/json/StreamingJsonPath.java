@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.List;
+
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.map.ObjectMapper;
+
+/**
+ * Evaluates {@link JsonData} path expressions (i.e. <code>person/addresses[0]/postcode</code>) incrementally
+ * over a Jackson streaming {@link JsonParser}.
+ * <p/>
+ * Only the selected value is turned into a {@link JsonNode}: the fields and array elements that precede it are
+ * skipped without being materialized, and parsing stops as soon as the value has been read. As a consequence,
+ * syntax errors located after the selected value are not detected, and when an object has the same field more
+ * than once the first occurrence is selected, where {@link JsonData} keeps the last one.
+ * <p/>
+ * Missing elements are reported with the same {@link IllegalArgumentException}s as {@link JsonData#get(String)}.
+ */
+public final class StreamingJsonPath
+{
+
+    private StreamingJsonPath()
+    {
+    }
+
+    /**
+     * Reads the value selected by an expression. The parser is closed afterwards.
+     *
+     * @param mapper the mapper used to build the selected node
+     * @param parser a parser that has not consumed any token yet
+     * @param expression a {@link JsonData} path expression
+     * @return the selected value
+     * @throws IllegalArgumentException if the expression does not select any value
+     * @throws IOException if the JSON can not be parsed up to the selected value
+     */
+    public static JsonNode evaluate(ObjectMapper mapper, JsonParser parser, String expression) throws IOException
+    {
+        try
+        {
+            moveTo(parser, expression);
+            return mapper.readTree(parser);
+        }
+        finally
+        {
+            parser.close();
+        }
+    }
+
+    /**
+     * Creates a parser for JSON bytes. Jackson detects the Unicode encodings (UTF-8, UTF-16 and UTF-32) from the
+     * bytes themselves, JSON in any other encoding is decoded with a reader of that encoding.
+     *
+     * @param encoding the encoding of the bytes, i.e. the encoding of the message they are the payload of
+     */
+    public static JsonParser createParser(JsonFactory factory, byte[] bytes, String encoding) throws IOException
+    {
+        if (isUnicode(encoding))
+        {
+            return factory.createJsonParser(bytes);
+        }
+        return factory.createJsonParser(new InputStreamReader(new ByteArrayInputStream(bytes), encoding));
+    }
+
+    /**
+     * Same as {@link #createParser(JsonFactory, byte[], String)} for a stream of JSON bytes
+     */
+    public static JsonParser createParser(JsonFactory factory, InputStream bytes, String encoding) throws IOException
+    {
+        if (isUnicode(encoding))
+        {
+            return factory.createJsonParser(bytes);
+        }
+        return factory.createJsonParser(new InputStreamReader(bytes, encoding));
+    }
+
+    private static boolean isUnicode(String encoding)
+    {
+        return encoding == null || encoding.toUpperCase().startsWith("UTF");
+    }
+
+    /**
+     * Advances a parser to the value selected by an expression, so that its current token is the first token of
+     * that value (e.g. {@link JsonToken#START_ARRAY} for an array).
+     *
+     * @param parser a parser that has not consumed any token yet
+     * @param expression a {@link JsonData} path expression, an empty expression selects the root value
+     * @throws IllegalArgumentException if the expression does not select any value
+     * @throws IOException if the JSON can not be parsed up to the selected value
+     */
+    public static void moveTo(JsonParser parser, String expression) throws IOException
+    {
+        if (parser.nextToken() == null)
+        {
+            throw new IllegalArgumentException("No JSON content to evaluate expression: " + expression);
+        }
+
+        List<String> tokens = JsonData.tokenize(expression);
+        for (String token : tokens)
+        {
+            if (token.startsWith("["))
+            {
+                if (parser.getCurrentToken() != JsonToken.START_ARRAY)
+                {
+                    throw new IllegalArgumentException("Current node is not an array, but expression is expecting one");
+                }
+                moveToElement(parser, Integer.valueOf(token.substring(1, token.length() - 1)), token);
+            }
+            else
+            {
+                if (parser.getCurrentToken() != JsonToken.START_OBJECT)
+                {
+                    throw new IllegalArgumentException("Not a valid element: " + token);
+                }
+                moveToField(parser, token);
+            }
+        }
+    }
+
+    private static void moveToField(JsonParser parser, String field) throws IOException
+    {
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            if (field.equals(name))
+            {
+                return;
+            }
+            parser.skipChildren();
+        }
+        throw new IllegalArgumentException("Not a valid element: " + field);
+    }
+
+    private static void moveToElement(JsonParser parser, int index, String token) throws IOException
+    {
+        int current = 0;
+        JsonToken next;
+        while ((next = parser.nextToken()) != JsonToken.END_ARRAY && next != null)
+        {
+            if (current == index)
+            {
+                return;
+            }
+            parser.skipChildren();
+            current++;
+        }
+        throw new IllegalArgumentException("Not a valid element: " + token);
+    }
+}
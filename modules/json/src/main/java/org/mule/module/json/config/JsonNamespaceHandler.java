@@ -10,7 +10,9 @@ import org.mule.config.spring.parsers.collection.ChildMapEntryDefinitionParser;
 import org.mule.config.spring.parsers.generic.OrphanDefinitionParser;
 import org.mule.config.spring.parsers.specific.FilterDefinitionParser;
 import org.mule.config.spring.parsers.specific.MessageProcessorDefinitionParser;
+import org.mule.config.spring.parsers.specific.SplitterDefinitionParser;
 import org.mule.module.json.filters.IsJsonFilter;
+import org.mule.module.json.routing.StreamingJsonSplitter;
 import org.mule.module.json.transformers.JsonSchemaValidationFilter;
 import org.mule.module.json.transformers.JsonToObject;
 import org.mule.module.json.transformers.JsonToXml;
@@ -38,5 +40,6 @@ public class JsonNamespaceHandler extends NamespaceHandlerSupport
         registerBeanDefinitionParser("xml-to-json-transformer", new MessageProcessorDefinitionParser(XmlToJson.class));
         registerBeanDefinitionParser("json-xslt-transformer", new MessageProcessorDefinitionParser(JsonXsltTransformer.class));
         registerBeanDefinitionParser("json-schema-validation-filter", new FilterDefinitionParser(JsonSchemaValidationFilter.class));
+        registerBeanDefinitionParser("streaming-json-splitter", new SplitterDefinitionParser(StreamingJsonSplitter.class));
     }
 }
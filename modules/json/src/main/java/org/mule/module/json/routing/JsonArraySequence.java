@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.json.routing;
+
+import org.mule.api.MuleRuntimeException;
+import org.mule.config.i18n.MessageFactory;
+import org.mule.routing.AbstractMessageSequence;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+
+/**
+ * A {@link org.mule.routing.MessageSequence} that lazily reads the elements of a JSON array from a streaming
+ * {@link JsonParser}, returning each element as JSON text.
+ * <p/>
+ * Elements are copied token by token from the parser to the returned text, so neither the array nor its elements
+ * are ever materialized as a tree, and only one element is held in memory at a time. The parser is closed once the
+ * end of the array is reached.
+ */
+public class JsonArraySequence extends AbstractMessageSequence<String>
+{
+    private static final Log logger = LogFactory.getLog(JsonArraySequence.class);
+
+    private final JsonParser parser;
+    private final JsonFactory factory;
+
+    private boolean positioned;
+    private boolean closed;
+
+    /**
+     * @param parser a parser whose current token is the {@link JsonToken#START_ARRAY} of the array to read
+     * @param factory the factory used to write the elements
+     */
+    public JsonArraySequence(JsonParser parser, JsonFactory factory)
+    {
+        if (parser.getCurrentToken() != JsonToken.START_ARRAY)
+        {
+            throw new IllegalArgumentException("Parser is not positioned at the start of an array but at " + parser.getCurrentToken());
+        }
+        this.parser = parser;
+        this.factory = factory;
+    }
+
+    @Override
+    public int size()
+    {
+        return UNKNOWN_SIZE;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        if (positioned)
+        {
+            return true;
+        }
+        if (closed)
+        {
+            return false;
+        }
+
+        try
+        {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.END_ARRAY)
+            {
+                close();
+                return false;
+            }
+        }
+        catch (IOException e)
+        {
+            close();
+            throw new MuleRuntimeException(MessageFactory.createStaticMessage("Failed to read JSON array element"), e);
+        }
+        positioned = true;
+        return true;
+    }
+
+    @Override
+    public String next()
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+
+        StringWriter element = new StringWriter();
+        try
+        {
+            JsonGenerator generator = factory.createJsonGenerator(element);
+            generator.copyCurrentStructure(parser);
+            generator.close();
+        }
+        catch (IOException e)
+        {
+            close();
+            throw new MuleRuntimeException(MessageFactory.createStaticMessage("Failed to read JSON array element"), e);
+        }
+        positioned = false;
+        return element.toString();
+    }
+
+    private void close()
+    {
+        closed = true;
+        positioned = false;
+        try
+        {
+            parser.close();
+        }
+        catch (IOException e)
+        {
+            logger.warn("Failed to close JSON parser: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.json.routing;
+
+import org.mule.api.MessagingException;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
+import org.mule.api.MuleMessage;
+import org.mule.config.i18n.MessageFactory;
+import org.mule.module.json.StreamingJsonPath;
+import org.mule.routing.MessageSequence;
+import org.mule.routing.outbound.AbstractMessageSequenceSplitter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParser;
+
+/**
+ * Splits a JSON array into one message per element, reading the payload with a Jackson streaming parser.
+ * <p/>
+ * By default the payload itself must be an array. A {@link org.mule.module.json.JsonData} style path, i.e.
+ * <code>results/items</code>, can be configured to split an array nested in the payload instead. Elements are
+ * parsed only as they are routed and each part is the JSON text of one element, so splitting does not require
+ * the array to fit in memory.
+ */
+public class StreamingJsonSplitter extends AbstractMessageSequenceSplitter
+{
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    private String path = "";
+
+    @Override
+    protected MessageSequence<?> splitMessageIntoSequence(MuleEvent event) throws MuleException
+    {
+        MuleMessage message = event.getMessage();
+        JsonParser parser = null;
+        try
+        {
+            parser = createParser(message);
+            StreamingJsonPath.moveTo(parser, path);
+            return new JsonArraySequence(parser, jsonFactory);
+        }
+        catch (IOException e)
+        {
+            closeQuietly(parser);
+            throw new MessagingException(MessageFactory.createStaticMessage("Unable to read JSON payload for splitting"), event, e, this);
+        }
+        catch (IllegalArgumentException e)
+        {
+            closeQuietly(parser);
+            throw new MessagingException(MessageFactory.createStaticMessage("Path '" + path + "' does not select a JSON array"), event, e, this);
+        }
+    }
+
+    protected JsonParser createParser(MuleMessage message) throws MuleException, IOException
+    {
+        Object payload = message.getPayload();
+        if (payload instanceof InputStream)
+        {
+            return StreamingJsonPath.createParser(jsonFactory, (InputStream) payload, message.getEncoding());
+        }
+        else if (payload instanceof Reader)
+        {
+            return jsonFactory.createJsonParser((Reader) payload);
+        }
+        else if (payload instanceof String)
+        {
+            return jsonFactory.createJsonParser((String) payload);
+        }
+        else if (payload instanceof byte[])
+        {
+            return StreamingJsonPath.createParser(jsonFactory, (byte[]) payload, message.getEncoding());
+        }
+        else
+        {
+            return StreamingJsonPath.createParser(jsonFactory, message.getPayload(InputStream.class), message.getEncoding());
+        }
+    }
+
+    private void closeQuietly(JsonParser parser)
+    {
+        if (parser != null)
+        {
+            try
+            {
+                parser.close();
+            }
+            catch (IOException e)
+            {
+                logger.debug("Failed to close JSON parser", e);
+            }
+        }
+    }
+
+    public String getPath()
+    {
+        return path;
+    }
+
+    public void setPath(String path)
+    {
+        this.path = path;
+    }
+}
@@ -7,42 +7,138 @@
 package org.mule.module.json.transformers;
 
 import org.mule.api.lifecycle.InitialisationException;
+import org.mule.api.registry.RegistrationException;
 import org.mule.api.transformer.DiscoverableTransformer;
 import org.mule.transformer.AbstractMessageTransformer;
 
+import org.codehaus.jackson.JsonFactory;
 import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.map.ObjectReader;
+import org.codehaus.jackson.map.ObjectWriter;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
- * TODO
+ * Base class for the transformers that use a Jackson {@link ObjectMapper}.
+ * <p/>
+ * Unless a mapper is explicitly set, the transformer uses the mapper that the application's
+ * {@link ObjectMapperCache} shares between all the transformers with the same mixin configuration.
+ * The shared mapper is only used through {@link ObjectReader}s and {@link ObjectWriter}s, which can
+ * not change it. {@link #getMapper()} gives the transformer a mapper of its own the first time it is
+ * called, so a caller configuring it only changes this transformer.
  */
 public abstract class AbstractJsonTransformer extends AbstractMessageTransformer implements DiscoverableTransformer
 {
     protected int weighting = DiscoverableTransformer.MAX_PRIORITY_WEIGHTING;
 
-    private ObjectMapper mapper;
+    private volatile ObjectMapper mapper;
+    private ObjectMapperCache mapperCache;
+    private boolean sharedMapper;
 
     private Map<Class<?>, Class<?>> sharedMixins = new HashMap<Class<?>, Class<?>>();
 
     @Override
     public void initialise() throws InitialisationException
     {
+        Map<Class<?>, Class<?>> serializationMixins = getSerializationMixinsToApply();
+        Map<Class<?>, Class<?>> deserializationMixins = getDeserializationMixinsToApply();
+
         if (mapper == null)
         {
-            mapper = new ObjectMapper();
+            mapperCache = lookupMapperCache();
+            mapper = mapperCache.getMapper(serializationMixins, deserializationMixins);
+            sharedMapper = true;
+        }
+        else
+        {
+            for (Map.Entry<Class<?>, Class<?>> entry : serializationMixins.entrySet())
+            {
+                mapper.getSerializationConfig().addMixInAnnotations(entry.getKey(), entry.getValue());
+            }
+            for (Map.Entry<Class<?>, Class<?>> entry : deserializationMixins.entrySet())
+            {
+                mapper.getDeserializationConfig().addMixInAnnotations(entry.getKey(), entry.getValue());
+            }
         }
     }
 
-    public ObjectMapper getMapper()
+    /**
+     * @return the mixins this transformer applies when serializing, empty by default
+     */
+    protected Map<Class<?>, Class<?>> getSerializationMixinsToApply()
+    {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * @return the mixins this transformer applies when deserializing, empty by default
+     */
+    protected Map<Class<?>, Class<?>> getDeserializationMixinsToApply()
     {
+        return Collections.emptyMap();
+    }
+
+    private ObjectMapperCache lookupMapperCache() throws InitialisationException
+    {
+        ObjectMapperCache cache = null;
+        if (muleContext != null)
+        {
+            try
+            {
+                cache = muleContext.getRegistry().lookupObject(ObjectMapperCache.class);
+            }
+            catch (RegistrationException e)
+            {
+                throw new InitialisationException(e, this);
+            }
+        }
+        return cache != null ? cache : new ObjectMapperCache();
+    }
+
+    /**
+     * Returns the mapper of this transformer, which the caller may configure. If the transformer was
+     * using a shared mapper, it switches to a new mapper with the same mixins.
+     */
+    public synchronized ObjectMapper getMapper()
+    {
+        if (sharedMapper)
+        {
+            mapper = mapperCache.createMapper(getSerializationMixinsToApply(), getDeserializationMixinsToApply());
+            sharedMapper = false;
+        }
         return mapper;
     }
 
-    public void setMapper(ObjectMapper mapper)
+    public synchronized void setMapper(ObjectMapper mapper)
     {
         this.mapper = mapper;
+        this.sharedMapper = false;
+    }
+
+    /**
+     * @return the mapper currently used to transform, which may be shared with other transformers and
+     *         must not be configured
+     */
+    protected ObjectMapper getMapperInUse()
+    {
+        return mapper;
+    }
+
+    protected ObjectReader getObjectReader(Class<?> type)
+    {
+        return mapper.reader(type);
+    }
+
+    protected ObjectWriter getObjectWriter()
+    {
+        return mapper.writer();
+    }
+
+    protected JsonFactory getJsonFactory()
+    {
+        return mapper.getJsonFactory();
     }
 
     public int getPriorityWeighting()
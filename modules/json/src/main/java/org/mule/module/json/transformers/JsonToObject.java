@@ -7,7 +7,6 @@
 package org.mule.module.json.transformers;
 
 import org.mule.api.MuleMessage;
-import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.transformer.DataType;
 import org.mule.api.transformer.TransformerException;
 import org.mule.config.i18n.CoreMessages;
@@ -23,6 +22,7 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.net.URL;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -49,19 +49,12 @@ public class JsonToObject extends AbstractJsonTransformer
     }
 
     @Override
-    public void initialise() throws InitialisationException
+    protected Map<Class<?>, Class<?>> getDeserializationMixinsToApply()
     {
-        super.initialise();
         //Add shared mixins first
-        for (Map.Entry<Class<?>, Class<?>> entry : getMixins().entrySet())
-        {
-            getMapper().getDeserializationConfig().addMixInAnnotations(entry.getKey(), entry.getValue());
-        }
-
-        for (Map.Entry<Class<?>, Class<?>> entry : deserializationMixins.entrySet())
-        {
-            getMapper().getDeserializationConfig().addMixInAnnotations(entry.getKey(), entry.getValue());
-        }
+        Map<Class<?>, Class<?>> mixins = new LinkedHashMap<Class<?>, Class<?>>(getMixins());
+        mixins.putAll(deserializationMixins);
+        return mixins;
     }
 
     @Override
@@ -99,7 +92,7 @@ public class JsonToObject extends AbstractJsonTransformer
                 }
                 else
                 {
-                    returnValue = getMapper().readValue((Reader) src, getReturnDataType().getType());
+                    returnValue = getObjectReader(getReturnDataType().getType()).readValue((Reader) src);
                 }
             }
             else if (src instanceof String)
@@ -110,7 +103,7 @@ public class JsonToObject extends AbstractJsonTransformer
                 }
                 else
                 {
-                    returnValue = getMapper().readValue((String) src, getReturnDataType().getType());
+                    returnValue = getObjectReader(getReturnDataType().getType()).readValue((String) src);
                 }
             }
             else
@@ -122,7 +115,7 @@ public class JsonToObject extends AbstractJsonTransformer
                 }
                 else
                 {
-                    returnValue = getMapper().readValue(reader, getReturnDataType().getType());
+                    returnValue = getObjectReader(getReturnDataType().getType()).readValue(reader);
                 }
             }
             return returnValue;
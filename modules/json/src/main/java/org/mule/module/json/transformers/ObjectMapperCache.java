@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.json.transformers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.codehaus.jackson.map.ObjectMapper;
+
+/**
+ * Holds the {@link ObjectMapper}s shared by the JSON transformers of an application, one per mixin configuration.
+ * <p/>
+ * Building a mapper and resolving its mixins is expensive, and a configured mapper is thread safe, so transformers
+ * that do not have a mapper explicitly set get theirs from this cache instead of building their own. Mappers
+ * returned by {@link #getMapper(Map, Map)} must not be reconfigured; {@link #createMapper(Map, Map)} builds one that
+ * is not shared for callers that need to. An instance is registered in the registry through the registry bootstrap.
+ */
+public class ObjectMapperCache
+{
+    private final ConcurrentMap<MixinConfiguration, ObjectMapper> mappers = new ConcurrentHashMap<MixinConfiguration, ObjectMapper>();
+
+    /**
+     * Returns the shared mapper for a mixin configuration, creating it if needed
+     *
+     * @param serializationMixins mixins to apply when serializing, mapping target classes to mixin classes
+     * @param deserializationMixins mixins to apply when deserializing, mapping target classes to mixin classes
+     * @return a mapper configured with the given mixins
+     */
+    public ObjectMapper getMapper(Map<Class<?>, Class<?>> serializationMixins, Map<Class<?>, Class<?>> deserializationMixins)
+    {
+        MixinConfiguration configuration = new MixinConfiguration(serializationMixins, deserializationMixins);
+        ObjectMapper mapper = mappers.get(configuration);
+        if (mapper == null)
+        {
+            mapper = createMapper(configuration);
+            ObjectMapper previous = mappers.putIfAbsent(configuration, mapper);
+            if (previous != null)
+            {
+                mapper = previous;
+            }
+        }
+        return mapper;
+    }
+
+    /**
+     * Creates a mapper with the given mixins that is not shared, so it can be configured further
+     */
+    public ObjectMapper createMapper(Map<Class<?>, Class<?>> serializationMixins, Map<Class<?>, Class<?>> deserializationMixins)
+    {
+        return createMapper(new MixinConfiguration(serializationMixins, deserializationMixins));
+    }
+
+    /**
+     * @return the number of distinct mappers held by this cache
+     */
+    public int size()
+    {
+        return mappers.size();
+    }
+
+    protected ObjectMapper createMapper(MixinConfiguration configuration)
+    {
+        ObjectMapper mapper = new ObjectMapper();
+        for (Map.Entry<Class<?>, Class<?>> entry : configuration.serializationMixins.entrySet())
+        {
+            mapper.getSerializationConfig().addMixInAnnotations(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<Class<?>, Class<?>> entry : configuration.deserializationMixins.entrySet())
+        {
+            mapper.getDeserializationConfig().addMixInAnnotations(entry.getKey(), entry.getValue());
+        }
+        return mapper;
+    }
+
+    protected static final class MixinConfiguration
+    {
+        private final Map<Class<?>, Class<?>> serializationMixins;
+        private final Map<Class<?>, Class<?>> deserializationMixins;
+
+        MixinConfiguration(Map<Class<?>, Class<?>> serializationMixins, Map<Class<?>, Class<?>> deserializationMixins)
+        {
+            this.serializationMixins = new HashMap<Class<?>, Class<?>>(serializationMixins);
+            this.deserializationMixins = new HashMap<Class<?>, Class<?>>(deserializationMixins);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (!(obj instanceof MixinConfiguration))
+            {
+                return false;
+            }
+            MixinConfiguration other = (MixinConfiguration) obj;
+            return serializationMixins.equals(other.serializationMixins) && deserializationMixins.equals(other.deserializationMixins);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * serializationMixins.hashCode() + deserializationMixins.hashCode();
+        }
+    }
+}
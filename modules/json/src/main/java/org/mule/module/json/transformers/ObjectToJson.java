@@ -6,20 +6,26 @@
  */
 package org.mule.module.json.transformers;
 
+import org.mule.api.MuleEvent;
 import org.mule.api.MuleMessage;
 import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.transformer.TransformerException;
+import org.mule.api.transport.OutputHandler;
 import org.mule.module.json.filters.IsJsonFilter;
 import org.mule.transformer.types.DataTypeFactory;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.StringWriter;
-import java.io.UnsupportedEncodingException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -27,7 +33,9 @@ import java.util.Map;
  * Converts a java object to a JSON encoded object that can be consumed by other languages such as
  * Javascript or Ruby.
  * <p/>
- * The returnClass for this transformer is always java.lang.String, there is no need to set this.
+ * The returnClass for this transformer is java.lang.String by default. It can be set to byte[], in which case the
+ * JSON is written straight to bytes in the output encoding, or to {@link OutputHandler}, in which case serialization
+ * is deferred until the outbound stream is available and the JSON is written directly to it.
  */
 public class ObjectToJson extends AbstractJsonTransformer
 {
@@ -60,17 +68,15 @@ public class ObjectToJson extends AbstractJsonTransformer
             sourceTypes.clear();
             registerSourceType(DataTypeFactory.create(getSourceClass()));
         }
+    }
 
+    @Override
+    protected Map<Class<?>, Class<?>> getSerializationMixinsToApply()
+    {
         //Add shared mixins first
-        for (Map.Entry<Class<?>, Class<?>> entry : getMixins().entrySet())
-        {
-            getMapper().getSerializationConfig().addMixInAnnotations(entry.getKey(), entry.getValue());
-        }
-
-        for (Map.Entry<Class<?>, Class<?>> entry : serializationMixins.entrySet())
-        {
-            getMapper().getSerializationConfig().addMixInAnnotations(entry.getKey(), entry.getValue());
-        }
+        Map<Class<?>, Class<?>> mixins = new LinkedHashMap<Class<?>, Class<?>>(getMixins());
+        mixins.putAll(serializationMixins);
+        return mixins;
     }
 
     @Override
@@ -93,33 +99,73 @@ public class ObjectToJson extends AbstractJsonTransformer
             src = this.getException(message.getExceptionPayload().getException());
         }
 
-        StringWriter writer = new StringWriter();
+        Class<?> returnClass = returnType.getType();
         try
         {
-            getMapper().writeValue(writer, src);
+            if (returnClass.equals(byte[].class))
+            {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                writeJson(src, out, outputEncoding);
+                return out.toByteArray();
+            }
+            else if (OutputHandler.class.isAssignableFrom(returnClass))
+            {
+                return createOutputHandler(src, outputEncoding);
+            }
+            else
+            {
+                return getObjectWriter().writeValueAsString(src);
+            }
         }
         catch (IOException e)
         {
             throw new TransformerException(this, e);
         }
-        
-        if (returnType.getType().equals(byte[].class))
+    }
+
+    /**
+     * Writes the JSON representation of an object straight to a stream in the given encoding, without going through
+     * an intermediate String. The stream is not closed.
+     */
+    protected void writeJson(Object src, OutputStream out, String encoding) throws IOException
+    {
+        JsonGenerator generator;
+        if (JsonEncoding.UTF8.getJavaName().equalsIgnoreCase(encoding))
         {
-            try
-            {
-                return writer.toString().getBytes(outputEncoding);
-            }
-            catch (UnsupportedEncodingException uee)
-            {
-                throw new TransformerException(this, uee);
-            }
+            generator = getJsonFactory().createJsonGenerator(out, JsonEncoding.UTF8);
         }
         else
         {
-            return writer.toString();
+            generator = getJsonFactory().createJsonGenerator(new OutputStreamWriter(out, encoding));
+        }
+        generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        try
+        {
+            getObjectWriter().writeValue(generator, src);
+        }
+        finally
+        {
+            // flushes the generator buffers, AUTO_CLOSE_TARGET keeps the stream open
+            generator.close();
         }
     }
 
+    /**
+     * Defers serialization until the outbound stream is available, so the JSON is written once, directly to the
+     * transport, and is never buffered in memory.
+     */
+    protected OutputHandler createOutputHandler(final Object src, final String encoding)
+    {
+        return new OutputHandler()
+        {
+            @Override
+            public void write(MuleEvent event, OutputStream out) throws IOException
+            {
+                writeJson(src, out, encoding);
+            }
+        };
+    }
+
     /**
      * The reason of having this is because the original exception object is way too
      * complex and it breaks JSON-lib.
@@ -13,6 +13,7 @@ import org.mule.routing.filters.ExpressionFilter;
 import org.mule.tck.junit4.AbstractMuleContextTestCase;
 import org.mule.util.IOUtils;
 
+import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -62,6 +63,41 @@ public class JsonExpressionEvaluatorTestCase extends AbstractMuleContextTestCase
         assertNull(eval.evaluate("[9]/user/XXX", message));
     }
 
+    @Test
+    public void testStreamAndBytePayloads() throws Exception
+    {
+        String json = IOUtils.getResourceAsString("test-data.json", getClass());
+
+        MuleMessage streamed = new DefaultMuleMessage(new ByteArrayInputStream(json.getBytes("UTF-8")), muleContext);
+        assertEquals("Mule Test", eval.evaluate("[0]/user/name", streamed));
+        // the payload stays readable for the rest of the flow
+        assertEquals("Mule Test9", eval.evaluate("[9]/'user'/name", streamed));
+
+        MuleMessage bytes = new DefaultMuleMessage(json.getBytes("UTF-8"), muleContext);
+        assertEquals("Mule Test", eval.evaluate("[0]/user/name", bytes));
+    }
+
+    @Test
+    public void testPayloadsInNonUnicodeEncoding() throws Exception
+    {
+        String json = "{\"name\": \"M\u00fcle\"}";
+
+        MuleMessage bytes = new DefaultMuleMessage(json.getBytes("ISO-8859-1"), muleContext);
+        bytes.setEncoding("ISO-8859-1");
+        assertEquals("M\u00fcle", eval.evaluate("name", bytes));
+
+        MuleMessage streamed = new DefaultMuleMessage(new ByteArrayInputStream(json.getBytes("ISO-8859-1")), muleContext);
+        streamed.setEncoding("ISO-8859-1");
+        assertEquals("M\u00fcle", eval.evaluate("name", streamed));
+    }
+
+    @Test
+    public void testDuplicateFieldSelectsFirstValue() throws Exception
+    {
+        MuleMessage duplicate = new DefaultMuleMessage("{\"name\": \"first\", \"name\": \"last\"}", muleContext);
+        assertEquals("first", eval.evaluate("name", duplicate));
+    }
+
     @Test
     public void testReturnTypes()
     {
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+@SmallTest
+public class StreamingJsonPathTestCase extends AbstractMuleTestCase
+{
+
+    private static final String JSON = "{\"header\": {\"skip\": [1, 2, {\"x\": 3}]},"
+                                       + " \"person\": {\"name\": \"Mule\", \"addresses\": [{\"postcode\": \"A1\"}, {\"postcode\": \"B2\"}]},"
+                                       + " \"results\": {\"http://foo.com\": {\"value\": 42}}}";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void selectsNestedField() throws Exception
+    {
+        assertEquals("Mule", evaluate("person/name").asText());
+    }
+
+    @Test
+    public void selectsArrayElement() throws Exception
+    {
+        assertEquals("B2", evaluate("person/addresses[1]/postcode").asText());
+    }
+
+    @Test
+    public void selectsQuotedField() throws Exception
+    {
+        assertEquals(42, evaluate("results/'http://foo.com'/value").asInt());
+    }
+
+    @Test
+    public void selectsRootArrayElement() throws Exception
+    {
+        JsonNode node = StreamingJsonPath.evaluate(mapper, mapper.getJsonFactory().createJsonParser("[{\"a\": 1}, {\"a\": 2}]"), "[1]/a");
+        assertEquals(2, node.asInt());
+    }
+
+    @Test
+    public void selectsWholeObject() throws Exception
+    {
+        assertTrue(evaluate("person").isObject());
+    }
+
+    @Test
+    public void stopsParsingOnceValueIsFound() throws Exception
+    {
+        // the content after the selected value is not valid JSON
+        JsonNode node = StreamingJsonPath.evaluate(mapper, mapper.getJsonFactory().createJsonParser("{\"a\": 1, \"b\": }"), "a");
+        assertEquals(1, node.asInt());
+    }
+
+    @Test
+    public void selectsFirstOccurrenceOfDuplicateField() throws Exception
+    {
+        JsonNode node = StreamingJsonPath.evaluate(mapper, mapper.getJsonFactory().createJsonParser("{\"a\": 1, \"a\": 2}"), "a");
+        assertEquals(1, node.asInt());
+    }
+
+    @Test
+    public void decodesBytesInTheirEncoding() throws Exception
+    {
+        byte[] latin1 = "{\"name\": \"M\u00fcle\"}".getBytes("ISO-8859-1");
+        JsonNode node = StreamingJsonPath.evaluate(mapper, StreamingJsonPath.createParser(mapper.getJsonFactory(), latin1, "ISO-8859-1"), "name");
+        assertEquals("M\u00fcle", node.asText());
+
+        byte[] utf16 = "{\"name\": \"M\u00fcle\"}".getBytes("UTF-16BE");
+        node = StreamingJsonPath.evaluate(mapper, StreamingJsonPath.createParser(mapper.getJsonFactory(), utf16, "UTF-8"), "name");
+        assertEquals("M\u00fcle", node.asText());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failsOnMissingField() throws Exception
+    {
+        evaluate("person/age");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failsOnIndexOutOfBounds() throws Exception
+    {
+        evaluate("person/addresses[2]");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failsOnIndexOverObject() throws Exception
+    {
+        evaluate("person[0]");
+    }
+
+    private JsonNode evaluate(String expression) throws Exception
+    {
+        return StreamingJsonPath.evaluate(mapper, mapper.getJsonFactory().createJsonParser(JSON), expression);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.json.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.module.json.StreamingJsonPath;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.util.NoSuchElementException;
+
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParser;
+import org.junit.Test;
+
+@SmallTest
+public class JsonArraySequenceTestCase extends AbstractMuleTestCase
+{
+
+    private final JsonFactory factory = new JsonFactory();
+
+    @Test
+    public void returnsEachElement() throws Exception
+    {
+        JsonArraySequence sequence = sequence("[{\"a\":1},[2,3],\"four\",5]", "");
+
+        assertEquals("{\"a\":1}", sequence.next());
+        assertEquals("[2,3]", sequence.next());
+        assertEquals("\"four\"", sequence.next());
+        assertTrue(sequence.hasNext());
+        assertEquals("5", sequence.next());
+        assertFalse(sequence.hasNext());
+    }
+
+    @Test
+    public void readsNestedArray() throws Exception
+    {
+        JsonArraySequence sequence = sequence("{\"count\":2,\"results\":{\"items\":[1,2]},\"trailer\":true}", "results/items");
+
+        assertEquals("1", sequence.next());
+        assertEquals("2", sequence.next());
+        assertFalse(sequence.hasNext());
+    }
+
+    @Test
+    public void isEmptyForEmptyArray() throws Exception
+    {
+        assertTrue(sequence("[]", "").isEmpty());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void failsWhenExhausted() throws Exception
+    {
+        sequence("[]", "").next();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonArray() throws Exception
+    {
+        sequence("{\"a\":1}", "");
+    }
+
+    private JsonArraySequence sequence(String json, String path) throws Exception
+    {
+        JsonParser parser = factory.createJsonParser(json);
+        StreamingJsonPath.moveTo(parser, path);
+        return new JsonArraySequence(parser, factory);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.json.transformers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.tck.size.SmallTest;
+import org.mule.tck.testmodels.fruit.Apple;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.map.SerializationConfig;
+import org.junit.Test;
+
+@SmallTest
+public class ObjectMapperCacheTestCase extends AbstractMuleContextTestCase
+{
+
+    private final ObjectMapperCache cache = new ObjectMapperCache();
+    private final Map<Class<?>, Class<?>> noMixins = Collections.emptyMap();
+
+    @Test
+    public void sharesMapperForSameMixins()
+    {
+        Map<Class<?>, Class<?>> mixins = new HashMap<Class<?>, Class<?>>();
+        mixins.put(Apple.class, AppleMixin.class);
+
+        ObjectMapper mapper = cache.getMapper(mixins, noMixins);
+        assertSame(mapper, cache.getMapper(new HashMap<Class<?>, Class<?>>(mixins), noMixins));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void separatesSerializationAndDeserializationMixins()
+    {
+        Map<Class<?>, Class<?>> mixins = Collections.<Class<?>, Class<?>>singletonMap(Apple.class, AppleMixin.class);
+
+        assertNotSame(cache.getMapper(mixins, noMixins), cache.getMapper(noMixins, mixins));
+        assertNotSame(cache.getMapper(mixins, noMixins), cache.getMapper(noMixins, noMixins));
+    }
+
+    @Test
+    public void transformersShareRegisteredCache() throws Exception
+    {
+        ObjectToJson first = new ObjectToJson();
+        initialiseObject(first);
+        ObjectToJson second = new ObjectToJson();
+        initialiseObject(second);
+
+        assertSame(first.getMapperInUse(), second.getMapperInUse());
+    }
+
+    @Test
+    public void configurableMapperIsNotShared() throws Exception
+    {
+        ObjectToJson first = new ObjectToJson();
+        initialiseObject(first);
+        ObjectToJson second = new ObjectToJson();
+        initialiseObject(second);
+        ObjectMapper shared = second.getMapperInUse();
+
+        ObjectMapper own = first.getMapper();
+        own.configure(SerializationConfig.Feature.INDENT_OUTPUT, true);
+
+        assertNotSame(shared, own);
+        assertSame(own, first.getMapperInUse());
+        assertSame(shared, second.getMapperInUse());
+        assertFalse(shared.getSerializationConfig().isEnabled(SerializationConfig.Feature.INDENT_OUTPUT));
+    }
+
+    @Test
+    public void explicitMapperIsKept() throws Exception
+    {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectToJson transformer = new ObjectToJson();
+        transformer.setMapper(mapper);
+        initialiseObject(transformer);
+
+        assertSame(mapper, transformer.getMapper());
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.json.transformers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.api.transport.OutputHandler;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.transformer.types.DataTypeFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class ObjectToJsonOutputTypesTestCase extends AbstractMuleContextTestCase
+{
+
+    private static final Object PAYLOAD = Collections.singletonMap("name", "Jos\u00e9");
+    private static final String JSON = "{\"name\":\"Jos\u00e9\"}";
+
+    @Test
+    public void writesString() throws Exception
+    {
+        assertEquals(JSON, transformer(String.class).transform(PAYLOAD));
+    }
+
+    @Test
+    public void writesBytesInUtf8() throws Exception
+    {
+        byte[] result = (byte[]) transformer(byte[].class).transform(PAYLOAD, "UTF-8");
+        assertEquals(JSON, new String(result, "UTF-8"));
+    }
+
+    @Test
+    public void writesBytesInOtherEncoding() throws Exception
+    {
+        byte[] result = (byte[]) transformer(byte[].class).transform(PAYLOAD, "ISO-8859-1");
+        assertEquals(JSON, new String(result, "ISO-8859-1"));
+    }
+
+    @Test
+    public void writesToOutputHandler() throws Exception
+    {
+        Object result = transformer(OutputHandler.class).transform(PAYLOAD, "UTF-8");
+        assertTrue(result instanceof OutputHandler);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((OutputHandler) result).write(getTestEvent(""), out);
+        assertEquals(JSON, new String(out.toByteArray(), "UTF-8"));
+    }
+
+    private ObjectToJson transformer(Class<?> returnClass) throws Exception
+    {
+        ObjectToJson transformer = new ObjectToJson();
+        transformer.setReturnDataType(DataTypeFactory.create(returnClass));
+        initialiseObject(transformer);
+        return transformer;
+    }
+}
@@ -13,6 +13,7 @@ import org.mule.api.context.notification.MuleContextNotificationListener;
 import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.model.Model;
 import org.mule.api.service.Service;
+import org.mule.api.transport.ConnectionPoolStatisticsProvider;
 import org.mule.api.transport.Connector;
 import org.mule.api.transport.MessageReceiver;
 import org.mule.config.i18n.CoreMessages;
@@ -23,6 +24,8 @@ import org.mule.context.notification.NotificationException;
 import org.mule.management.stats.FlowConstructStatistics;
 import org.mule.module.management.i18n.ManagementMessages;
 import org.mule.module.management.mbean.ApplicationService;
+import org.mule.module.management.mbean.ConnectionPoolService;
+import org.mule.module.management.mbean.ConnectionPoolServiceMBean;
 import org.mule.module.management.mbean.ConnectorService;
 import org.mule.module.management.mbean.ConnectorServiceMBean;
 import org.mule.module.management.mbean.EndpointService;
@@ -526,9 +529,28 @@ public abstract class AbstractJmxAgent extends AbstractAgent
             ClassloaderSwitchingMBeanWrapper mBean = new ClassloaderSwitchingMBeanWrapper(service, ConnectorServiceMBean.class, muleContext.getExecutionClassLoader());
             mBeanServer.registerMBean(mBean, oName);
             logger.info("Registered Connector Service with name " + oName);
+
+            if (connector instanceof ConnectionPoolStatisticsProvider)
+            {
+                registerConnectionPoolService(rawName, (ConnectionPoolStatisticsProvider) connector);
+            }
         }
     }
 
+    protected void registerConnectionPoolService(String connectorName, ConnectionPoolStatisticsProvider provider)
+        throws MalformedObjectNameException, NotCompliantMBeanException, MBeanRegistrationException,
+        InstanceAlreadyExistsException
+    {
+        ConnectionPoolServiceMBean service = new ConnectionPoolService(connectorName,
+            provider.getConnectionPoolStatistics());
+        final String jmxName = String.format("%s:%s%s", jmxSupport.getDomainName(muleContext, !containerMode),
+            ConnectionPoolServiceMBean.DEFAULT_JMX_NAME_PREFIX, jmxSupport.escape(connectorName));
+        ObjectName oName = jmxSupport.getObjectName(jmxName);
+        ClassloaderSwitchingMBeanWrapper mBean = new ClassloaderSwitchingMBeanWrapper(service, ConnectionPoolServiceMBean.class, muleContext.getExecutionClassLoader());
+        mBeanServer.registerMBean(mBean, oName);
+        logger.info("Registered Connection Pool Service with name " + oName);
+    }
+
     public boolean isCreateServer()
     {
         return createServer;
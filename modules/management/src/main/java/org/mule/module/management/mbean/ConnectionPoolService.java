@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.management.mbean;
+
+import org.mule.api.transport.ConnectionPoolStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class ConnectionPoolService implements ConnectionPoolServiceMBean
+{
+    private final String name;
+    private final ConnectionPoolStatistics statistics;
+
+    public ConnectionPoolService(String name, ConnectionPoolStatistics statistics)
+    {
+        this.name = name;
+        this.statistics = statistics;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public int getNumActive()
+    {
+        return statistics.getNumActive();
+    }
+
+    public int getNumIdle()
+    {
+        return statistics.getNumIdle();
+    }
+
+    public int getMaxActive()
+    {
+        return statistics.getMaxActive();
+    }
+
+    public int getMaxIdle()
+    {
+        return statistics.getMaxIdle();
+    }
+
+    public int getMinIdle()
+    {
+        return statistics.getMinIdle();
+    }
+
+    public long getCreatedConnections()
+    {
+        return statistics.getCreatedConnections();
+    }
+
+    public long getDestroyedConnections()
+    {
+        return statistics.getDestroyedConnections();
+    }
+
+    public long getFailedConnections()
+    {
+        return statistics.getFailedConnections();
+    }
+
+    public long getInvalidConnections()
+    {
+        return statistics.getInvalidConnections();
+    }
+
+    /**
+     * @return the usage of each route, as <code>route: usage</code>
+     */
+    public String[] getRouteUsage()
+    {
+        List<String> usage = new ArrayList<String>();
+        for (Map.Entry<String, String> entry : statistics.getRouteUsage().entrySet())
+        {
+            usage.add(entry.getKey() + ": " + entry.getValue());
+        }
+        return usage.toArray(new String[usage.size()]);
+    }
+}
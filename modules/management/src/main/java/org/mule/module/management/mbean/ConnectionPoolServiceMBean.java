@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.management.mbean;
+
+/**
+ * <code>ConnectionPoolServiceMBean</code> exposes the utilization of the outbound
+ * connection pool of a connector.
+ */
+public interface ConnectionPoolServiceMBean
+{
+    String DEFAULT_JMX_NAME_PREFIX = "type=ConnectionPool,name=";
+
+    String getName();
+
+    int getNumActive();
+
+    int getNumIdle();
+
+    int getMaxActive();
+
+    int getMaxIdle();
+
+    int getMinIdle();
+
+    long getCreatedConnections();
+
+    long getDestroyedConnections();
+
+    long getFailedConnections();
+
+    long getInvalidConnections();
+
+    String[] getRouteUsage();
+}
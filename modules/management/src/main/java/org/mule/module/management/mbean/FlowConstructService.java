@@ -121,6 +121,26 @@ public class FlowConstructService implements FlowConstructServiceMBean, MBeanReg
         return statistics.getTotalProcessingTime();
     }
 
+    public long getProcessingTimeP50()
+    {
+        return statistics.getProcessingTimePercentile(50);
+    }
+
+    public long getProcessingTimeP99()
+    {
+        return statistics.getProcessingTimePercentile(99);
+    }
+
+    public long getProcessingTimeP999()
+    {
+        return statistics.getProcessingTimePercentile(99.9);
+    }
+
+    public String[] getMessageProcessorExecutionTimes()
+    {
+        return FlowConstructStats.formatProcessorExecutionTimes(statistics);
+    }
+
     public long getExecutionErrors()
     {
         return statistics.getExecutionErrors();
@@ -131,6 +151,16 @@ public class FlowConstructService implements FlowConstructServiceMBean, MBeanReg
         return statistics.getFatalErrors();
     }
 
+    public long getThrottledEvents()
+    {
+        return statistics.getThrottledEvents();
+    }
+
+    public int getConcurrencyLimit()
+    {
+        return statistics.getConcurrencyLimit();
+    }
+
     public ObjectName preRegister(MBeanServer server, ObjectName name) throws Exception
     {
         this.server = server;
@@ -9,6 +9,12 @@ package org.mule.module.management.mbean;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.mule.management.stats.FlowConstructStatistics;
+import org.mule.management.stats.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import javax.management.MBeanRegistration;
 import javax.management.MBeanServer;
@@ -61,6 +67,39 @@ public class FlowConstructStats implements FlowConstructStatsMBean, MBeanRegistr
         return statistics.getTotalProcessingTime();
     }
 
+    public long getProcessingTimeP50()
+    {
+        return statistics.getProcessingTimePercentile(50);
+    }
+
+    public long getProcessingTimeP99()
+    {
+        return statistics.getProcessingTimePercentile(99);
+    }
+
+    public long getProcessingTimeP999()
+    {
+        return statistics.getProcessingTimePercentile(99.9);
+    }
+
+    public String[] getMessageProcessorExecutionTimes()
+    {
+        return formatProcessorExecutionTimes(statistics);
+    }
+
+    static String[] formatProcessorExecutionTimes(FlowConstructStatistics statistics)
+    {
+        List<String> times = new ArrayList<String>();
+        for (Map.Entry<String, LatencyHistogram.Snapshot> entry : new TreeMap<String, LatencyHistogram.Snapshot>(
+            statistics.getProcessorExecutionTimeSnapshots()).entrySet())
+        {
+            LatencyHistogram.Snapshot snapshot = entry.getValue();
+            times.add(entry.getKey() + ": p50=" + snapshot.getValueAtPercentile(50) + ", p99="
+                      + snapshot.getValueAtPercentile(99) + ", p99.9=" + snapshot.getValueAtPercentile(99.9));
+        }
+        return times.toArray(new String[times.size()]);
+    }
+
     public void clearStatistics()
     {
         statistics.clear();
@@ -91,6 +130,16 @@ public class FlowConstructStats implements FlowConstructStatsMBean, MBeanRegistr
         return statistics.getFatalErrors();
     }
 
+    public long getThrottledEvents()
+    {
+        return statistics.getThrottledEvents();
+    }
+
+    public int getConcurrencyLimit()
+    {
+        return statistics.getConcurrencyLimit();
+    }
+
     public ObjectName preRegister(MBeanServer server, ObjectName name) throws Exception
     {
         this.server = server;
@@ -31,7 +31,38 @@ public interface FlowConstructStatsMBean
 
     long getTotalProcessingTime();
 
+    /**
+     * @return the median processing time
+     */
+    long getProcessingTimeP50();
+
+    /**
+     * @return the processing time below which 99% of the events were processed
+     */
+    long getProcessingTimeP99();
+
+    /**
+     * @return the processing time below which 99.9% of the events were processed
+     */
+    long getProcessingTimeP999();
+
+    /**
+     * @return the median, 99th and 99.9th percentile execution times in microseconds of each
+     *         message processor, as "path: p50=..., p99=..., p99.9=..."
+     */
+    String[] getMessageProcessorExecutionTimes();
+
     long getFatalErrors();
 
     long getExecutionErrors();
+
+    /**
+     * @return the number of messages rejected because the flow was at its concurrency limit
+     */
+    long getThrottledEvents();
+
+    /**
+     * @return the current adaptive concurrency limit, or 0 if the flow is not limited
+     */
+    int getConcurrencyLimit();
 }
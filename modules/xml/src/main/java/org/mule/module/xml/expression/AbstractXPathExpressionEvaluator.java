@@ -22,12 +22,12 @@ import org.mule.config.i18n.CoreMessages;
 import org.mule.context.notification.MuleContextNotification;
 import org.mule.module.xml.i18n.XmlMessages;
 import org.mule.module.xml.util.NamespaceManager;
+import org.mule.module.xml.util.XPathCache;
 import org.mule.transformer.types.DataTypeFactory;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
 
 import org.dom4j.Document;
 import org.jaxen.JaxenException;
@@ -40,7 +40,7 @@ import org.w3c.dom.Node;
  */
 public abstract class AbstractXPathExpressionEvaluator implements ExpressionEvaluator, Initialisable, Disposable, MuleContextAware
 {
-    private Map<String, XPath> cache = new WeakHashMap<String, XPath>(8);
+    private XPathCache<XPath> cache = new XPathCache<XPath>();
 
     private MuleContext muleContext;
     private NamespaceManager namespaceManager;
@@ -75,7 +75,7 @@ public abstract class AbstractXPathExpressionEvaluator implements ExpressionEval
                     {
                         try
                         {
-                            namespaceManager = muleContext.getRegistry().lookupObject(NamespaceManager.class);
+                            setNamespaceManager(muleContext.getRegistry().lookupObject(NamespaceManager.class));
                         }
                         catch (RegistrationException e)
                         {
@@ -95,7 +95,7 @@ public abstract class AbstractXPathExpressionEvaluator implements ExpressionEval
     {
         try
         {
-            namespaceManager = muleContext.getRegistry().lookupObject(NamespaceManager.class);
+            setNamespaceManager(muleContext.getRegistry().lookupObject(NamespaceManager.class));
         }
         catch (RegistrationException e)
         {
@@ -111,16 +111,11 @@ public abstract class AbstractXPathExpressionEvaluator implements ExpressionEval
         {
             Object payload = getPayloadForXPath(message);
 
-            List<?> result;
-
-            /*  XPath context state is not thread safe so synchronization must be enforced when adding a new namespace and
-                on evaluation when the context is read.
+            /*  XPath context state is not thread safe, but compiled instances are cached per thread so the
+                returned instance is never used concurrently.
              */
             XPath xpath = getXPath(expression, payload);
-            synchronized (xpath)
-            {
-                result = xpath.selectNodes(payload);
-            }
+            List<?> result = xpath.selectNodes(payload);
 
             result = extractResultsFromNodes(result);
             if(result.size()==1)
@@ -169,9 +164,8 @@ public abstract class AbstractXPathExpressionEvaluator implements ExpressionEval
     }
 
     /*
-        The cache is not thread safe, more than one instance of the same xpath can be created, it wouldn't be an
-        issue in this case since one will eventually be selected for GC
-        A ReadWriteLock could be used to guard the cache but it would add unnecessary complexity
+        The cache holds one instance per thread, so an expression is compiled once per thread and the returned
+        instance is owned by the calling thread.
      */
     protected XPath getXPath(String expression, Object object) throws JaxenException
     {
@@ -180,12 +174,9 @@ public abstract class AbstractXPathExpressionEvaluator implements ExpressionEval
         if(xpath==null)
         {
             xpath = createXPath(expression, object);
-            synchronized (xpath)
+            if(namespaceManager!=null)
             {
-                if(namespaceManager!=null)
-                {
-                    addNamespaces(namespaceManager, xpath);
-                }
+                addNamespaces(namespaceManager, xpath);
             }
             cache.put(xPathCacheKey, xpath);
         }
@@ -232,6 +223,8 @@ public abstract class AbstractXPathExpressionEvaluator implements ExpressionEval
     public void setNamespaceManager(NamespaceManager namespaceManager)
     {
         this.namespaceManager = namespaceManager;
+        // expressions compiled so far were bound to the previous namespaces
+        cache.clear();
     }
 
     public MuleContext getMuleContext()
@@ -20,11 +20,9 @@ import org.mule.context.notification.MuleContextNotification;
 import org.mule.module.xml.i18n.XmlMessages;
 import org.mule.module.xml.stax.MapNamespaceContext;
 import org.mule.module.xml.util.NamespaceManager;
+import org.mule.module.xml.util.XPathCache;
 import org.mule.transformer.types.DataTypeFactory;
 
-import java.util.Map;
-import java.util.WeakHashMap;
-
 import javax.xml.namespace.QName;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
@@ -45,10 +43,13 @@ import org.w3c.dom.Node;
  * </code>
  * <p/>
  * Where the type can either be boolean, string, number, node or nodeset.
+ * <p/>
+ * Compiled expressions are kept in a {@link XPathCache}, so each expression is compiled once per thread
+ * and no compiled instance is ever evaluated by two threads at the same time.
  */
 public class JaxpXPathExpressionEvaluator implements ExpressionEvaluator, Initialisable, Disposable, MuleContextAware
 {
-    private Map<String, XPathExpression> cache = new WeakHashMap<String, XPathExpression>(8);
+    private XPathCache<XPathExpression> cache = new XPathCache<XPathExpression>();
 
     private MuleContext muleContext;
     private NamespaceManager namespaceManager;
@@ -97,7 +98,7 @@ public class JaxpXPathExpressionEvaluator implements ExpressionEvaluator, Initia
                     {
                         try
                         {
-                            namespaceManager = muleContext.getRegistry().lookupObject(NamespaceManager.class);
+                            setNamespaceManager(muleContext.getRegistry().lookupObject(NamespaceManager.class));
                         }
                         catch (RegistrationException e)
                         {
@@ -209,6 +210,8 @@ public class JaxpXPathExpressionEvaluator implements ExpressionEvaluator, Initia
     public void setNamespaceManager(NamespaceManager namespaceManager)
     {
         this.namespaceManager = namespaceManager;
+        // expressions compiled so far were bound to the previous namespaces
+        cache.clear();
     }
 
     public MuleContext getMuleContext()
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.xml.routing;
+
+import org.mule.api.MessagingException;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
+import org.mule.api.lifecycle.Initialisable;
+import org.mule.api.lifecycle.InitialisationException;
+import org.mule.api.registry.RegistrationException;
+import org.mule.config.i18n.CoreMessages;
+import org.mule.config.i18n.MessageFactory;
+import org.mule.module.xml.stax.MapNamespaceContext;
+import org.mule.module.xml.stax.StreamingXPath;
+import org.mule.module.xml.stax.XmlFragmentSequence;
+import org.mule.module.xml.util.NamespaceManager;
+import org.mule.module.xml.util.XMLUtils;
+import org.mule.routing.MessageSequence;
+import org.mule.routing.outbound.AbstractMessageSequenceSplitter;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Splits an XML payload into one message per element selected by an XPath expression, reading the payload
+ * with StAX instead of building a DOM.
+ * <p/>
+ * The expression must be in the forward-only subset supported by {@link StreamingXPath}, e.g.
+ * <code>/orders/order</code> or <code>//ns:entry</code>. Each part is a standalone XML fragment
+ * (as a String) and parts are read from the payload only as they are routed, so memory use does not
+ * depend on the size of the document. Namespace prefixes are resolved using the configured namespaces
+ * plus those of the global {@link NamespaceManager}, if any.
+ */
+public class StreamingXPathSplitter extends AbstractMessageSequenceSplitter implements Initialisable
+{
+    /**
+     * Reader property, supported by the JDK and Woodstox parsers, to report CDATA sections as such
+     */
+    private static final String REPORT_CDATA = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+
+    private String xpath;
+    private Map<String, String> namespaces = new HashMap<String, String>();
+    private boolean acceptExternalEntities = false;
+
+    private StreamingXPath compiledXPath;
+    private XMLInputFactory xmlInputFactory;
+    private XMLOutputFactory xmlOutputFactory;
+
+    @Override
+    public void initialise() throws InitialisationException
+    {
+        if (xpath == null)
+        {
+            throw new InitialisationException(MessageFactory.createStaticMessage("An xpath expression must be supplied to the streaming XPath splitter"), this);
+        }
+
+        Map<String, String> allNamespaces = new HashMap<String, String>();
+        if (muleContext != null)
+        {
+            try
+            {
+                NamespaceManager namespaceManager = muleContext.getRegistry().lookupObject(NamespaceManager.class);
+                if (namespaceManager != null)
+                {
+                    allNamespaces.putAll(namespaceManager.getNamespaces());
+                }
+            }
+            catch (RegistrationException e)
+            {
+                throw new InitialisationException(CoreMessages.failedToLoad("NamespaceManager"), e, this);
+            }
+        }
+        allNamespaces.putAll(namespaces);
+
+        try
+        {
+            compiledXPath = StreamingXPath.compile(xpath, new MapNamespaceContext(allNamespaces));
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new InitialisationException(e, this);
+        }
+
+        xmlInputFactory = XMLInputFactory.newInstance();
+        if (xmlInputFactory.isPropertySupported(REPORT_CDATA))
+        {
+            // keep CDATA sections in the fragments instead of turning them into escaped text
+            xmlInputFactory.setProperty(REPORT_CDATA, true);
+        }
+        if (!acceptExternalEntities)
+        {
+            xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        }
+        xmlOutputFactory = XMLOutputFactory.newInstance();
+    }
+
+    @Override
+    protected MessageSequence<?> splitMessageIntoSequence(MuleEvent event) throws MuleException
+    {
+        Object payload = event.getMessage().getPayload();
+        XMLStreamReader reader;
+        try
+        {
+            reader = XMLUtils.toXMLStreamReader(xmlInputFactory, payload);
+            if (reader == null)
+            {
+                reader = XMLUtils.toXMLStreamReader(xmlInputFactory, event.getMessage().getPayload(InputStream.class));
+            }
+        }
+        catch (XMLStreamException e)
+        {
+            throw new MessagingException(MessageFactory.createStaticMessage("Unable to read XML payload for splitting"), event, e, this);
+        }
+
+        return new XmlFragmentSequence(reader, compiledXPath, xmlOutputFactory);
+    }
+
+    public String getXpath()
+    {
+        return xpath;
+    }
+
+    public void setXpath(String xpath)
+    {
+        this.xpath = xpath;
+    }
+
+    public Map<String, String> getNamespaces()
+    {
+        return namespaces;
+    }
+
+    public void setNamespaces(Map<String, String> namespaces)
+    {
+        this.namespaces = namespaces;
+    }
+
+    public boolean isAcceptExternalEntities()
+    {
+        return acceptExternalEntities;
+    }
+
+    public void setAcceptExternalEntities(boolean acceptExternalEntities)
+    {
+        this.acceptExternalEntities = acceptExternalEntities;
+    }
+}
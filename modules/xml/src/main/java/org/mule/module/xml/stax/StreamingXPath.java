@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.xml.stax;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+
+/**
+ * A compiled XPath location path that can be evaluated in a single forward pass over a StAX stream,
+ * without building a document tree.
+ * <p/>
+ * Only the subset of XPath that can be decided from the ancestors of an element is supported: absolute
+ * location paths made of child (<code>/</code>) and descendant (<code>//</code>) steps whose node test
+ * is an element name, a prefixed element name, <code>prefix:*</code> or <code>*</code>. For instance
+ * <code>/orders/order</code>, <code>//order</code> or <code>/ns:feed//ns:entry</code>. Predicates,
+ * attributes, functions and reverse axes are rejected when the expression is compiled.
+ * <p/>
+ * As in XPath, an unprefixed name only matches elements that are not in a namespace.
+ */
+public class StreamingXPath
+{
+    private static final String WILDCARD = "*";
+
+    private final String expression;
+    private final List<Step> steps;
+
+    private StreamingXPath(String expression, List<Step> steps)
+    {
+        this.expression = expression;
+        this.steps = steps;
+    }
+
+    /**
+     * Compiles an expression without namespace prefixes
+     *
+     * @throws IllegalArgumentException if the expression is not in the supported subset
+     */
+    public static StreamingXPath compile(String expression)
+    {
+        return compile(expression, null);
+    }
+
+    /**
+     * Compiles an expression resolving its prefixes with the given namespace context
+     *
+     * @throws IllegalArgumentException if the expression is not in the supported subset or uses an
+     *             unbound prefix
+     */
+    public static StreamingXPath compile(String expression, NamespaceContext namespaceContext)
+    {
+        if (expression == null || !expression.startsWith("/"))
+        {
+            throw new IllegalArgumentException("Only absolute location paths can be streamed: " + expression);
+        }
+
+        List<Step> steps = new ArrayList<Step>();
+        int position = 0;
+        while (position < expression.length())
+        {
+            boolean descendant = expression.startsWith("//", position);
+            position += descendant ? 2 : 1;
+
+            int end = expression.indexOf('/', position);
+            if (end == -1)
+            {
+                end = expression.length();
+            }
+            String nameTest = expression.substring(position, end).trim();
+            steps.add(new Step(descendant, parseNameTest(expression, nameTest, namespaceContext)));
+            position = end;
+        }
+
+        return new StreamingXPath(expression, Collections.unmodifiableList(steps));
+    }
+
+    /**
+     * Checks whether this expression selects the innermost element of a path.
+     *
+     * @param path the names of the currently open elements, outermost first
+     * @return true if the last element of the path is selected by this expression
+     */
+    public boolean matches(List<QName> path)
+    {
+        return matches(0, path, 0);
+    }
+
+    private boolean matches(int stepIndex, List<QName> path, int depth)
+    {
+        if (stepIndex == steps.size())
+        {
+            return depth == path.size();
+        }
+
+        Step step = steps.get(stepIndex);
+        if (!step.descendant)
+        {
+            return depth < path.size() && step.matches(path.get(depth)) && matches(stepIndex + 1, path, depth + 1);
+        }
+
+        for (int candidate = depth; candidate < path.size(); candidate++)
+        {
+            if (step.matches(path.get(candidate)) && matches(stepIndex + 1, path, candidate + 1))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String getExpression()
+    {
+        return expression;
+    }
+
+    @Override
+    public String toString()
+    {
+        return expression;
+    }
+
+    private static QName parseNameTest(String expression, String nameTest, NamespaceContext namespaceContext)
+    {
+        if (nameTest.length() == 0)
+        {
+            throw new IllegalArgumentException("Empty location step in expression: " + expression);
+        }
+        boolean unsupported = nameTest.startsWith(".");
+        for (char c : nameTest.toCharArray())
+        {
+            unsupported |= "[]()@=|'\"$ ".indexOf(c) != -1;
+        }
+        if (unsupported)
+        {
+            throw new IllegalArgumentException(String.format(
+                "Step '%s' of expression '%s' can not be evaluated in streaming mode, only element name tests are supported",
+                nameTest, expression));
+        }
+
+        int colon = nameTest.indexOf(':');
+        if (colon == -1)
+        {
+            return new QName(XMLConstants.NULL_NS_URI, nameTest);
+        }
+
+        String prefix = nameTest.substring(0, colon);
+        String localName = nameTest.substring(colon + 1);
+        if (localName.indexOf(':') != -1)
+        {
+            throw new IllegalArgumentException("Axes are not supported in streaming mode: " + expression);
+        }
+        String namespaceUri = namespaceContext == null ? null : namespaceContext.getNamespaceURI(prefix);
+        if (namespaceUri == null || XMLConstants.NULL_NS_URI.equals(namespaceUri))
+        {
+            throw new IllegalArgumentException(String.format("Prefix '%s' of expression '%s' is not bound to a namespace", prefix, expression));
+        }
+        return new QName(namespaceUri, localName, prefix);
+    }
+
+    private static class Step
+    {
+        private final boolean descendant;
+        private final QName name;
+
+        Step(boolean descendant, QName name)
+        {
+            this.descendant = descendant;
+            this.name = name;
+        }
+
+        boolean matches(QName element)
+        {
+            boolean anyNamespace = WILDCARD.equals(name.getLocalPart()) && name.getPrefix().length() == 0;
+            if (!anyNamespace && !name.getNamespaceURI().equals(nullToEmpty(element.getNamespaceURI())))
+            {
+                return false;
+            }
+            return WILDCARD.equals(name.getLocalPart()) || name.getLocalPart().equals(element.getLocalPart());
+        }
+
+        private static String nullToEmpty(String value)
+        {
+            return value == null ? XMLConstants.NULL_NS_URI : value;
+        }
+    }
+}
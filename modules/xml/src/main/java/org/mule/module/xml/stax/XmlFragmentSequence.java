@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.xml.stax;
+
+import org.mule.api.MuleRuntimeException;
+import org.mule.config.i18n.MessageFactory;
+import org.mule.module.xml.util.XMLUtils;
+import org.mule.routing.AbstractMessageSequence;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A {@link org.mule.routing.MessageSequence} that lazily reads an {@link XMLStreamReader} and returns
+ * each element selected by a {@link StreamingXPath} as a standalone XML fragment.
+ * <p/>
+ * Only the element being returned is ever held in memory, so the memory used is bounded by the size of
+ * the largest fragment rather than by the size of the document. Elements nested inside a selected element
+ * are part of its fragment and are not returned separately. The reader is closed once the document has
+ * been consumed.
+ */
+public class XmlFragmentSequence extends AbstractMessageSequence<String>
+{
+    private static final Log logger = LogFactory.getLog(XmlFragmentSequence.class);
+
+    private final XMLStreamReader reader;
+    private final StreamingXPath xpath;
+    private final XMLOutputFactory outputFactory;
+    private final List<QName> path = new ArrayList<QName>();
+
+    private boolean positioned;
+    private boolean closed;
+
+    public XmlFragmentSequence(XMLStreamReader reader, StreamingXPath xpath, XMLOutputFactory outputFactory)
+    {
+        this.reader = reader;
+        this.xpath = xpath;
+        this.outputFactory = outputFactory;
+    }
+
+    @Override
+    public int size()
+    {
+        return UNKNOWN_SIZE;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        if (positioned)
+        {
+            return true;
+        }
+        if (closed)
+        {
+            return false;
+        }
+
+        try
+        {
+            while (reader.hasNext())
+            {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT)
+                {
+                    path.add(reader.getName());
+                    if (xpath.matches(path))
+                    {
+                        positioned = true;
+                        return true;
+                    }
+                }
+                else if (event == XMLStreamConstants.END_ELEMENT)
+                {
+                    path.remove(path.size() - 1);
+                }
+            }
+        }
+        catch (XMLStreamException e)
+        {
+            close();
+            throw new MuleRuntimeException(MessageFactory.createStaticMessage("Failed to read XML stream while evaluating " + xpath), e);
+        }
+
+        close();
+        return false;
+    }
+
+    @Override
+    public String next()
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+
+        StringWriter fragment = new StringWriter();
+        try
+        {
+            XMLStreamWriter writer = outputFactory.createXMLStreamWriter(fragment);
+            // leaves the reader on the end tag of the selected element
+            XMLUtils.copy(reader, writer);
+            writer.close();
+        }
+        catch (XMLStreamException e)
+        {
+            close();
+            throw new MuleRuntimeException(MessageFactory.createStaticMessage("Failed to read XML fragment selected by " + xpath), e);
+        }
+
+        path.remove(path.size() - 1);
+        positioned = false;
+        return fragment.toString();
+    }
+
+    private void close()
+    {
+        closed = true;
+        positioned = false;
+        try
+        {
+            reader.close();
+        }
+        catch (XMLStreamException e)
+        {
+            logger.warn("Failed to close XML stream: " + e.getMessage());
+        }
+    }
+}
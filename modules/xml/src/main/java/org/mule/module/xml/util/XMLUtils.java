@@ -430,7 +430,8 @@ public class XMLUtils extends org.mule.util.XMLUtils
     
     /**
      * Copies the reader to the writer. The start and end document methods must
-     * be handled on the writer manually. TODO: if the namespace on the reader
+     * be handled on the writer manually. CDATA sections, comments and processing
+     * instructions are copied as such, provided the reader reports them. TODO: if the namespace on the reader
      * has been declared previously to where we are in the stream, this probably
      * won't work.
      * 
@@ -461,8 +462,25 @@ public class XMLUtils extends org.mule.util.XMLUtils
                 }
                 break;
             case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.SPACE:
                 writer.writeCharacters(reader.getText());
                 break;
+            case XMLStreamConstants.CDATA:
+                writer.writeCData(reader.getText());
+                break;
+            case XMLStreamConstants.COMMENT:
+                writer.writeComment(reader.getText());
+                break;
+            case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                if (reader.getPIData() == null) {
+                    writer.writeProcessingInstruction(reader.getPITarget());
+                } else {
+                    writer.writeProcessingInstruction(reader.getPITarget(), reader.getPIData());
+                }
+                break;
+            case XMLStreamConstants.ENTITY_REFERENCE:
+                writer.writeEntityRef(reader.getLocalName());
+                break;
             case XMLStreamConstants.START_DOCUMENT:
             case XMLStreamConstants.END_DOCUMENT:
             case XMLStreamConstants.ATTRIBUTE:
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.xml.util;
+
+import org.mule.api.config.MuleProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded cache of compiled XPath expressions that is safe to share between threads.
+ * <p/>
+ * Neither JAXP {@link javax.xml.xpath.XPathExpression} nor Jaxen {@link org.jaxen.XPath} instances
+ * are thread safe, so instead of guarding a single shared instance every thread keeps its own
+ * compiled copy. Each thread holds an access ordered LRU map bounded to {@link #getMaxEntries()}
+ * entries, which means an expression is compiled at most once per thread and a thread never
+ * contends with any other thread when looking up an expression.
+ * <p/>
+ * {@link #clear()} invalidates the entries held by all threads, not only the calling one.
+ */
+public class XPathCache<T>
+{
+    public static final String MAX_ENTRIES_PROPERTY = MuleProperties.SYSTEM_PROPERTY_PREFIX + "xpath.cache.maxEntries";
+
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private final int maxEntries;
+    private final AtomicInteger generation = new AtomicInteger();
+
+    private final ThreadLocal<ThreadCache<T>> threadCache = new ThreadLocal<ThreadCache<T>>()
+    {
+        @Override
+        protected ThreadCache<T> initialValue()
+        {
+            return new ThreadCache<T>(maxEntries, generation.get());
+        }
+    };
+
+    public XPathCache()
+    {
+        this(Integer.getInteger(MAX_ENTRIES_PROPERTY, DEFAULT_MAX_ENTRIES));
+    }
+
+    public XPathCache(int maxEntries)
+    {
+        if (maxEntries <= 0)
+        {
+            throw new IllegalArgumentException("maxEntries must be greater than zero, but was " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the compiled expression cached by the current thread under the given key
+     *
+     * @param key the cache key
+     * @return the compiled expression or <code>null</code> if the current thread has not cached it yet
+     */
+    public T get(String key)
+    {
+        return currentThreadCache().get(key);
+    }
+
+    /**
+     * Caches a compiled expression for the current thread only. If the thread's cache is full, its least
+     * recently used entry is evicted.
+     *
+     * @param key the cache key
+     * @param value the compiled expression
+     */
+    public void put(String key, T value)
+    {
+        currentThreadCache().put(key, value);
+    }
+
+    /**
+     * Discards all the cached expressions, for every thread. Threads drop their stale entries lazily on
+     * their next access.
+     */
+    public void clear()
+    {
+        generation.incrementAndGet();
+        threadCache.remove();
+    }
+
+    /**
+     * @return the number of entries cached by the current thread
+     */
+    public int size()
+    {
+        return currentThreadCache().size();
+    }
+
+    public int getMaxEntries()
+    {
+        return maxEntries;
+    }
+
+    private ThreadCache<T> currentThreadCache()
+    {
+        ThreadCache<T> cache = threadCache.get();
+        int currentGeneration = generation.get();
+        if (cache.generation != currentGeneration)
+        {
+            cache.clear();
+            cache.generation = currentGeneration;
+        }
+        return cache;
+    }
+
+    private static class ThreadCache<T> extends LinkedHashMap<String, T>
+    {
+        private static final long serialVersionUID = -2457180519398539186L;
+
+        private final int maxEntries;
+        private int generation;
+
+        ThreadCache(int maxEntries, int generation)
+        {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+            this.generation = generation;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, T> eldest)
+        {
+            return size() > maxEntries;
+        }
+    }
+}
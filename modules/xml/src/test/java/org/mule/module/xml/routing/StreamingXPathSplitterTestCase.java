@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.xml.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
+import org.mule.api.processor.MessageProcessor;
+import org.mule.tck.junit4.FunctionalTestCase;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Test;
+
+public class StreamingXPathSplitterTestCase extends FunctionalTestCase
+{
+
+    private static final List<String> parts = new CopyOnWriteArrayList<String>();
+
+    @Override
+    protected String getConfigFile()
+    {
+        return "streaming-xpath-splitter-config.xml";
+    }
+
+    @Override
+    protected void doSetUp() throws Exception
+    {
+        super.doSetUp();
+        parts.clear();
+    }
+
+    @Test
+    public void splitsPayloadKeepingCDataAndComments() throws Exception
+    {
+        String payload = "<o:orders xmlns:o=\"urn:orders\"><!-- batch 7 -->"
+                         + "<o:order><!-- rush --><o:note><![CDATA[<b>fragile</b>]]></o:note></o:order>"
+                         + "<o:order><o:note>plain</o:note></o:order></o:orders>";
+
+        runFlow("splitOrders", payload);
+
+        assertEquals(2, parts.size());
+        assertTrue(parts.get(0).contains("<!-- rush -->"));
+        assertTrue(parts.get(0).contains("<![CDATA[<b>fragile</b>]]>"));
+        assertTrue(parts.get(1).contains("<o:note>plain</o:note>"));
+    }
+
+    public static class PartCollector implements MessageProcessor
+    {
+        public MuleEvent process(MuleEvent event) throws MuleException
+        {
+            parts.add((String) event.getMessage().getPayload());
+            return event;
+        }
+    }
+}
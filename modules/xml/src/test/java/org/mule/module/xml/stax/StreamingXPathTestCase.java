@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.xml.stax;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import org.junit.Test;
+
+@SmallTest
+public class StreamingXPathTestCase extends AbstractMuleTestCase
+{
+
+    private static final String NS = "http://test.com/orders";
+
+    @Test
+    public void matchesChildSteps()
+    {
+        StreamingXPath xpath = StreamingXPath.compile("/orders/order");
+
+        assertTrue(xpath.matches(path(new QName("orders"), new QName("order"))));
+        assertFalse(xpath.matches(path(new QName("orders"))));
+        assertFalse(xpath.matches(path(new QName("orders"), new QName("order"), new QName("item"))));
+        assertFalse(xpath.matches(path(new QName("root"), new QName("orders"), new QName("order"))));
+    }
+
+    @Test
+    public void matchesDescendantSteps()
+    {
+        StreamingXPath xpath = StreamingXPath.compile("/orders//item");
+
+        assertTrue(xpath.matches(path(new QName("orders"), new QName("item"))));
+        assertTrue(xpath.matches(path(new QName("orders"), new QName("order"), new QName("item"))));
+        assertFalse(xpath.matches(path(new QName("other"), new QName("item"))));
+        assertTrue(StreamingXPath.compile("//item").matches(path(new QName("a"), new QName("b"), new QName("item"))));
+    }
+
+    @Test
+    public void matchesWildcard()
+    {
+        StreamingXPath xpath = StreamingXPath.compile("/orders/*");
+
+        assertTrue(xpath.matches(path(new QName("orders"), new QName("order"))));
+        assertTrue(xpath.matches(path(new QName("orders"), new QName(NS, "order"))));
+        assertFalse(xpath.matches(path(new QName("orders"))));
+    }
+
+    @Test
+    public void matchesNamespaces()
+    {
+        StreamingXPath xpath = StreamingXPath.compile("/o:orders/o:order", new MapNamespaceContext(Collections.singletonMap("o", NS)));
+
+        assertTrue(xpath.matches(path(new QName(NS, "orders", "x"), new QName(NS, "order"))));
+        assertFalse(xpath.matches(path(new QName("orders"), new QName("order"))));
+        assertFalse(StreamingXPath.compile("/orders").matches(path(new QName(NS, "orders"))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsPredicates()
+    {
+        StreamingXPath.compile("/orders/order[1]");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAttributes()
+    {
+        StreamingXPath.compile("/orders/@id");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsRelativePaths()
+    {
+        StreamingXPath.compile("orders/order");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnboundPrefixes()
+    {
+        StreamingXPath.compile("/o:orders");
+    }
+
+    private List<QName> path(QName... names)
+    {
+        return Arrays.asList(names);
+    }
+}
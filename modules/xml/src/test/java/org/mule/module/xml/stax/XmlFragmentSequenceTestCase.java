@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.xml.stax;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.NoSuchElementException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+
+import org.junit.Test;
+
+@SmallTest
+public class XmlFragmentSequenceTestCase extends AbstractMuleTestCase
+{
+
+    private static final String ORDERS = "<orders><header/><order id=\"1\"><item>a</item></order>"
+                                         + "<order id=\"2\"><item>b</item></order></orders>";
+
+    @Test
+    public void splitsSelectedElements() throws Exception
+    {
+        XmlFragmentSequence sequence = sequence(ORDERS, StreamingXPath.compile("/orders/order"));
+
+        assertTrue(sequence.hasNext());
+        assertEquals("<order id=\"1\"><item>a</item></order>", sequence.next());
+        assertEquals("<order id=\"2\"><item>b</item></order>", sequence.next());
+        assertFalse(sequence.hasNext());
+    }
+
+    @Test
+    public void hasNextDoesNotConsumeFragments() throws Exception
+    {
+        XmlFragmentSequence sequence = sequence(ORDERS, StreamingXPath.compile("//item"));
+
+        assertTrue(sequence.hasNext());
+        assertTrue(sequence.hasNext());
+        assertEquals("<item>a</item>", sequence.next());
+        assertEquals("<item>b</item>", sequence.next());
+        assertFalse(sequence.hasNext());
+    }
+
+    @Test
+    public void keepsNamespaceOfFragment() throws Exception
+    {
+        String xml = "<o:orders xmlns:o=\"urn:orders\"><o:order>1</o:order></o:orders>";
+        XmlFragmentSequence sequence = sequence(xml, StreamingXPath.compile("/x:orders/x:order",
+            new MapNamespaceContext(Collections.singletonMap("x", "urn:orders"))));
+
+        String fragment = sequence.next();
+        assertTrue(fragment.startsWith("<o:order"));
+        assertTrue(fragment.contains("xmlns:o=\"urn:orders\""));
+        assertFalse(sequence.hasNext());
+    }
+
+    @Test
+    public void keepsCDataCommentsAndProcessingInstructions() throws Exception
+    {
+        String order = "<order><!-- first --><?audit checked?><note><![CDATA[<b>fragile</b>]]></note></order>";
+        XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty("http://java.sun.com/xml/stream/properties/report-cdata-event", true);
+        XmlFragmentSequence sequence = new XmlFragmentSequence(
+            inputFactory.createXMLStreamReader(new StringReader("<orders>" + order + "</orders>")),
+            StreamingXPath.compile("/orders/order"), XMLOutputFactory.newInstance());
+
+        assertEquals(order, sequence.next());
+        assertFalse(sequence.hasNext());
+    }
+
+    @Test
+    public void isEmptyWhenNothingMatches() throws Exception
+    {
+        assertTrue(sequence(ORDERS, StreamingXPath.compile("/orders/invoice")).isEmpty());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void failsWhenExhausted() throws Exception
+    {
+        sequence(ORDERS, StreamingXPath.compile("/orders/invoice")).next();
+    }
+
+    private XmlFragmentSequence sequence(String xml, StreamingXPath xpath) throws Exception
+    {
+        return new XmlFragmentSequence(XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(xml)), xpath,
+            XMLOutputFactory.newInstance());
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.xml.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+@SmallTest
+public class XPathCacheTestCase extends AbstractMuleTestCase
+{
+
+    private final XPathCache<Object> cache = new XPathCache<Object>(2);
+
+    @Test
+    public void returnsCachedValue()
+    {
+        Object value = new Object();
+        cache.put("a", value);
+        assertSame(value, cache.get("a"));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedEntry()
+    {
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.get("a");
+        cache.put("c", "C");
+
+        assertEquals(2, cache.size());
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("C", cache.get("c"));
+    }
+
+    @Test
+    public void entriesAreNotSharedBetweenThreads() throws Exception
+    {
+        cache.put("a", "A");
+
+        final AtomicReference<Object> otherThreadValue = new AtomicReference<Object>("not evaluated");
+        Thread thread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                otherThreadValue.set(cache.get("a"));
+            }
+        };
+        thread.start();
+        thread.join();
+
+        assertNull(otherThreadValue.get());
+        assertEquals("A", cache.get("a"));
+    }
+
+    @Test
+    public void clearInvalidatesOtherThreadsEntries() throws Exception
+    {
+        final AtomicReference<Object> otherThreadValue = new AtomicReference<Object>();
+        final Object lock = new Object();
+        Thread thread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                cache.put("a", "A");
+                synchronized (lock)
+                {
+                    lock.notify();
+                    try
+                    {
+                        lock.wait();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                otherThreadValue.set(cache.get("a"));
+            }
+        };
+        synchronized (lock)
+        {
+            thread.start();
+            lock.wait();
+            cache.clear();
+            lock.notify();
+        }
+        thread.join();
+
+        assertNull(otherThreadValue.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveSize()
+    {
+        new XPathCache<Object>(0);
+    }
+}
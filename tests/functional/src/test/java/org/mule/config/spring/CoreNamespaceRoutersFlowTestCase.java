@@ -51,7 +51,7 @@ public class CoreNamespaceRoutersFlowTestCase extends FunctionalTestCase
         assertEquals(1001, store.getExpirationInterval());
         assertEquals(1001, store.getMaxEntries());
         assertEquals("xyz", store.getName());
-        assertNotNull(store.getScheduler());
+        assertTrue(store.isExpiryScheduled());
     }
 
     @Test
@@ -71,7 +71,7 @@ public class CoreNamespaceRoutersFlowTestCase extends FunctionalTestCase
         assertEquals(10000000, store.getMaxEntries());
         assertEquals("foo", store.getDirectory());
         assertNotNull(store.getName());
-        assertNotNull(store.getScheduler());
+        assertTrue(store.isExpiryScheduled());
     }
 
     @Test
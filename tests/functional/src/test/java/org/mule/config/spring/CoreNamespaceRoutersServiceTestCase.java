@@ -54,7 +54,7 @@ public class CoreNamespaceRoutersServiceTestCase extends FunctionalTestCase
         assertEquals(1001, store.getExpirationInterval());
         assertEquals(1001, store.getMaxEntries());
         assertEquals("xyz", store.getName());
-        assertNotNull(store.getScheduler());
+        assertTrue(store.isExpiryScheduled());
     }
 
     @Test
@@ -74,7 +74,7 @@ public class CoreNamespaceRoutersServiceTestCase extends FunctionalTestCase
         assertEquals(10000000, store.getMaxEntries());
         assertEquals("foo", store.getDirectory());
         assertNotNull(store.getName());
-        assertNotNull(store.getScheduler());
+        assertTrue(store.isExpiryScheduled());
     }
 
     @Test
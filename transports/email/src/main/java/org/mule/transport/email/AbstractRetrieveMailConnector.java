@@ -52,6 +52,12 @@ public abstract class AbstractRetrieveMailConnector extends AbstractMailConnecto
      */
     private Flags.Flag defaultProcessMessageAction = Flags.Flag.SEEN;
 
+    /**
+     * Should the receiver be notified of new messages with the IMAP IDLE command
+     * instead of waiting for the next check? Only IMAP stores support it.
+     */
+    private volatile boolean useIdle = false;
+
 
     protected AbstractRetrieveMailConnector(int defaultPort, MuleContext context)
     {
@@ -134,4 +140,14 @@ public abstract class AbstractRetrieveMailConnector extends AbstractMailConnecto
     {
         this.defaultProcessMessageAction = defaultProcessMessageAction;
     }
+
+    public boolean isUseIdle()
+    {
+        return useIdle;
+    }
+
+    public void setUseIdle(boolean useIdle)
+    {
+        this.useIdle = useIdle;
+    }
 }
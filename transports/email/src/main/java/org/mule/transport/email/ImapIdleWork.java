@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.email;
+
+import org.mule.api.context.WorkManager;
+import org.mule.api.endpoint.ImmutableEndpoint;
+
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.IMAPStore;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.mail.Folder;
+import javax.mail.MessagingException;
+import javax.mail.Store;
+import javax.mail.event.MessageCountEvent;
+import javax.mail.event.MessageCountListener;
+import javax.resource.spi.work.Work;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Keeps a connection to a folder in IDLE mode. The server notifies new messages on
+ * that connection and each notification requests a poll of the folder. Notifications
+ * received while a requested poll has not started yet do not schedule another one.
+ * <p/>
+ * The connection is opened again when it is lost. Servers without IDLE keep being
+ * checked at the frequency of the connector.
+ */
+class ImapIdleWork implements Work, MessageCountListener
+{
+    private static final Log logger = LogFactory.getLog(ImapIdleWork.class);
+
+    private static final long DEFAULT_RECONNECT_DELAY = 5000;
+
+    private final AbstractRetrieveMailConnector connector;
+    private final ImmutableEndpoint endpoint;
+    private final WorkManager workManager;
+    private final Runnable poll;
+    private final AtomicBoolean pollRequested = new AtomicBoolean();
+    private long reconnectDelay = DEFAULT_RECONNECT_DELAY;
+
+    private volatile boolean running = true;
+    private volatile Folder idleFolder;
+
+    /**
+     * @param poll polls the folder, run on the given work manager
+     */
+    ImapIdleWork(AbstractRetrieveMailConnector connector, ImmutableEndpoint endpoint, WorkManager workManager,
+                 Runnable poll)
+    {
+        this.connector = connector;
+        this.endpoint = endpoint;
+        this.workManager = workManager;
+        this.poll = poll;
+    }
+
+    public void run()
+    {
+        while (running)
+        {
+            Store store = null;
+            try
+            {
+                store = connector.getSessionDetails(endpoint).newStore();
+                store.connect();
+                if (!((IMAPStore) store).hasCapability("IDLE"))
+                {
+                    logger.info("The mail server does not support IDLE, " + connector.getMailboxFolder()
+                                + " will be checked every " + connector.getCheckFrequency() + " ms");
+                    return;
+                }
+                IMAPFolder imapFolder = (IMAPFolder) store.getFolder(connector.getMailboxFolder());
+                imapFolder.open(Folder.READ_ONLY);
+                imapFolder.addMessageCountListener(this);
+                idleFolder = imapFolder;
+
+                // Messages that arrived while there was no IDLE connection
+                requestPoll();
+
+                while (running)
+                {
+                    // Returns when the connection is lost or closed by release()
+                    imapFolder.idle();
+                    if (!imapFolder.isOpen())
+                    {
+                        break;
+                    }
+                }
+            }
+            catch (Exception e)
+            {
+                if (running)
+                {
+                    logger.warn("IDLE connection to " + connector.getMailboxFolder() + " failed, reconnecting: "
+                                + e.getMessage());
+                    sleepBeforeReconnect();
+                }
+            }
+            finally
+            {
+                closeIdleFolder();
+                closeStore(store);
+            }
+        }
+    }
+
+    public void release()
+    {
+        running = false;
+        closeIdleFolder();
+    }
+
+    public void messagesAdded(MessageCountEvent event)
+    {
+        requestPoll();
+    }
+
+    public void messagesRemoved(MessageCountEvent event)
+    {
+        // no op
+    }
+
+    /**
+     * @param reconnectDelay the time in milliseconds to wait before opening a lost
+     *            connection again
+     */
+    void setReconnectDelay(long reconnectDelay)
+    {
+        this.reconnectDelay = reconnectDelay;
+    }
+
+    /**
+     * Polls the folder on a receiver thread, unless a poll requested this way is still
+     * waiting to run.
+     */
+    private void requestPoll()
+    {
+        if (!running || !pollRequested.compareAndSet(false, true))
+        {
+            return;
+        }
+        try
+        {
+            workManager.scheduleWork(new Work()
+            {
+                public void run()
+                {
+                    pollRequested.set(false);
+                    poll.run();
+                }
+
+                public void release()
+                {
+                    // no op
+                }
+            });
+        }
+        catch (Exception e)
+        {
+            pollRequested.set(false);
+            logger.warn("Failed to schedule a poll of the folder, new messages will be retrieved on the next check: "
+                        + e.getMessage());
+        }
+    }
+
+    private void sleepBeforeReconnect()
+    {
+        try
+        {
+            Thread.sleep(reconnectDelay);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private void closeIdleFolder()
+    {
+        Folder closing = idleFolder;
+        idleFolder = null;
+        if (closing == null)
+        {
+            return;
+        }
+        closing.removeMessageCountListener(this);
+        try
+        {
+            // Aborts the IDLE command in progress
+            if (closing.isOpen())
+            {
+                closing.close(false);
+            }
+        }
+        catch (Exception e)
+        {
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("ignoring exception: " + e.getMessage());
+            }
+        }
+        closeStore(closing.getStore());
+    }
+
+    private void closeStore(Store store)
+    {
+        if (store != null)
+        {
+            try
+            {
+                store.close();
+            }
+            catch (MessagingException e)
+            {
+                if (logger.isDebugEnabled())
+                {
+                    logger.debug("ignoring exception: " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -6,6 +6,7 @@
  */
 package org.mule.transport.email;
 
+import org.mule.api.DefaultMuleException;
 import org.mule.api.MuleException;
 import org.mule.api.MuleMessage;
 import org.mule.api.MuleRuntimeException;
@@ -14,12 +15,15 @@ import org.mule.api.endpoint.InboundEndpoint;
 import org.mule.api.lifecycle.CreateException;
 import org.mule.api.transport.Connector;
 import org.mule.api.transport.ReceiveException;
+import org.mule.config.i18n.CoreMessages;
 import org.mule.transport.AbstractPollingMessageReceiver;
 import org.mule.transport.email.i18n.EmailMessages;
 import org.mule.util.FileUtils;
 import org.mule.util.StringUtils;
 import org.mule.util.UUID;
 
+import com.sun.mail.imap.IMAPFolder;
+
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -27,6 +31,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import javax.mail.Address;
+import javax.mail.FetchProfile;
 import javax.mail.Flags;
 import javax.mail.Folder;
 import javax.mail.Message;
@@ -36,6 +41,7 @@ import javax.mail.event.MessageCountEvent;
 import javax.mail.event.MessageCountListener;
 import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
+import javax.resource.spi.work.WorkException;
 
 /**
  * Poll a mailbox for messages, remove the messages and route them as events into
@@ -43,6 +49,9 @@ import javax.mail.internet.MimeMessage;
  * <p/>
  * This contains a reference to a mail folder (and also the endpoint and connector,
  * via superclasses)
+ * <p/>
+ * If the connector uses IDLE and the store is IMAP, a second connection waits for the
+ * server to notify new messages and triggers a poll as soon as they arrive.
  */
 public class RetrieveMessageReceiver extends AbstractPollingMessageReceiver implements MessageCountListener
 {
@@ -52,6 +61,8 @@ public class RetrieveMessageReceiver extends AbstractPollingMessageReceiver impl
     private String backupFolder = null;
     // A lock to protect concurrent access to the folder.
     private final Object folderLock = new Object();
+    private final FetchProfile fetchProfile = createFetchProfile();
+    private volatile ImapIdleWork idleWork;
 
     public RetrieveMessageReceiver(Connector connector,
                                    FlowConstruct flowConstruct,
@@ -107,6 +118,13 @@ public class RetrieveMessageReceiver extends AbstractPollingMessageReceiver impl
     @Override
     protected void doStop() throws MuleException
     {
+        ImapIdleWork work = idleWork;
+        if (work != null)
+        {
+            idleWork = null;
+            work.release();
+        }
+
         super.doStop();
 
         synchronized (folderLock)
@@ -126,6 +144,40 @@ public class RetrieveMessageReceiver extends AbstractPollingMessageReceiver impl
         {
             folder.addMessageCountListener(this);
         }
+
+        if (castConnector().isUseIdle() && folder instanceof IMAPFolder)
+        {
+            ImapIdleWork work = new ImapIdleWork(castConnector(), endpoint, getWorkManager(), new Runnable()
+            {
+                public void run()
+                {
+                    poll();
+                }
+            });
+            try
+            {
+                getWorkManager().scheduleWork(work);
+            }
+            catch (WorkException e)
+            {
+                throw new DefaultMuleException(CoreMessages.failedToScheduleWork(), e);
+            }
+            idleWork = work;
+        }
+    }
+
+    /**
+     * @return the items fetched in a single round trip for all the messages of a poll, so
+     *         that checking the flags and reading the headers of each message doesn't
+     *         need one
+     */
+    protected FetchProfile createFetchProfile()
+    {
+        FetchProfile profile = new FetchProfile();
+        profile.add(FetchProfile.Item.ENVELOPE);
+        profile.add(FetchProfile.Item.FLAGS);
+        profile.add(FetchProfile.Item.CONTENT_INFO);
+        return profile;
     }
 
     public void messagesAdded(MessageCountEvent event) 
@@ -359,6 +411,11 @@ public class RetrieveMessageReceiver extends AbstractPollingMessageReceiver impl
                         //retrieve batchSize messages at most, considering the offset that might be present
                         int limit = Math.min(count, offset + batchSize - 1);
                         Message[] messages = folder.getMessages(offset, limit);
+                        if (folder instanceof IMAPFolder)
+                        {
+                            // POP3 can only fetch the headers by reading each message
+                            folder.fetch(messages, fetchProfile);
+                        }
                         MessageCountEvent event = new MessageCountEvent(folder, MessageCountEvent.ADDED, true,
                             messages);
                         messagesAdded(event);
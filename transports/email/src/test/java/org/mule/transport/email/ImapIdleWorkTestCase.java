@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.email;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.mule.api.context.WorkManager;
+import org.mule.api.endpoint.ImmutableEndpoint;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.IMAPStore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.mail.Folder;
+import javax.mail.FolderClosedException;
+import javax.mail.Message;
+import javax.mail.event.MessageCountEvent;
+import javax.resource.spi.work.Work;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+@SmallTest
+public class ImapIdleWorkTestCase extends AbstractMuleTestCase
+{
+
+    private static final String MAILBOX = "INBOX";
+
+    private AbstractRetrieveMailConnector connector;
+    private ImmutableEndpoint endpoint;
+    private WorkManager workManager;
+    private Runnable poll;
+    private IMAPStore store;
+    private IMAPFolder folder;
+    private ImapIdleWork work;
+    private final List<Work> scheduled = new ArrayList<Work>();
+
+    @Before
+    public void setUp() throws Exception
+    {
+        connector = mock(AbstractRetrieveMailConnector.class);
+        endpoint = mock(ImmutableEndpoint.class);
+        SessionDetails session = mock(SessionDetails.class);
+        store = mock(IMAPStore.class);
+        folder = mock(IMAPFolder.class);
+        when(connector.getSessionDetails(endpoint)).thenReturn(session);
+        when(connector.getMailboxFolder()).thenReturn(MAILBOX);
+        when(session.newStore()).thenReturn(store);
+        when(store.hasCapability("IDLE")).thenReturn(true);
+        when(store.getFolder(MAILBOX)).thenReturn(folder);
+
+        workManager = mock(WorkManager.class);
+        doAnswer(new Answer<Object>()
+        {
+            public Object answer(InvocationOnMock invocation) throws Throwable
+            {
+                scheduled.add((Work) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(workManager).scheduleWork(any(Work.class));
+
+        poll = mock(Runnable.class);
+        work = new ImapIdleWork(connector, endpoint, workManager, poll);
+    }
+
+    @Test
+    public void schedulesOnePollForSeveralNotifications() throws Exception
+    {
+        doAnswer(new Answer<Object>()
+        {
+            public Object answer(InvocationOnMock invocation) throws Throwable
+            {
+                // the poll requested when the connection was opened starts
+                assertEquals(1, scheduled.size());
+                scheduled.get(0).run();
+
+                MessageCountEvent event = new MessageCountEvent(folder, MessageCountEvent.ADDED, false, new Message[0]);
+                for (int i = 0; i < 3; i++)
+                {
+                    work.messagesAdded(event);
+                }
+                work.release();
+                return null;
+            }
+        }).when(folder).idle();
+
+        work.run();
+
+        assertEquals(2, scheduled.size());
+        scheduled.get(1).run();
+        verify(poll, times(2)).run();
+    }
+
+    @Test
+    public void reconnectsWhenFolderIsClosed() throws Exception
+    {
+        work.setReconnectDelay(1);
+        doAnswer(new Answer<Object>()
+        {
+            private int calls;
+
+            public Object answer(InvocationOnMock invocation) throws Throwable
+            {
+                if (++calls == 1)
+                {
+                    throw new FolderClosedException(folder);
+                }
+                work.release();
+                return null;
+            }
+        }).when(folder).idle();
+
+        work.run();
+
+        verify(store, times(2)).connect();
+        verify(folder, times(2)).open(Folder.READ_ONLY);
+        verify(folder, times(2)).addMessageCountListener(work);
+        verify(folder, times(2)).idle();
+    }
+}
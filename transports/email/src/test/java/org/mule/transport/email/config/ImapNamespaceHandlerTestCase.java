@@ -39,6 +39,7 @@ public class ImapNamespaceHandlerTestCase extends AbstractEmailNamespaceHandlerT
         assertEquals(1234, c.getCheckFrequency());
         assertEquals("newMailbox", c.getMailboxFolder());
         assertEquals(false, c.isDeleteReadMessages());
+        assertTrue(c.isUseIdle());
 
         // authenticator?
 
@@ -59,6 +60,7 @@ public class ImapNamespaceHandlerTestCase extends AbstractEmailNamespaceHandlerT
         assertEquals(1234, c.getCheckFrequency());
         assertEquals("newMailbox", c.getMailboxFolder());
         assertEquals(false, c.isDeleteReadMessages());
+        assertFalse(c.isUseIdle());
 
         // authenticator?
 
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.email.functional;
+
+import static org.junit.Assert.assertNotNull;
+
+import org.mule.api.MuleMessage;
+import org.mule.api.client.MuleClient;
+import org.mule.transport.email.GreenMailUtilities;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.junit.runners.Parameterized.Parameters;
+
+public class ImapIdleFunctionalTestCase extends AbstractEmailFunctionalTestCase
+{
+
+    public ImapIdleFunctionalTestCase(ConfigVariant variant, String configResources)
+    {
+        super(variant, STRING_MESSAGE, "imap", configResources);
+    }
+
+    @Parameters
+    public static Collection<Object[]> parameters()
+    {
+        return Arrays.asList(new Object[][]{
+            {ConfigVariant.FLOW, "imap-idle-functional-test-flow.xml"}
+        });
+    }
+
+    @Test
+    public void receivesMessagesArrivingAfterStart() throws Exception
+    {
+        doRequest();
+
+        storeEmail(Collections.singletonList(GreenMailUtilities.toMessage(DEFAULT_MESSAGE, DEFAULT_EMAIL, null)));
+
+        MuleClient client = muleContext.getClient();
+        MuleMessage reply = client.request("vm://receive", RECEIVE_TIMEOUT);
+        assertNotNull(reply);
+        verifyMessage(reply.getPayloadAsString());
+    }
+}
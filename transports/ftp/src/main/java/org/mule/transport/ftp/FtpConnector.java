@@ -85,6 +85,12 @@ public class FtpConnector extends AbstractConnector
 
     private String connectionFactoryClass = DEFAULT_FTP_CONNECTION_FACTORY_CLASS;
 
+    /**
+     * Number of files a receiver downloads at the same time, each worker keeping its
+     * connection for the files it processes. 0 schedules one work per file instead.
+     */
+    private int maxConcurrentFiles = 0;
+
     public FtpConnector(MuleContext context)
     {
         super(context);
@@ -697,4 +703,14 @@ public class FtpConnector extends AbstractConnector
         this.streaming = streaming;
     }
 
+    public int getMaxConcurrentFiles()
+    {
+        return maxConcurrentFiles;
+    }
+
+    public void setMaxConcurrentFiles(int maxConcurrentFiles)
+    {
+        this.maxConcurrentFiles = maxConcurrentFiles;
+    }
+
 }
@@ -8,6 +8,7 @@ package org.mule.transport.ftp;
 
 import org.mule.api.MessagingException;
 import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
 import org.mule.api.MuleMessage;
 import org.mule.api.construct.FlowConstruct;
 import org.mule.api.endpoint.InboundEndpoint;
@@ -22,6 +23,7 @@ import org.mule.processor.strategy.SynchronousProcessingStrategy;
 import org.mule.transport.AbstractConnector;
 import org.mule.transport.AbstractPollingMessageReceiver;
 import org.mule.util.lock.LockFactory;
+import org.mule.work.PipelinedWorkQueue;
 
 import java.io.FilenameFilter;
 import java.io.IOException;
@@ -54,6 +56,7 @@ public class FtpMessageReceiver extends AbstractPollingMessageReceiver
     protected final Set<String> scheduledFiles = Collections.synchronizedSet(new HashSet<String>());
     protected final Set<String> currentFiles = Collections.synchronizedSet(new HashSet<String>());
     private boolean poolOnPrimaryInstanceOnly;
+    private volatile FtpFileQueue fileQueue;
 
     public FtpMessageReceiver(Connector connector,
                               FlowConstruct flowConstruct,
@@ -97,6 +100,12 @@ public class FtpMessageReceiver extends AbstractPollingMessageReceiver
             logger.debug("Poll encountered " + files.length + " new file(s)");
         }
 
+        if (connector.getMaxConcurrentFiles() > 0)
+        {
+            pipelineFiles(files);
+            return;
+        }
+
         synchronized (scheduledFiles)
         {
             for (final FTPFile file : files)
@@ -120,6 +129,29 @@ public class FtpMessageReceiver extends AbstractPollingMessageReceiver
         }
     }
 
+    /**
+     * Hands the files to a bounded number of workers, each one downloading the files
+     * it takes over a single connection.
+     */
+    protected void pipelineFiles(FTPFile[] files) throws Exception
+    {
+        FtpFileQueue queue = fileQueue;
+        if (queue == null)
+        {
+            queue = new FtpFileQueue(connector.getMaxConcurrentFiles());
+            fileQueue = queue;
+        }
+        for (FTPFile file : files)
+        {
+            if (getLifecycleState().isStopping())
+            {
+                break;
+            }
+            queue.submit(file.getName(), file);
+        }
+        queue.dispatch();
+    }
+
     @Override
     protected boolean pollOnPrimaryInstanceOnly()
     {
@@ -269,6 +301,146 @@ public class FtpMessageReceiver extends AbstractPollingMessageReceiver
         // template method
     }
 
+    @Override
+    protected void doStop() throws MuleException
+    {
+        FtpFileQueue queue = fileQueue;
+        if (queue != null)
+        {
+            queue.clear();
+            fileQueue = null;
+        }
+        super.doStop();
+    }
+
+    /**
+     * Routes a file read through the given client and then deletes it.
+     *
+     * @return <code>false</code> if the file was not routed, because it is not ready yet
+     *         or the transaction routing it was rolled back
+     */
+    protected boolean processFile(FTPClient client, FTPFile file) throws Exception
+    {
+        final String name = file.getName();
+        MuleMessage muleMessage = null;
+        currentFiles.add(name);
+        try
+        {
+            if (!connector.validateFile(file))
+            {
+                return false;
+            }
+            FtpMuleMessageFactory muleMessageFactory = createMuleMessageFactory(client);
+            final MuleMessage finalMessage = muleMessageFactory.create(file, endpoint.getEncoding(), endpoint.getMuleContext());
+            muleMessage = finalMessage;
+            ExecutionTemplate<MuleEvent> executionTemplate = createExecutionTemplate();
+            executionTemplate.execute(new ExecutionCallback<MuleEvent>()
+            {
+                @Override
+                public MuleEvent process() throws Exception
+                {
+                    routeMessage(finalMessage);
+                    return null;
+                }
+            });
+            postProcess(client, file, finalMessage);
+            return true;
+        }
+        catch (MessagingException e)
+        {
+            //Already handled by TransactionTemplate
+            if (!e.causedRollback())
+            {
+                try
+                {
+                    postProcess(client, file, muleMessage);
+                }
+                catch (Exception e1)
+                {
+                    logger.error(e);
+                }
+            }
+            return false;
+        }
+        finally
+        {
+            currentFiles.remove(name);
+        }
+    }
+
+    private final class FtpFileQueue extends PipelinedWorkQueue<FTPFile, FTPClient>
+    {
+
+        private FtpFileQueue(int maxConcurrentFiles)
+        {
+            super(getWorkManager(), maxConcurrentFiles);
+        }
+
+        @Override
+        protected FTPClient acquire() throws Exception
+        {
+            return connector.createFtpClient(endpoint);
+        }
+
+        @Override
+        protected void release(FTPClient client)
+        {
+            try
+            {
+                connector.releaseFtp(endpoint.getEndpointURI(), client);
+            }
+            catch (Exception e)
+            {
+                logger.error(e);
+            }
+        }
+
+        @Override
+        protected boolean process(FTPClient client, FTPFile file) throws Exception
+        {
+            Lock lock = getEndpoint().getMuleContext().getLockFactory().createLock(file.getName());
+            if (!lock.tryLock())
+            {
+                return false;
+            }
+            try
+            {
+                return processFile(client, file);
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        protected void handleException(FTPFile file, Exception e)
+        {
+            getEndpoint().getMuleContext().getExceptionListener().handleException(e);
+        }
+
+        /**
+         * Lists the directory again right away, files that arrived while the previous ones
+         * were downloaded are picked up without waiting for the next poll.
+         */
+        @Override
+        protected void drained()
+        {
+            if (!isStarted())
+            {
+                return;
+            }
+            try
+            {
+                performPoll();
+            }
+            catch (Exception e)
+            {
+                getEndpoint().getMuleContext().getExceptionListener().handleException(e);
+            }
+        }
+    }
+
     private final class FtpWork implements Work
     {
         private final String name;
@@ -283,48 +455,13 @@ public class FtpMessageReceiver extends AbstractPollingMessageReceiver
         public void run()
         {
             FTPClient client = null;
-            MuleMessage muleMessage = null;
             Lock lock = getEndpoint().getMuleContext().getLockFactory().createLock(file.getName());
             if (lock.tryLock())
             {
                 try
                 {
                     client = connector.createFtpClient(endpoint);
-                    final FTPClient finalClient = client;
-                    currentFiles.add(name);
-                    if (!connector.validateFile(file))
-                    {
-                        return;
-                    }
-                    FtpMuleMessageFactory muleMessageFactory = createMuleMessageFactory(finalClient);
-                    final MuleMessage finalMessage = muleMessageFactory.create(file, endpoint.getEncoding(), endpoint.getMuleContext());
-                    muleMessage = finalMessage;
-                    ExecutionTemplate<MuleEvent> executionTemplate = createExecutionTemplate();
-                    executionTemplate.execute(new ExecutionCallback<MuleEvent>()
-                    {
-                        @Override
-                        public MuleEvent process() throws Exception
-                        {
-                            routeMessage(finalMessage);
-                            return null;
-                        }
-                    });
-                    postProcess(finalClient, file, finalMessage);
-                }
-                catch (MessagingException e)
-                {
-                    //Already handled by TransactionTemplate
-                    if (!e.causedRollback())
-                    {
-                        try
-                        {
-                            postProcess(client,file,muleMessage);
-                        }
-                        catch (Exception e1)
-                        {
-                            logger.error(e);
-                        }
-                    }
+                    processFile(client, file);
                 }
                 catch (Exception e)
                 {
@@ -344,7 +481,6 @@ public class FtpMessageReceiver extends AbstractPollingMessageReceiver
                             logger.error(e);
                         }
                     }
-                    currentFiles.remove(name);
                     scheduledFiles.remove(name);
                 }
             }
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.ftp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import org.mule.api.MuleMessage;
+import org.mule.api.client.LocalMuleClient;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.junit.runners.Parameterized;
+
+public class FtpConcurrentFilesTestCase extends AbstractFtpServerTestCase
+{
+
+    private static final int FILES = 10;
+
+    public FtpConcurrentFilesTestCase(ConfigVariant variant, String configResources)
+    {
+        super(variant, configResources);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        return Arrays.asList(new Object[][] {
+                {ConfigVariant.FLOW, "ftp-concurrent-files-config-flow.xml"}
+        });
+    }
+
+    @Test
+    public void processesEveryFileOnce() throws Exception
+    {
+        File tmpDir = getFtpServerBaseDir();
+        File[] files = new File[FILES];
+        for (int i = 0; i < FILES; i++)
+        {
+            files[i] = createDataFile(tmpDir, TEST_MESSAGE);
+        }
+
+        LocalMuleClient client = muleContext.getClient();
+        for (int i = 0; i < FILES; i++)
+        {
+            MuleMessage response = client.request("vm://testOut", RECEIVE_TIMEOUT);
+            assertNotNull("Did not process all the files", response);
+            assertEquals(TEST_MESSAGE, response.getPayload());
+        }
+        assertNull(client.request("vm://testOut", 1000));
+
+        for (File file : files)
+        {
+            assertFalse(file.exists());
+        }
+    }
+}
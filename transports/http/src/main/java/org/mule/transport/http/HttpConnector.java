@@ -18,6 +18,7 @@ import org.mule.api.endpoint.InboundEndpoint;
 import org.mule.api.endpoint.OutboundEndpoint;
 import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.processor.MessageProcessor;
+import org.mule.api.transport.ConnectionPoolStatistics;
 import org.mule.api.transport.MessageDispatcher;
 import org.mule.api.transport.MessageReceiver;
 import org.mule.api.transport.NoReceiverForEndpointException;
@@ -203,6 +204,18 @@ public class HttpConnector extends TcpConnector
 
     private boolean enableCookies = false;
 
+    private int maxTotalConnections = INT_VALUE_NOT_SET;
+
+    private int maxConnectionsPerHost = INT_VALUE_NOT_SET;
+
+    private int connectionAcquireTimeout = INT_VALUE_NOT_SET;
+
+    private int chunkedResponseThreshold = INT_VALUE_NOT_SET;
+
+    private int requestBodySpillThreshold = INT_VALUE_NOT_SET;
+
+    private int multipartSpillThreshold = INT_VALUE_NOT_SET;
+
     protected HttpConnectionManager clientConnectionManager;
 
     private IdleConnectionTimeoutThread connectionCleaner;
@@ -226,7 +239,12 @@ public class HttpConnector extends TcpConnector
         super.doInitialise();
         if (clientConnectionManager == null)
         {
-            clientConnectionManager = new MultiThreadedHttpConnectionManager();
+            PooledHttpConnectionManager pooledConnectionManager = new PooledHttpConnectionManager();
+            if (connectionAcquireTimeout != INT_VALUE_NOT_SET)
+            {
+                pooledConnectionManager.setAcquireTimeout(connectionAcquireTimeout);
+            }
+            clientConnectionManager = pooledConnectionManager;
             String prop = System.getProperty("mule.http.disableCleanupThread");
             disableCleanupThread = prop != null && prop.equals("true");
             if (!disableCleanupThread)
@@ -256,8 +274,9 @@ public class HttpConnector extends TcpConnector
             }
 
             params.setTcpNoDelay(isSendTcpNoDelay());
-            params.setMaxTotalConnections(dispatchers.getMaxTotal());
-            params.setDefaultMaxConnectionsPerHost(dispatchers.getMaxTotal());
+            int totalConnections = maxTotalConnections != INT_VALUE_NOT_SET ? maxTotalConnections : dispatchers.getMaxTotal();
+            params.setMaxTotalConnections(totalConnections);
+            params.setDefaultMaxConnectionsPerHost(maxConnectionsPerHost != INT_VALUE_NOT_SET ? maxConnectionsPerHost : totalConnections);
             params.setStaleCheckingEnabled(!BooleanUtils.toBoolean(System.getProperty(DISABLE_STALE_CONNECTION_CHECK_SYSTEM_PROPERTY)));
 
             if (getConnectionTimeout() != INT_VALUE_NOT_SET)
@@ -453,6 +472,106 @@ public class HttpConnector extends TcpConnector
     }
 
 
+    public int getMaxTotalConnections()
+    {
+        return maxTotalConnections;
+    }
+
+    /**
+     * Sets the maximum number of outbound connections this connector keeps open across all hosts. Defaults to
+     * the maximum number of dispatchers.
+     */
+    public void setMaxTotalConnections(int maxTotalConnections)
+    {
+        this.maxTotalConnections = maxTotalConnections;
+    }
+
+    public int getMaxConnectionsPerHost()
+    {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * Sets the maximum number of outbound connections this connector keeps open to a single host, so one slow
+     * backend can not take all the connections of the pool. Defaults to the maximum total number of connections.
+     */
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost)
+    {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    public int getChunkedResponseThreshold()
+    {
+        return chunkedResponseThreshold;
+    }
+
+    /**
+     * Sets the body size in bytes above which responses to HTTP 1.1 requests are sent with chunked transfer
+     * encoding instead of a Content-Length header. Not set by default.
+     */
+    public void setChunkedResponseThreshold(int chunkedResponseThreshold)
+    {
+        this.chunkedResponseThreshold = chunkedResponseThreshold;
+    }
+
+    public int getRequestBodySpillThreshold()
+    {
+        return requestBodySpillThreshold;
+    }
+
+    /**
+     * Sets the number of bytes of a one-way request body kept in memory, larger bodies are written to a
+     * temporary file. Not set by default, so the whole body is kept in memory.
+     */
+    public void setRequestBodySpillThreshold(int requestBodySpillThreshold)
+    {
+        this.requestBodySpillThreshold = requestBodySpillThreshold;
+    }
+
+    public int getMultipartSpillThreshold()
+    {
+        return multipartSpillThreshold;
+    }
+
+    /**
+     * Sets the number of bytes of each part of a multipart/form-data request kept in memory, larger parts
+     * are written to a temporary file. Not set by default, so parts with a filename are always written to a
+     * temporary file and other parts are kept in memory.
+     */
+    public void setMultipartSpillThreshold(int multipartSpillThreshold)
+    {
+        this.multipartSpillThreshold = multipartSpillThreshold;
+    }
+
+    public int getConnectionAcquireTimeout()
+    {
+        return connectionAcquireTimeout;
+    }
+
+    /**
+     * Sets how long in milliseconds an outbound request waits for a pooled connection when
+     * <code>maxConnectionsPerHost</code> or <code>maxTotalConnections</code> are reached. 0 fails the request
+     * right away; by default it waits until a connection is released.
+     */
+    public void setConnectionAcquireTimeout(int connectionAcquireTimeout)
+    {
+        this.connectionAcquireTimeout = connectionAcquireTimeout;
+    }
+
+    /**
+     * @return the statistics of the outbound HTTP connection pool, outbound requests do not use the socket
+     *         pool of the TCP connector
+     */
+    @Override
+    public ConnectionPoolStatistics getConnectionPoolStatistics()
+    {
+        if (clientConnectionManager instanceof ConnectionPoolStatistics)
+        {
+            return (ConnectionPoolStatistics) clientConnectionManager;
+        }
+        return super.getConnectionPoolStatistics();
+    }
+
     public HttpConnectionManager getClientConnectionManager()
     {
         return clientConnectionManager;
@@ -20,6 +20,7 @@ import org.mule.api.context.WorkManager;
 import org.mule.api.endpoint.ImmutableEndpoint;
 import org.mule.api.transport.PropertyScope;
 import org.mule.config.ExceptionHelper;
+import org.mule.execution.ConcurrencyLimitPhaseTemplate;
 import org.mule.execution.EndPhaseTemplate;
 import org.mule.execution.RequestResponseFlowProcessingPhaseTemplate;
 import org.mule.execution.ResponseDispatchException;
@@ -37,7 +38,7 @@ import java.util.Map;
 import org.apache.commons.httpclient.Header;
 import org.apache.commons.httpclient.HttpVersion;
 
-public class HttpMessageProcessTemplate extends AbstractTransportMessageProcessTemplate<HttpMessageReceiver, HttpConnector> implements RequestResponseFlowProcessingPhaseTemplate, ThrottlingPhaseTemplate, EndPhaseTemplate
+public class HttpMessageProcessTemplate extends AbstractTransportMessageProcessTemplate<HttpMessageReceiver, HttpConnector> implements RequestResponseFlowProcessingPhaseTemplate, ThrottlingPhaseTemplate, ConcurrencyLimitPhaseTemplate, EndPhaseTemplate
 {
 
     public static final int MESSAGE_DISCARD_STATUS_CODE = Integer.valueOf(System.getProperty("mule.transport.http.throttling.discardstatuscode","429"));
@@ -132,6 +133,8 @@ public class HttpMessageProcessTemplate extends AbstractTransportMessageProcessT
                 response.setKeepAlive(endpointKeepAliveValue);
             }
 
+            response.useChunkedEncodingAbove(httpConnector.getChunkedResponseThreshold());
+
             try
             {
                 httpServerConnection.writeResponse(response,getThrottlingHeaders());
@@ -467,6 +470,20 @@ public class HttpMessageProcessTemplate extends AbstractTransportMessageProcessT
         }
     }
 
+    @Override
+    public void discardMessageOnConcurrencyLimitExceeded(long retryAfterMillis) throws MuleException
+    {
+        httpThrottlingHeadersMapBuilder.setRetryAfter(retryAfterMillis);
+        try
+        {
+            sendFailureResponseToClient(HttpConstants.SC_SERVICE_UNAVAILABLE, "Service overloaded, retry later");
+        }
+        catch (IOException e)
+        {
+            throw new DefaultMuleException(e);
+        }
+    }
+
     @Override
     public void setThrottlingPolicyStatistics(long remainingRequestInCurrentPeriod, long maximumRequestAllowedPerPeriod, long timeUntilNextPeriodInMillis)
     {
@@ -94,6 +94,11 @@ public class HttpMessageReceiver extends AbstractMessageReceiver
             factory.setCookieSpec(cookieSpec);
 
             factory.setExchangePattern(endpoint.getExchangePattern());
+            factory.setRequestBodySpillThreshold(((HttpConnector) connector).getRequestBodySpillThreshold());
+            if (factory instanceof HttpMultipartMuleMessageFactory)
+            {
+                ((HttpMultipartMuleMessageFactory) factory).setMultipartSpillThreshold(((HttpConnector) connector).getMultipartSpillThreshold());
+            }
 
             muleMessageFactory = factory;
         }
@@ -11,6 +11,7 @@ import org.mule.MessageExchangePattern;
 import org.mule.api.MuleContext;
 import org.mule.api.MuleMessage;
 import org.mule.api.transport.MessageTypeNotSupportedException;
+import org.mule.model.streaming.SpillingOutputStream;
 import org.mule.transport.AbstractMuleMessageFactory;
 import org.mule.util.CaseInsensitiveHashMap;
 import org.mule.util.IOUtils;
@@ -47,6 +48,7 @@ public class HttpMuleMessageFactory extends AbstractMuleMessageFactory
     private boolean enableCookies = false;
     private String cookieSpec;
     private MessageExchangePattern exchangePattern = MessageExchangePattern.REQUEST_RESPONSE;
+    private int requestBodySpillThreshold = -1;
 
     public HttpMuleMessageFactory()
     {
@@ -103,13 +105,37 @@ public class HttpMuleMessageFactory extends AbstractMuleMessageFactory
             if (!exchangePattern.hasResponse())
             {
                 log.debug("Reading HTTP POST InputStream into byte[] for asynchronous messaging.");
-                body = IOUtils.toByteArray((InputStream) body);
+                body = readBody((InputStream) body);
             }
         }
 
         return body;
     }
 
+    /**
+     * Reads the whole body, into a byte[] if it is not larger than the spill threshold, or into a temporary
+     * file otherwise, in which case a stream over that file is returned.
+     */
+    private Object readBody(InputStream body) throws IOException
+    {
+        if (requestBodySpillThreshold < 0)
+        {
+            return IOUtils.toByteArray(body);
+        }
+        SpillingOutputStream buffer = new SpillingOutputStream(requestBodySpillThreshold, null);
+        try
+        {
+            IOUtils.copyLarge(body, buffer);
+            buffer.close();
+        }
+        catch (IOException e)
+        {
+            buffer.discard();
+            throw e;
+        }
+        return buffer.isInMemory() ? buffer.toByteArray() : buffer.getInputStream();
+    }
+
     protected Object extractPayloadFromHttpMethod(HttpMethod httpMethod) throws IOException
     {
         InputStream body = httpMethod.getResponseBodyAsStream();
@@ -439,4 +465,13 @@ public class HttpMuleMessageFactory extends AbstractMuleMessageFactory
     {
         exchangePattern = mep;
     }
+
+    /**
+     * @param requestBodySpillThreshold the number of bytes of a one-way request body kept in memory, or a
+     *            negative value to keep the whole body in memory
+     */
+    public void setRequestBodySpillThreshold(int requestBodySpillThreshold)
+    {
+        this.requestBodySpillThreshold = requestBodySpillThreshold;
+    }
 }
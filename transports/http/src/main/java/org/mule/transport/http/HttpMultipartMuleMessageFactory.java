@@ -8,19 +8,24 @@ package org.mule.transport.http;
 
 import org.mule.DefaultMuleMessage;
 import org.mule.transport.http.multipart.MultiPartInputStream;
+import org.mule.transport.http.multipart.MultipartConfiguration;
 import org.mule.transport.http.multipart.Part;
 import org.mule.transport.http.multipart.PartDataSource;
 
 import java.io.IOException;
-import java.util.Collection;
 import java.util.Map;
 
 import javax.activation.DataHandler;
+import javax.servlet.ServletException;
 
 public class HttpMultipartMuleMessageFactory extends HttpMuleMessageFactory
 {
 
-    private Collection<Part> parts;
+    private static final String PAYLOAD_PART_NAME = "payload";
+
+    private MultiPartInputStream multiPartInputStream;
+    private Part payloadPart;
+    private int multipartSpillThreshold = -1;
 
     @Override
     protected Object extractPayloadFromHttpRequest(HttpRequest httpRequest) throws IOException
@@ -29,17 +34,22 @@ public class HttpMultipartMuleMessageFactory extends HttpMuleMessageFactory
 
         if (httpRequest.getContentType().contains("multipart/form-data"))
         {
-            MultiPartInputStream in = new MultiPartInputStream(httpRequest.getBody(), httpRequest.getContentType(), null);
-
-            // We need to store this so that the headers for the part can be read
-            parts = in.getParts();
-            for (Part part : parts)
+            // We need to store this so that the headers for the part can be read and the
+            // remaining parts added as attachments
+            multiPartInputStream = new MultiPartInputStream(httpRequest.getBody(), httpRequest.getContentType(),
+                                                            createMultipartConfiguration());
+            try
             {
-                if (part.getName().equals("payload"))
-                {
-                    body = part.getInputStream();
-                    break;
-                }
+                // Only the parts up to the payload are read here
+                payloadPart = multiPartInputStream.getPart(PAYLOAD_PART_NAME);
+            }
+            catch (ServletException e)
+            {
+                throw new IOException(e);
+            }
+            if (payloadPart != null)
+            {
+                body = payloadPart.getInputStream();
             }
         }
         else
@@ -50,16 +60,28 @@ public class HttpMultipartMuleMessageFactory extends HttpMuleMessageFactory
         return body;
     }
 
+    private MultipartConfiguration createMultipartConfiguration()
+    {
+        if (multipartSpillThreshold <= 0)
+        {
+            return null;
+        }
+        return new MultipartConfiguration(MultiPartInputStream.__DEFAULT_MULTIPART_CONFIG.getLocation(), -1L, -1L,
+                                          multipartSpillThreshold);
+    }
+
     @Override
     protected void addAttachments(DefaultMuleMessage message, Object transportMessage) throws Exception
     {
-        if (parts != null)
+        if (multiPartInputStream != null)
         {
             try
             {
-                for (Part part : parts)
+                // Reads the parts after the payload, each one is kept in memory or in a temporary
+                // file depending on its size
+                for (Part part : multiPartInputStream.getParts())
                 {
-                    if (!part.getName().equals("payload"))
+                    if (!part.getName().equals(PAYLOAD_PART_NAME))
                     {
                         message.addInboundAttachment(part.getName(), new DataHandler(new PartDataSource(part)));
                     }
@@ -68,8 +90,8 @@ public class HttpMultipartMuleMessageFactory extends HttpMuleMessageFactory
             finally
             {
                 // Attachments are the last thing to get processed
-                parts.clear();
-                parts = null;
+                multiPartInputStream = null;
+                payloadPart = null;
             }
         }
     }
@@ -77,24 +99,22 @@ public class HttpMultipartMuleMessageFactory extends HttpMuleMessageFactory
     @Override
     protected void convertMultiPartHeaders(Map<String, Object> headers)
     {
-        if (parts != null)
+        if (payloadPart != null)
         {
-            for (Part part : parts)
+            for (String name : payloadPart.getHeaderNames())
             {
-                if (part.getName().equals("payload"))
-                {
-                    for (String name : part.getHeaderNames())
-                    {
-                        headers.put(name, part.getHeader(name));
-                    }
-                    break;
-                }
+                headers.put(name, payloadPart.getHeader(name));
             }
-
         }
+    }
 
+    /**
+     * @param multipartSpillThreshold the number of bytes of each part kept in memory, or zero or less
+     *            to keep parts with a filename in temporary files and other parts in memory
+     */
+    public void setMultipartSpillThreshold(int multipartSpillThreshold)
+    {
+        this.multipartSpillThreshold = multipartSpillThreshold;
     }
 
 }
-
-
@@ -252,6 +252,26 @@ public class HttpResponse
         }
     }
 
+    /**
+     * Replaces the Content-Length header with chunked transfer encoding when the body is larger than the
+     * given number of bytes and the HTTP version of the response allows it.
+     *
+     * @param threshold the body size in bytes, a negative value disables chunking
+     */
+    public void useChunkedEncodingAbove(long threshold)
+    {
+        if (threshold < 0 || !hasBody() || containsHeader(HttpConstants.HEADER_TRANSFER_ENCODING)
+            || getHttpVersion().lessEquals(HttpVersion.HTTP_1_0))
+        {
+            return;
+        }
+        if (getContentLength() > threshold)
+        {
+            removeHeaders(HttpConstants.HEADER_CONTENT_LENGTH);
+            addHeader(new Header(HttpConstants.HEADER_TRANSFER_ENCODING, HttpConstants.TRANSFER_ENCODING_CHUNKED));
+        }
+    }
+
     public boolean hasBody()
     {
         return outputHandler != null;
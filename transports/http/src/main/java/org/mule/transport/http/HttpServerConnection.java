@@ -327,6 +327,16 @@ public class HttpServerConnection implements HandshakeCompletedListener
         ResponseWriter writer = new ResponseWriter(this.out, encoding);
         OutputStream outstream = this.out;
 
+        OutputHandler content = response.getBody();
+        Header transferenc = response.getFirstHeader(HttpConstants.HEADER_TRANSFER_ENCODING);
+        boolean chunked = content != null && transferenc != null
+                          && transferenc.getValue().indexOf(HttpConstants.TRANSFER_ENCODING_CHUNKED) != -1;
+        if (content != null && transferenc != null)
+        {
+            // must be removed before the headers are written
+            response.removeHeaders(HttpConstants.HEADER_CONTENT_LENGTH);
+        }
+
         writer.println(response.getStatusLine());
         Iterator item = response.getHeaderIterator();
         while (item.hasNext())
@@ -337,17 +347,11 @@ public class HttpServerConnection implements HandshakeCompletedListener
         writer.println();
         writer.flush();
 
-        OutputHandler content = response.getBody();
         if (content != null)
         {
-            Header transferenc = response.getFirstHeader(HttpConstants.HEADER_TRANSFER_ENCODING);
-            if (transferenc != null)
+            if (chunked)
             {
-                response.removeHeaders(HttpConstants.HEADER_CONTENT_LENGTH);
-                if (transferenc.getValue().indexOf(HttpConstants.TRANSFER_ENCODING_CHUNKED) != -1)
-                {
-                    outstream = new ChunkedOutputStream(outstream);
-                }
+                outstream = new BoundedChunkedOutputStream(outstream);
             }
 
             content.write(RequestContext.getEvent(), outstream);
@@ -562,4 +566,30 @@ public class HttpServerConnection implements HandshakeCompletedListener
         }
         return this.requestLine;
     }
+
+    /**
+     * Chunked stream that splits large writes, so that a large in memory body is sent in chunks of a
+     * bounded size instead of in a single chunk.
+     */
+    private static class BoundedChunkedOutputStream extends ChunkedOutputStream
+    {
+        private static final int CHUNK_SIZE = 8 * 1024;
+
+        public BoundedChunkedOutputStream(OutputStream stream) throws IOException
+        {
+            super(stream, CHUNK_SIZE);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            while (len > 0)
+            {
+                int size = Math.min(len, CHUNK_SIZE);
+                super.write(b, off, size);
+                off += size;
+                len -= size;
+            }
+        }
+    }
 }
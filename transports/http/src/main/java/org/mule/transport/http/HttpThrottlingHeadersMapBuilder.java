@@ -18,6 +18,7 @@ public class HttpThrottlingHeadersMapBuilder
     private Long remainingRequestInCurrentPeriod;
     private Long maximumRequestAllowedPerPeriod;
     private Long timeUntilNextPeriodInMillis;
+    private Long retryAfterSeconds;
 
     public void setThrottlingPolicyStatistics(long remainingRequestInCurrentPeriod, long maximumRequestAllowedPerPeriod, long timeUntilNextPeriodInMillis)
     {
@@ -26,12 +27,21 @@ public class HttpThrottlingHeadersMapBuilder
         this.timeUntilNextPeriodInMillis = timeUntilNextPeriodInMillis;
     }
 
+    /**
+     * Sets the Retry-After header, rounding the given time up to whole seconds as the header requires.
+     */
+    public void setRetryAfter(long retryAfterMillis)
+    {
+        this.retryAfterSeconds = (retryAfterMillis + 999) / 1000;
+    }
+
     public Map<String, String> build()
     {
         Map<String, String> throttlingHeaders = new HashMap<String, String>();
         addToMapIfNotNull(throttlingHeaders, HttpMessageProcessTemplate.X_RATE_LIMIT_LIMIT_HEADER, this.maximumRequestAllowedPerPeriod);
         addToMapIfNotNull(throttlingHeaders, HttpMessageProcessTemplate.X_RATE_LIMIT_REMAINING_HEADER, this.remainingRequestInCurrentPeriod);
         addToMapIfNotNull(throttlingHeaders, HttpMessageProcessTemplate.X_RATE_LIMIT_RESET_HEADER, this.timeUntilNextPeriodInMillis);
+        addToMapIfNotNull(throttlingHeaders, HttpConstants.HEADER_RETRY_AFTER, this.retryAfterSeconds);
         return throttlingHeaders;
     }
 
@@ -0,0 +1,361 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import org.mule.api.transport.ConnectionPoolStatistics;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.httpclient.ConnectionPoolTimeoutException;
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpConnection;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+
+/**
+ * The connection pool used by the {@link HttpConnector} for outbound requests. Connections are pooled per host
+ * (route), limited by the connector's <code>maxConnectionsPerHost</code> and <code>maxTotalConnections</code>,
+ * and kept alive between requests.
+ * <p/>
+ * On top of the pooling provided by {@link MultiThreadedHttpConnectionManager}, this manager records for every
+ * route how many connections were requested and how many of them were open keep-alive connections reused from
+ * the pool, so the effectiveness of connection reuse can be monitored.
+ * <p/>
+ * By default a request waits for a connection as long as the client allows. When an acquire timeout is set,
+ * a request waits at most that long for a connection of its route, or fails almost right away with a
+ * {@link ConnectionPoolTimeoutException} if the timeout is 0, so a slow backend makes its callers fail fast
+ * instead of holding their threads. The wait is the one of the pool itself, so a connection lost by its
+ * caller and reclaimed by the pool becomes available again.
+ * <p/>
+ * Connections are tracked from the time they are handed out until they are released or, when their caller
+ * loses them, until they are garbage collected, so that lost connections are not counted as active forever.
+ */
+public class PooledHttpConnectionManager extends MultiThreadedHttpConnectionManager implements ConnectionPoolStatistics
+{
+    /**
+     * Acquire timeout value that leaves waiting for a connection to the client
+     */
+    public static final long WAIT_FOR_CONNECTION = -1;
+
+    private final ConcurrentMap<String, RouteStatistics> routeStatistics = new ConcurrentHashMap<String, RouteStatistics>();
+    private final ConcurrentMap<Lease, Lease> leases = new ConcurrentHashMap<Lease, Lease>();
+    private final ReferenceQueue<Object> lostConnections = new ReferenceQueue<Object>();
+    private volatile long acquireTimeout = WAIT_FOR_CONNECTION;
+
+    @Override
+    public HttpConnection getConnectionWithTimeout(HostConfiguration hostConfiguration, long timeout)
+        throws ConnectionPoolTimeoutException
+    {
+        forgetLostConnections();
+        RouteStatistics statistics = getRouteStatistics(routeKey(hostConfiguration));
+        HttpConnection connection;
+        try
+        {
+            connection = super.getConnectionWithTimeout(hostConfiguration, acquireTimeout(timeout));
+        }
+        catch (ConnectionPoolTimeoutException e)
+        {
+            statistics.rejected.incrementAndGet();
+            throw e;
+        }
+        // the connection handed out wraps a pooled connection, which is what is released later on
+        Lease lease = new Lease(connection.getParams(), lostConnections);
+        leases.put(lease, lease);
+        statistics.connectionAcquired(connection.isOpen());
+        return connection;
+    }
+
+    @Override
+    public void releaseConnection(HttpConnection connection)
+    {
+        Lease lease = leaseOf(connection);
+        super.releaseConnection(connection);
+        if (lease != null && leases.remove(lease) != null)
+        {
+            lease.clear();
+        }
+        forgetLostConnections();
+    }
+
+    /**
+     * The client waits forever on a timeout of 0, so failing right away waits for the shortest time instead
+     */
+    private long acquireTimeout(long timeout)
+    {
+        if (acquireTimeout == WAIT_FOR_CONNECTION)
+        {
+            return timeout;
+        }
+        long limit = Math.max(1, acquireTimeout);
+        return timeout <= 0 ? limit : Math.min(timeout, limit);
+    }
+
+    private Lease leaseOf(HttpConnection connection)
+    {
+        try
+        {
+            // a connection and the adapter handed out for it share their parameters
+            return new Lease(connection.getParams(), null);
+        }
+        catch (IllegalStateException e)
+        {
+            // an adapter that was already released
+            return null;
+        }
+    }
+
+    private void forgetLostConnections()
+    {
+        Reference<?> lost;
+        while ((lost = lostConnections.poll()) != null)
+        {
+            leases.remove(lost);
+        }
+    }
+
+    public long getAcquireTimeout()
+    {
+        return acquireTimeout;
+    }
+
+    /**
+     * Sets how long in milliseconds a request waits for a connection when its route or the pool is exhausted:
+     * 0 to fail right away, or {@link #WAIT_FOR_CONNECTION} to wait as long as the client allows.
+     */
+    public void setAcquireTimeout(long acquireTimeout)
+    {
+        this.acquireTimeout = acquireTimeout < 0 ? WAIT_FOR_CONNECTION : acquireTimeout;
+    }
+
+    /**
+     * @return a snapshot of the statistics of every route used so far, keyed by scheme, host and port (i.e.
+     *         <code>http://localhost:8080</code>)
+     */
+    public Map<String, RouteStatistics> getRouteStatistics()
+    {
+        return Collections.unmodifiableMap(new HashMap<String, RouteStatistics>(routeStatistics));
+    }
+
+    /**
+     * @return the number of connections handed out for all routes
+     */
+    public long getConnectionRequests()
+    {
+        long total = 0;
+        for (RouteStatistics statistics : routeStatistics.values())
+        {
+            total += statistics.getConnectionRequests();
+        }
+        return total;
+    }
+
+    /**
+     * @return the number of connections handed out for all routes that were already open
+     */
+    public long getReusedConnections()
+    {
+        long total = 0;
+        for (RouteStatistics statistics : routeStatistics.values())
+        {
+            total += statistics.getReusedConnections();
+        }
+        return total;
+    }
+
+    /**
+     * @return the number of requests that got no connection, because none became available in time
+     */
+    public long getRejectedConnections()
+    {
+        long total = 0;
+        for (RouteStatistics statistics : routeStatistics.values())
+        {
+            total += statistics.getRejectedConnections();
+        }
+        return total;
+    }
+
+    public int getNumActive()
+    {
+        forgetLostConnections();
+        return leases.size();
+    }
+
+    public int getNumIdle()
+    {
+        return Math.max(0, getConnectionsInPool() - getNumActive());
+    }
+
+    public int getMaxActive()
+    {
+        return getParams().getMaxTotalConnections();
+    }
+
+    public int getMaxIdle()
+    {
+        return getParams().getMaxTotalConnections();
+    }
+
+    public int getMinIdle()
+    {
+        return 0;
+    }
+
+    /**
+     * @return the number of requests that had to open a connection
+     */
+    public long getCreatedConnections()
+    {
+        return getConnectionRequests() - getReusedConnections();
+    }
+
+    /**
+     * @return -1, connections closed by the client are not reported to the manager
+     */
+    public long getDestroyedConnections()
+    {
+        return -1;
+    }
+
+    public long getFailedConnections()
+    {
+        return getRejectedConnections();
+    }
+
+    /**
+     * @return -1, stale connections are detected and reopened by the client itself
+     */
+    public long getInvalidConnections()
+    {
+        return -1;
+    }
+
+    public Map<String, String> getRouteUsage()
+    {
+        Map<String, String> usage = new LinkedHashMap<String, String>();
+        for (Map.Entry<String, RouteStatistics> entry : routeStatistics.entrySet())
+        {
+            usage.put(entry.getKey(), entry.getValue().toString());
+        }
+        return usage;
+    }
+
+    private String routeKey(HostConfiguration hostConfiguration)
+    {
+        return hostConfiguration.getProtocol().getScheme() + "://" + hostConfiguration.getHost() + ":"
+               + hostConfiguration.getPort();
+    }
+
+    private RouteStatistics getRouteStatistics(String route)
+    {
+        RouteStatistics statistics = routeStatistics.get(route);
+        if (statistics == null)
+        {
+            statistics = new RouteStatistics();
+            RouteStatistics previous = routeStatistics.putIfAbsent(route, statistics);
+            if (previous != null)
+            {
+                statistics = previous;
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * A connection handed out and not released yet. It refers weakly to the parameters of the pooled
+     * connection, which live as long as the connection, and equals the leases of the same parameters.
+     */
+    private static class Lease extends WeakReference<Object>
+    {
+        private final int hash;
+
+        Lease(Object connectionParams, ReferenceQueue<Object> queue)
+        {
+            super(connectionParams, queue);
+            this.hash = System.identityHashCode(connectionParams);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            if (this == other)
+            {
+                return true;
+            }
+            if (!(other instanceof Lease))
+            {
+                return false;
+            }
+            Object referent = get();
+            return referent != null && referent == ((Lease) other).get();
+        }
+    }
+
+    /**
+     * Connection usage of a single route
+     */
+    public static class RouteStatistics
+    {
+        private final AtomicLong connectionRequests = new AtomicLong();
+        private final AtomicLong reusedConnections = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+
+        void connectionAcquired(boolean reused)
+        {
+            connectionRequests.incrementAndGet();
+            if (reused)
+            {
+                reusedConnections.incrementAndGet();
+            }
+        }
+
+        public long getConnectionRequests()
+        {
+            return connectionRequests.get();
+        }
+
+        public long getReusedConnections()
+        {
+            return reusedConnections.get();
+        }
+
+        public long getRejectedConnections()
+        {
+            return rejected.get();
+        }
+
+        /**
+         * @return the fraction of requests that reused an open connection, 0 if there were no requests
+         */
+        public double getReuseRatio()
+        {
+            long requests = getConnectionRequests();
+            return requests == 0 ? 0 : (double) getReusedConnections() / requests;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("requests=%d, reused=%d, rejected=%d", getConnectionRequests(), getReusedConnections(),
+                getRejectedConnections());
+        }
+    }
+}
@@ -26,13 +26,17 @@ import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.StringTokenizer;
 
@@ -47,6 +51,8 @@ import org.apache.commons.io.input.AutoCloseInputStream;
 */
 public class MultiPartInputStream
 {
+    private static final int SPILL_BUFFER_SIZE = 8 * 1024;
+
     public static final MultipartConfiguration __DEFAULT_MULTIPART_CONFIG = new MultipartConfiguration(System.getProperty("java.io.tmpdir"));
     protected InputStream _in;
     protected MultipartConfiguration _config;
@@ -54,6 +60,9 @@ public class MultiPartInputStream
     protected MultiMap _map;
     protected Map<String, Part> _parts;
     protected File _tmpDir;
+    protected byte[] _byteBoundary;
+    protected long _total;
+    protected boolean _lastPart;
 
 
 
@@ -86,8 +95,9 @@ public class MultiPartInputStream
         {
             //We will either be writing to a file, if it has a filename on the content-disposition
             //and otherwise a byte-array-input-stream, OR if we exceed the getFileSizeThreshold, we
-            //will need to change to write to a file.
-            if (_filename != null && _filename.trim().length() > 0)
+            //will need to change to write to a file. When a threshold is configured it applies to
+            //every part, so small uploaded files are kept in memory as well.
+            if (MultiPartInputStream.this._config.getFileSizeThreshold() <= 0 && _filename != null && _filename.trim().length() > 0)
             {
                 createFile();
             }
@@ -135,17 +145,16 @@ public class MultiPartInputStream
         throws IOException
         {
             _file = File.createTempFile("MultiPart", "", MultiPartInputStream.this._tmpDir);
-            FileOutputStream fos = new FileOutputStream(_file);
-            BufferedOutputStream bos = new BufferedOutputStream(fos);
+            FileChannel channel = new FileOutputStream(_file).getChannel();
 
             if (_size > 0 && _out != null)
             {
                 //already written some bytes, so need to copy them into the file
                 _out.flush();
-                ((ByteArrayOutputStream)_out).writeTo(bos);
+                writeFully(channel, ByteBuffer.wrap(((ByteArrayOutputStream)_out).toByteArray()));
                 _out.close();
             }
-            _out = bos;
+            _out = new BufferedOutputStream(Channels.newOutputStream(channel), SPILL_BUFFER_SIZE);
         }
 
 
@@ -229,23 +238,27 @@ public class MultiPartInputStream
             {
                 //part data is only in the ByteArrayOutputStream and never been written to disk
                 _file = new File (_tmpDir, fileName);
-                BufferedOutputStream bos = null;
+                FileChannel channel = new FileOutputStream(_file).getChannel();
                 try
                 {
-                    bos = new BufferedOutputStream(new FileOutputStream(_file));
-                    ((ByteArrayOutputStream)_out).writeTo(bos);
-                    bos.flush();
+                    writeFully(channel, ByteBuffer.wrap(((ByteArrayOutputStream)_out).toByteArray()));
                 }
                 finally
                 {
-                    if (bos != null)
-                        bos.close();
+                    channel.close();
                 }
             }
             else
             {
-                //the part data is already written to a temporary file, just rename it
-                _file.renameTo(new File(_tmpDir, fileName));
+                //the part data is already written to a temporary file, just rename it, or copy
+                //it when the target is on another file system
+                File target = new File(_tmpDir, fileName);
+                if (!_file.renameTo(target))
+                {
+                    transfer(_file, target);
+                    _file.delete();
+                }
+                _file = target;
             }
         }
 
@@ -306,10 +319,18 @@ public class MultiPartInputStream
     }
 
 
+    /**
+     * Parses the input only up to the requested part, the parts after it are parsed when
+     * they are requested or when {@link #getParts()} is called.
+     */
     public Part getPart(String name)
     throws IOException, ServletException
     {
-        parse();
+        init();
+        while (!_parts.containsKey(name) && parseNextPart() != null)
+        {
+            // keep reading until the part shows up or there are no more parts
+        }
         return _parts.get(name);
     }
 
@@ -325,17 +346,31 @@ public class MultiPartInputStream
     protected void parse ()
     throws IOException
     {
-        //have we already parsed the input?
+        init();
+        while (parseNextPart() != null)
+        {
+            // parse all remaining parts
+        }
+    }
+
+
+    protected void init ()
+    throws IOException
+    {
+        //have we already started parsing the input?
         if (_parts != null)
             return;
 
         //initialize
-        long total = 0; //keep running total of size of bytes read from input and throw an exception if exceeds MultipartConfiguration._maxRequestSize
-        _parts = new HashMap<String, Part>();
+        _total = 0; //keep running total of size of bytes read from input and throw an exception if exceeds MultipartConfiguration._maxRequestSize
+        _parts = new LinkedHashMap<String, Part>();
 
         //if its not a multipart request, don't parse it
         if (_contentType == null || !_contentType.startsWith("multipart/form-data"))
+        {
+            _lastPart = true;
             return;
+        }
 
         //sort out the location to which to write the files
         String location = __DEFAULT_MULTIPART_CONFIG.getLocation();
@@ -347,7 +382,7 @@ public class MultiPartInputStream
 
 
         String boundary="--"+value(_contentType.substring(_contentType.indexOf("boundary=")));
-        byte[] byteBoundary=(boundary+"--").getBytes("ISO-8859-1");
+        _byteBoundary=(boundary+"--").getBytes("ISO-8859-1");
 
         // Get first boundary
         byte[] bytes;
@@ -361,28 +396,42 @@ public class MultiPartInputStream
 
         if (line == null)
         {
+            _lastPart = true;
             throw new IOException("Missing initial multi part boundary");
         }
+    }
+
 
-        // Read each part
-        boolean lastPart=false;
+    /**
+     * Reads the next part from the input.
+     *
+     * @return the part read or null if there are no more parts
+     */
+    protected MultiPart parseNextPart ()
+    throws IOException
+    {
+        byte[] bytes;
+        String line;
         String contentDisposition=null;
         String contentType=null;
-        outer:while(!lastPart)
+        while(!_lastPart)
         {
             MultiMap<String> headers = new MultiMap<String>();
             while(true)
             {
                 bytes=readLine(_in);
                 if(bytes==null)
-                    break outer;
+                {
+                    _lastPart=true;
+                    return null;
+                }
 
                 // If blank line, end of part headers
                 if(bytes.length==0)
                     break;
 
-                total += bytes.length;
-                if (_config.getMaxRequestSize() > 0 && total > _config.getMaxRequestSize())
+                _total += bytes.length;
+                if (_config.getMaxRequestSize() > 0 && _total > _config.getMaxRequestSize())
                     throw new IOException ("Request exceeds maxRequestSize ("+_config.getMaxRequestSize()+")");
 
                 line=new String(bytes,"UTF-8");
@@ -459,8 +508,8 @@ public class MultiPartInputStream
                     int b=0;
                     while((c=(state!=-2)?state:_in.read())!=-1)
                     {
-                        total ++;
-                        if (_config.getMaxRequestSize() > 0 && total > _config.getMaxRequestSize())
+                        _total ++;
+                        if (_config.getMaxRequestSize() > 0 && _total > _config.getMaxRequestSize())
                             throw new IOException("Request exceeds maxRequestSize ("+_config.getMaxRequestSize()+")");
 
                         state=-2;
@@ -472,7 +521,7 @@ public class MultiPartInputStream
                             break;
                         }
                         // look for boundary
-                        if(b>=0&&b<byteBoundary.length&&c==byteBoundary[b])
+                        if(b>=0&&b<_byteBoundary.length&&c==_byteBoundary[b])
                             b++;
                         else
                         {
@@ -485,14 +534,14 @@ public class MultiPartInputStream
 
                             cr=lf=false;
                             if(b>0)
-                                part.write(byteBoundary,0,b);
+                                part.write(_byteBoundary,0,b);
 
                             b=-1;
                             part.write(c);
                         }
                     }
                     // check partial boundary
-                    if((b>0&&b<byteBoundary.length-2)||(b==byteBoundary.length-1))
+                    if((b>0&&b<_byteBoundary.length-2)||(b==_byteBoundary.length-1))
                     {
                         if(cr)
                             part.write(13);
@@ -501,14 +550,14 @@ public class MultiPartInputStream
                             part.write(10);
 
                         cr=lf=false;
-                        part.write(byteBoundary,0,b);
+                        part.write(_byteBoundary,0,b);
                         b=-1;
                     }
                     // boundary match
                     if(b>0||c==-1)
                     {
-                        if(b==byteBoundary.length)
-                            lastPart=true;
+                        if(b==_byteBoundary.length)
+                            _lastPart=true;
                         if(state==10)
                             state=-2;
                         break;
@@ -531,9 +580,47 @@ public class MultiPartInputStream
 
                 part.close();
             }
+            return part;
+        }
+        return null;
+    }
+
+
+    /* ------------------------------------------------------------ */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
         }
     }
 
+    /* ------------------------------------------------------------ */
+    private static void transfer(File source, File target) throws IOException
+    {
+        FileChannel in = new FileInputStream(source).getChannel();
+        try
+        {
+            FileChannel out = new FileOutputStream(target).getChannel();
+            try
+            {
+                long position = 0;
+                long size = in.size();
+                while (position < size)
+                {
+                    position += in.transferTo(position, size - position, out);
+                }
+            }
+            finally
+            {
+                out.close();
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+    }
 
     /* ------------------------------------------------------------ */
     private String value(String nameEqualsValue)
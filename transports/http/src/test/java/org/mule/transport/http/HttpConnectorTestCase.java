@@ -9,6 +9,7 @@ package org.mule.transport.http;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -110,6 +111,31 @@ public class HttpConnectorTestCase extends AbstractConnectorTestCase
         // all kinds of timeouts are now being tested in TcpConnectorTestCase
     }
 
+    @Test
+    public void configuredConnectionLimits() throws Exception
+    {
+        HttpConnector c = new HttpConnector(muleContext);
+        c.setName("LimitedHttpConnector");
+        c.setMaxTotalConnections(200);
+        c.setMaxConnectionsPerHost(20);
+        c.setConnectionAcquireTimeout(0);
+        c.initialise();
+        try
+        {
+            assertTrue(c.getClientConnectionManager() instanceof PooledHttpConnectionManager);
+            HttpConnectionManagerParams params = c.getClientConnectionManager().getParams();
+            assertEquals(20, params.getDefaultMaxConnectionsPerHost());
+            assertEquals(200, params.getMaxTotalConnections());
+            assertEquals(0, ((PooledHttpConnectionManager) c.getClientConnectionManager()).getAcquireTimeout());
+            assertSame(c.getClientConnectionManager(), c.getConnectionPoolStatistics());
+            assertEquals(200, c.getConnectionPoolStatistics().getMaxActive());
+        }
+        finally
+        {
+            c.dispose();
+        }
+    }
+
     @Test
     public void findReceiverByStem() throws Exception
     {
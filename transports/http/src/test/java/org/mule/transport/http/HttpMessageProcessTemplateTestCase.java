@@ -8,7 +8,13 @@ package org.mule.transport.http;
 
 import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyMapOf;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.any;
 
@@ -17,6 +23,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
@@ -26,6 +33,17 @@ import org.mule.api.MuleException;
 import org.mule.api.MuleMessage;
 import org.mule.api.config.MuleProperties;
 import org.mule.api.context.WorkManager;
+import org.mule.api.exception.SystemExceptionHandler;
+import org.mule.execution.EndProcessPhase;
+import org.mule.execution.FlowConcurrencyLimiter;
+import org.mule.execution.MessageProcessContext;
+import org.mule.execution.MessageProcessPhase;
+import org.mule.execution.MessageProcessTemplate;
+import org.mule.execution.PhaseExecutionEngine;
+import org.mule.execution.PhaseResultNotifier;
+
+import java.util.Collections;
+import java.util.Map;
 
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsEqual.equalTo;
@@ -137,4 +155,28 @@ public class HttpMessageProcessTemplateTestCase
         assertThat(retMessage.<String>getInboundProperty(MuleProperties.MULE_PROXY_ADDRESS), is(equalTo(PROXY_2_ADDRESS)));
     }
 
+    @Test
+    public void respondsServiceUnavailableWhenFlowIsSaturated() throws Exception
+    {
+        // the phase never completes, so the first request keeps the only permit of the flow
+        MessageProcessPhase processPhase = mock(MessageProcessPhase.class);
+        when(processPhase.supportsTemplate(any(MessageProcessTemplate.class))).thenReturn(true);
+        MessageProcessContext processContext = mock(MessageProcessContext.class, Answers.RETURNS_DEEP_STUBS.get());
+        when(processContext.getFlowConstruct().getName()).thenReturn("saturatedFlow");
+        when(processContext.getExecutionClassLoader()).thenReturn(getClass().getClassLoader());
+        PhaseExecutionEngine engine = new PhaseExecutionEngine(Collections.singletonList(processPhase),
+                                                               mock(SystemExceptionHandler.class),
+                                                               mock(EndProcessPhase.class),
+                                                               new FlowConcurrencyLimiter(1, 1));
+
+        engine.process(new HttpMessageProcessTemplate(messageReceiver, httpServerConnection), processContext);
+        verify(httpServerConnection, never()).writeFailureResponse(anyInt(), anyString(), anyMapOf(String.class, String.class));
+
+        engine.process(new HttpMessageProcessTemplate(messageReceiver, httpServerConnection), processContext);
+        ArgumentCaptor<Map> headers = ArgumentCaptor.forClass(Map.class);
+        verify(httpServerConnection).writeFailureResponse(eq(HttpConstants.SC_SERVICE_UNAVAILABLE), anyString(), headers.capture());
+        assertThat((String) headers.getValue().get(HttpConstants.HEADER_RETRY_AFTER), is(equalTo("1")));
+        verify(processPhase).runPhase(any(MessageProcessTemplate.class), any(MessageProcessContext.class), any(PhaseResultNotifier.class));
+    }
+
 }
@@ -6,6 +6,7 @@
  */
 package org.mule.transport.http;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -14,6 +15,7 @@ import org.mule.api.MuleMessage;
 import org.mule.api.transport.MuleMessageFactory;
 import org.mule.transport.AbstractMuleMessageFactoryTestCase;
 import org.mule.transport.NullPayload;
+import org.mule.util.IOUtils;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
@@ -87,6 +89,18 @@ public class HttpMultipartMuleMessageFactoryTestCase extends AbstractMuleMessage
         assertTrue(message.getPayload() instanceof NullPayload);
     }
 
+    @Test
+    public void testAttachmentsWithSpillThreshold() throws Exception
+    {
+        HttpMultipartMuleMessageFactory factory = (HttpMultipartMuleMessageFactory) createMuleMessageFactory();
+        factory.setExchangePattern(MessageExchangePattern.ONE_WAY);
+        factory.setMultipartSpillThreshold(4);
+        HttpRequest request = createMultiPartHttpRequest(MULTIPART_MESSAGE);
+        MuleMessage message = factory.create(request, encoding, muleContext);
+        assertEquals("part payload\r\n", IOUtils.toString((InputStream) message.getPayload()));
+        assertEquals("part two\r\n", IOUtils.toString(message.getInboundAttachment("two").getInputStream()));
+    }
+
     private HttpRequest createMultiPartHttpRequest(String message) throws Exception
     {
         RequestLine requestLine = RequestLine.parseLine(REQUEST_LINE);
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import org.apache.commons.httpclient.HttpVersion;
+import org.junit.Test;
+
+@SmallTest
+public class HttpResponseChunkedEncodingTestCase extends AbstractMuleTestCase
+{
+
+    @Test
+    public void chunksBodyLargerThanThreshold()
+    {
+        HttpResponse response = new HttpResponse();
+        response.setBody("0123456789");
+        response.useChunkedEncodingAbove(5);
+
+        assertFalse(response.containsHeader(HttpConstants.HEADER_CONTENT_LENGTH));
+        assertEquals(HttpConstants.TRANSFER_ENCODING_CHUNKED, response.getFirstHeader(HttpConstants.HEADER_TRANSFER_ENCODING).getValue());
+    }
+
+    @Test
+    public void keepsContentLengthOfSmallBody()
+    {
+        HttpResponse response = new HttpResponse();
+        response.setBody("0123456789");
+        response.useChunkedEncodingAbove(10);
+
+        assertEquals(10, response.getContentLength());
+        assertFalse(response.containsHeader(HttpConstants.HEADER_TRANSFER_ENCODING));
+    }
+
+    @Test
+    public void doesNotChunkForHttp10()
+    {
+        HttpResponse response = new HttpResponse();
+        response.setStatusLine(HttpVersion.HTTP_1_0, HttpConstants.SC_OK);
+        response.setBody("0123456789");
+        response.useChunkedEncodingAbove(5);
+
+        assertTrue(response.containsHeader(HttpConstants.HEADER_CONTENT_LENGTH));
+    }
+}
@@ -33,4 +33,14 @@ public class HttpThrottlingHeadersTestCase extends AbstractMuleTestCase
         assertEquals(String.valueOf(RESET_TIME), headersMap.get(HttpMessageProcessTemplate.X_RATE_LIMIT_RESET_HEADER));
     }
 
+    @Test
+    public void retryAfterIsRoundedUpToSeconds()
+    {
+        HttpThrottlingHeadersMapBuilder builder = new HttpThrottlingHeadersMapBuilder();
+        builder.setRetryAfter(1500);
+        Map<String, String> headersMap = builder.build();
+        assertEquals(1, headersMap.size());
+        assertEquals("2", headersMap.get(HttpConstants.HEADER_RETRY_AFTER));
+    }
+
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.probe.JUnitProbe;
+import org.mule.tck.probe.PollingProber;
+import org.mule.tck.size.SmallTest;
+
+import org.apache.commons.httpclient.ConnectionPoolTimeoutException;
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpConnection;
+import org.junit.After;
+import org.junit.Test;
+
+@SmallTest
+public class PooledHttpConnectionManagerTestCase extends AbstractMuleTestCase
+{
+
+    private final PooledHttpConnectionManager manager = new PooledHttpConnectionManager();
+
+    @After
+    public void shutdown()
+    {
+        manager.shutdown();
+    }
+
+    @Test
+    public void recordsRequestsPerRoute() throws Exception
+    {
+        HostConfiguration first = hostConfiguration("localhost", 8081);
+        HostConfiguration second = hostConfiguration("localhost", 8082);
+
+        manager.releaseConnection(manager.getConnectionWithTimeout(first, 0));
+        manager.releaseConnection(manager.getConnectionWithTimeout(first, 0));
+        manager.releaseConnection(manager.getConnectionWithTimeout(second, 0));
+
+        assertEquals(3, manager.getConnectionRequests());
+        assertEquals(2, manager.getRouteStatistics().get("http://localhost:8081").getConnectionRequests());
+        assertEquals(1, manager.getRouteStatistics().get("http://localhost:8082").getConnectionRequests());
+        // connections were never opened, so none of them could be reused
+        assertEquals(0, manager.getReusedConnections());
+    }
+
+    @Test
+    public void failsFastWhenRouteIsExhausted() throws Exception
+    {
+        manager.getParams().setDefaultMaxConnectionsPerHost(1);
+        manager.setAcquireTimeout(0);
+        HostConfiguration route = hostConfiguration("localhost", 8081);
+
+        HttpConnection connection = manager.getConnectionWithTimeout(route, 0);
+        try
+        {
+            manager.getConnectionWithTimeout(route, 0);
+            fail("The route has a single connection, which is in use");
+        }
+        catch (ConnectionPoolTimeoutException e)
+        {
+            // expected
+        }
+        // other routes are not affected
+        manager.releaseConnection(manager.getConnectionWithTimeout(hostConfiguration("localhost", 8082), 0));
+
+        manager.releaseConnection(connection);
+        manager.releaseConnection(manager.getConnectionWithTimeout(route, 0));
+
+        assertEquals(1, manager.getRejectedConnections());
+        assertEquals(1, manager.getFailedConnections());
+        assertEquals(0, manager.getNumActive());
+        assertTrue(manager.getRouteUsage().get("http://localhost:8081").contains("rejected=1"));
+    }
+
+    @Test
+    public void waitsForConnectionUpToTimeout() throws Exception
+    {
+        manager.getParams().setDefaultMaxConnectionsPerHost(1);
+        manager.setAcquireTimeout(50);
+        HostConfiguration route = hostConfiguration("localhost", 8081);
+
+        HttpConnection connection = manager.getConnectionWithTimeout(route, 0);
+        long start = System.currentTimeMillis();
+        try
+        {
+            manager.getConnectionWithTimeout(route, 0);
+            fail("The route has a single connection, which is in use");
+        }
+        catch (ConnectionPoolTimeoutException e)
+        {
+            assertTrue(System.currentTimeMillis() - start >= 40);
+        }
+        assertEquals(1, manager.getNumActive());
+        manager.releaseConnection(connection);
+    }
+
+    @Test
+    public void reclaimsConnectionsLostByCallers() throws Exception
+    {
+        manager.getParams().setDefaultMaxConnectionsPerHost(1);
+        manager.setAcquireTimeout(0);
+        final HostConfiguration route = hostConfiguration("localhost", 8081);
+
+        // the caller never releases the connection
+        manager.getConnectionWithTimeout(route, 0);
+
+        new PollingProber(5000, 50).check(new JUnitProbe()
+        {
+            @Override
+            protected boolean test() throws Exception
+            {
+                System.gc();
+                manager.releaseConnection(manager.getConnectionWithTimeout(route, 0));
+                return manager.getNumActive() == 0;
+            }
+
+            @Override
+            public String describeFailure()
+            {
+                return "The lost connection was not reclaimed";
+            }
+        });
+    }
+
+    @Test
+    public void doesNotReportUnobservedEvents() throws Exception
+    {
+        assertEquals(-1, manager.getDestroyedConnections());
+        assertEquals(-1, manager.getInvalidConnections());
+    }
+
+    @Test
+    public void noRequestsMeansNoReuse() throws Exception
+    {
+        assertEquals(0, new PooledHttpConnectionManager.RouteStatistics().getReuseRatio(), 0);
+    }
+
+    private HostConfiguration hostConfiguration(String host, int port)
+    {
+        HostConfiguration hostConfiguration = new HostConfiguration();
+        hostConfiguration.setHost(host, port);
+        return hostConfiguration;
+    }
+}
@@ -7,7 +7,10 @@
 package org.mule.transport.http.multipart;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
 import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
 
 import org.mule.tck.junit4.AbstractMuleTestCase;
 import org.mule.util.FileUtils;
@@ -81,11 +84,73 @@ public class MultiPartInputStreamTestCase extends AbstractMuleTestCase
         buildMultiPartInputStream("\nprologue\n" + multipartMessage);
     }
 
-    private void buildMultiPartInputStream(String body) throws Exception
+    @Test
+    public void parsesOnlyUpToRequestedPart() throws Exception
+    {
+        // The part after the first one has no content-disposition, so the input can only be
+        // parsed completely when all the parts are requested
+        String body = "--" + MULTIPART_BOUNDARY + "\r\n"
+                      + "Content-Disposition: form-data; name=\"first\"\r\n\r\n"
+                      + "first content\r\n"
+                      + "--" + MULTIPART_BOUNDARY + "\r\n"
+                      + "Content-Type: text/plain\r\n\r\n"
+                      + "second content\r\n"
+                      + "--" + MULTIPART_BOUNDARY + "--\r\n";
+        MultiPartInputStream mpis = createMultiPartInputStream(body, new MultipartConfiguration(TMP_DIR));
+
+        Part first = mpis.getPart("first");
+        assertNotNull(first);
+        assertEquals("first content", IOUtils.toString(first.getInputStream()));
+
+        try
+        {
+            mpis.getParts();
+            fail("The second part should have been parsed");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void keepsPartsBelowSpillThresholdInMemory() throws Exception
+    {
+        MultiPartInputStream mpis = createMultiPartInputStream(multipartMessage,
+                                                               new MultipartConfiguration(TMP_DIR, -1, -1, 100));
+
+        for (Part part : mpis.getParts())
+        {
+            assertNull(((MultiPartInputStream.MultiPart) part).getFile());
+        }
+        assertTrue("Temporary directory should be empty", FileUtils.listFiles(tmpDir, null, false).isEmpty());
+    }
+
+    @Test
+    public void spillsPartsAboveSpillThresholdToDisk() throws Exception
+    {
+        MultiPartInputStream mpis = createMultiPartInputStream(multipartMessage,
+                                                               new MultipartConfiguration(TMP_DIR, -1, -1, 4));
+
+        Set<String> parsedPartContents = new HashSet<String>();
+        for (Part part : mpis.getParts())
+        {
+            assertNotNull(((MultiPartInputStream.MultiPart) part).getFile());
+            parsedPartContents.add(IOUtils.toString(part.getInputStream()));
+        }
+        assertEquals(partContents, parsedPartContents);
+        assertTrue("Temporary directory should be empty", FileUtils.listFiles(tmpDir, null, false).isEmpty());
+    }
+
+    private MultiPartInputStream createMultiPartInputStream(String body, MultipartConfiguration configuration) throws Exception
     {
         ByteArrayInputStream bis = new ByteArrayInputStream(body.getBytes("UTF-8"));
-        MultiPartInputStream mpis = new MultiPartInputStream(bis, "multipart/form-data; boundary=" + MULTIPART_BOUNDARY,
-                                                             new MultipartConfiguration(TMP_DIR));
+        return new MultiPartInputStream(bis, "multipart/form-data; boundary=" + MULTIPART_BOUNDARY, configuration);
+    }
+
+    private void buildMultiPartInputStream(String body) throws Exception
+    {
+        MultiPartInputStream mpis = createMultiPartInputStream(body, new MultipartConfiguration(TMP_DIR));
 
         Collection<Part> parts = mpis.getParts();
         assertEquals(NUMBER_OF_PARTS, parts.size());
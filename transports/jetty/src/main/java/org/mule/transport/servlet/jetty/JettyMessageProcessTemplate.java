@@ -13,18 +13,20 @@ import org.mule.api.MuleEvent;
 import org.mule.api.MuleException;
 import org.mule.api.MuleMessage;
 import org.mule.config.ExceptionHelper;
+import org.mule.execution.ConcurrencyLimitPhaseTemplate;
 import org.mule.execution.RequestResponseFlowProcessingPhaseTemplate;
 import org.mule.execution.ThrottlingPhaseTemplate;
 import org.mule.transport.AbstractMessageReceiver;
 import org.mule.transport.AbstractTransportMessageProcessTemplate;
 import org.mule.transport.http.HttpConnector;
+import org.mule.transport.http.HttpConstants;
 import org.mule.transport.http.HttpThrottlingHeadersMapBuilder;
 import org.mule.transport.servlet.ServletResponseWriter;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-public class JettyMessageProcessTemplate extends AbstractTransportMessageProcessTemplate implements RequestResponseFlowProcessingPhaseTemplate, ThrottlingPhaseTemplate
+public class JettyMessageProcessTemplate extends AbstractTransportMessageProcessTemplate implements RequestResponseFlowProcessingPhaseTemplate, ThrottlingPhaseTemplate, ConcurrencyLimitPhaseTemplate
 {
 
     private final HttpThrottlingHeadersMapBuilder httpThrottlingHeadersMapBuilder = new HttpThrottlingHeadersMapBuilder();;
@@ -60,6 +62,20 @@ public class JettyMessageProcessTemplate extends AbstractTransportMessageProcess
         }
     }
 
+    @Override
+    public void discardMessageOnConcurrencyLimitExceeded(long retryAfterMillis) throws MuleException
+    {
+        httpThrottlingHeadersMapBuilder.setRetryAfter(retryAfterMillis);
+        try
+        {
+            servletResponseWriter.writeNonHtmlErrorResponse(servletResponse, HttpConstants.SC_SERVICE_UNAVAILABLE, "Service overloaded, retry later", httpThrottlingHeadersMapBuilder.build());
+        }
+        catch (Exception e)
+        {
+            throw new DefaultMuleException(e);
+        }
+    }
+
     @Override
     public void setThrottlingPolicyStatistics(long remainingRequestInCurrentPeriod, long maximumRequestAllowedPerPeriod, long timeUntilNextPeriodInMillis)
     {
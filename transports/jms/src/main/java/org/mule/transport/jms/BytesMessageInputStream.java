@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.jms;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.MessageEOFException;
+
+/**
+ * Reads the body of a {@link BytesMessage} as it is consumed, so it is not copied into
+ * a byte array first. The message stays available through {@link #getMessage()}, which
+ * lets a JMS dispatcher copy the body straight into an outgoing {@link BytesMessage}.
+ */
+public class BytesMessageInputStream extends InputStream
+{
+    private final BytesMessage message;
+    private boolean started;
+    private boolean closed;
+
+    public BytesMessageInputStream(BytesMessage message) throws JMSException
+    {
+        this.message = message;
+        message.reset();
+    }
+
+    public BytesMessage getMessage()
+    {
+        return message;
+    }
+
+    /**
+     * @return whether no byte was read from the stream yet, in which case the body of
+     *         the message can be used as a whole
+     */
+    public boolean isUnread()
+    {
+        return !started && !closed;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        checkOpen();
+        started = true;
+        try
+        {
+            return message.readUnsignedByte();
+        }
+        catch (MessageEOFException e)
+        {
+            return -1;
+        }
+        catch (JMSException e)
+        {
+            throw toIOException(e);
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        checkOpen();
+        if (len == 0)
+        {
+            return 0;
+        }
+        started = true;
+        try
+        {
+            if (off == 0)
+            {
+                return message.readBytes(b, len);
+            }
+            byte[] buffer = new byte[len];
+            int read = message.readBytes(buffer, len);
+            if (read > 0)
+            {
+                System.arraycopy(buffer, 0, b, off, read);
+            }
+            return read;
+        }
+        catch (JMSException e)
+        {
+            throw toIOException(e);
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+    }
+
+    private void checkOpen() throws IOException
+    {
+        if (closed)
+        {
+            throw new IOException("Stream is closed");
+        }
+    }
+
+    private IOException toIOException(JMSException e)
+    {
+        IOException ioe = new IOException("Failed to read the body of the JMS message: " + e.getMessage());
+        ioe.initCause(e);
+        return ioe;
+    }
+}
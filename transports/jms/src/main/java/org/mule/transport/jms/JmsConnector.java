@@ -21,6 +21,8 @@ import org.mule.api.lifecycle.StartException;
 import org.mule.api.processor.MessageProcessor;
 import org.mule.api.transaction.Transaction;
 import org.mule.api.transaction.TransactionException;
+import org.mule.api.transport.ConnectionPoolStatistics;
+import org.mule.api.transport.ConnectionPoolStatisticsProvider;
 import org.mule.api.transport.ReplyToHandler;
 import org.mule.config.ExceptionHelper;
 import org.mule.config.i18n.CoreMessages;
@@ -41,7 +43,11 @@ import org.mule.transport.jms.redelivery.RedeliveryHandlerFactory;
 import org.mule.util.BeanUtils;
 
 import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.jms.Connection;
@@ -62,7 +68,7 @@ import javax.naming.NamingException;
  * and queues, durable subscribers, acknowledgement modes and local transactions.
  */
 
-public class JmsConnector extends AbstractConnector implements ExceptionListener
+public class JmsConnector extends AbstractConnector implements ExceptionListener, ConnectionPoolStatisticsProvider
 {
 
     public static final String JMS = "jms";
@@ -170,6 +176,44 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
      */
     private boolean embeddedMode;
 
+    /**
+     * Exposes the body of received bytes messages as a stream read from the message as it
+     * is consumed instead of copying it into a byte array.
+     */
+    private boolean streamBytesMessages = false;
+
+    /**
+     * The number of idle sessions kept to create messages and send them to one-way
+     * endpoints outside of transactions. Zero disables the pool.
+     */
+    private int maxPooledSessions = 0;
+
+    /**
+     * The number of messages sent through a pooled session before they are committed
+     * together. One sends every message on its own.
+     */
+    private int dispatchBatchSize = 1;
+
+    /**
+     * The frequency in milliseconds at which the open batches of idle pooled sessions
+     * are committed.
+     */
+    private long dispatchBatchTimeout = 1000;
+
+    private volatile JmsProducerPool producerPool;
+
+    private ScheduledFuture<?> batchFlush;
+
+    /**
+     * Whether request-response dispatches wait for their reply on a temporary queue
+     * shared by the connector instead of creating one per request.
+     */
+    private boolean sharedReplyConsumer = false;
+
+    private JmsReplyConsumer replyConsumer;
+
+    private final Object replyConsumerLock = new Object();
+
     /**
      * Overrides XaResource.isSameRM() result. Needed for IBM WMQ XA
      * implementation (set to 'false'). Default value is null (don't override).
@@ -349,6 +393,8 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
     @Override
     protected void doDispose()
     {
+        closeProducerPool();
+        closeReplyConsumer();
         if (connection != null)
         {
             try
@@ -509,6 +555,18 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
     protected void doConnect() throws Exception
     {
         connection = createConnection();
+        if (maxPooledSessions > 0)
+        {
+            if (JmsConstants.JMS_SPECIFICATION_11.equals(specification))
+            {
+                producerPool = new JmsProducerPool(this, connection, maxPooledSessions, dispatchBatchSize);
+            }
+            else
+            {
+                logger.warn("Session pooling requires JMS " + JmsConstants.JMS_SPECIFICATION_11
+                            + ", sessions will not be pooled");
+            }
+        }
         if ((connectionFactoryProperties != null) && !connectionFactoryProperties.isEmpty())
         {
             // apply connection factory properties
@@ -523,6 +581,8 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
     @Override
     protected void doDisconnect() throws Exception
     {
+        closeProducerPool();
+        closeReplyConsumer();
         try
         {
             if (connection != null)
@@ -646,6 +706,34 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
         {
             jndiNameResolver.start();
         }
+
+        if (maxPooledSessions > 0 && dispatchBatchSize > 1)
+        {
+            batchFlush = getScheduler().scheduleWithFixedDelay(new Runnable()
+            {
+                public void run()
+                {
+                    JmsProducerPool pool = producerPool;
+                    if (pool != null)
+                    {
+                        pool.flush();
+                    }
+                }
+            }, dispatchBatchTimeout, dispatchBatchTimeout, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Commits the open batches of the idle pooled sessions and closes them, to be called
+     * before the connection is closed.
+     */
+    protected void closeProducerPool()
+    {
+        if (producerPool != null)
+        {
+            producerPool.close();
+            producerPool = null;
+        }
     }
 
 
@@ -672,9 +760,34 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
         }
     }
 
+    /**
+     * Deletes the shared reply queue, to be called before the connection is closed.
+     */
+    protected void closeReplyConsumer()
+    {
+        synchronized (replyConsumerLock)
+        {
+            if (replyConsumer != null)
+            {
+                replyConsumer.close();
+                replyConsumer = null;
+            }
+        }
+    }
+
     @Override
     protected void doStop() throws MuleException
     {
+        if (batchFlush != null)
+        {
+            batchFlush.cancel(false);
+            batchFlush = null;
+        }
+        if (producerPool != null)
+        {
+            producerPool.flush();
+        }
+
         if (connection != null)
         {
             try
@@ -1376,6 +1489,111 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
         this.embeddedMode = embeddedMode;
     }
 
+    public boolean isStreamBytesMessages()
+    {
+        return streamBytesMessages;
+    }
+
+    public void setStreamBytesMessages(boolean streamBytesMessages)
+    {
+        this.streamBytesMessages = streamBytesMessages;
+    }
+
+    public int getMaxPooledSessions()
+    {
+        return maxPooledSessions;
+    }
+
+    public void setMaxPooledSessions(int maxPooledSessions)
+    {
+        this.maxPooledSessions = maxPooledSessions;
+    }
+
+    public int getDispatchBatchSize()
+    {
+        return dispatchBatchSize;
+    }
+
+    public void setDispatchBatchSize(int dispatchBatchSize)
+    {
+        this.dispatchBatchSize = dispatchBatchSize;
+    }
+
+    public long getDispatchBatchTimeout()
+    {
+        return dispatchBatchTimeout;
+    }
+
+    public void setDispatchBatchTimeout(long dispatchBatchTimeout)
+    {
+        this.dispatchBatchTimeout = dispatchBatchTimeout;
+    }
+
+    /**
+     * @return the pool of sessions used outside of transactions, or <code>null</code> if
+     *         sessions are not pooled or the connector is not connected
+     */
+    public JmsProducerPool getProducerPool()
+    {
+        return producerPool;
+    }
+
+    /**
+     * Reports the sessions of the {@link JmsProducerPool}, all zero while sessions are not pooled
+     * or the connector is not connected. The counters start over every time the connector connects.
+     */
+    public ConnectionPoolStatistics getConnectionPoolStatistics()
+    {
+        return new ProducerPoolStatistics();
+    }
+
+    /**
+     * @return a pooled session if the endpoint can use one in the current transaction
+     *         context, <code>null</code> otherwise
+     */
+    public JmsProducerPool.PooledSession borrowPooledSession(ImmutableEndpoint endpoint) throws JMSException
+    {
+        JmsProducerPool pool = producerPool;
+        if (pool == null || endpoint.getTransactionConfig().isTransacted()
+            || TransactionCoordination.getInstance().getTransaction() != null)
+        {
+            return null;
+        }
+        return pool.borrow();
+    }
+
+    public boolean isSharedReplyConsumer()
+    {
+        return sharedReplyConsumer;
+    }
+
+    public void setSharedReplyConsumer(boolean sharedReplyConsumer)
+    {
+        this.sharedReplyConsumer = sharedReplyConsumer;
+    }
+
+    /**
+     * @return the consumer of the shared reply queue, created the first time it is
+     *         needed after the connector connects
+     */
+    public JmsReplyConsumer getReplyConsumer(ImmutableEndpoint endpoint) throws JMSException
+    {
+        synchronized (replyConsumerLock)
+        {
+            if (replyConsumer == null || replyConsumer.isClosed())
+            {
+                if (connection == null)
+                {
+                    throw new IllegalStateException("No JMS Connection");
+                }
+                JmsReplyConsumer consumer = new JmsReplyConsumer(this);
+                consumer.start(connection, endpoint);
+                replyConsumer = consumer;
+            }
+            return replyConsumer;
+        }
+    }
+
     public Boolean getSameRMOverrideValue()
     {
         return sameRMOverrideValue;
@@ -1425,4 +1643,79 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
     {
         return getConnection();
     }
+
+    private class ProducerPoolStatistics implements ConnectionPoolStatistics
+    {
+        public int getNumActive()
+        {
+            JmsProducerPool pool = producerPool;
+            return pool == null ? 0 : pool.getActiveSessions();
+        }
+
+        public int getNumIdle()
+        {
+            JmsProducerPool pool = producerPool;
+            return pool == null ? 0 : pool.getIdleSessions();
+        }
+
+        public int getMaxActive()
+        {
+            // sessions in use are not limited, only the idle ones
+            return -1;
+        }
+
+        public int getMaxIdle()
+        {
+            return maxPooledSessions;
+        }
+
+        public int getMinIdle()
+        {
+            return 0;
+        }
+
+        public long getCreatedConnections()
+        {
+            JmsProducerPool pool = producerPool;
+            return pool == null ? 0 : pool.getCreatedSessions();
+        }
+
+        public long getDestroyedConnections()
+        {
+            JmsProducerPool pool = producerPool;
+            return pool == null ? 0 : pool.getDestroyedSessions();
+        }
+
+        public long getFailedConnections()
+        {
+            JmsProducerPool pool = producerPool;
+            return pool == null ? 0 : pool.getFailedSessions();
+        }
+
+        public long getInvalidConnections()
+        {
+            JmsProducerPool pool = producerPool;
+            return pool == null ? 0 : pool.getInvalidSessions();
+        }
+
+        /**
+         * The pool has a single route, the broker, so this reports how the producers and the
+         * batches of the sessions are used instead.
+         */
+        public Map<String, String> getRouteUsage()
+        {
+            JmsProducerPool pool = producerPool;
+            if (pool == null)
+            {
+                return Collections.emptyMap();
+            }
+            Map<String, String> usage = new LinkedHashMap<String, String>();
+            usage.put("producers", "created: " + pool.getCreatedProducers() + ", reused: " + pool.getReusedProducers());
+            if (pool.isBatching())
+            {
+                usage.put("batches", "size: " + pool.getBatchSize() + ", committed: " + pool.getCommits());
+            }
+            return usage;
+        }
+    }
 }
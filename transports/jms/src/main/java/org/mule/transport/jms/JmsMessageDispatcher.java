@@ -67,6 +67,17 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
         logger.warn("Starting patched JmsMessageReceiver");
     }
 
+    @Override
+    protected void doInitialise() throws InitialisationException
+    {
+        super.doInitialise();
+        // a batch is committed on its own, so it cannot take part in the transaction of the endpoint
+        if (connector.getDispatchBatchSize() > 1 && endpoint.getTransactionConfig().isTransacted())
+        {
+            throw new InitialisationException(JmsMessages.dispatchBatchingNotTransactional(endpoint, connector), this);
+        }
+    }
+
     @Override
     protected void doDispatch(MuleEvent event) throws Exception
     {
@@ -97,9 +108,12 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
     private MuleMessage dispatchMessage(MuleEvent event, boolean doSend) throws Exception
     {
         Session session = null;
+        JmsProducerPool.PooledSession pooledSession = null;
+        boolean sent = false;
         MessageProducer producer = null;
         MessageConsumer consumer = null;
         Destination replyTo = null;
+        JmsReplyConsumer.PendingReply pendingReply = null;
         boolean transacted = false;
         boolean cached = false;
         boolean useReplyToDestination;
@@ -115,7 +129,13 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
 
         try
         {
-            session = connector.getTransactionalResource(endpoint);
+            // one-way dispatches outside of a transaction use a session and producer of
+            // the connector pool, if any
+            if (!returnResponse(event, doSend))
+            {
+                pooledSession = connector.borrowPooledSession(endpoint);
+            }
+            session = pooledSession != null ? pooledSession.getSession() : connector.getTransactionalResource(endpoint);
 
             transacted = (muleTx != null && muleTx.hasResource(connector.getConnection()) || endpoint.getTransactionConfig().isTransacted());
 
@@ -125,8 +145,15 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
 
             boolean topic = connector.getTopicResolver().isTopic(endpoint, true);
 
-            Destination dest = connector.getJmsSupport().createDestination(session, endpoint);
-            producer = connector.getJmsSupport().createProducer(session, dest, topic);
+            if (pooledSession != null)
+            {
+                producer = pooledSession.getProducer(endpoint, topic);
+            }
+            else
+            {
+                Destination dest = connector.getJmsSupport().createDestination(session, endpoint);
+                producer = connector.getJmsSupport().createProducer(session, dest, topic);
+            }
 
             Object message = event.getMessage().getPayload();
             if (!(message instanceof Message))
@@ -140,17 +167,38 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
 
             MuleMessage eventMsg = event.getMessage();
 
-            replyTo = getReplyToDestination(msg, session, event, useReplyToDestination, topic);
-
-            // Set the replyTo property
-            if (replyTo != null)
+            JmsReplyConsumer replyConsumer = null;
+            if (isUseSharedReplyConsumer(msg, event, useReplyToDestination))
             {
-                msg.setJMSReplyTo(replyTo);
+                replyConsumer = connector.getReplyConsumer(endpoint);
+                msg.setJMSReplyTo(replyConsumer.getReplyTo());
+            }
+            else
+            {
+                replyTo = getReplyToDestination(msg, session, event, useReplyToDestination, topic);
+
+                // Set the replyTo property
+                if (replyTo != null)
+                {
+                    msg.setJMSReplyTo(replyTo);
+                }
             }
 
             //Allow overrides to alter the message if necessary
             processMessage(msg, event);
 
+            if (replyConsumer != null && msg.getJMSCorrelationID() != null)
+            {
+                pendingReply = registerReply(msg, replyConsumer);
+                if (pendingReply == null)
+                {
+                    // another request waits for the same correlation id on the shared queue
+                    replyConsumer = null;
+                    replyTo = getReplyToDestination(msg, session, event, useReplyToDestination, topic);
+                    msg.setJMSReplyTo(replyTo);
+                }
+            }
+
             // QoS support
             long ttl = eventMsg.getOutboundProperty(JmsConstants.TIME_TO_LIVE_PROPERTY, Message.DEFAULT_TIME_TO_LIVE);
             int priority = eventMsg.getOutboundProperty(JmsConstants.PRIORITY_PROPERTY, Message.DEFAULT_PRIORITY);
@@ -183,8 +231,41 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
                        "\n  JMSReplyTo=" + msg.getJMSReplyTo());
             }
             connector.getJmsSupport().send(producer, msg, persistent, priority, ttl, topic, endpoint);
+            if (pooledSession != null)
+            {
+                pooledSession.sent();
+            }
+            sent = true;
 
-            if (useReplyToDestination && replyTo != null)
+            if (replyConsumer != null && pendingReply == null)
+            {
+                // the request had no correlation id, so the reply carries the id the
+                // provider gave the request, and may already be waiting in the reply consumer
+                pendingReply = replyConsumer.register(msg.getJMSMessageID());
+            }
+
+            if (pendingReply != null)
+            {
+                int timeout = event.getTimeout();
+
+                if (logger.isDebugEnabled())
+                {
+                    logger.debug("Waiting for return event for: " + timeout + " ms on the shared reply queue, JMSCorrelationID="
+                                 + pendingReply.getCorrelationId());
+                }
+
+                Message result = pendingReply.await(timeout);
+                if (result == null)
+                {
+                    logger.debug("No message was returned via the shared reply queue");
+                    return createNullMuleMessage();
+                }
+                else
+                {
+                    return createMessageWithJmsMessagePayload(result);
+                }
+            }
+            else if (useReplyToDestination && replyTo != null)
             {
                 consumer = createReplyToConsumer(msg, event, session, replyTo, topic);
 
@@ -249,6 +330,17 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
         }
         finally
         {
+            if (pendingReply != null)
+            {
+                pendingReply.cancel();
+            }
+            if (pooledSession != null)
+            {
+                // the session is only known to be usable if the message went through
+                pooledSession.release(sent);
+                producer = null;
+                session = null;
+            }
             connector.closeQuietly(producer);
             connector.closeQuietly(consumer);
 
@@ -276,6 +368,34 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
         }
     }
 
+    /**
+     * @return whether the reply is to be received on the queue shared by the connector,
+     *         which is the case when the connector is configured so and a temporary
+     *         destination would be created otherwise
+     */
+    protected boolean isUseSharedReplyConsumer(Message msg, MuleEvent event, boolean useReplyToDestination)
+        throws JMSException
+    {
+        return useReplyToDestination && connector.isSharedReplyConsumer() && !disableTemporaryDestinations
+               && isHandleReplyTo(msg, event)
+               && event.getMessage().getOutboundProperty(JmsConstants.JMS_REPLY_TO) == null
+               && event.getMessage().getOutboundProperty(MuleProperties.MULE_REPLY_TO_PROPERTY) == null;
+    }
+
+    /**
+     * Registers the request with the shared reply consumer under the correlation id it
+     * carries, which is left as it is. Requests without one are registered under their
+     * JMSMessageID once they are sent.
+     *
+     * @return the pending reply, or <code>null</code> if another request already waits for
+     *         the same correlation id
+     */
+    protected JmsReplyConsumer.PendingReply registerReply(Message msg, JmsReplyConsumer replyConsumer)
+        throws JMSException
+    {
+        return replyConsumer.register(msg.getJMSCorrelationID());
+    }
+
     protected MuleMessage createMessageWithJmsMessagePayload(Message jmsMessage) throws Exception
     {
         MuleMessage muleMessage = createMuleMessage(jmsMessage);
@@ -119,6 +119,10 @@ public class JmsMessageUtils
         {
             return mapToMessage((Map<?, ?>) object, session);
         }
+        else if (object instanceof BytesMessageInputStream && ((BytesMessageInputStream) object).isUnread())
+        {
+            return bytesMessageToMessage((BytesMessageInputStream) object, session);
+        }
         else if (object instanceof InputStream)
         {
             return inputStreamToMessage((InputStream) object, session);
@@ -190,6 +194,28 @@ public class JmsMessageUtils
         return streamMessage;
     }
 
+    /**
+     * Copies the body of a received {@link BytesMessage} that was never read by Mule
+     * into a new one, keeping it a bytes message instead of the stream message used
+     * for other streams.
+     */
+    private static Message bytesMessageToMessage(BytesMessageInputStream value, Session session) throws JMSException
+    {
+        BytesMessage source = value.getMessage();
+        BytesMessage bytesMessage = session.createBytesMessage();
+        byte[] buffer = new byte[4096];
+        int len;
+
+        source.reset();
+        while ((len = source.readBytes(buffer)) != -1)
+        {
+            bytesMessage.writeBytes(buffer, 0, len);
+        }
+        value.close();
+
+        return bytesMessage;
+    }
+
     private static Message listToMessage(List<?> value, Session session)
         throws JMSException
     {
@@ -0,0 +1,375 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.jms;
+
+import org.mule.api.endpoint.ImmutableEndpoint;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.jms.Connection;
+import javax.jms.Destination;
+import javax.jms.IllegalStateException;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Pool of sessions used outside of transactions to create the messages of a
+ * {@link JmsConnector} and to send them to one-way endpoints. Each session keeps the
+ * producers it created by destination, so a dispatch creates neither a session nor a
+ * producer once the pool is warm.
+ * <p/>
+ * When the batch size is greater than one the sessions are transacted, and the messages
+ * sent through a session are committed every <code>batchSize</code> messages, or by
+ * {@link #flush()} for the sessions that sit idle with uncommitted messages. The messages
+ * of an open batch are lost if the connection fails before they are committed, although
+ * their dispatch already succeeded, and the messages of different sessions reach the
+ * broker in the order their batches are committed, not in the order they were sent.
+ * Batching is therefore refused for transacted endpoints, see
+ * {@link JmsMessageDispatcher}.
+ */
+public class JmsProducerPool
+{
+    /**
+     * Producers kept by a session, so dynamic endpoints do not keep producers open for
+     * every destination they ever sent to.
+     */
+    public static final int MAX_PRODUCERS_PER_SESSION = 32;
+
+    protected transient Log logger = LogFactory.getLog(getClass());
+
+    private final JmsConnector connector;
+    private final Connection connection;
+    private final int maxIdle;
+    private final int batchSize;
+    private final BlockingDeque<PooledSession> idle = new LinkedBlockingDeque<PooledSession>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong createdSessions = new AtomicLong();
+    private final AtomicLong destroyedSessions = new AtomicLong();
+    private final AtomicLong failedSessions = new AtomicLong();
+    private final AtomicLong invalidSessions = new AtomicLong();
+    private final AtomicLong createdProducers = new AtomicLong();
+    private final AtomicLong reusedProducers = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * @param connector the connector the sessions are created for
+     * @param connection the connection of the connector
+     * @param maxIdle the maximum number of sessions kept when they are not in use
+     * @param batchSize the number of messages committed together, one or less to send
+     *            every message on its own
+     */
+    public JmsProducerPool(JmsConnector connector, Connection connection, int maxIdle, int batchSize)
+    {
+        this.connector = connector;
+        this.connection = connection;
+        this.maxIdle = maxIdle;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return a session not used by any other thread until it is given back with
+     *         {@link #release(PooledSession, boolean)}
+     */
+    public PooledSession borrow() throws JMSException
+    {
+        if (closed)
+        {
+            throw new IllegalStateException("The producer pool of " + connector.getName() + " is closed");
+        }
+        // take the most recently used session, it is the most likely to have the producer
+        PooledSession session = idle.pollFirst();
+        if (session == null)
+        {
+            try
+            {
+                session = new PooledSession(connector.getJmsSupport().createSession(connection, false, isBatching(),
+                    connector.getAcknowledgementMode(), connector.isNoLocal()));
+            }
+            catch (JMSException e)
+            {
+                failedSessions.incrementAndGet();
+                throw e;
+            }
+            createdSessions.incrementAndGet();
+        }
+        active.incrementAndGet();
+        return session;
+    }
+
+    /**
+     * Gives back a borrowed session, closing it if it failed or if enough sessions are
+     * idle already.
+     *
+     * @param valid <code>false</code> if the session failed and may be unusable
+     */
+    public void release(PooledSession session, boolean valid)
+    {
+        active.decrementAndGet();
+        if (valid && session.uncommitted >= batchSize)
+        {
+            valid = commit(session);
+        }
+        if (valid && !closed && idle.size() < maxIdle)
+        {
+            idle.offerFirst(session);
+            // the pool may have been closed while the session was added
+            if (closed && idle.remove(session))
+            {
+                discard(session, true);
+            }
+        }
+        else
+        {
+            discard(session, valid);
+        }
+    }
+
+    /**
+     * Commits the messages sent by idle sessions.
+     */
+    public void flush()
+    {
+        if (!isBatching())
+        {
+            return;
+        }
+        List<PooledSession> sessions = new ArrayList<PooledSession>();
+        idle.drainTo(sessions);
+        for (PooledSession session : sessions)
+        {
+            if (session.uncommitted > 0 && !commit(session))
+            {
+                discard(session, false);
+            }
+            else if (closed || !idle.offerLast(session))
+            {
+                discard(session, true);
+            }
+        }
+    }
+
+    /**
+     * Commits and closes the idle sessions. Sessions in use are closed when they are
+     * released.
+     */
+    public void close()
+    {
+        closed = true;
+        PooledSession session;
+        while ((session = idle.pollFirst()) != null)
+        {
+            discard(session, true);
+        }
+    }
+
+    public boolean isBatching()
+    {
+        return batchSize > 1;
+    }
+
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    public int getMaxIdle()
+    {
+        return maxIdle;
+    }
+
+    public int getIdleSessions()
+    {
+        return idle.size();
+    }
+
+    public int getActiveSessions()
+    {
+        return active.get();
+    }
+
+    public long getCreatedSessions()
+    {
+        return createdSessions.get();
+    }
+
+    /**
+     * @return the number of sessions closed by the pool
+     */
+    public long getDestroyedSessions()
+    {
+        return destroyedSessions.get();
+    }
+
+    /**
+     * @return the number of sessions the pool failed to create
+     */
+    public long getFailedSessions()
+    {
+        return failedSessions.get();
+    }
+
+    /**
+     * @return the number of sessions closed because they failed while they were used or
+     *         when their batch was committed
+     */
+    public long getInvalidSessions()
+    {
+        return invalidSessions.get();
+    }
+
+    public long getCreatedProducers()
+    {
+        return createdProducers.get();
+    }
+
+    public long getReusedProducers()
+    {
+        return reusedProducers.get();
+    }
+
+    public long getCommits()
+    {
+        return commits.get();
+    }
+
+    private boolean commit(PooledSession session)
+    {
+        if (!isBatching() || session.uncommitted == 0)
+        {
+            return true;
+        }
+        try
+        {
+            session.session.commit();
+            session.uncommitted = 0;
+            commits.incrementAndGet();
+            return true;
+        }
+        catch (JMSException e)
+        {
+            logger.warn("Failed to commit " + session.uncommitted + " message(s) sent by " + connector.getName()
+                        + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void discard(PooledSession session, boolean commit)
+    {
+        if (commit)
+        {
+            commit(session);
+        }
+        else
+        {
+            invalidSessions.incrementAndGet();
+            if (session.uncommitted > 0)
+            {
+                logger.warn("Rolling back " + session.uncommitted + " uncommitted message(s) sent by "
+                            + connector.getName());
+            }
+        }
+        for (MessageProducer producer : session.producers.values())
+        {
+            connector.closeQuietly(producer);
+        }
+        session.producers.clear();
+        connector.closeQuietly(session.session);
+        destroyedSessions.incrementAndGet();
+    }
+
+    /**
+     * A session of the pool and the producers it created.
+     */
+    public class PooledSession
+    {
+        private final Session session;
+        private final Map<String, MessageProducer> producers = new LinkedHashMap<String, MessageProducer>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MessageProducer> eldest)
+            {
+                if (size() > MAX_PRODUCERS_PER_SESSION)
+                {
+                    connector.closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        private int uncommitted;
+
+        private PooledSession(Session session)
+        {
+            this.session = session;
+        }
+
+        public Session getSession()
+        {
+            return session;
+        }
+
+        /**
+         * @return the producer of this session for the destination of the endpoint,
+         *         created the first time it is asked for
+         */
+        public MessageProducer getProducer(ImmutableEndpoint endpoint, boolean topic) throws JMSException
+        {
+            String key = (topic ? "topic:" : "queue:") + endpoint.getEndpointURI().getAddress();
+            MessageProducer producer = producers.get(key);
+            if (producer == null)
+            {
+                Destination destination = connector.getJmsSupport().createDestination(session, endpoint);
+                producer = connector.getJmsSupport().createProducer(session, destination, topic);
+                producers.put(key, producer);
+                createdProducers.incrementAndGet();
+            }
+            else
+            {
+                reusedProducers.incrementAndGet();
+            }
+            return producer;
+        }
+
+        /**
+         * Gives this session back to the pool it was borrowed from.
+         *
+         * @see JmsProducerPool#release(PooledSession, boolean)
+         */
+        public void release(boolean valid)
+        {
+            JmsProducerPool.this.release(this, valid);
+        }
+
+        /**
+         * Counts a message sent through this session towards its batch.
+         */
+        public void sent()
+        {
+            if (isBatching())
+            {
+                uncommitted++;
+            }
+        }
+
+        public int getUncommitted()
+        {
+            return uncommitted;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.jms;
+
+import org.mule.api.endpoint.ImmutableEndpoint;
+import org.mule.util.concurrent.Latch;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.Connection;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageListener;
+import javax.jms.Session;
+import javax.jms.TemporaryQueue;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Receives the replies to the request-response dispatches of a {@link JmsConnector}
+ * on a single temporary queue, and hands each one to the request waiting for its
+ * correlation id. A request then costs a send and a receive, without creating a
+ * temporary destination and a consumer on the broker.
+ * <p/>
+ * A request without a correlation id can only be registered under its JMSMessageID once it
+ * is sent, so its reply may arrive first. Replies no request waits for are therefore kept
+ * for a few seconds, in case their request registers in the meantime.
+ */
+public class JmsReplyConsumer implements MessageListener
+{
+    /**
+     * How long a reply waits for its request to register
+     */
+    public static final long EARLY_REPLY_TIMEOUT = 5000;
+
+    /**
+     * Replies kept at most while no request waits for them, so replies to requests that
+     * timed out do not pile up
+     */
+    public static final int MAX_EARLY_REPLIES = 1000;
+
+    protected transient Log logger = LogFactory.getLog(getClass());
+
+    private final JmsConnector connector;
+    private final ConcurrentMap<String, PendingReply> pending = new ConcurrentHashMap<String, PendingReply>();
+    private final ConcurrentMap<String, EarlyReply> early = new ConcurrentHashMap<String, EarlyReply>();
+    private Session session;
+    private TemporaryQueue replyTo;
+    private MessageConsumer consumer;
+    private volatile boolean closed;
+
+    public JmsReplyConsumer(JmsConnector connector)
+    {
+        this.connector = connector;
+    }
+
+    /**
+     * Creates the reply queue and starts listening on it.
+     */
+    public void start(Connection connection, ImmutableEndpoint endpoint) throws JMSException
+    {
+        try
+        {
+            session = connector.getJmsSupport().createSession(connection, false, false, Session.AUTO_ACKNOWLEDGE,
+                false);
+            replyTo = (TemporaryQueue) connector.getJmsSupport().createTemporaryDestination(session, false);
+            consumer = connector.getJmsSupport().createConsumer(session, replyTo, false, endpoint);
+            consumer.setMessageListener(this);
+        }
+        catch (JMSException e)
+        {
+            close();
+            throw e;
+        }
+    }
+
+    public Destination getReplyTo()
+    {
+        return replyTo;
+    }
+
+    /**
+     * Registers a request, preferably before it is sent. A reply that arrived before the
+     * registration completes the returned reply right away.
+     *
+     * @return the pending reply, or <code>null</code> if a request with the same
+     *         correlation id is already waiting
+     */
+    public PendingReply register(String correlationId)
+    {
+        PendingReply reply = new PendingReply(correlationId);
+        if (pending.putIfAbsent(correlationId, reply) != null)
+        {
+            return null;
+        }
+        // the reply may have been kept while this request was not registered yet
+        EarlyReply earlyReply = early.remove(correlationId);
+        if (earlyReply != null)
+        {
+            pending.remove(correlationId, reply);
+            reply.complete(earlyReply.message);
+        }
+        return reply;
+    }
+
+    public void onMessage(Message message)
+    {
+        try
+        {
+            String correlationId = message.getJMSCorrelationID();
+            if (correlationId == null)
+            {
+                logger.debug("Discarding reply without JMSCorrelationID");
+                return;
+            }
+            PendingReply reply = pending.remove(correlationId);
+            if (reply == null)
+            {
+                keepEarlyReply(correlationId, message);
+            }
+            else
+            {
+                reply.complete(message);
+            }
+        }
+        catch (JMSException e)
+        {
+            logger.warn("Failed to read the correlation id of a reply: " + e.getMessage());
+        }
+    }
+
+    private void keepEarlyReply(String correlationId, Message message)
+    {
+        expireEarlyReplies();
+        if (early.size() >= MAX_EARLY_REPLIES)
+        {
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Discarding reply with JMSCorrelationID=" + correlationId
+                             + ", no request is waiting for it");
+            }
+            return;
+        }
+        EarlyReply earlyReply = new EarlyReply(message);
+        early.put(correlationId, earlyReply);
+        // the request may have registered after the reply was looked up, whichever of the
+        // two removes the kept reply completes the request
+        PendingReply reply = pending.remove(correlationId);
+        if (reply != null && early.remove(correlationId, earlyReply))
+        {
+            reply.complete(message);
+        }
+    }
+
+    private void expireEarlyReplies()
+    {
+        long now = System.currentTimeMillis();
+        for (Iterator<EarlyReply> iterator = early.values().iterator(); iterator.hasNext();)
+        {
+            if (now - iterator.next().receivedAt > EARLY_REPLY_TIMEOUT)
+            {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the number of requests waiting for their reply
+     */
+    public int getPendingCount()
+    {
+        return pending.size();
+    }
+
+    /**
+     * @return the number of replies kept until their request registers
+     */
+    public int getEarlyCount()
+    {
+        return early.size();
+    }
+
+    public boolean isClosed()
+    {
+        return closed;
+    }
+
+    /**
+     * Deletes the reply queue. The requests still waiting are woken up without a reply.
+     */
+    public void close()
+    {
+        closed = true;
+        connector.closeQuietly(consumer);
+        connector.closeQuietly(session);
+        connector.closeQuietly(replyTo);
+        for (PendingReply reply : pending.values())
+        {
+            reply.cancel();
+        }
+        early.clear();
+    }
+
+    private static class EarlyReply
+    {
+        private final Message message;
+        private final long receivedAt = System.currentTimeMillis();
+
+        private EarlyReply(Message message)
+        {
+            this.message = message;
+        }
+    }
+
+    /**
+     * A request waiting for its reply.
+     */
+    public class PendingReply
+    {
+        private final String correlationId;
+        private final Latch latch = new Latch();
+        private volatile Message message;
+
+        private PendingReply(String correlationId)
+        {
+            this.correlationId = correlationId;
+        }
+
+        public String getCorrelationId()
+        {
+            return correlationId;
+        }
+
+        /**
+         * Waits for the reply and stops waiting for it once this returns.
+         *
+         * @return the reply, or <code>null</code> if none arrived before the timeout
+         */
+        public Message await(long timeout) throws InterruptedException
+        {
+            try
+            {
+                latch.await(timeout, TimeUnit.MILLISECONDS);
+                return message;
+            }
+            finally
+            {
+                cancel();
+            }
+        }
+
+        /**
+         * Stops waiting for the reply, which is discarded if it arrives later.
+         */
+        public void cancel()
+        {
+            pending.remove(correlationId, this);
+            latch.countDown();
+        }
+
+        private void complete(Message message)
+        {
+            this.message = message;
+            latch.countDown();
+        }
+    }
+}
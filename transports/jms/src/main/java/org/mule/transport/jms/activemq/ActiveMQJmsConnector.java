@@ -77,6 +77,9 @@ public class ActiveMQJmsConnector extends JmsConnector
     {
         try
         {
+            closeProducerPool();
+            closeReplyConsumer();
+
             Connection connection = getConnection();
             if (connection == null)
             {
@@ -11,6 +11,7 @@ import org.mule.api.MuleMessage;
 import org.mule.api.endpoint.ImmutableEndpoint;
 import org.mule.config.i18n.Message;
 import org.mule.config.i18n.MessageFactory;
+import org.mule.transport.jms.JmsConnector;
 import org.mule.util.ClassUtils;
 import org.mule.util.ObjectUtils;
 import org.mule.util.StringMessageUtils;
@@ -99,4 +100,10 @@ public class JmsMessages extends MessageFactory
     {
         return factory.createMessage(BUNDLE_PATH, 17);
     }
+
+    public static Message dispatchBatchingNotTransactional(ImmutableEndpoint endpoint, JmsConnector connector)
+    {
+        return factory.createMessage(BUNDLE_PATH, 18, endpoint.getEndpointURI(), connector.getName(),
+            connector.getDispatchBatchSize());
+    }
 }
@@ -16,14 +16,17 @@ import org.mule.api.transport.Connector;
 import org.mule.transaction.TransactionCoordination;
 import org.mule.transformer.AbstractMessageTransformer;
 import org.mule.transport.ConnectException;
+import org.mule.transport.jms.BytesMessageInputStream;
 import org.mule.transport.jms.JmsConnector;
 import org.mule.transport.jms.JmsConstants;
 import org.mule.transport.jms.JmsMessageUtils;
+import org.mule.transport.jms.JmsProducerPool;
 import org.mule.util.ClassUtils;
 
 import java.io.EOFException;
 import java.io.IOException;
 
+import javax.jms.BytesMessage;
 import javax.jms.Destination;
 import javax.jms.JMSException;
 import javax.jms.Message;
@@ -50,6 +53,7 @@ public abstract class AbstractJmsTransformer extends AbstractMessageTransformer
     protected Message transformToMessage(MuleMessage message) throws Exception
     {
         Session session = null;
+        JmsProducerPool.PooledSession pooledSession = null;
         try
         {
             Message result;
@@ -62,7 +66,8 @@ public abstract class AbstractJmsTransformer extends AbstractMessageTransformer
             }
             else
             {
-                session = this.getSession();
+                pooledSession = borrowPooledSession();
+                session = pooledSession != null ? pooledSession.getSession() : this.getSession();
                 result = JmsMessageUtils.toMessage(src, session);
             }
             this.setJmsProperties(message, result);
@@ -91,7 +96,11 @@ public abstract class AbstractJmsTransformer extends AbstractMessageTransformer
                 fail with fanfares to signal this case, which is really a user error.
               */
 
-            if (session != null && endpoint != null) // endpoint can be null in some programmatic tests only in fact
+            if (pooledSession != null)
+            {
+                pooledSession.release(true);
+            }
+            else if (session != null && endpoint != null) // endpoint can be null in some programmatic tests only in fact
             {
                 Transaction muleTx = TransactionCoordination.getInstance().getTransaction();
 
@@ -136,7 +145,12 @@ public abstract class AbstractJmsTransformer extends AbstractMessageTransformer
             Connector connector = endpoint.getConnector();
             if (connector instanceof JmsConnector)
             {
-                jmsSpec = ((JmsConnector) connector).getSpecification();
+                JmsConnector jmsConnector = (JmsConnector) connector;
+                jmsSpec = jmsConnector.getSpecification();
+                if (jmsConnector.isStreamBytesMessages() && source instanceof BytesMessage)
+                {
+                    return new BytesMessageInputStream((BytesMessage) source);
+                }
             }
         }
 
@@ -192,6 +206,19 @@ public abstract class AbstractJmsTransformer extends AbstractMessageTransformer
         }
     }
 
+    /**
+     * @return a session of the connector pool to create the message with when there is
+     *         no transaction, <code>null</code> if there is none to use
+     */
+    protected JmsProducerPool.PooledSession borrowPooledSession() throws JMSException
+    {
+        if (endpoint != null && endpoint.getConnector() instanceof JmsConnector)
+        {
+            return ((JmsConnector) endpoint.getConnector()).borrowPooledSession(endpoint);
+        }
+        return null;
+    }
+
     protected Session getSession() throws Exception
     {
         if (endpoint != null)
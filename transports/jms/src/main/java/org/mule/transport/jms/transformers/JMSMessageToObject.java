@@ -10,6 +10,9 @@ import org.mule.api.MuleMessage;
 import org.mule.api.transformer.TransformerException;
 import org.mule.transformer.types.DataTypeFactory;
 import org.mule.util.ClassUtils;
+import org.mule.util.IOUtils;
+
+import java.io.InputStream;
 
 import javax.jms.BytesMessage;
 import javax.jms.MapMessage;
@@ -32,6 +35,9 @@ import javax.jms.TextMessage;
  * <li>javax.jms.StreamMessage - java.util.Vector of objects from the Stream
  * Message.</li>
  * </ul>
+ * When the connector streams bytes messages, a BytesMessage is transformed into a
+ * {@link org.mule.transport.jms.BytesMessageInputStream} unless the return type is
+ * String or byte[].
  */
 public class JMSMessageToObject extends AbstractJmsTransformer
 {
@@ -65,6 +71,12 @@ public class JMSMessageToObject extends AbstractJmsTransformer
 
             // We need to handle String / byte[] explicitly since this transformer does not define
             // a single return type
+            if (result instanceof InputStream
+                && (returnType.getType().equals(byte[].class) || returnType.getType().equals(String.class)))
+            {
+                result = IOUtils.toByteArray((InputStream) result);
+            }
+
             if (returnType.getType().equals(byte[].class) && result instanceof String)
             {
                 result = result.toString().getBytes(outputEncoding);
@@ -21,7 +21,8 @@ import javax.jms.Message;
  * <li>java.lang.String - javax.jms.TextMessage</li>
  * <li>byte[] - javax.jms.BytesMessage</li>
  * <li>java.util.Map - javax.jms.MapMessage</li>
- * <li>java.io.InputStream - javax.jms.StreamMessage</li>
+ * <li>java.io.InputStream - javax.jms.StreamMessage, or a javax.jms.BytesMessage
+ * for the unread body of a received one ({@link org.mule.transport.jms.BytesMessageInputStream})</li>
  * <li>java.lang.Object - javax.jms.ObjectMessage</li>
  * </ul>
  * Note that if compression is turned on then a <code>javax.jms.BytesMessage</code>
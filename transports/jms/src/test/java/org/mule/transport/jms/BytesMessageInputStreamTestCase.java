@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.jms;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+import org.mule.util.IOUtils;
+
+import java.io.IOException;
+
+import org.apache.activemq.command.ActiveMQBytesMessage;
+import org.junit.Before;
+import org.junit.Test;
+
+@SmallTest
+public class BytesMessageInputStreamTestCase extends AbstractMuleTestCase
+{
+
+    private static final byte[] BODY = "a body read lazily".getBytes();
+
+    private ActiveMQBytesMessage message;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        message = new ActiveMQBytesMessage();
+        message.writeBytes(BODY);
+        message.reset();
+    }
+
+    @Test
+    public void readsWholeBody() throws Exception
+    {
+        BytesMessageInputStream stream = new BytesMessageInputStream(message);
+        assertTrue(stream.isUnread());
+
+        assertArrayEquals(BODY, IOUtils.toByteArray(stream));
+        assertFalse(stream.isUnread());
+        assertEquals(-1, stream.read());
+    }
+
+    @Test
+    public void readsIntoOffset() throws Exception
+    {
+        BytesMessageInputStream stream = new BytesMessageInputStream(message);
+        assertEquals(BODY[0], stream.read());
+
+        byte[] buffer = new byte[BODY.length + 1];
+        int read = stream.read(buffer, 2, BODY.length - 1);
+
+        assertEquals(BODY.length - 1, read);
+        assertEquals(BODY[1], buffer[2]);
+        assertEquals(BODY[BODY.length - 1], buffer[BODY.length]);
+        assertEquals(-1, stream.read(buffer, 0, buffer.length));
+    }
+
+    @Test(expected = IOException.class)
+    public void failsReadingAfterClose() throws Exception
+    {
+        BytesMessageInputStream stream = new BytesMessageInputStream(message);
+        stream.close();
+        assertFalse(stream.isUnread());
+        stream.read();
+    }
+}
@@ -8,6 +8,7 @@ package org.mule.transport.jms;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -19,6 +20,7 @@ import static org.mockito.Mockito.when;
 
 import org.mule.api.MuleException;
 import org.mule.api.transaction.Transaction;
+import org.mule.api.transport.ConnectionPoolStatistics;
 import org.mule.tck.junit4.AbstractMuleContextTestCase;
 import org.mule.transaction.TransactionCoordination;
 import org.mule.transport.jms.xa.ConnectionFactoryWrapper;
@@ -173,6 +175,30 @@ public class JmsConnectorTestCase extends AbstractMuleContextTestCase
         verify(connection, times(1)).stop();
     }
 
+    @Test
+    public void reportsProducerPoolStatistics() throws Exception
+    {
+        JmsConnector connector = new JmsConnector(muleContext);
+        connector.setSpecification(JmsConstants.JMS_SPECIFICATION_11);
+        connector.setMaxPooledSessions(2);
+        connector.setJmsSupport(mock(JmsSupport.class, RETURNS_DEEP_STUBS));
+        JmsConnector spy = spy(connector);
+        doReturn(mock(Connection.class)).when(spy).createConnection();
+        ConnectionPoolStatistics statistics = spy.getConnectionPoolStatistics();
+        assertEquals(0, statistics.getNumIdle());
+
+        spy.doConnect();
+        JmsProducerPool.PooledSession session = spy.getProducerPool().borrow();
+        assertEquals(1, statistics.getNumActive());
+        session.release(true);
+
+        assertEquals(0, statistics.getNumActive());
+        assertEquals(1, statistics.getNumIdle());
+        assertEquals(2, statistics.getMaxIdle());
+        assertEquals(1, statistics.getCreatedConnections());
+        assertEquals("created: 0, reused: 0", statistics.getRouteUsage().get("producers"));
+    }
+
     @Test
     public void doNotChangeConnectionFactoryWhenNotUsingXAConnectionFactory() throws Exception
     {
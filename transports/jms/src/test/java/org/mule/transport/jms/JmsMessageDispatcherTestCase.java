@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.jms;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.mule.api.endpoint.OutboundEndpoint;
+import org.mule.api.lifecycle.InitialisationException;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import javax.jms.Message;
+
+import org.junit.Before;
+import org.junit.Test;
+
+@SmallTest
+public class JmsMessageDispatcherTestCase extends AbstractMuleTestCase
+{
+
+    private JmsConnector connector;
+    private OutboundEndpoint endpoint;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        connector = mock(JmsConnector.class, RETURNS_DEEP_STUBS);
+        endpoint = mock(OutboundEndpoint.class, RETURNS_DEEP_STUBS);
+        when(endpoint.getConnector()).thenReturn(connector);
+    }
+
+    @Test(expected = InitialisationException.class)
+    public void rejectsBatchingForTransactedEndpoints() throws Exception
+    {
+        when(connector.getDispatchBatchSize()).thenReturn(10);
+        when(endpoint.getTransactionConfig().isTransacted()).thenReturn(true);
+        new JmsMessageDispatcher(endpoint).doInitialise();
+    }
+
+    @Test
+    public void acceptsTransactedEndpointsWithoutBatching() throws Exception
+    {
+        when(connector.getDispatchBatchSize()).thenReturn(1);
+        when(endpoint.getTransactionConfig().isTransacted()).thenReturn(true);
+        new JmsMessageDispatcher(endpoint).doInitialise();
+    }
+
+    @Test
+    public void keepsCorrelationIdOfRequest() throws Exception
+    {
+        Message message = mock(Message.class);
+        when(message.getJMSCorrelationID()).thenReturn("userCorrelationId");
+
+        JmsReplyConsumer.PendingReply pendingReply = new JmsMessageDispatcher(endpoint).registerReply(message,
+            new JmsReplyConsumer(connector));
+
+        assertEquals("userCorrelationId", pendingReply.getCorrelationId());
+        verify(message, never()).setJMSCorrelationID(anyString());
+    }
+}
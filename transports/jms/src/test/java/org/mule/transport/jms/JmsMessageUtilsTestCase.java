@@ -299,6 +299,26 @@ public class JmsMessageUtilsTestCase extends AbstractMuleTestCase
         assertEquals(bytesArray[1], bytesArrayResult[1]);
     }
 
+    @Test
+    public void testConvertingUnreadBytesMessageStreamToBytesMessage() throws JMSException
+    {
+        Session session = mock(Session.class);
+        when(session.createBytesMessage()).thenReturn(new ActiveMQBytesMessage());
+
+        ActiveMQBytesMessage received = new ActiveMQBytesMessage();
+        received.writeBytes(new byte[] {1, 2, 3});
+        received.reset();
+
+        BytesMessage message = (BytesMessage) JmsMessageUtils.toMessage(new BytesMessageInputStream(received),
+                                                                        session);
+
+        message.reset();
+        assertEquals(3, message.getBodyLength());
+        assertEquals(1, message.readByte());
+        assertEquals(2, message.readByte());
+        assertEquals(3, message.readByte());
+    }
+
     @Test
     public void testConvertingSerializableToObjectMessage() throws JMSException
     {
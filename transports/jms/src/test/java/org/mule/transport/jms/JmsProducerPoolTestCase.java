@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.jms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.mule.api.endpoint.ImmutableEndpoint;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import javax.jms.Connection;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+@SmallTest
+public class JmsProducerPoolTestCase extends AbstractMuleTestCase
+{
+
+    private JmsConnector connector;
+    private JmsSupport jmsSupport;
+    private Connection connection;
+    private ImmutableEndpoint endpoint;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        connector = mock(JmsConnector.class);
+        jmsSupport = mock(JmsSupport.class);
+        connection = mock(Connection.class);
+        when(connector.getJmsSupport()).thenReturn(jmsSupport);
+        when(connector.getName()).thenReturn("jmsConnector");
+        when(jmsSupport.createSession(eq(connection), anyBoolean(), anyBoolean(), anyInt(), anyBoolean())).thenAnswer(
+            new Answer<Session>()
+            {
+                @Override
+                public Session answer(InvocationOnMock invocation) throws Throwable
+                {
+                    return mock(Session.class);
+                }
+            });
+        when(jmsSupport.createProducer(any(Session.class), any(Destination.class), anyBoolean())).thenAnswer(
+            new Answer<MessageProducer>()
+            {
+                @Override
+                public MessageProducer answer(InvocationOnMock invocation) throws Throwable
+                {
+                    return mock(MessageProducer.class);
+                }
+            });
+
+        endpoint = mock(ImmutableEndpoint.class, RETURNS_DEEP_STUBS);
+        when(endpoint.getEndpointURI().getAddress()).thenReturn("queue");
+    }
+
+    @Test
+    public void reusesSessionsAndProducers() throws Exception
+    {
+        JmsProducerPool pool = new JmsProducerPool(connector, connection, 2, 1);
+
+        JmsProducerPool.PooledSession session = pool.borrow();
+        MessageProducer producer = session.getProducer(endpoint, false);
+        session.sent();
+        session.release(true);
+
+        JmsProducerPool.PooledSession reused = pool.borrow();
+        assertSame(session, reused);
+        assertSame(producer, reused.getProducer(endpoint, false));
+        assertNotSame(producer, reused.getProducer(endpoint, true));
+        reused.release(true);
+
+        assertEquals(1, pool.getCreatedSessions());
+        assertEquals(2, pool.getCreatedProducers());
+        assertEquals(1, pool.getReusedProducers());
+        assertEquals(1, pool.getIdleSessions());
+        assertEquals(0, pool.getActiveSessions());
+        verify(session.getSession(), never()).commit();
+    }
+
+    @Test
+    public void closesSessionsBeyondMaxIdleAndFailedOnes() throws Exception
+    {
+        JmsProducerPool pool = new JmsProducerPool(connector, connection, 1, 1);
+
+        JmsProducerPool.PooledSession first = pool.borrow();
+        JmsProducerPool.PooledSession second = pool.borrow();
+        JmsProducerPool.PooledSession third = pool.borrow();
+        first.release(true);
+        second.release(true);
+        third.release(false);
+
+        assertEquals(3, pool.getCreatedSessions());
+        assertEquals(2, pool.getDestroyedSessions());
+        assertEquals(1, pool.getInvalidSessions());
+        assertEquals(1, pool.getIdleSessions());
+        verify(connector, never()).closeQuietly(first.getSession());
+        verify(connector).closeQuietly(second.getSession());
+        verify(connector).closeQuietly(third.getSession());
+    }
+
+    @Test
+    public void commitsBatches() throws Exception
+    {
+        JmsProducerPool pool = new JmsProducerPool(connector, connection, 1, 3);
+        JmsProducerPool.PooledSession session = null;
+
+        for (int i = 0; i < 4; i++)
+        {
+            session = pool.borrow();
+            session.sent();
+            session.release(true);
+        }
+        verify(jmsSupport, times(1)).createSession(connection, false, true, 0, false);
+        verify(session.getSession(), times(1)).commit();
+        assertEquals(1, session.getUncommitted());
+
+        pool.flush();
+        verify(session.getSession(), times(2)).commit();
+        assertEquals(0, session.getUncommitted());
+        assertEquals(2, pool.getCommits());
+    }
+
+    @Test
+    public void commitsOpenBatchesOnClose() throws Exception
+    {
+        JmsProducerPool pool = new JmsProducerPool(connector, connection, 1, 10);
+        JmsProducerPool.PooledSession session = pool.borrow();
+        session.getProducer(endpoint, false);
+        session.sent();
+        session.release(true);
+
+        pool.close();
+
+        verify(session.getSession()).commit();
+        verify(connector).closeQuietly(session.getSession());
+        verify(connector).closeQuietly(any(MessageProducer.class));
+    }
+
+    @Test
+    public void countsSessionsThatCouldNotBeCreated() throws Exception
+    {
+        when(jmsSupport.createSession(eq(connection), anyBoolean(), anyBoolean(), anyInt(), anyBoolean())).thenThrow(
+            new JMSException("connection lost"));
+        JmsProducerPool pool = new JmsProducerPool(connector, connection, 1, 1);
+        try
+        {
+            pool.borrow();
+            fail("The session was expected to fail");
+        }
+        catch (JMSException e)
+        {
+            // expected
+        }
+        assertEquals(1, pool.getFailedSessions());
+        assertEquals(0, pool.getCreatedSessions());
+        assertEquals(0, pool.getActiveSessions());
+    }
+
+    @Test(expected = JMSException.class)
+    public void failsBorrowingWhenClosed() throws Exception
+    {
+        JmsProducerPool pool = new JmsProducerPool(connector, connection, 1, 1);
+        pool.close();
+        pool.borrow();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.jms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import javax.jms.Message;
+
+import org.junit.Test;
+
+@SmallTest
+public class JmsReplyConsumerTestCase extends AbstractMuleTestCase
+{
+
+    private final JmsReplyConsumer replyConsumer = new JmsReplyConsumer(mock(JmsConnector.class));
+
+    @Test
+    public void completesWaitingRequest() throws Exception
+    {
+        JmsReplyConsumer.PendingReply pendingReply = replyConsumer.register("request");
+        Message reply = reply("request");
+        replyConsumer.onMessage(reply);
+
+        assertSame(reply, pendingReply.await(0));
+        assertEquals(0, replyConsumer.getPendingCount());
+        assertEquals(0, replyConsumer.getEarlyCount());
+    }
+
+    @Test
+    public void keepsReplyArrivingBeforeItsRequestRegisters() throws Exception
+    {
+        Message reply = reply("ID:message");
+        replyConsumer.onMessage(reply);
+        assertEquals(1, replyConsumer.getEarlyCount());
+
+        JmsReplyConsumer.PendingReply pendingReply = replyConsumer.register("ID:message");
+        assertSame(reply, pendingReply.await(0));
+        assertEquals(0, replyConsumer.getPendingCount());
+        assertEquals(0, replyConsumer.getEarlyCount());
+    }
+
+    @Test
+    public void refusesCorrelationIdAlreadyWaitedFor() throws Exception
+    {
+        assertNotNull(replyConsumer.register("request"));
+        assertNull(replyConsumer.register("request"));
+    }
+
+    private Message reply(String correlationId) throws Exception
+    {
+        Message reply = mock(Message.class);
+        when(reply.getJMSCorrelationID()).thenReturn(correlationId);
+        return reply;
+    }
+}
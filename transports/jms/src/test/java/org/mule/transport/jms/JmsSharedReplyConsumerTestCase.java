@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.jms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import org.mule.api.MuleMessage;
+import org.mule.api.client.MuleClient;
+import org.mule.tck.junit4.FunctionalTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class JmsSharedReplyConsumerTestCase extends FunctionalTestCase
+{
+    private static final int REQUESTS = 20;
+
+    @Override
+    protected String getConfigFile()
+    {
+        return "jms-shared-reply-consumer-config.xml";
+    }
+
+    @Test
+    public void matchesConcurrentRepliesToTheirRequests() throws Exception
+    {
+        final MuleClient client = muleContext.getClient();
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try
+        {
+            List<Future<MuleMessage>> responses = new ArrayList<Future<MuleMessage>>();
+            for (int i = 0; i < REQUESTS; i++)
+            {
+                final String payload = "request " + i;
+                responses.add(executor.submit(new Callable<MuleMessage>()
+                {
+                    @Override
+                    public MuleMessage call() throws Exception
+                    {
+                        return client.send("vm://request", payload, null, RECEIVE_TIMEOUT);
+                    }
+                }));
+            }
+
+            for (int i = 0; i < REQUESTS; i++)
+            {
+                MuleMessage response = responses.get(i).get();
+                assertNotNull(response);
+                assertEquals("request " + i + " replied", response.getPayloadAsString());
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        JmsConnector connector = (JmsConnector) muleContext.getRegistry().lookupConnector("jmsConnector");
+        assertEquals(0, connector.getReplyConsumer(null).getPendingCount());
+    }
+}
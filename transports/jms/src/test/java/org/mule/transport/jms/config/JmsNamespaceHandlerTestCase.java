@@ -86,6 +86,9 @@ public class JmsNamespaceHandlerTestCase extends AbstractServiceAndFlowTestCase
         assertTrue(c.isEagerConsumer());
         assertEquals(4, c.getNumberOfConcurrentTransactedReceivers());
         assertFalse(c.isEmbeddedMode());
+        assertEquals(0, c.getMaxPooledSessions());
+        assertEquals(1, c.getDispatchBatchSize());
+        assertFalse(c.isSharedReplyConsumer());
     }
 
     @Test
@@ -117,6 +120,10 @@ public class JmsNamespaceHandlerTestCase extends AbstractServiceAndFlowTestCase
         // test properties, default is 4
         assertEquals(7, c.getNumberOfConcurrentTransactedReceivers());
         assertTrue(c.isEmbeddedMode());
+        assertEquals(8, c.getMaxPooledSessions());
+        assertEquals(20, c.getDispatchBatchSize());
+        assertEquals(500, c.getDispatchBatchTimeout());
+        assertTrue(c.isSharedReplyConsumer());
     }
 
     @Test
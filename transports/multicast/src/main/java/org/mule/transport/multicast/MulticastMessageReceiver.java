@@ -13,14 +13,15 @@ import org.mule.transport.AbstractConnector;
 import org.mule.transport.udp.UdpMessageReceiver;
 
 import java.io.IOException;
-import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.net.MulticastSocket;
 import java.net.URI;
 
-import javax.resource.spi.work.Work;
-
+/**
+ * Receives packets sent to a multicast group. Packets are pooled and responses sent through the
+ * group socket in the same way as in {@link UdpMessageReceiver}.
+ */
 public class MulticastMessageReceiver extends UdpMessageReceiver
 {
 
@@ -37,25 +38,6 @@ public class MulticastMessageReceiver extends UdpMessageReceiver
         return socket;
     }
 
-    protected Work createWork(DatagramPacket packet) throws IOException
-    {
-        return new MulticastWorker(packet);
-    }
-
-    public class MulticastWorker extends UdpWorker
-    {
-        public MulticastWorker(DatagramPacket packet)
-        {
-            super(socket, packet);
-        }
-
-        public void dispose()
-        {
-            // Do not close socket as we reuse it
-            // So do not call super.doDispose();
-        }
-    }
-
     protected void doDispose()
     {
         if (socket != null && !socket.isClosed())
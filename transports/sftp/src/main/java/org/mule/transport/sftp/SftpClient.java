@@ -28,9 +28,13 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -47,6 +51,8 @@ public class SftpClient
     public static final String STRICT_HOST_KEY_CHECKING = "StrictHostKeyChecking";
     public static final String PREFERRED_AUTHENTICATION_METHODS = "PreferredAuthentications";
 
+    private static final String DIRECTORY_LOCK_PREFIX = "sftp-mkdir:";
+
     private Log logger = LogFactory.getLog(getClass());
 
     private ChannelSftp channelSftp;
@@ -65,7 +71,8 @@ public class SftpClient
     // Keep track of the current working directory for improved logging.
     private String currentDirectory = "";
 
-    private static final Object lock = new Object();
+    // Directories this connection already created or found, so they are not checked again
+    private final Set<String> knownDirectories = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     private String preferredAuthenticationMethods;
 
@@ -97,6 +104,7 @@ public class SftpClient
         }
         catch (SftpException e)
         {
+            forgetDirectory(wd);
             String message = "Error '" + e.getMessage() + "' occurred when trying to CDW to '" + wd + "'.";
             logger.error(message);
             throw new IOException(message);
@@ -290,6 +298,20 @@ public class SftpClient
         return listDirectory(path, true, false);
     }
 
+    /**
+     * Lists the files of a directory together with their attributes, so their size and
+     * modification time are known without a round trip per file.
+     *
+     * @param path the directory to list
+     * @return the entries of the files in the directory, without subdirectories
+     * @throws IOException If an error occurs
+     */
+    public List<LsEntry> listFileEntries(String path) throws IOException
+    {
+        List<LsEntry> entries = listEntries(path, true, false);
+        return entries == null ? Collections.<LsEntry>emptyList() : entries;
+    }
+
     public String[] listDirectories() throws IOException
     {
         return listDirectory(".", false, true);
@@ -302,14 +324,30 @@ public class SftpClient
 
     private String[] listDirectory(String path, boolean includeFiles, boolean includeDirectories)
         throws IOException
+    {
+        List<LsEntry> entries = listEntries(path, includeFiles, includeDirectories);
+        if (entries == null)
+        {
+            return null;
+        }
+        String[] names = new String[entries.size()];
+        for (int i = 0; i < names.length; i++)
+        {
+            names[i] = entries.get(i).getFilename();
+        }
+        return names;
+    }
+
+    private List<LsEntry> listEntries(String path, boolean includeFiles, boolean includeDirectories)
+        throws IOException
     {
         try
         {
             @SuppressWarnings("unchecked")
-            Vector<String> vv = channelSftp.ls(path);
+            Vector<Object> vv = channelSftp.ls(path);
             if (vv != null)
             {
-                List<String> ret = new ArrayList<String>();
+                List<LsEntry> ret = new ArrayList<LsEntry>();
                 for (int i = 0; i < vv.size(); i++)
                 {
                     Object obj = vv.elementAt(i);
@@ -318,18 +356,18 @@ public class SftpClient
                         LsEntry entry = (LsEntry) obj;
                         if (includeFiles && !entry.getAttrs().isDir())
                         {
-                            ret.add(entry.getFilename());
+                            ret.add(entry);
                         }
                         if (includeDirectories && entry.getAttrs().isDir())
                         {
                             if (!entry.getFilename().equals(".") && !entry.getFilename().equals(".."))
                             {
-                                ret.add(entry.getFilename());
+                                ret.add(entry);
                             }
                         }
                     }
                 }
-                return ret.toArray(new String[ret.size()]);
+                return ret;
             }
         }
         catch (SftpException e)
@@ -399,6 +437,7 @@ public class SftpClient
         }
         catch (SftpException e)
         {
+            forgetDirectoryOf(fileName);
             logger.error("Error writing data over SFTP service, error was: " + e.getMessage(), e);
             throw new IOException(e.getMessage());
         }
@@ -417,6 +456,7 @@ public class SftpClient
         }
         catch (SftpException e)
         {
+            forgetDirectoryOf(fileNameRemote);
             throw new IOException(e.getMessage());
         }
     }
@@ -451,6 +491,28 @@ public class SftpClient
         }
     }
 
+    /**
+     * @param path File or directory path
+     * @return whether the file or directory exists, found with a single stat
+     * @throws IOException If an error other than a missing file occurs
+     */
+    public boolean exists(String path) throws IOException
+    {
+        try
+        {
+            channelSftp.stat(getAbsolutePath(path));
+            return true;
+        }
+        catch (SftpException e)
+        {
+            if (e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE)
+            {
+                return false;
+            }
+            throw new IOException(e.getMessage() + " (" + path + ")");
+        }
+    }
+
     /**
      * Creates a directory
      * 
@@ -469,6 +531,7 @@ public class SftpClient
         }
         catch (SftpException e)
         {
+            forgetDirectory(directoryName);
             // Don't throw e.getmessage since we only get "2: No such file"..
             throw new IOException("Could not create the directory '" + directoryName + "', caused by: "
                                   + e.getMessage());
@@ -481,6 +544,8 @@ public class SftpClient
     public void deleteDirectory(String path) throws IOException
     {
         path = getAbsolutePath(path);
+        // the path may be relative or contain the deleted directory, so forget them all
+        knownDirectories.clear();
         try
         {
             if (logger.isDebugEnabled())
@@ -515,9 +580,10 @@ public class SftpClient
 
     /**
      * Creates the directory if it not already exists. TODO: check if the SftpUtil &
-     * SftpClient methods can be merged Note, this method is synchronized because it
-     * in rare cases can be called from two threads at the same time and thus cause
-     * an error.
+     * SftpClient methods can be merged. Directories found or created are remembered
+     * by this client, so they are only checked once per connection. Two clients may
+     * try to create the same directory at the same time, so the creation is guarded
+     * by a lock on the directory path.
      * 
      * @param endpoint
      * @param newDir
@@ -525,45 +591,42 @@ public class SftpClient
      */
     public void createSftpDirIfNotExists(ImmutableEndpoint endpoint, String newDir) throws IOException
     {
-        String newDirAbs = endpoint.getEndpointURI().getPath() + "/" + newDir;
-
-        String currDir = currentDirectory;
-
-        if (logger.isDebugEnabled())
+        String newDirAbs = getAbsolutePath(endpoint.getEndpointURI().getPath() + "/" + newDir);
+        if (knownDirectories.contains(newDirAbs))
         {
-            logger.debug("CHANGE DIR FROM " + currentDirectory + " TO " + newDirAbs);
+            return;
         }
 
-        // We need to have a synchronized block if two++ threads tries to
-        // create the same directory at the same time
-        synchronized (lock)
+        Lock lock = endpoint.getMuleContext().getLockFactory().createLock(DIRECTORY_LOCK_PREFIX + host + newDirAbs);
+        lock.lock();
+        try
         {
-            // Try to change directory to the new dir, if it fails - create it
-            try
-            {
-                // This method will throw an exception if the directory does not
-                // exist.
-                changeWorkingDirectory(newDirAbs);
-            }
-            catch (IOException e)
-            {
-                logger.info("Got an exception when trying to change the working directory to the new dir. "
-                            + "Will try to create the directory " + newDirAbs);
-                changeWorkingDirectory(endpoint.getEndpointURI().getPath());
-                mkdir(newDir);
-
-                // Now it should exist!
-                changeWorkingDirectory(newDirAbs);
-            }
-            finally
+            if (!exists(newDirAbs))
             {
-                changeWorkingDirectory(currDir);
-                if (logger.isDebugEnabled())
-                {
-                    logger.debug("DIR IS NOW BACK TO " + currentDirectory);
-                }
+                logger.info("The directory " + newDirAbs + " does not exist. Will try to create it");
+                mkdir(newDirAbs);
             }
+            knownDirectories.add(newDirAbs);
         }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Makes {@link #createSftpDirIfNotExists(ImmutableEndpoint, String)} check the directory again,
+     * after an operation on it failed because it was removed or is no longer accessible.
+     */
+    private void forgetDirectory(String directory)
+    {
+        knownDirectories.remove(getAbsolutePath(directory));
+    }
+
+    private void forgetDirectoryOf(String fileName)
+    {
+        int separatorIdx = fileName.lastIndexOf('/');
+        forgetDirectory(separatorIdx > 0 ? fileName.substring(0, separatorIdx) : currentDirectory);
     }
 
     public String duplicateHandling(String destDir, String filename, String duplicateHandling)
@@ -585,16 +648,7 @@ public class SftpClient
 
     private boolean fileAlreadyExists(String destDir, String filename) throws IOException
     {
-        logger.warn("listing files for: " + destDir + "/" + filename);
-        String[] files = listFiles(destDir);
-        for(String file : files)
-        {
-            if (file.equals(filename))
-            {
-                return true;
-            }
-        }
-        return false;
+        return exists(destDir + "/" + filename);
     }
 
     private String createUniqueName(String dir, String path) throws IOException
@@ -623,10 +677,11 @@ public class SftpClient
                          + fileType + ")");
         }
 
+        // Probe the candidate names one by one, the first one is free in the usual case
+        // so this avoids listing the whole directory
         String uniqueFilename = filename;
-        String[] existingFiles = listFiles(getAbsolutePath(dir));
 
-        while (existsFile(existingFiles, uniqueFilename, fileType))
+        while (existsFile(dir, uniqueFilename, fileType))
         {
             uniqueFilename = filename + '_' + fileIdx++;
         }
@@ -644,20 +699,13 @@ public class SftpClient
         return uniqueFilename;
     }
 
-    private boolean existsFile(String[] files, String filename, String fileType)
+    private boolean existsFile(String dir, String filename, String fileType) throws IOException
     {
-        boolean existsFile = false;
         filename += fileType;
-        for (String file : files)
+        boolean existsFile = exists(dir + "/" + filename);
+        if (existsFile && logger.isDebugEnabled())
         {
-            if (file.equals(filename))
-            {
-                if (logger.isDebugEnabled())
-                {
-                    logger.debug("Found existing file: " + file);
-                }
-                existsFile = true;
-            }
+            logger.debug("Found existing file: " + filename);
         }
         return existsFile;
     }
@@ -111,6 +111,12 @@ public class SftpConnector extends AbstractConnector
      */
     private int maxConnectionPoolSize;
 
+    /**
+     * Number of files a receiver retrieves at the same time. 0 to retrieve them one
+     * after another on the polling thread.
+     */
+    private int maxConcurrentFiles = 0;
+
     /**
      * Value that can be set via the System property
      * 'mule.sftp.transport.maxConnectionPoolSize'. If it's set the value is used
@@ -567,6 +573,19 @@ public class SftpConnector extends AbstractConnector
         return maxConnectionPoolSize;
     }
 
+    /**
+     * @see SftpConnector#maxConcurrentFiles
+     */
+    public int getMaxConcurrentFiles()
+    {
+        return maxConcurrentFiles;
+    }
+
+    public void setMaxConcurrentFiles(int maxConcurrentFiles)
+    {
+        this.maxConcurrentFiles = maxConcurrentFiles;
+    }
+
     public Boolean isKeepFileOnError()
     {
         return keepFileOnError;
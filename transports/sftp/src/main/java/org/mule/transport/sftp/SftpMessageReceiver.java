@@ -8,6 +8,7 @@ package org.mule.transport.sftp;
 
 import org.mule.api.MessagingException;
 import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
 import org.mule.api.MuleMessage;
 import org.mule.api.construct.FlowConstruct;
 import org.mule.api.endpoint.InboundEndpoint;
@@ -21,6 +22,7 @@ import org.mule.processor.strategy.SynchronousProcessingStrategy;
 import org.mule.transport.AbstractPollingMessageReceiver;
 import org.mule.transport.sftp.notification.SftpNotifier;
 import org.mule.util.lock.LockFactory;
+import org.mule.work.PipelinedWorkQueue;
 
 import java.io.InputStream;
 import java.util.Arrays;
@@ -38,6 +40,8 @@ public class SftpMessageReceiver extends AbstractPollingMessageReceiver
     private SftpReceiverRequesterUtil sftpRRUtil = null;
     private LockFactory lockFactory;
     private boolean poolOnPrimaryInstanceOnly;
+    private boolean synchronousProcessing;
+    private volatile SftpFileQueue fileQueue;
 
     public SftpMessageReceiver(SftpConnector connector,
                                FlowConstruct flow,
@@ -85,6 +89,12 @@ public class SftpMessageReceiver extends AbstractPollingMessageReceiver
                     logger.debug("Polling. " + files.length + " files found at " + endpoint.getEndpointURI()
                                  + ":" + Arrays.toString(files));
                 }
+                int maxConcurrentFiles = ((SftpConnector) connector).getMaxConcurrentFiles();
+                if (maxConcurrentFiles > 0)
+                {
+                    dispatchFiles(files, maxConcurrentFiles);
+                    return;
+                }
                 for (String file : files)
                 {
                     if (getLifecycleState().isStopping())
@@ -123,11 +133,34 @@ public class SftpMessageReceiver extends AbstractPollingMessageReceiver
         }
     }
 
+    /**
+     * Hands the files to a bounded number of workers so they are retrieved in
+     * parallel, each one over its own pooled connection.
+     */
+    protected void dispatchFiles(String[] files, int maxConcurrentFiles) throws Exception
+    {
+        SftpFileQueue queue = fileQueue;
+        if (queue == null)
+        {
+            queue = new SftpFileQueue(maxConcurrentFiles);
+            fileQueue = queue;
+        }
+        for (String file : files)
+        {
+            if (getLifecycleState().isStopping())
+            {
+                break;
+            }
+            queue.submit(file, file);
+        }
+        queue.dispatch();
+    }
+
     @Override
     protected void doInitialise() throws InitialisationException
     {
         this.lockFactory = getEndpoint().getMuleContext().getLockFactory();
-        boolean synchronousProcessing = false;
+        this.synchronousProcessing = false;
         if (getFlowConstruct() instanceof Flow)
         {
             synchronousProcessing = ((Flow)getFlowConstruct()).getProcessingStrategy() instanceof SynchronousProcessingStrategy;
@@ -205,8 +238,85 @@ public class SftpMessageReceiver extends AbstractPollingMessageReceiver
         // no op
     }
 
+    @Override
+    protected void doStop() throws MuleException
+    {
+        SftpFileQueue queue = fileQueue;
+        if (queue != null)
+        {
+            queue.clear();
+            fileQueue = null;
+        }
+        super.doStop();
+    }
+
     protected void doDispose()
     {
         // no op
     }
+
+    private final class SftpFileQueue extends PipelinedWorkQueue<String, Object>
+    {
+
+        private SftpFileQueue(int maxConcurrentFiles)
+        {
+            super(getWorkManager(), maxConcurrentFiles);
+        }
+
+        @Override
+        protected boolean process(Object resource, String file) throws Exception
+        {
+            // the client is borrowed when the file is retrieved and returned when its
+            // stream is closed, so there is no connection to keep between files
+            Lock fileLock = lockFactory.createLock(connector.getName() + file);
+            if (!fileLock.tryLock(10, TimeUnit.MILLISECONDS))
+            {
+                return false;
+            }
+            try
+            {
+                routeFile(file);
+                return true;
+            }
+            catch (MessagingException e)
+            {
+                //Already handled by TransactionTemplate
+                return false;
+            }
+            finally
+            {
+                fileLock.unlock();
+            }
+        }
+
+        @Override
+        protected void handleException(String file, Exception e)
+        {
+            logger.error("Error processing file " + file, e);
+            getEndpoint().getMuleContext().getExceptionListener().handleException(e);
+        }
+
+        /**
+         * Lists the directory again right away, files that arrived while the previous ones
+         * were routed are picked up without waiting for the next poll. A file is only removed
+         * once its stream is consumed, so this is done only when the flow routes files
+         * synchronously.
+         */
+        @Override
+        protected void drained()
+        {
+            if (!synchronousProcessing || !isStarted())
+            {
+                return;
+            }
+            try
+            {
+                performPoll();
+            }
+            catch (Exception e)
+            {
+                getEndpoint().getMuleContext().getExceptionListener().handleException(e);
+            }
+        }
+    }
 }
@@ -15,7 +15,11 @@ import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import com.jcraft.jsch.ChannelSftp.LsEntry;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -86,13 +90,16 @@ public class SftpReceiverRequesterUtil
             // Get size check parameter
             long sizeCheckDelayMs = sftpUtil.getSizeCheckWaitTime();
 
-            String[] files = client.listFiles();
+            // A single listing gives the size and modification time of every file, so
+            // they don't need to be checked one by one
+            List<LsEntry> files = client.listFileEntries(".");
+            boolean checkFiles = checkFileAge || sizeCheckDelayMs >= 0;
 
             // Only return files that have completely been written and match
             // fileExtension
-            List<String> completedFiles = new ArrayList<String>(files.length);
+            List<LsEntry> candidates = new ArrayList<LsEntry>(files.size());
 
-            for (String file : files)
+            for (LsEntry file : files)
             {
                 // Skip if no match.
                 // Note, Mule also uses this filter. We use the filter here because
@@ -101,35 +108,34 @@ public class SftpReceiverRequesterUtil
                 // that Mule
                 // later should have ignored. Thus this is an "early" filter so that
                 // improves performance.
-                if (filenameFilter != null && !filenameFilter.accept(null, file))
+                if (filenameFilter != null && !filenameFilter.accept(null, file.getFilename()))
                 {
                     continue;
                 }
 
-                if (checkFileAge || sizeCheckDelayMs >= 0)
+                // See if the file is still growing (by age), leave it alone if it is
+                if (!checkFiles || canProcessFile(file, fileAge))
                 {
-                    // See if the file is still growing (either by age or size),
-                    // leave it alone if it is
-                    if (canProcessFile(file, client, fileAge, sizeCheckDelayMs))
+                    candidates.add(file);
+                    if (onlyGetTheFirstOne && !checkFiles)
                     {
-                        // logger.debug("marking file [" + files[i] +
-                        // "] as in transit.");
-                        // client.rename(files[i], files[i] + ".transtit");
-                        // completedFiles.add( files[i] + ".transtit" );
-                        completedFiles.add(file);
-                        if (onlyGetTheFirstOne)
-                        {
-                            break;
-                        }
+                        break;
                     }
                 }
-                else
+            }
+
+            if (checkFiles)
+            {
+                candidates = removeChangedFiles(candidates, client, sizeCheckDelayMs);
+            }
+
+            List<String> completedFiles = new ArrayList<String>(candidates.size());
+            for (LsEntry file : candidates)
+            {
+                completedFiles.add(file.getFilename());
+                if (onlyGetTheFirstOne)
                 {
-                    completedFiles.add(file);
-                    if (onlyGetTheFirstOne)
-                    {
-                        break;
-                    }
+                    break;
                 }
             }
             return completedFiles.toArray(new String[completedFiles.size()]);
@@ -301,113 +307,96 @@ public class SftpReceiverRequesterUtil
     }
 
     /**
-     * Checks if the file has been changed.
-     * <p/>
-     * Note! This assumes that the time on both servers are synchronized!
-     * 
-     * @param fileName The file to check
-     * @param client instance of StftClient
-     * @param fileAge How old the file should be to be considered "old" and not
-     *            changed
-     * @param sizeCheckDelayMs Wait time (in ms) between size-checks to determine if
-     *            a file is ready to be processed.
-     * @return true if the file has changed
-     * @throws Exception Error
+     * Checks the attributes of a listed file before it is retrieved.
+     *
+     * @return whether the file is old enough to be retrieved
      */
-    protected boolean canProcessFile(String fileName, SftpClient client, long fileAge, long sizeCheckDelayMs)
-        throws Exception
+    protected boolean canProcessFile(LsEntry file, long fileAge) throws Exception
     {
-        if (fileAge > 0 && !isOldFile(fileName, client, fileAge))
-        {
-            return false;
-        }
+        return fileAge <= 0 || isOldFile(file, fileAge);
+    }
 
-        if (sizeCheckDelayMs > 0 && isSizeModified(fileName, client, sizeCheckDelayMs))
+    /**
+     * Lists the directory again, once for all the candidate files, and drops the ones
+     * that were removed or, if a size check is configured, that are still growing.
+     */
+    private List<LsEntry> removeChangedFiles(List<LsEntry> candidates, SftpClient client, long sizeCheckDelayMs)
+        throws IOException, InterruptedException
+    {
+        if (candidates.isEmpty())
         {
-            return false;
+            return candidates;
         }
 
-        return true;
-    }
-
-    private boolean isSizeModified(String fileName, SftpClient client, long sizeCheckDelayMs) throws IOException, InterruptedException
-    {
-        try
+        boolean checkSize = sizeCheckDelayMs > 0;
+        if (checkSize)
         {
             if (logger.isDebugEnabled())
             {
                 logger.debug("Perform size check with a delay of: " + sizeCheckDelayMs + " ms.");
             }
-
-            long fileSize1 = client.getSize(fileName);
             Thread.sleep(sizeCheckDelayMs);
-            long fileSize2 = client.getSize(fileName);
+        }
+
+        Map<String, Long> currentSizes = new HashMap<String, Long>();
+        for (LsEntry file : client.listFileEntries("."))
+        {
+            currentSizes.put(file.getFilename(), file.getAttrs().getSize());
+        }
 
-            if (fileSize1 == fileSize2)
+        List<LsEntry> stableFiles = new ArrayList<LsEntry>(candidates.size());
+        for (LsEntry file : candidates)
+        {
+            Long currentSize = currentSizes.get(file.getFilename());
+            if (currentSize == null)
             {
                 if (logger.isDebugEnabled())
                 {
-                    logger.debug("File is stable (not growing), ready for retrieval: " + fileName);
+                    logger.debug("File was removed, skipping it: " + file.getFilename());
                 }
             }
-            else
+            else if (checkSize && currentSize != file.getAttrs().getSize())
             {
                 if (logger.isDebugEnabled())
                 {
-                    logger.debug("File is growing, deferring retrieval: " + fileName);
+                    logger.debug("File is growing, deferring retrieval: " + file.getFilename());
                 }
-                return true;
             }
-            return false;
-        }
-        catch (IOException e)
-        {
-            if (logger.isDebugEnabled())
+            else
             {
-                logger.debug(String.format("Cannot check if size of file '%s' was modified or not", fileName));
+                if (checkSize && logger.isDebugEnabled())
+                {
+                    logger.debug("File is stable (not growing), ready for retrieval: " + file.getFilename());
+                }
+                stableFiles.add(file);
             }
-
-            // Assumes the file size has changed
-            return true;
         }
+        return stableFiles;
     }
 
-    private boolean isOldFile(String fileName, SftpClient client, long fileAge) throws IOException
+    private boolean isOldFile(LsEntry file, long fileAge)
     {
-        try
-        {
-            long lastModifiedTime = client.getLastModifiedTime(fileName);
-            long now = System.currentTimeMillis();
-            long diff = now - lastModifiedTime;
-
-            // If the diff is negative it's a sign that the time on the test server
-            // and the ftps-server is not synchronized
-            if (diff < fileAge)
-            {
-                if (logger.isDebugEnabled())
-                {
-                    logger.debug("The file has not aged enough yet, will return nothing for: " + fileName
-                                 + ". The file must be " + (fileAge - diff) + "ms older, was " + diff);
-                }
+        long lastModifiedTime = file.getAttrs().getMTime() * 1000L;
+        long now = System.currentTimeMillis();
+        long diff = now - lastModifiedTime;
 
-                return false;
-            }
-
-            if (logger.isDebugEnabled())
-            {
-                logger.debug("The file " + fileName + " has aged enough. Was " + diff);
-            }
-            return true;
-        }
-        catch (IOException e)
+        // If the diff is negative it's a sign that the time on the test server
+        // and the ftps-server is not synchronized
+        if (diff < fileAge)
         {
             if (logger.isDebugEnabled())
             {
-                logger.debug(String.format("Cannot check if age of file '%s' is old enough", fileName));
+                logger.debug("The file has not aged enough yet, will return nothing for: " + file.getFilename()
+                             + ". The file must be " + (fileAge - diff) + "ms older, was " + diff);
             }
 
-            // Assumes the file is not old enough
             return false;
         }
+
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("The file " + file.getFilename() + " has aged enough. Was " + diff);
+        }
+        return true;
     }
 }
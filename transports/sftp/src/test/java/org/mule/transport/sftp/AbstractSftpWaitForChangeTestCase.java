@@ -21,6 +21,8 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.concurrent.CountDownLatch;
 
+import com.jcraft.jsch.ChannelSftp.LsEntry;
+
 import org.junit.Test;
 
 public abstract class AbstractSftpWaitForChangeTestCase extends AbstractSftpFunctionalTestCase
@@ -114,14 +116,14 @@ public abstract class AbstractSftpWaitForChangeTestCase extends AbstractSftpFunc
         }
 
         @Override
-        protected boolean canProcessFile(String fileName, SftpClient client, long fileAge, long sizeCheckDelayMs) throws Exception
+        protected boolean canProcessFile(LsEntry file, long fileAge) throws Exception
         {
-            if (FILE1_NAME.equals(fileName))
+            if (FILE1_NAME.equals(file.getFilename()))
             {
-                deleteSftpFile(fileName);
+                deleteSftpFile(file.getFilename());
             }
 
-            return super.canProcessFile(fileName, client, fileAge, sizeCheckDelayMs);
+            return super.canProcessFile(file, fileAge);
         }
 
         @Override
@@ -8,14 +8,31 @@ package org.mule.transport.sftp;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import org.mule.api.endpoint.ImmutableEndpoint;
 import org.mule.tck.junit4.AbstractMuleTestCase;
 import org.mule.tck.size.SmallTest;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.concurrent.locks.ReentrantLock;
 
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpException;
 import org.junit.Test;
 
 /**
@@ -75,11 +92,60 @@ public class SftpClientTestCase extends AbstractMuleTestCase
         assertEquals(fileName, newName);
     }
 
+    @Test
+    public void createsDirectoryOnlyOncePerConnection() throws Exception
+    {
+        ImmutableEndpoint endpoint = mock(ImmutableEndpoint.class, RETURNS_DEEP_STUBS);
+        when(endpoint.getEndpointURI().getPath()).thenReturn("/base");
+        when(endpoint.getMuleContext().getLockFactory().createLock(anyString())).thenReturn(new ReentrantLock());
+
+        SftpClient spy = spy(new SftpClient("local"));
+        doReturn(false).when(spy).exists("/base/newDir");
+        doNothing().when(spy).mkdir("/base/newDir");
+
+        spy.createSftpDirIfNotExists(endpoint, "newDir");
+        spy.createSftpDirIfNotExists(endpoint, "newDir");
+
+        verify(spy, times(1)).exists("/base/newDir");
+        verify(spy, times(1)).mkdir("/base/newDir");
+    }
+
+    @Test
+    public void checksDirectoryAgainAfterAFailedWrite() throws Exception
+    {
+        ImmutableEndpoint endpoint = mock(ImmutableEndpoint.class, RETURNS_DEEP_STUBS);
+        when(endpoint.getEndpointURI().getPath()).thenReturn("/base");
+        when(endpoint.getMuleContext().getLockFactory().createLock(anyString())).thenReturn(new ReentrantLock());
+
+        SftpClient spy = spy(new SftpClient("local"));
+        ChannelSftp channel = mock(ChannelSftp.class);
+        Field channelField = SftpClient.class.getDeclaredField("channelSftp");
+        channelField.setAccessible(true);
+        channelField.set(spy, channel);
+        doReturn(true).when(spy).exists("/base/newDir");
+        doThrow(new SftpException(ChannelSftp.SSH_FX_NO_SUCH_FILE, "No such file")).when(channel).put(any(InputStream.class), anyString(), anyInt());
+
+        spy.createSftpDirIfNotExists(endpoint, "newDir");
+        try
+        {
+            spy.storeFile("/base/newDir/" + fileName, mock(InputStream.class));
+            fail("The directory was removed");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+        spy.createSftpDirIfNotExists(endpoint, "newDir");
+
+        verify(spy, times(2)).exists("/base/newDir");
+    }
+
     private SftpClient getSftpClientSpy() throws IOException
     {
         SftpClient sftp = new SftpClient("local");
         SftpClient spy = spy(sftp);
-        doReturn(new String[]{fileName}).when(spy).listFiles(destDir);
+        doReturn(false).when(spy).exists(anyString());
+        doReturn(true).when(spy).exists(destDir + "/" + fileName);
         return spy;
     }
 }
@@ -35,6 +35,7 @@ public class SftpNamespaceHandlerTestCase extends FunctionalTestCase
         assertEquals(1234, c.getFileAge());
         assertEquals("uploading", c.getTempDirOutbound());
         assertEquals(42, c.getMaxConnectionPoolSize());
+        assertEquals(4, c.getMaxConcurrentFiles());
     }
 
     @Test
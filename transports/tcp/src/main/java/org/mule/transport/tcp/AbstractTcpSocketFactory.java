@@ -10,7 +10,16 @@ import org.mule.api.transport.Connector;
 import org.mule.util.MapUtils;
 
 import java.io.IOException;
+import java.net.ConnectException;
 import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -19,6 +28,12 @@ import org.apache.commons.pool.KeyedPoolableObjectFactory;
 /**
  * Creates a client socket using the socket address extracted from the endpoint.  Addtional
  * socket parameters will also be set from the connector
+ * <p/>
+ * Sockets idle for longer than <code>validateAfterInactivity</code> are probed when they
+ * are borrowed again, so a socket closed by the server is not handed to a dispatcher. When
+ * <code>reconnectBackoff</code> is set, connections to an address that just refused one
+ * fail fast for an exponentially growing delay. Each attempt draws its own jitter, so a
+ * restarting server is not hit by every dispatcher at once.
  */
 public abstract class AbstractTcpSocketFactory implements KeyedPoolableObjectFactory
 {
@@ -28,13 +43,60 @@ public abstract class AbstractTcpSocketFactory implements KeyedPoolableObjectFac
      */
     private static final Log logger = LogFactory.getLog(TcpSocketFactory.class);
 
+    /**
+     * Maximum number of times the reconnection backoff is doubled
+     */
+    private static final int MAX_BACKOFF_SHIFT = 6;
+
     private int connectionTimeout = Connector.INT_VALUE_NOT_SET;
+    private long validateAfterInactivity = -1;
+    private long reconnectBackoff = 0;
+
+    /**
+     * Time at which each idle socket was last returned, sockets in use are not in the map
+     */
+    private final Map<Socket, Long> lastUsed = new ConcurrentHashMap<Socket, Long>();
+    private final Set<TcpSocketKey> routes = Collections.newSetFromMap(new ConcurrentHashMap<TcpSocketKey, Boolean>());
+    private final Map<Object, ConnectFailure> connectFailures = new ConcurrentHashMap<Object, ConnectFailure>();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong invalid = new AtomicLong();
 
     public Object makeObject(Object key) throws Exception
     {
         TcpSocketKey socketKey = (TcpSocketKey) key;
+        routes.add(socketKey);
 
-        Socket socket = createSocket(socketKey);
+        ConnectFailure failure = connectFailures.get(key);
+        long remaining = failure != null ? failure.remaining() : 0;
+        if (remaining > 0)
+        {
+            failed.incrementAndGet();
+            throw new ConnectException("Not connecting to " + socketKey + " after " + failure.count
+                                       + " failed attempt(s), retrying in " + remaining + " ms");
+        }
+
+        Socket socket;
+        try
+        {
+            socket = createSocket(socketKey);
+        }
+        catch (IOException e)
+        {
+            failed.incrementAndGet();
+            if (reconnectBackoff > 0)
+            {
+                connectFailures.put(key, new ConnectFailure(failure != null ? failure.count + 1 : 1));
+            }
+            throw e;
+        }
+        if (failure != null)
+        {
+            connectFailures.remove(key);
+        }
+        created.incrementAndGet();
+        lastUsed.put(socket, System.currentTimeMillis());
         socket.setReuseAddress(true);
 
         TcpConnector connector = socketKey.getConnector();
@@ -48,21 +110,81 @@ public abstract class AbstractTcpSocketFactory implements KeyedPoolableObjectFac
     public void destroyObject(Object key, Object object) throws Exception
     {
         Socket socket = (Socket) object;
+        lastUsed.remove(socket);
+        destroyed.incrementAndGet();
         if(!socket.isClosed())
         {
             socket.close();
         }
     }
 
+    /**
+     * Only checks that the socket is open. The pool also validates sockets when they are
+     * returned, so probing for liveness is done in {@link #activateObject(Object, Object)}.
+     */
     public boolean validateObject(Object key, Object object)
     {
-        Socket socket = (Socket) object;
-        return !socket.isClosed();
+        return !((Socket) object).isClosed();
+    }
+
+    /**
+     * Checks an idle socket by reading from it with a very short timeout. A connection
+     * closed by the server reads as the end of the stream, while a live one times out.
+     * Data received while the socket was idle means it is out of sync with the protocol,
+     * so it is not reused either.
+     */
+    protected boolean isAlive(Socket socket)
+    {
+        if (!socket.isConnected() || socket.isInputShutdown() || socket.isOutputShutdown())
+        {
+            return false;
+        }
+        int soTimeout = -1;
+        try
+        {
+            soTimeout = socket.getSoTimeout();
+            socket.setSoTimeout(1);
+            socket.getInputStream().read();
+            return false;
+        }
+        catch (SocketTimeoutException e)
+        {
+            return true;
+        }
+        catch (IOException e)
+        {
+            return false;
+        }
+        finally
+        {
+            if (soTimeout >= 0)
+            {
+                try
+                {
+                    socket.setSoTimeout(soTimeout);
+                }
+                catch (SocketException e)
+                {
+                    // the socket is not usable anymore, it will be discarded
+                }
+            }
+        }
     }
 
+    /**
+     * Probes the socket if it has been idle for longer than <code>validateAfterInactivity</code>.
+     * A socket that fails the probe is rejected, so the pool destroys it and tries another one.
+     */
     public void activateObject(Object key, Object object) throws Exception
     {
-        // cannot really activate a Socket
+        Socket socket = (Socket) object;
+        Long used = lastUsed.remove(socket);
+        if (validateAfterInactivity >= 0 && used != null
+            && System.currentTimeMillis() - used > validateAfterInactivity && !isAlive(socket))
+        {
+            invalid.incrementAndGet();
+            throw new SocketException("Socket to " + key + " was closed while idle");
+        }
     }
 
     public void passivateObject(Object key, Object object) throws Exception
@@ -73,7 +195,11 @@ public abstract class AbstractTcpSocketFactory implements KeyedPoolableObjectFac
             TcpConnector.KEEP_SEND_SOCKET_OPEN_PROPERTY, socketKey.getConnector().isKeepSendSocketOpen());
         Socket socket = (Socket) object;
 
-        if (!keepSocketOpen)
+        if (keepSocketOpen)
+        {
+            lastUsed.put(socket, System.currentTimeMillis());
+        }
+        else
         {
             try
             {
@@ -98,4 +224,95 @@ public abstract class AbstractTcpSocketFactory implements KeyedPoolableObjectFac
     {
         this.connectionTimeout = connectionTimeout;
     }
+
+    public long getValidateAfterInactivity()
+    {
+        return validateAfterInactivity;
+    }
+
+    /**
+     * @param validateAfterInactivity the time in milliseconds after which an idle socket is
+     *            probed before it is reused, a negative value to never probe sockets
+     */
+    public void setValidateAfterInactivity(long validateAfterInactivity)
+    {
+        this.validateAfterInactivity = validateAfterInactivity;
+    }
+
+    public long getReconnectBackoff()
+    {
+        return reconnectBackoff;
+    }
+
+    /**
+     * @param reconnectBackoff the delay in milliseconds before connecting again to an address
+     *            that refused a connection, doubled on every failure. Zero disables it.
+     */
+    public void setReconnectBackoff(long reconnectBackoff)
+    {
+        this.reconnectBackoff = reconnectBackoff;
+    }
+
+    public long getCreatedCount()
+    {
+        return created.get();
+    }
+
+    public long getDestroyedCount()
+    {
+        return destroyed.get();
+    }
+
+    public long getFailedCount()
+    {
+        return failed.get();
+    }
+
+    public long getInvalidCount()
+    {
+        return invalid.get();
+    }
+
+    /**
+     * @return the addresses this factory has been asked to connect to
+     */
+    public Set<TcpSocketKey> getRoutes()
+    {
+        return Collections.unmodifiableSet(routes);
+    }
+
+    /**
+     * @return the number of consecutive failed connection attempts to the given address, only
+     *         tracked when <code>reconnectBackoff</code> is set
+     */
+    public int getConnectFailures(TcpSocketKey key)
+    {
+        ConnectFailure failure = connectFailures.get(key);
+        return failure != null ? failure.count : 0;
+    }
+
+    private class ConnectFailure
+    {
+        private final int count;
+        private final long failedAt;
+        private final long delay;
+
+        private ConnectFailure(int count)
+        {
+            this.count = count;
+            this.failedAt = System.currentTimeMillis();
+            this.delay = reconnectBackoff << Math.min(count - 1, MAX_BACKOFF_SHIFT);
+        }
+
+        /**
+         * @return the time in milliseconds this attempt still has to wait, at most the full
+         *         delay. Half of the delay is drawn again on every attempt so that clients
+         *         waiting on the same address do not reconnect in lockstep.
+         */
+        private long remaining()
+        {
+            long wait = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+            return failedAt + wait - System.currentTimeMillis();
+        }
+    }
 }
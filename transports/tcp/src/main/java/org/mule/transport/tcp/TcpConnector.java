@@ -13,6 +13,8 @@ import org.mule.api.MuleMessage;
 import org.mule.api.config.MuleProperties;
 import org.mule.api.endpoint.ImmutableEndpoint;
 import org.mule.api.lifecycle.InitialisationException;
+import org.mule.api.transport.ConnectionPoolStatistics;
+import org.mule.api.transport.ConnectionPoolStatisticsProvider;
 import org.mule.api.transport.Connector;
 import org.mule.api.transport.MessageDispatcherFactory;
 import org.mule.config.i18n.CoreMessages;
@@ -20,6 +22,7 @@ import org.mule.model.streaming.CallbackOutputStream;
 import org.mule.transport.AbstractConnector;
 import org.mule.transport.ConfigurableKeyedObjectPool;
 import org.mule.transport.tcp.protocols.SafeProtocol;
+import org.mule.util.MapUtils;
 import org.mule.util.concurrent.ThreadNameHelper;
 import org.mule.util.monitor.ExpiryMonitor;
 
@@ -31,6 +34,13 @@ import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.URI;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.apache.commons.pool.impl.GenericKeyedObjectPool;
 
@@ -39,8 +49,12 @@ import org.apache.commons.pool.impl.GenericKeyedObjectPool;
  * Other socket-based transports can be built on top of this class by providing the
  * appropriate socket factories and application level protocols as required (see
  * the constructor and the SSL transport for examples).
+ * <p/>
+ * The sockets used to send are pooled by endpoint address. Besides its size, the pool
+ * can keep a minimum of idle sockets open, evict sockets idle for too long, check sockets
+ * idle for a while before reusing them and back off from addresses refusing connections.
  */
-public class TcpConnector extends AbstractConnector
+public class TcpConnector extends AbstractConnector implements ConnectionPoolStatisticsProvider
 {
     public static final String TCP = "tcp";
     public static final String SEND_TCP_NO_DELAY_SYSTEM_PROPERTY = MuleProperties.SYSTEM_PROPERTY_PREFIX
@@ -75,6 +89,15 @@ public class TcpConnector extends AbstractConnector
     private int keepAliveTimeout = 0;
     private ExpiryMonitor keepAliveMonitor;
     private Boolean failOnUnresolvedHost = Boolean.TRUE;
+    private int socketsPoolMaxActive = INT_VALUE_NOT_SET;
+    private int socketsPoolMaxIdle = INT_VALUE_NOT_SET;
+    private int socketsPoolMinIdle = 0;
+    private long socketsPoolEvictionInterval = 0;
+    private long socketsPoolMaxIdleTime = GenericKeyedObjectPool.DEFAULT_MIN_EVICTABLE_IDLE_TIME_MILLIS;
+    private long socketsPoolValidateAfterInactivity = -1;
+    private long socketsPoolReconnectBackoff = 0;
+    private final Set<TcpSocketKey> warmedUpKeys =
+        Collections.newSetFromMap(new ConcurrentHashMap<TcpSocketKey, Boolean>());
 
     /** 
      * If set, the socket is not closed after sending a message.  This attribute 
@@ -155,14 +178,29 @@ public class TcpConnector extends AbstractConnector
     protected void doInitialise() throws InitialisationException
     {
         socketFactory.setConnectionTimeout(getConnectionTimeout());
+        socketFactory.setValidateAfterInactivity(socketsPoolValidateAfterInactivity);
+        socketFactory.setReconnectBackoff(socketsPoolReconnectBackoff);
 
         socketsPool.setFactory(getSocketFactory());
         socketsPool.setTestOnBorrow(true);
         socketsPool.setTestOnReturn(true);
-        socketsPool.setMaxActive(getDispatcherThreadingProfile().getMaxThreadsActive());
-        socketsPool.setMaxIdle(getDispatcherThreadingProfile().getMaxThreadsIdle());
+        socketsPool.setMaxActive(socketsPoolMaxActive != INT_VALUE_NOT_SET
+                                 ? socketsPoolMaxActive
+                                 : getDispatcherThreadingProfile().getMaxThreadsActive());
+        socketsPool.setMaxIdle(socketsPoolMaxIdle != INT_VALUE_NOT_SET
+                               ? socketsPoolMaxIdle
+                               : getDispatcherThreadingProfile().getMaxThreadsIdle());
+        socketsPool.setMinIdle(socketsPoolMinIdle);
         socketsPool.setWhenExhaustedAction(GenericKeyedObjectPool.WHEN_EXHAUSTED_BLOCK);
         socketsPool.setMaxWait(socketMaxWait);
+        socketsPool.setMinEvictableIdleTimeMillis(socketsPoolMaxIdleTime);
+        if (socketsPoolEvictionInterval > 0)
+        {
+            // the evictor also closes the idle sockets found dead and tops up minIdle
+            socketsPool.setTimeBetweenEvictionRunsMillis(socketsPoolEvictionInterval);
+            socketsPool.setTestWhileIdle(true);
+            socketsPool.setNumTestsPerEvictionRun(-1);
+        }
 
         // Use connector's classloader so that other temporary classloaders
         // aren't used when things are started lazily or from elsewhere.
@@ -210,9 +248,55 @@ public class TcpConnector extends AbstractConnector
                     + (socket.isClosed() ? "closed" : "open") 
                     + "; debt " + socketsPool.getNumActive());
         }
+        warmUp(socketKey);
         return socket;
     }
 
+    /**
+     * Opens up to <code>socketsPoolMinIdle</code> sockets in the background the first time a
+     * socket is borrowed for an address, so later dispatches do not pay for connecting.
+     * Sockets are only pooled while idle when they are kept open.
+     */
+    private void warmUp(final TcpSocketKey socketKey)
+    {
+        if (socketsPoolMinIdle <= 0
+            || !MapUtils.getBooleanValue(socketKey.getEndpoint().getProperties(), KEEP_SEND_SOCKET_OPEN_PROPERTY,
+                isKeepSendSocketOpen())
+            || !warmedUpKeys.add(socketKey))
+        {
+            return;
+        }
+        ScheduledExecutorService scheduler = getScheduler();
+        if (scheduler == null)
+        {
+            return;
+        }
+        try
+        {
+            scheduler.execute(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        for (int i = socketsPool.getNumIdle(socketKey); i < socketsPoolMinIdle; i++)
+                        {
+                            socketsPool.addObject(socketKey);
+                        }
+                    }
+                    catch (Exception e)
+                    {
+                        logger.debug("Failed to open idle sockets for " + socketKey + ": " + e.getMessage());
+                    }
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            // the connector is being disposed
+        }
+    }
+
     void releaseSocket(Socket socket, ImmutableEndpoint endpoint) throws Exception
     {
         TcpSocketKey socketKey = new TcpSocketKey(endpoint);
@@ -271,6 +355,7 @@ public class TcpConnector extends AbstractConnector
     protected void doDisconnect() throws Exception
     {
         socketsPool.clear();
+        warmedUpKeys.clear();
     }
 
     @Override
@@ -572,6 +657,100 @@ public class TcpConnector extends AbstractConnector
         return socketsPool.getMaxWait();
     }
 
+    /**
+     * @param socketsPoolMaxActive the maximum number of sockets open to each address, by
+     *            default the maximum number of dispatcher threads
+     */
+    public void setSocketsPoolMaxActive(int socketsPoolMaxActive)
+    {
+        this.socketsPoolMaxActive = socketsPoolMaxActive;
+    }
+
+    /**
+     * @param socketsPoolMaxIdle the maximum number of idle sockets kept for each address, by
+     *            default the maximum number of idle dispatcher threads
+     */
+    public void setSocketsPoolMaxIdle(int socketsPoolMaxIdle)
+    {
+        this.socketsPoolMaxIdle = socketsPoolMaxIdle;
+    }
+
+    public int getSocketsPoolMinIdle()
+    {
+        return socketsPoolMinIdle;
+    }
+
+    /**
+     * @param socketsPoolMinIdle the number of idle sockets kept open to each address the
+     *            connector sends to, when sockets are kept open
+     */
+    public void setSocketsPoolMinIdle(int socketsPoolMinIdle)
+    {
+        this.socketsPoolMinIdle = socketsPoolMinIdle;
+    }
+
+    public long getSocketsPoolEvictionInterval()
+    {
+        return socketsPoolEvictionInterval;
+    }
+
+    /**
+     * @param socketsPoolEvictionInterval the time in milliseconds between the checks of the
+     *            idle sockets, zero to never check them
+     */
+    public void setSocketsPoolEvictionInterval(long socketsPoolEvictionInterval)
+    {
+        this.socketsPoolEvictionInterval = socketsPoolEvictionInterval;
+    }
+
+    public long getSocketsPoolMaxIdleTime()
+    {
+        return socketsPoolMaxIdleTime;
+    }
+
+    /**
+     * @param socketsPoolMaxIdleTime the time in milliseconds after which the checks close an
+     *            idle socket
+     */
+    public void setSocketsPoolMaxIdleTime(long socketsPoolMaxIdleTime)
+    {
+        this.socketsPoolMaxIdleTime = socketsPoolMaxIdleTime;
+    }
+
+    public long getSocketsPoolValidateAfterInactivity()
+    {
+        return socketsPoolValidateAfterInactivity;
+    }
+
+    /**
+     * @param socketsPoolValidateAfterInactivity the time in milliseconds after which an idle
+     *            socket is probed before it is reused, a negative value to never probe them
+     */
+    public void setSocketsPoolValidateAfterInactivity(long socketsPoolValidateAfterInactivity)
+    {
+        this.socketsPoolValidateAfterInactivity = socketsPoolValidateAfterInactivity;
+    }
+
+    public long getSocketsPoolReconnectBackoff()
+    {
+        return socketsPoolReconnectBackoff;
+    }
+
+    /**
+     * @param socketsPoolReconnectBackoff the time in milliseconds during which connecting to an
+     *            address that refused a connection fails fast, doubled on every failure.
+     *            Zero disables it.
+     */
+    public void setSocketsPoolReconnectBackoff(long socketsPoolReconnectBackoff)
+    {
+        this.socketsPoolReconnectBackoff = socketsPoolReconnectBackoff;
+    }
+
+    public ConnectionPoolStatistics getConnectionPoolStatistics()
+    {
+        return new SocketsPoolStatistics();
+    }
+
     public Boolean isFailOnUnresolvedHost() 
     {
         return failOnUnresolvedHost;
@@ -582,4 +761,63 @@ public class TcpConnector extends AbstractConnector
         this.failOnUnresolvedHost = failOnUnresolvedHost;
     }
 
+    private class SocketsPoolStatistics implements ConnectionPoolStatistics
+    {
+        public int getNumActive()
+        {
+            return socketsPool.getNumActive();
+        }
+
+        public int getNumIdle()
+        {
+            return socketsPool.getNumIdle();
+        }
+
+        public int getMaxActive()
+        {
+            return socketsPool.getMaxActive();
+        }
+
+        public int getMaxIdle()
+        {
+            return socketsPool.getMaxIdle();
+        }
+
+        public int getMinIdle()
+        {
+            return socketsPool.getMinIdle();
+        }
+
+        public long getCreatedConnections()
+        {
+            return socketFactory.getCreatedCount();
+        }
+
+        public long getDestroyedConnections()
+        {
+            return socketFactory.getDestroyedCount();
+        }
+
+        public long getFailedConnections()
+        {
+            return socketFactory.getFailedCount();
+        }
+
+        public long getInvalidConnections()
+        {
+            return socketFactory.getInvalidCount();
+        }
+
+        public Map<String, String> getRouteUsage()
+        {
+            Map<String, String> usage = new LinkedHashMap<String, String>();
+            for (TcpSocketKey key : socketFactory.getRoutes())
+            {
+                usage.put(key.toString(), String.format("active=%d, idle=%d, failures=%d",
+                    socketsPool.getNumActive(key), socketsPool.getNumIdle(key), socketFactory.getConnectFailures(key)));
+            }
+            return usage;
+        }
+    }
+
 }
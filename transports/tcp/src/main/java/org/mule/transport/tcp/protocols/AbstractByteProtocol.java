@@ -11,7 +11,6 @@ import org.mule.ResponseOutputStream;
 import org.mule.api.MuleMessage;
 import org.mule.transport.tcp.TcpProtocol;
 import org.mule.util.ClassUtils;
-import org.mule.util.IOUtils;
 import org.mule.util.SerializationUtils;
 
 import java.io.IOException;
@@ -36,12 +35,16 @@ import org.apache.commons.logging.LogFactory;
  * all cases it is possible to call {@link #write(java.io.OutputStream, Object)} which
  * will, via {@link #write(java.io.OutputStream, Object)}, dispatch to
  * {@link #writeByteArray(java.io.OutputStream, byte[])}.</p>.
+ * <p/>
+ * <p>The transfer buffers used to read and write are taken from a
+ * {@link TransferBufferPool}, so only the payload itself is allocated per message.</p>
  */
 public abstract class AbstractByteProtocol implements TcpProtocol
 {
     private static final Log logger = LogFactory.getLog(DirectProtocol.class);
     private static final long PAUSE_PERIOD = 100;
     public static final int EOF = -1;
+    private static final int STREAM_BUFFER_SIZE = 8192;
 
     // make this really clear in subclasses, because otherwise people will forget
     public static final boolean STREAM_OK = true;
@@ -61,7 +64,19 @@ public abstract class AbstractByteProtocol implements TcpProtocol
             if (streamOk)
             {
                 InputStream is = (InputStream) data;
-                IOUtils.copyLarge(is, os);
+                byte[] buffer = getBufferPool().acquire(STREAM_BUFFER_SIZE);
+                try
+                {
+                    int len;
+                    while (EOF != (len = is.read(buffer)))
+                    {
+                        os.write(buffer, 0, len);
+                    }
+                }
+                finally
+                {
+                    getBufferPool().release(buffer);
+                }
                 os.flush();
                 os.close();
                 is.close();
@@ -221,6 +236,14 @@ public abstract class AbstractByteProtocol implements TcpProtocol
         }
     }
 
+    /**
+     * @return the pool the transfer buffers of this protocol are taken from
+     */
+    protected TransferBufferPool getBufferPool()
+    {
+        return TransferBufferPool.getDefault();
+    }
+
     public ResponseOutputStream createResponse(Socket socket) throws IOException
     {
         return new ResponseOutputStream(socket, new ProtocolStream(this, streamOk, socket.getOutputStream()));
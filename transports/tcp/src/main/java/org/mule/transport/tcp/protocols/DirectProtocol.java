@@ -9,6 +9,7 @@ package org.mule.transport.tcp.protocols;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.MessageFormat;
+import java.util.Arrays;
 
 import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.apache.commons.logging.Log;
@@ -52,19 +53,28 @@ public class DirectProtocol extends AbstractByteProtocol
 
     public Object read(InputStream is, int limit) throws IOException
     {
-        // this can grow on repeated reads
-        ByteArrayOutputStream baos = new ByteArrayOutputStream(bufferSize);
-        
+        byte[] buffer = getBufferPool().acquire(bufferSize);
+        // only created when the message does not arrive in a single read
+        ByteArrayOutputStream baos = null;
         try
         {
-            byte[] buffer = new byte[bufferSize];
             int len;
+            int total = 0;
             int remain = remaining(limit, limit, 0);
             boolean repeat;
             do
             {
-
-                len = copy(is, buffer, baos, remain);
+                if (total > 0 && baos == null)
+                {
+                    // this can grow on repeated reads
+                    baos = new ByteArrayOutputStream(bufferSize * 2);
+                    baos.write(buffer, 0, total);
+                }
+                len = baos == null ? safeRead(is, buffer, remain) : copy(is, buffer, baos, remain);
+                if (len > 0)
+                {
+                    total += len;
+                }
                 remain = remaining(limit, remain, len);
                 repeat = EOF != len && remain > 0 && isRepeat(len, is.available());
 
@@ -76,13 +86,23 @@ public class DirectProtocol extends AbstractByteProtocol
                 }
             }
             while (repeat);
+
+            if (baos == null)
+            {
+                // the payload is the only copy made of the transfer buffer
+                return total > 0 ? Arrays.copyOf(buffer, total) : null;
+            }
+            baos.flush();
+            return nullEmptyArray(baos.toByteArray());
         }
         finally
         {
-            baos.flush();
-            baos.close();
+            getBufferPool().release(buffer);
+            if (baos != null)
+            {
+                baos.close();
+            }
         }
-        return nullEmptyArray(baos.toByteArray());
     }
 
     protected int remaining(int limit, int remain, int len)
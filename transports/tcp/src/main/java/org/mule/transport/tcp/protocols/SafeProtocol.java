@@ -13,6 +13,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
+import java.util.Arrays;
 
 /**
  * This precedes every message with a cookie.
@@ -25,6 +26,7 @@ public class SafeProtocol implements TcpProtocol
 {
 
     public static final String COOKIE = "You are using SafeProtocol";
+    private static final byte[] COOKIE_BYTES = COOKIE.getBytes();
     private TcpProtocol delegate = new LengthProtocol();
     private TcpProtocol cookieProtocol = new LengthProtocol(COOKIE.length());
 
@@ -59,7 +61,7 @@ public class SafeProtocol implements TcpProtocol
 
     private void assureSibling(OutputStream os) throws IOException
     {
-        cookieProtocol.write(os, COOKIE);
+        cookieProtocol.write(os, COOKIE_BYTES);
     }
 
     /**
@@ -80,9 +82,7 @@ public class SafeProtocol implements TcpProtocol
         }
         if (null != cookie)
         {
-            if (!(cookie instanceof byte[]
-                    && ((byte[]) cookie).length == COOKIE.length()
-                    && COOKIE.equals(new String((byte[]) cookie))))
+            if (!(cookie instanceof byte[] && Arrays.equals(COOKIE_BYTES, (byte[]) cookie)))
             {
                 helpUser();
             }
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp.protocols;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of the byte arrays the protocols read and write through, so that a message does
+ * not cost a new transfer buffer. Arrays are pooled by size, since each protocol always
+ * asks for the same sizes. An array must not be used once it has been released, and must
+ * never be handed out as (part of) a payload.
+ */
+public class TransferBufferPool
+{
+    /**
+     * Arrays kept for each size, enough for the receiver threads of a few connectors
+     */
+    public static final int DEFAULT_MAX_POOLED = 64;
+
+    /**
+     * Arrays larger than this are not kept, so a large message does not pin its buffer
+     */
+    public static final int MAX_POOLED_SIZE = 64 * 1024;
+
+    private static final TransferBufferPool DEFAULT = new TransferBufferPool(DEFAULT_MAX_POOLED);
+
+    private final int maxPooled;
+    private final ConcurrentMap<Integer, Bucket> buckets = new ConcurrentHashMap<Integer, Bucket>();
+
+    public TransferBufferPool(int maxPooled)
+    {
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * @return the pool shared by the protocols of all the TCP connectors
+     */
+    public static TransferBufferPool getDefault()
+    {
+        return DEFAULT;
+    }
+
+    /**
+     * @return an array of exactly <code>size</code> bytes, with undefined content
+     */
+    public byte[] acquire(int size)
+    {
+        Bucket bucket = buckets.get(size);
+        if (bucket != null)
+        {
+            byte[] buffer = bucket.buffers.poll();
+            if (buffer != null)
+            {
+                bucket.count.decrementAndGet();
+                return buffer;
+            }
+        }
+        return new byte[size];
+    }
+
+    /**
+     * Gives back an array obtained from {@link #acquire(int)}.
+     */
+    public void release(byte[] buffer)
+    {
+        if (buffer == null || buffer.length == 0 || buffer.length > MAX_POOLED_SIZE)
+        {
+            return;
+        }
+        Bucket bucket = buckets.get(buffer.length);
+        if (bucket == null)
+        {
+            Bucket created = new Bucket();
+            bucket = buckets.putIfAbsent(buffer.length, created);
+            bucket = bucket == null ? created : bucket;
+        }
+        if (bucket.count.incrementAndGet() <= maxPooled)
+        {
+            bucket.buffers.offer(buffer);
+        }
+        else
+        {
+            bucket.count.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return the number of arrays of the given size waiting to be reused
+     */
+    public int getPooledCount(int size)
+    {
+        Bucket bucket = buckets.get(size);
+        return bucket == null ? 0 : bucket.count.get();
+    }
+
+    private static class Bucket
+    {
+        private final Queue<byte[]> buffers = new ConcurrentLinkedQueue<byte[]>();
+        private final AtomicInteger count = new AtomicInteger();
+    }
+}
@@ -71,11 +71,11 @@ public class XmlMessageProtocol extends AbstractByteProtocol
         }
 
         int len = -1;
+        byte[] buffer = getBufferPool().acquire(READ_BUFFER_SIZE);
         try
         {
             // read until xml pattern is seen (and then pushed back) or no more data
             // to read. return all data as message
-            byte[] buffer = new byte[READ_BUFFER_SIZE];
             StringBuilder message = new StringBuilder(READ_BUFFER_SIZE);
             int patternIndex = -1;
             boolean repeat;
@@ -84,11 +84,14 @@ public class XmlMessageProtocol extends AbstractByteProtocol
                 len = safeRead(pbis, buffer);
                 if (len >= 0)
                 {
+                    // only search the data just read, and the end of the previous
+                    // data in case the pattern spans both reads
+                    int searchFrom = Math.max(1, message.length() - XML_PATTERN.length() + 1);
                     // TODO take encoding into account, ideally from the incoming XML
                     message.append(new String(buffer, 0, len));
                     // start search at 2nd character in buffer (index=1) to
                     // indicate whether we have reached a new document.
-                    patternIndex = message.toString().indexOf(XML_PATTERN, 1);
+                    patternIndex = message.indexOf(XML_PATTERN, searchFrom);
                     repeat = isRepeat(patternIndex, len, pbis.available());
                 }
                 else
@@ -114,6 +117,8 @@ public class XmlMessageProtocol extends AbstractByteProtocol
         }
         finally
         {
+            getBufferPool().release(buffer);
+
             // TODO - this doesn't seem very reliable, since loop above can end
             // without EOF.  On the other hand, what else can we do?  Entire logic
             // is not very dependable, IMHO.  XmlMessageEOFProtocol is more likely
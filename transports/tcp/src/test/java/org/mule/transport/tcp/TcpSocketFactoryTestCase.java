@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.mule.api.endpoint.ImmutableEndpoint;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SmallTest
+public class TcpSocketFactoryTestCase extends AbstractMuleTestCase
+{
+
+    private ServerSocket server;
+    private TcpSocketKey key;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        key = mock(TcpSocketKey.class);
+        TcpConnector connector = mock(TcpConnector.class);
+        when(connector.isKeepSendSocketOpen()).thenReturn(true);
+        when(key.getConnector()).thenReturn(connector);
+        when(key.getEndpoint()).thenReturn(mock(ImmutableEndpoint.class));
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        server.close();
+    }
+
+    @Test
+    public void probesIdleSockets() throws Exception
+    {
+        TestSocketFactory factory = new TestSocketFactory();
+        factory.setValidateAfterInactivity(0);
+
+        Socket socket = (Socket) factory.makeObject(key);
+        Socket accepted = server.accept();
+        factory.passivateObject(key, socket);
+        Thread.sleep(10);
+        factory.activateObject(key, socket);
+        assertTrue(factory.validateObject(key, socket));
+
+        // a socket in use is not probed when it is returned
+        accepted.close();
+        Thread.sleep(10);
+        assertTrue(factory.validateObject(key, socket));
+        assertEquals(0, factory.getInvalidCount());
+
+        factory.passivateObject(key, socket);
+        Thread.sleep(10);
+        try
+        {
+            factory.activateObject(key, socket);
+            fail("Socket closed by the server was expected to be rejected");
+        }
+        catch (SocketException e)
+        {
+            // expected
+        }
+        assertEquals(1, factory.getInvalidCount());
+
+        factory.destroyObject(key, socket);
+        assertTrue(socket.isClosed());
+        assertEquals(1, factory.getCreatedCount());
+        assertEquals(1, factory.getDestroyedCount());
+    }
+
+    @Test
+    public void backsOffAfterConnectionFailures() throws Exception
+    {
+        TestSocketFactory factory = new TestSocketFactory();
+        factory.setReconnectBackoff(60000);
+        factory.refuse = true;
+
+        for (int i = 0; i < 3; i++)
+        {
+            try
+            {
+                factory.makeObject(key);
+                fail("Connection was expected to fail");
+            }
+            catch (ConnectException e)
+            {
+                // expected
+            }
+        }
+        assertEquals(1, factory.attempts);
+        assertEquals(3, factory.getFailedCount());
+        assertTrue(factory.getRoutes().contains(key));
+        assertEquals(1, factory.getConnectFailures(key));
+    }
+
+    @Test
+    public void connectsEveryTimeWithoutBackoff() throws Exception
+    {
+        TestSocketFactory factory = new TestSocketFactory();
+        factory.refuse = true;
+
+        for (int i = 0; i < 3; i++)
+        {
+            try
+            {
+                factory.makeObject(key);
+                fail("Connection was expected to fail");
+            }
+            catch (ConnectException e)
+            {
+                // expected
+            }
+        }
+        assertEquals(3, factory.attempts);
+    }
+
+    private class TestSocketFactory extends AbstractTcpSocketFactory
+    {
+
+        private boolean refuse;
+        private int attempts;
+
+        @Override
+        protected Socket createSocket(TcpSocketKey key) throws IOException
+        {
+            attempts++;
+            if (refuse)
+            {
+                throw new ConnectException("Connection refused");
+            }
+            return new Socket(server.getInetAddress(), server.getLocalPort());
+        }
+    }
+}
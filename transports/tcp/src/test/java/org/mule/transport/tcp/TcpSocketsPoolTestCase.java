@@ -8,6 +8,7 @@ package org.mule.transport.tcp;
 
 import org.mule.ResponseOutputStream;
 import org.mule.api.client.MuleClient;
+import org.mule.api.transport.ConnectionPoolStatistics;
 import org.mule.api.transport.DispatchException;
 import org.mule.tck.AbstractServiceAndFlowTestCase;
 import org.mule.tck.junit4.rule.DynamicPort;
@@ -86,6 +87,29 @@ public class TcpSocketsPoolTestCase extends AbstractServiceAndFlowTestCase
         assertEquals(maxActive, tcpConnector.getSocketsPoolMaxActive());
         assertEquals(maxIdle, tcpConnector.getSocketsPoolMaxIdle());
         assertEquals(TcpConnector.DEFAULT_WAIT_TIMEOUT, tcpConnector.getSocketMaxWait());
+        assertEquals(0, tcpConnector.getSocketsPoolMinIdle());
+        assertEquals(0, tcpConnector.getSocketsPoolEvictionInterval());
+        assertEquals(-1, tcpConnector.getSocketsPoolValidateAfterInactivity());
+        assertEquals(0, tcpConnector.getSocketsPoolReconnectBackoff());
+    }
+
+    @Test
+    public void testSocketsPoolTuning() throws Exception
+    {
+        TcpConnector tcpConnector = (TcpConnector) muleContext.getRegistry().lookupConnector("tunedConnector");
+        assertEquals(4, tcpConnector.getSocketsPoolMaxActive());
+        assertEquals(2, tcpConnector.getSocketsPoolMaxIdle());
+        assertEquals(1, tcpConnector.getSocketsPoolMinIdle());
+        assertEquals(5000, tcpConnector.getSocketsPoolEvictionInterval());
+        assertEquals(60000, tcpConnector.getSocketsPoolMaxIdleTime());
+        assertEquals(2000, tcpConnector.getSocketsPoolValidateAfterInactivity());
+        assertEquals(2000, tcpConnector.getSocketFactory().getValidateAfterInactivity());
+        assertEquals(100, tcpConnector.getSocketFactory().getReconnectBackoff());
+
+        ConnectionPoolStatistics statistics = tcpConnector.getConnectionPoolStatistics();
+        assertEquals(4, statistics.getMaxActive());
+        assertEquals(1, statistics.getMinIdle());
+        assertEquals(0, statistics.getNumActive());
     }
 
     public static class MockTcpProtocol implements TcpProtocol
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp.protocols;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+@SmallTest
+public class TransferBufferPoolTestCase extends AbstractMuleTestCase
+{
+
+    @Test
+    public void reusesReleasedBuffers() throws Exception
+    {
+        TransferBufferPool pool = new TransferBufferPool(2);
+        byte[] buffer = pool.acquire(16);
+        assertEquals(16, buffer.length);
+
+        pool.release(buffer);
+        assertEquals(1, pool.getPooledCount(16));
+        assertSame(buffer, pool.acquire(16));
+        assertEquals(0, pool.getPooledCount(16));
+        assertNotSame(buffer, pool.acquire(16));
+    }
+
+    @Test
+    public void poolsBuffersBySize() throws Exception
+    {
+        TransferBufferPool pool = new TransferBufferPool(2);
+        byte[] buffer = pool.acquire(16);
+        pool.release(buffer);
+
+        assertEquals(32, pool.acquire(32).length);
+        assertEquals(1, pool.getPooledCount(16));
+    }
+
+    @Test
+    public void boundsPooledBuffers() throws Exception
+    {
+        TransferBufferPool pool = new TransferBufferPool(2);
+        for (int i = 0; i < 3; i++)
+        {
+            pool.release(new byte[16]);
+        }
+        pool.release(new byte[TransferBufferPool.MAX_POOLED_SIZE + 1]);
+
+        assertEquals(2, pool.getPooledCount(16));
+        assertEquals(0, pool.getPooledCount(TransferBufferPool.MAX_POOLED_SIZE + 1));
+    }
+}
@@ -19,6 +19,7 @@ import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 
 /**
  * Test by reading characters from a fixed StringBuilder instead of a TCP port.
@@ -121,6 +122,30 @@ public class XmlMessageProtocolTestCase extends AbstractMuleTestCase
         assertNull(read(bais));
     }
 
+    @Test
+    public void testMessageStartSpanningReads() throws Exception
+    {
+        StringBuilder first = new StringBuilder("<?xml version=\"1.0\"?><data>");
+        while (first.length() < 4094 - "</data>".length())
+        {
+            first.append('x');
+        }
+        first.append("</data>");
+        String second = "<?xml version=\"1.0\"?><data>hello</data>";
+
+        ByteArrayInputStream bais = new ByteArrayInputStream((first.toString() + second).getBytes());
+
+        byte[] result = read(bais);
+        assertNotNull(result);
+        assertEquals(first.toString(), new String(result));
+
+        result = read(bais);
+        assertNotNull(result);
+        assertEquals(second, new String(result));
+
+        assertNull(read(bais));
+    }
+
     @Test
     public void testSlowStream() throws Exception
     {
@@ -134,4 +159,37 @@ public class XmlMessageProtocolTestCase extends AbstractMuleTestCase
         assertEquals(msgData.substring(0, 1), new String(result));
     }
 
+    @Test
+    public void releasesBufferWhenReadFails() throws Exception
+    {
+        final TransferBufferPool pool = new TransferBufferPool(1);
+        XmlMessageProtocol protocol = new XmlMessageProtocol()
+        {
+            @Override
+            protected TransferBufferPool getBufferPool()
+            {
+                return pool;
+            }
+        };
+        InputStream failing = new InputStream()
+        {
+            @Override
+            public int read() throws IOException
+            {
+                throw new IOException("Connection reset");
+            }
+        };
+
+        try
+        {
+            protocol.read(failing);
+            fail("The read was expected to fail");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+        assertEquals(1, pool.getPooledCount(4096));
+    }
+
 }
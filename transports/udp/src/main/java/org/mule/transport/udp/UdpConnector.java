@@ -26,6 +26,7 @@ public class UdpConnector extends AbstractConnector
     public static final String UDP = "udp";
     public static final int DEFAULT_SOCKET_TIMEOUT = INT_VALUE_NOT_SET;
     public static final int DEFAULT_BUFFER_SIZE = 1024 * 16;
+    public static final int DEFAULT_RECEIVE_BATCH_SIZE = 1;
     public static final String KEEP_SEND_SOCKET_OPEN_PROPERTY = "keepSendSocketOpen";
     public static final String ADDRESS_PROPERTY = "packet.address";
     public static final String PORT_PROPERTY = "packet.port";
@@ -33,6 +34,7 @@ public class UdpConnector extends AbstractConnector
     protected int timeout = DEFAULT_SOCKET_TIMEOUT;
     protected int sendBufferSize = DEFAULT_BUFFER_SIZE;
     protected int receiveBufferSize = DEFAULT_BUFFER_SIZE;
+    protected int receiveBatchSize = DEFAULT_RECEIVE_BATCH_SIZE;
     protected boolean keepSendSocketOpen = true;
     protected boolean broadcast;
     protected GenericKeyedObjectPool dispatcherSocketsPool = new GenericKeyedObjectPool();
@@ -138,6 +140,24 @@ public class UdpConnector extends AbstractConnector
         this.receiveBufferSize = receiveBufferSize;
     }
 
+    public int getReceiveBatchSize()
+    {
+        return receiveBatchSize;
+    }
+
+    /**
+     * Sets how many received packets are handed to a worker thread at once. Packets are handed one by
+     * one by default.
+     */
+    public void setReceiveBatchSize(int receiveBatchSize)
+    {
+        if (receiveBatchSize < 1)
+        {
+            receiveBatchSize = DEFAULT_RECEIVE_BATCH_SIZE;
+        }
+        this.receiveBatchSize = receiveBatchSize;
+    }
+
     public boolean isBroadcast()
     {
         return broadcast;
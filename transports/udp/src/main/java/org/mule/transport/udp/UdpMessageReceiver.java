@@ -29,19 +29,38 @@ import java.net.SocketAddress;
 import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.resource.spi.work.Work;
 import javax.resource.spi.work.WorkException;
 import javax.resource.spi.work.WorkManager;
 
-/** <code>UdpMessageReceiver</code> receives UDP message packets. */
+/**
+ * <code>UdpMessageReceiver</code> receives UDP message packets.
+ * <p/>
+ * Packets and their buffers are reused once the message has been created from them, and responses
+ * are sent through the receiving socket, so receiving a packet neither allocates a buffer nor opens
+ * a socket. When the connector has a <code>receiveBatchSize</code> greater than one, packets are
+ * handed to the workers in batches.
+ */
 public class UdpMessageReceiver extends AbstractMessageReceiver implements Work
 {
+    /**
+     * How long a partial batch waits for more packets before it is handed to a worker.
+     */
+    protected static final int BATCH_FLUSH_TIMEOUT = 10;
+
     protected DatagramSocket socket = null;
     protected InetAddress inetAddress;
     protected int bufferSize;
+    protected int receiveBatchSize;
+    protected BlockingQueue<DatagramPacket> packetPool;
     private URI uri;
+    private int socketTimeout;
 
     protected final AtomicBoolean disposing = new AtomicBoolean(false);
 
@@ -52,6 +71,10 @@ public class UdpMessageReceiver extends AbstractMessageReceiver implements Work
         super(connector, flowConstruct, endpoint);
 
         bufferSize = ((UdpConnector) connector).getReceiveBufferSize();
+        receiveBatchSize = ((UdpConnector) connector).getReceiveBatchSize();
+        // enough packets for every worker to hold a full batch, more are allocated when needed
+        int maxWorkers = Math.max(1, connector.getReceiverThreadingProfile().getMaxThreadsActive());
+        packetPool = new ArrayBlockingQueue<DatagramPacket>((maxWorkers + 1) * receiveBatchSize);
 
         uri = endpoint.getEndpointURI().getUri();
 
@@ -74,6 +97,7 @@ public class UdpMessageReceiver extends AbstractMessageReceiver implements Work
         try
         {
             socket = ((UdpConnector) connector).getServerSocket(endpoint);
+            socketTimeout = socket.getSoTimeout();
         }
         catch (Exception e)
         {
@@ -119,19 +143,31 @@ public class UdpMessageReceiver extends AbstractMessageReceiver implements Work
         return socket;
     }
 
+    /**
+     * @return a packet from the pool, or a new one if the pool is empty
+     */
     protected DatagramPacket createPacket()
     {
-        DatagramPacket packet = new DatagramPacket(new byte[bufferSize], bufferSize);
-//        if (uri.getPort() > 0)
-//        {
-//            packet.setPort(uri.getPort());
-//        }
-//        packet.setAddress(inetAddress);
+        DatagramPacket packet = packetPool.poll();
+        if (packet == null)
+        {
+            packet = new DatagramPacket(new byte[bufferSize], bufferSize);
+        }
         return packet;
     }
 
+    /**
+     * Returns a packet to the pool once its content is not needed anymore.
+     */
+    protected void releasePacket(DatagramPacket packet)
+    {
+        packet.setLength(packet.getData().length);
+        packetPool.offer(packet);
+    }
+
     public void run()
     {
+        List<Work> batch = new ArrayList<Work>(receiveBatchSize);
         while (!disposing.get())
         {
             if (connector.isStarted())
@@ -154,18 +190,30 @@ public class UdpMessageReceiver extends AbstractMessageReceiver implements Work
                         }
 
                         Work work = createWork(packet);
-                        try
+                        if (receiveBatchSize <= 1)
                         {
-                            getWorkManager().scheduleWork(work, WorkManager.INDEFINITE, null, connector);
+                            scheduleWork(work);
                         }
-                        catch (WorkException e)
+                        else
                         {
-                            logger.error("Udp receiver interrupted: " + e.getMessage(), e);
+                            batch.add(work);
+                            if (batch.size() == 1)
+                            {
+                                socket.setSoTimeout(BATCH_FLUSH_TIMEOUT);
+                            }
+                            if (batch.size() >= receiveBatchSize)
+                            {
+                                batch = flushBatch(batch);
+                            }
                         }
                     }
                     catch (SocketTimeoutException e)
                     {
-                        // ignore
+                        releasePacket(packet);
+                        if (!batch.isEmpty())
+                        {
+                            batch = flushBatch(batch);
+                        }
                     }
 
                 }
@@ -181,6 +229,25 @@ public class UdpMessageReceiver extends AbstractMessageReceiver implements Work
         }
     }
 
+    private List<Work> flushBatch(List<Work> batch) throws IOException
+    {
+        socket.setSoTimeout(socketTimeout);
+        scheduleWork(batch.size() == 1 ? batch.get(0) : new BatchWorker(batch));
+        return new ArrayList<Work>(receiveBatchSize);
+    }
+
+    private void scheduleWork(Work work)
+    {
+        try
+        {
+            getWorkManager().scheduleWork(work, WorkManager.INDEFINITE, null, connector);
+        }
+        catch (WorkException e)
+        {
+            logger.error("Udp receiver interrupted: " + e.getMessage(), e);
+        }
+    }
+
     public void release()
     {
         dispose();
@@ -199,9 +266,13 @@ public class UdpMessageReceiver extends AbstractMessageReceiver implements Work
 
     protected Work createWork(DatagramPacket packet) throws IOException
     {
-        return new UdpWorker(new DatagramSocket(0), packet);
+        return new UdpWorker(socket, packet);
     }
 
+    /**
+     * Processes one packet. The socket is the one the packet was received on and is only used to
+     * send the response, so it is not closed by the worker.
+     */
     protected class UdpWorker implements Work, Disposable
     {
         private DatagramSocket socket = null;
@@ -220,18 +291,17 @@ public class UdpMessageReceiver extends AbstractMessageReceiver implements Work
 
         public void dispose()
         {
-            if (socket != null && !socket.isClosed())
+            releaseReceivedPacket();
+            socket = null;
+        }
+
+        private void releaseReceivedPacket()
+        {
+            if (packet != null)
             {
-                try
-                {
-                    socket.close();
-                }
-                catch (Exception e)
-                {
-                    logger.error("Socket close failed", e);
-                }
+                releasePacket(packet);
+                packet = null;
             }
-            socket = null;
         }
 
         /** Accept requests from a given Udp address */
@@ -240,20 +310,25 @@ public class UdpMessageReceiver extends AbstractMessageReceiver implements Work
             MuleMessage returnMessage = null;
             try
             {
-                MuleMessage message = createMuleMessage(packet, endpoint.getEncoding());
-                final SocketAddress clientAddress = socket.getRemoteSocketAddress();
-                if (clientAddress != null)
+                final SocketAddress clientAddress = packet.getSocketAddress();
+                MuleMessage message;
+                try
                 {
-                    message.setProperty(MuleProperties.MULE_REMOTE_CLIENT_ADDRESS, clientAddress, PropertyScope.INBOUND);
+                    message = createMuleMessage(packet, endpoint.getEncoding());
                 }
+                finally
+                {
+                    // the message has its own copy of the data
+                    releaseReceivedPacket();
+                }
+                message.setProperty(MuleProperties.MULE_REMOTE_CLIENT_ADDRESS, clientAddress, PropertyScope.INBOUND);
                 MuleEvent event = routeMessage(message);
                 returnMessage = event == null ? null : event.getMessage();
 
                 if (endpoint.getExchangePattern().hasResponse() && returnMessage != null)
                 {
                     byte[] data= returnMessage.getPayloadAsBytes();
-                    DatagramPacket result = new DatagramPacket(data, data.length,
-                        packet.getAddress(), packet.getPort());
+                    DatagramPacket result = new DatagramPacket(data, data.length, clientAddress);
                     socket.send(result);
                 }
             }
@@ -270,4 +345,40 @@ public class UdpMessageReceiver extends AbstractMessageReceiver implements Work
             }
         }
     }
+
+    /**
+     * Runs the workers of a batch of packets one after the other.
+     */
+    protected class BatchWorker implements Work
+    {
+        private final List<Work> works;
+
+        public BatchWorker(List<Work> works)
+        {
+            this.works = works;
+        }
+
+        public void run()
+        {
+            for (Work work : works)
+            {
+                try
+                {
+                    work.run();
+                }
+                finally
+                {
+                    work.release();
+                }
+            }
+        }
+
+        public void release()
+        {
+            for (Work work : works)
+            {
+                work.release();
+            }
+        }
+    }
 }
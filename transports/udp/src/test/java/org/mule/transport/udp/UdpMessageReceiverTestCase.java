@@ -6,6 +6,8 @@
  */
 package org.mule.transport.udp;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.mock;
 
 import org.mule.api.endpoint.EndpointBuilder;
@@ -15,6 +17,10 @@ import org.mule.api.transport.MessageReceiver;
 import org.mule.endpoint.EndpointURIEndpointBuilder;
 import org.mule.transport.AbstractMessageReceiverTestCase;
 
+import java.net.DatagramPacket;
+
+import org.junit.Test;
+
 public class UdpMessageReceiverTestCase extends AbstractMessageReceiverTestCase
 {
     @Override
@@ -35,4 +41,18 @@ public class UdpMessageReceiverTestCase extends AbstractMessageReceiverTestCase
         builder.setConnector(connector);
         return muleContext.getEndpointFactory().getInboundEndpoint(builder);
     }
+
+    @Test
+    public void reusesReleasedPackets() throws Exception
+    {
+        UdpMessageReceiver receiver = (UdpMessageReceiver) getMessageReceiver();
+
+        DatagramPacket packet = receiver.createPacket();
+        packet.setLength(5);
+        receiver.releasePacket(packet);
+
+        DatagramPacket reused = receiver.createPacket();
+        assertSame(packet, reused);
+        assertEquals(receiver.bufferSize, reused.getLength());
+    }
 }
@@ -33,6 +33,7 @@ public class UdpNamespaceHandlerTestCase extends FunctionalTestCase
         assertEquals(3456, c.getSendBufferSize());
         assertEquals(true, c.isBroadcast());
         assertEquals(false, c.isKeepSendSocketOpen());
+        assertEquals(10, c.getReceiveBatchSize());
 
         assertTrue(c.isConnected());
         assertTrue(c.isStarted());
@@ -24,6 +24,8 @@ import org.mule.util.queue.QueueManager;
 import org.mule.util.queue.QueueSession;
 
 import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * <code>VMConnector</code> A simple endpoint wrapper to allow a Mule service to
@@ -36,6 +38,8 @@ public class VMConnector extends AbstractConnector
     public static final String VM = "vm";
     private QueueProfile queueProfile;
     private Integer queueTimeout;
+    private boolean directHandoff = false;
+    private final ConcurrentMap<String, VMHandoffQueue> handoffQueues = new ConcurrentHashMap<String, VMHandoffQueue>();
 
     public VMConnector(MuleContext context)
     {
@@ -63,7 +67,7 @@ public class VMConnector extends AbstractConnector
     @Override
     protected void doDispose()
     {
-        // template method
+        handoffQueues.clear();
     }
 
     @Override
@@ -93,7 +97,7 @@ public class VMConnector extends AbstractConnector
     @Override
     public MessageReceiver createReceiver(FlowConstruct flowConstruct, InboundEndpoint endpoint) throws Exception
     {
-        if (!endpoint.getExchangePattern().hasResponse())
+        if (!endpoint.getExchangePattern().hasResponse() && !isDirectHandoffEnabled())
         {
             queueProfile.configureQueue(endpoint.getMuleContext(), endpoint.getEndpointURI().getAddress(), getQueueManager());
         }
@@ -207,6 +211,45 @@ public class VMConnector extends AbstractConnector
         this.queueTimeout = queueTimeout;
     }
 
+    public boolean isDirectHandoff()
+    {
+        return directHandoff;
+    }
+
+    /**
+     * Sets whether messages sent to one-way endpoints are handed directly to the receiver instead of
+     * going through the queue manager. It only applies when the queue profile is not persistent, and
+     * transacted endpoints are not supported in this mode.
+     */
+    public void setDirectHandoff(boolean directHandoff)
+    {
+        this.directHandoff = directHandoff;
+    }
+
+    /**
+     * @return whether one-way messages are handed directly to the receivers through a
+     *         {@link VMHandoffQueue}
+     */
+    boolean isDirectHandoffEnabled()
+    {
+        return directHandoff && !queueProfile.getObjectStore().isPersistent();
+    }
+
+    VMHandoffQueue getHandoffQueue(String address)
+    {
+        VMHandoffQueue queue = handoffQueues.get(address);
+        if (queue == null)
+        {
+            VMHandoffQueue newQueue = new VMHandoffQueue(address, queueProfile.getMaxOutstandingMessages());
+            queue = handoffQueues.putIfAbsent(address, newQueue);
+            if (queue == null)
+            {
+                queue = newQueue;
+            }
+        }
+        return queue;
+    }
+
     public QueueManager getQueueManager()
     {
         return getMuleContext().getQueueManager();
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.vm;
+
+import org.mule.api.MuleMessage;
+
+import java.util.Collection;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queue used by a {@link VMConnector} in direct handoff mode. Messages are passed from the
+ * dispatching thread to the receiver as they are, without going through the
+ * {@link org.mule.util.queue.QueueManager}, so they are neither copied into a queue store nor
+ * enlisted in a queue transaction.
+ * <p/>
+ * The queue itself is lock-free. A receiver waiting for a message is woken as soon as one is
+ * offered, and a dispatcher only waits when the queue is full.
+ */
+public class VMHandoffQueue
+{
+
+    private final String name;
+    private final LinkedTransferQueue<MuleMessage> messages = new LinkedTransferQueue<MuleMessage>();
+    private final Semaphore capacity;
+
+    /**
+     * @param name the address of the queue
+     * @param capacity the maximum number of messages in the queue, zero or less for no limit
+     */
+    public VMHandoffQueue(String name, int capacity)
+    {
+        this.name = name;
+        this.capacity = capacity > 0 ? new Semaphore(capacity) : null;
+    }
+
+    /**
+     * @return <code>false</code> if the queue was still full after waiting for the timeout
+     */
+    public boolean offer(MuleMessage message, long timeout) throws InterruptedException
+    {
+        if (capacity != null && !capacity.tryAcquire(timeout, TimeUnit.MILLISECONDS))
+        {
+            return false;
+        }
+        messages.offer(message);
+        return true;
+    }
+
+    /**
+     * @return the first message of the queue, or <code>null</code> if none arrived before the timeout
+     */
+    public MuleMessage poll(long timeout) throws InterruptedException
+    {
+        MuleMessage message = messages.poll(timeout, TimeUnit.MILLISECONDS);
+        if (message != null && capacity != null)
+        {
+            capacity.release();
+        }
+        return message;
+    }
+
+    /**
+     * Moves up to <code>maxMessages</code> messages that are already in the queue to the given
+     * collection without waiting.
+     *
+     * @return the number of messages moved
+     */
+    public int drainTo(Collection<? super MuleMessage> target, int maxMessages)
+    {
+        int drained = messages.drainTo(target, maxMessages);
+        if (drained > 0 && capacity != null)
+        {
+            capacity.release(drained);
+        }
+        return drained;
+    }
+
+    public int size()
+    {
+        return messages.size();
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+}
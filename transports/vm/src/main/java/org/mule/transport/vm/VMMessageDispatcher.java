@@ -10,6 +10,7 @@ import org.mule.DefaultMuleEvent;
 import org.mule.api.MuleEvent;
 import org.mule.api.MuleException;
 import org.mule.api.MuleMessage;
+import org.mule.api.ThreadSafeAccess;
 import org.mule.api.endpoint.EndpointURI;
 import org.mule.api.endpoint.OutboundEndpoint;
 import org.mule.api.transport.DispatchException;
@@ -19,6 +20,7 @@ import org.mule.api.execution.ExecutionCallback;
 import org.mule.api.execution.ExecutionTemplate;
 import org.mule.execution.TransactionalExecutionTemplate;
 import org.mule.transport.AbstractMessageDispatcher;
+import org.mule.transport.ConnectException;
 import org.mule.transport.vm.i18n.VMMessages;
 import org.mule.util.queue.Queue;
 import org.mule.util.queue.QueueSession;
@@ -45,6 +47,11 @@ public class VMMessageDispatcher extends AbstractMessageDispatcher
         {
             throw new DispatchException(CoreMessages.objectIsNull("Endpoint"), event, getEndpoint());
         }
+        if (connector.isDirectHandoffEnabled())
+        {
+            handOff(event, endpointUri);
+            return;
+        }
         MuleEvent eventToDispatch = DefaultMuleEvent.copy(event);
         eventToDispatch.clearFlowVariables();
         eventToDispatch.setMessage(eventToDispatch.getMessage().createInboundMessage());
@@ -62,6 +69,27 @@ public class VMMessageDispatcher extends AbstractMessageDispatcher
         }
     }
 
+    private void handOff(MuleEvent event, EndpointURI endpointUri) throws Exception
+    {
+        // The receiver takes ownership of the inbound message, only the receiver reads it from now on
+        // so neither the event nor the message need to be copied again
+        MuleMessage message = event.getMessage().createInboundMessage();
+        if (message instanceof ThreadSafeAccess)
+        {
+            ((ThreadSafeAccess) message).resetAccessControl();
+        }
+        VMHandoffQueue queue = connector.getHandoffQueue(endpointUri.getAddress());
+        if (!queue.offer(message, connector.getQueueTimeout()))
+        {
+            // queue is full
+            throw new DispatchException(VMMessages.queueIsFull(queue.getName(), queue.size()), event, getEndpoint());
+        }
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("handed off MuleMessage on endpointUri: " + endpointUri);
+        }
+    }
+
     private QueueSession getQueueSession() throws MuleException
     {
         return connector.getTransactionalResource(endpoint);
@@ -113,7 +141,14 @@ public class VMMessageDispatcher extends AbstractMessageDispatcher
     @Override
     protected void doConnect() throws Exception
     {
-        if (!endpoint.getExchangePattern().hasResponse())
+        if (connector.isDirectHandoffEnabled())
+        {
+            if (endpoint.getTransactionConfig().isTransacted())
+            {
+                throw new ConnectException(VMMessages.transactionsNotSupportedWithDirectHandoff(connector.getName()), this);
+            }
+        }
+        else if (!endpoint.getExchangePattern().hasResponse())
         {
             // use the default queue profile to configure this queue.
             connector.getQueueProfile().configureQueue(endpoint.getMuleContext(),
@@ -23,6 +23,7 @@ import org.mule.api.transport.Connector;
 import org.mule.transport.ContinuousPollingReceiverWorker;
 import org.mule.transport.PollingReceiverWorker;
 import org.mule.transport.TransactedPollingMessageReceiver;
+import org.mule.transport.vm.i18n.VMMessages;
 import org.mule.util.queue.Queue;
 import org.mule.util.queue.QueueSession;
 
@@ -46,6 +47,10 @@ public class VMMessageReceiver extends TransactedPollingMessageReceiver
         super(connector, flowConstruct, endpoint);
         this.setReceiveMessagesInTransaction(endpoint.getTransactionConfig().isTransacted());
         this.connector = (VMConnector) connector;
+        if (this.connector.isDirectHandoffEnabled() && isReceiveMessagesInTransaction())
+        {
+            throw new CreateException(VMMessages.transactionsNotSupportedWithDirectHandoff(connector.getName()), this);
+        }
     }
 
     /*
@@ -70,7 +75,7 @@ public class VMMessageReceiver extends TransactedPollingMessageReceiver
     @Override
     protected void doConnect() throws Exception
     {
-        if (!endpoint.getExchangePattern().hasResponse())
+        if (!endpoint.getExchangePattern().hasResponse() && !connector.isDirectHandoffEnabled())
         {
             // Ensure we can create a vm queue
             QueueSession queueSession = connector.getQueueSession();
@@ -174,11 +179,40 @@ public class VMMessageReceiver extends TransactedPollingMessageReceiver
             messages.add(message.getMessage());
             return messages;
         }
+        else if (connector.isDirectHandoffEnabled())
+        {
+            return getHandedOffMessages();
+        }
         else
         {
             return getFirstMessages();
         }
     }
+
+    /**
+     * Takes the messages handed off by the dispatchers. The receiver owns them, so unlike the messages
+     * taken from the queue manager they are not copied.
+     */
+    protected List<MuleMessage> getHandedOffMessages() throws Exception
+    {
+        VMHandoffQueue queue = connector.getHandoffQueue(endpoint.getEndpointURI().getAddress());
+        List<MuleMessage> messages = new ArrayList<MuleMessage>();
+
+        MuleMessage message = queue.poll(connector.getQueueTimeout());
+        if (message != null)
+        {
+            messages.add(message);
+            queue.drainTo(messages, getBatchSize(queue.size()));
+            for (MuleMessage handedOff : messages)
+            {
+                if (handedOff instanceof DefaultMuleMessage)
+                {
+                    ((DefaultMuleMessage) handedOff).setMuleContext(endpoint.getMuleContext());
+                }
+            }
+        }
+        return messages;
+    }
     
     protected List<MuleMessage> getFirstMessages() throws Exception
     {
@@ -227,6 +261,10 @@ public class VMMessageReceiver extends TransactedPollingMessageReceiver
     @Override
     protected boolean hasNoMessages()
     {
+        if (connector.isDirectHandoffEnabled())
+        {
+            return connector.getHandoffQueue(endpoint.getEndpointURI().getAddress()).size() == 0;
+        }
         try
         {
             QueueSession qs = connector.getQueueSession();
@@ -246,7 +284,16 @@ public class VMMessageReceiver extends TransactedPollingMessageReceiver
 
         if (message instanceof ThreadSafeAccess)
         {
-            message = (MuleMessage)((ThreadSafeAccess) message).newThreadCopy();
+            if (connector.isDirectHandoffEnabled())
+            {
+                // the message was handed off to this receiver, so it only needs to be unbound
+                // from the polling thread
+                ((ThreadSafeAccess) message).resetAccessControl();
+            }
+            else
+            {
+                message = (MuleMessage)((ThreadSafeAccess) message).newThreadCopy();
+            }
         }
         routeMessage(message);
     }
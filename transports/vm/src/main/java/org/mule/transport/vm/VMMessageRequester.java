@@ -11,6 +11,8 @@ import org.mule.api.MuleMessage;
 import org.mule.api.ThreadSafeAccess;
 import org.mule.api.endpoint.InboundEndpoint;
 import org.mule.transport.AbstractMessageRequester;
+import org.mule.transport.ConnectException;
+import org.mule.transport.vm.i18n.VMMessages;
 import org.mule.util.queue.Queue;
 import org.mule.util.queue.QueueSession;
 
@@ -42,6 +44,15 @@ public class VMMessageRequester extends AbstractMessageRequester
      */
     protected MuleMessage doRequest(long timeout) throws Exception
     {
+        if (connector.isDirectHandoffEnabled())
+        {
+            MuleMessage message = connector.getHandoffQueue(endpoint.getEndpointURI().getAddress()).poll(timeout);
+            if (message instanceof ThreadSafeAccess)
+            {
+                ((ThreadSafeAccess) message).resetAccessControl();
+            }
+            return message;
+        }
         try
         {
             QueueSession queueSession = connector.getTransactionalResource(endpoint);
@@ -106,6 +117,14 @@ public class VMMessageRequester extends AbstractMessageRequester
 
     protected void doConnect() throws Exception
     {
+        if (connector.isDirectHandoffEnabled())
+        {
+            if (endpoint.getTransactionConfig().isTransacted())
+            {
+                throw new ConnectException(VMMessages.transactionsNotSupportedWithDirectHandoff(connector.getName()), this);
+            }
+            return;
+        }
         // use the default queue profile to configure this queue.
         connector.getQueueProfile().configureQueue(
             getEndpoint().getMuleContext(), endpoint.getEndpointURI().getAddress(),
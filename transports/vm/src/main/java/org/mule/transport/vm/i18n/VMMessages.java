@@ -25,6 +25,11 @@ public class VMMessages extends MessageFactory
     {
         return factory.createMessage(BUNDLE_PATH, 2, queueName, maxCapacity);
     }
+
+    public static Message transactionsNotSupportedWithDirectHandoff(String name)
+    {
+        return factory.createMessage(BUNDLE_PATH, 3, name);
+    }
 }
 
 
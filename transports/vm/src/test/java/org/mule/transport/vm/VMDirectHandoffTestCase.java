@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.vm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.api.MuleMessage;
+import org.mule.api.client.MuleClient;
+import org.mule.tck.junit4.FunctionalTestCase;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.StringTokenizer;
+
+import org.junit.Test;
+
+public class VMDirectHandoffTestCase extends FunctionalTestCase
+{
+
+    public static final long WAIT = 3000L;
+
+    @Override
+    protected String getConfigFile()
+    {
+        return "vm/vm-direct-handoff-test-flow.xml";
+    }
+
+    @Test
+    public void handsOffMessagesWithoutQueueManager() throws Exception
+    {
+        VMConnector connector = (VMConnector) muleContext.getRegistry().lookupConnector("vmConnector");
+        assertTrue(connector.isDirectHandoffEnabled());
+
+        MuleClient client = muleContext.getClient();
+        client.dispatch("queue", "Marco", null);
+        MuleMessage response = client.request("queue", WAIT);
+        assertNotNull("Response is null", response);
+        assertEquals("Marco", response.getPayload());
+    }
+
+    @Test
+    public void passesMessagesThroughFlow() throws Exception
+    {
+        MuleClient client = muleContext.getClient();
+        Set<String> polos = new HashSet<String>(Arrays.asList("Marco", "Niccolo", "Maffeo"));
+        for (String person : polos)
+        {
+            client.dispatch("vm://entry", person, null);
+        }
+
+        for (int i = 0; i < 3; ++i)
+        {
+            MuleMessage response = client.request("queue", WAIT);
+            assertNotNull("Response is null", response);
+            String personName = new StringTokenizer((String) response.getPayload()).nextToken();
+            assertTrue(personName, polos.remove(personName));
+        }
+        assertFalse(muleContext.getQueueManager().getQueueSession().getQueue("foo").size() > 0);
+    }
+}
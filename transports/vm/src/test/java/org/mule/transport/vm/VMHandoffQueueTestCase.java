@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.vm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import org.mule.api.MuleMessage;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+@SmallTest
+public class VMHandoffQueueTestCase extends AbstractMuleTestCase
+{
+
+    private final VMHandoffQueue queue = new VMHandoffQueue("queue", 2);
+
+    @Test
+    public void rejectsMessagesWhenFull() throws Exception
+    {
+        assertTrue(queue.offer(mock(MuleMessage.class), 0));
+        assertTrue(queue.offer(mock(MuleMessage.class), 0));
+        assertFalse(queue.offer(mock(MuleMessage.class), 10));
+
+        queue.poll(0);
+        assertTrue(queue.offer(mock(MuleMessage.class), 0));
+    }
+
+    @Test
+    public void drainsMessagesAndFreesCapacity() throws Exception
+    {
+        MuleMessage first = mock(MuleMessage.class);
+        MuleMessage second = mock(MuleMessage.class);
+        queue.offer(first, 0);
+        queue.offer(second, 0);
+
+        List<MuleMessage> messages = new ArrayList<MuleMessage>();
+        assertEquals(2, queue.drainTo(messages, 5));
+        assertSame(first, messages.get(0));
+        assertSame(second, messages.get(1));
+        assertEquals(0, queue.size());
+        assertTrue(queue.offer(mock(MuleMessage.class), 0));
+        assertTrue(queue.offer(mock(MuleMessage.class), 0));
+    }
+
+    @Test
+    public void wakesWaitingReceiver() throws Exception
+    {
+        final MuleMessage message = mock(MuleMessage.class);
+        Thread dispatcher = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    Thread.sleep(50);
+                    queue.offer(message, 0);
+                }
+                catch (InterruptedException e)
+                {
+                    // test will fail
+                }
+            }
+        };
+        dispatcher.start();
+        assertSame(message, queue.poll(5000));
+        assertNull(queue.poll(0));
+    }
+}